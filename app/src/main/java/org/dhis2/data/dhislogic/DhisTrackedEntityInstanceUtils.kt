@@ -1,6 +1,7 @@
 package org.dhis2.data.dhislogic
 
 import org.hisp.dhis.android.core.D2
+import org.hisp.dhis.android.core.event.EventCollectionRepository
 import org.hisp.dhis.android.core.event.EventStatus
 import org.hisp.dhis.android.core.program.Program
 import java.util.Date
@@ -9,11 +10,27 @@ import javax.inject.Inject
 class DhisTrackedEntityInstanceUtils @Inject constructor(val d2: D2) {
 
     fun hasOverdueInProgram(trackedEntityInstanceUids: List<String>, program: Program): Boolean {
-        val programEventsRepository = d2.eventModule().events()
-            .byDeleted().isFalse
-            .byTrackedEntityInstanceUids(trackedEntityInstanceUids)
-            .byProgramUid().eq(program.uid())
+        return hasOverdueEvents(
+            d2.eventModule().events()
+                .byDeleted().isFalse
+                .byTrackedEntityInstanceUids(trackedEntityInstanceUids)
+                .byProgramUid().eq(program.uid()),
+        )
+    }
+
+    /**
+     * Checks if any event of the program is overdue, regardless of its tracked entity instance.
+     * Cheaper than [hasOverdueInProgram] as it does not need the list of instances.
+     */
+    fun hasOverdueInProgram(program: Program): Boolean {
+        return hasOverdueEvents(
+            d2.eventModule().events()
+                .byDeleted().isFalse
+                .byProgramUid().eq(program.uid()),
+        )
+    }
 
+    private fun hasOverdueEvents(programEventsRepository: EventCollectionRepository): Boolean {
         return !programEventsRepository
             .byStatus().eq(EventStatus.OVERDUE)
             .blockingIsEmpty() ||
@@ -34,17 +34,18 @@ import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.zip.DataFormatException;
-import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
 import io.reactivex.Observable;
 import timber.log.Timber;
 
-import static java.util.zip.Deflater.BEST_COMPRESSION;
 import static org.dhis2.data.qr.QRjson.ATTR_JSON;
 import static org.dhis2.data.qr.QRjson.DATA_JSON;
 import static org.dhis2.data.qr.QRjson.DATA_JSON_WO_REGISTRATION;
@@ -73,6 +74,11 @@ public class QRCodeGenerator implements QRInterface {
     private static final Pattern ATTR_PATTERN = Pattern.compile("\\$A(.+)");
     private static final Pattern DE_PATTERN = Pattern.compile("\\$D(.+)");
 
+    /**
+     * Keeps IN clauses below the SQLite host parameter limit.
+     */
+    private static final int UID_QUERY_BATCH_SIZE = 500;
+
     public QRCodeGenerator(D2 d2) {
         gson = new GsonBuilder().setDateFormat(DateUtils.DATABASE_FORMAT_EXPRESSION).create();
         this.d2 = d2;
@@ -244,30 +250,48 @@ public class QRCodeGenerator implements QRInterface {
         return bitmap;
     }
 
-    private String decodeData(String data) {
-        byte[] decodedBytes = Base64.decode(data, Base64.DEFAULT);
-        return new String(decodedBytes, StandardCharsets.UTF_8);
+    private byte[] decodeData(String data) {
+        return Base64.decode(data, Base64.DEFAULT);
     }
 
+    /**
+     * Emits one QR code per chunk of the TEI payload, see {@link QrChunks}.
+     */
     @Override
     public Observable<Bitmap> getUncodedData(String teiUid) {
         return Observable.fromCallable(() -> getData(teiUid))
-                .map(this::compress)
+                .flatMapIterable(QrChunks::split)
                 .map(QRCodeGenerator::transform);
     }
 
     @Override
     public Observable<byte[]> getNFCData(String teiUid) {
-        return Observable.fromCallable(() -> getData(teiUid))
-                .map(this::compress);
+        return Observable.fromCallable(() -> getData(teiUid));
     }
 
+    /**
+     * Reads the codes scanned for one TEI, one per chunk of the payload, in any order.
+     */
     @Override
-    public Observable<Boolean> setData(String inputData) {
-        return Observable.fromCallable(() -> decompress(decodeData(inputData).getBytes()))
+    public Observable<Boolean> setData(List<String> scannedCodes) {
+        return Observable.fromCallable(() -> {
+                    List<byte[]> chunks = new ArrayList<>(scannedCodes.size());
+                    for (String scannedCode : scannedCodes) {
+                        chunks.add(decodeData(scannedCode));
+                    }
+                    return decompressChunks(chunks);
+                })
                 .map(data -> getTEIInfo(data));
     }
 
+    /**
+     * Joins the chunks of a payload, see {@link QrChunks}, and inflates it as {@link #decompress}.
+     */
+    @Override
+    public String decompressChunks(Collection<byte[]> chunks) {
+        return decompress(QrChunks.join(chunks));
+    }
+
     private Boolean getTEIInfo(String formattedData) {
         String initialString = TEI_PATTERN.matcher(formattedData).group(1);
         String tei_substring = initialString.substring(0, initialString.indexOf(ENROLLMENT_FLAG));
@@ -286,36 +310,30 @@ public class QRCodeGenerator implements QRInterface {
         return true;
     }
 
-    public byte[] compress(String dataToCompress) {
-        byte[] input = dataToCompress.getBytes(StandardCharsets.UTF_8);
-        Deflater compresser = new Deflater(BEST_COMPRESSION);
-        compresser.setInput(input);
-        compresser.finish();
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        byte[] buf = new byte[8192];
-        while (!compresser.finished()) {
-            int byteCount = compresser.deflate(buf);
-            baos.write(buf, 0, byteCount);
-        }
-        compresser.end();
-        return baos.toByteArray();
-    }
-
+    /**
+     * Inflates a payload and returns it in the flagged text format. Binary TEI payloads are
+     * converted to text, older payloads are already text.
+     */
     @Override
     public String decompress(byte[] dataToDecompress) {
         if (dataToDecompress == null)
             return "DATA WAS NULL";
+        Inflater decompresser = new Inflater();
         try {
-            Inflater decompresser = new Inflater();
             decompresser.setInput(dataToDecompress);
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            byte[] buffer = new byte[100];
-            while (decompresser.inflate(buffer) != 0) {
-                outputStream.write(buffer);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(dataToDecompress.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!decompresser.finished()) {
+                int count = decompresser.inflate(buffer);
+                if (count == 0 && (decompresser.needsInput() || decompresser.needsDictionary())) {
+                    break;
+                }
+                outputStream.write(buffer, 0, count);
             }
-            decompresser.end();
-            outputStream.close();
             byte[] output = outputStream.toByteArray();
+            if (TeiPayloadReader.isTeiPayload(output)) {
+                return getText(TeiPayloadReader.readInflated(output));
+            }
             return new String(output, StandardCharsets.UTF_8);
         } catch (DataFormatException e) {
             Timber.e(e);
@@ -323,41 +341,103 @@ public class QRCodeGenerator implements QRInterface {
         } catch (IOException e) {
             Timber.e(e);
             return "";
+        } finally {
+            decompresser.end();
         }
     }
 
     /**
-     * BUILD DATA STRING
+     * BUILD DATA PAYLOAD
+     * The TEI graph is loaded with one query per table and streamed into the compressed
+     * payload, see {@link TeiPayloadWriter}.
      */
-    private String getData(String teiUid) {
-        StringBuilder dataBuilder = new StringBuilder();
-        dataBuilder.append(TEI_FLAG);
+    private byte[] getData(String teiUid) throws IOException {
         TrackedEntityInstance tei = d2.trackedEntityModule().trackedEntityInstances().uid(teiUid).blockingGet();
-        dataBuilder.append(setTeiData(tei));
+        List<TrackedEntityAttributeValue> teAttrValues = d2.trackedEntityModule().trackedEntityAttributeValues().byTrackedEntityInstance().eq(teiUid).blockingGet();
         List<Enrollment> enrollments = d2.enrollmentModule().enrollments().byTrackedEntityInstance().eq(teiUid).blockingGet();
+
+        List<String> enrollmentUids = new ArrayList<>(enrollments.size());
         for (Enrollment enrollment : enrollments) {
+            enrollmentUids.add(enrollment.uid());
+        }
+        List<Event> events = enrollmentUids.isEmpty() ? new ArrayList<>() :
+                d2.eventModule().events().byEnrollmentUid().in(enrollmentUids).blockingGet();
+        Map<String, List<Event>> eventsByEnrollment = new HashMap<>();
+        List<String> eventUids = new ArrayList<>(events.size());
+        for (Event event : events) {
+            addTo(eventsByEnrollment, event.enrollment(), event);
+            eventUids.add(event.uid());
+        }
+
+        Map<String, List<TrackedEntityDataValue>> dataValuesByEvent = new HashMap<>();
+        for (List<String> eventUidsBatch : batches(eventUids)) {
+            List<TrackedEntityDataValue> teDataValues = d2.trackedEntityModule().trackedEntityDataValues().byEvent().in(eventUidsBatch).blockingGet();
+            for (TrackedEntityDataValue dataValue : teDataValues) {
+                addTo(dataValuesByEvent, dataValue.event(), dataValue);
+            }
+        }
+
+        TeiPayloadWriter writer = new TeiPayloadWriter().writeTei(tei);
+        for (TrackedEntityAttributeValue attrValue : teAttrValues) {
+            writer.writeAttribute(attrValue);
+        }
+        for (Enrollment enrollment : enrollments) {
+            writer.writeEnrollment(enrollment);
+            for (Event event : valuesOf(eventsByEnrollment, enrollment.uid())) {
+                writer.writeEvent(event);
+                for (TrackedEntityDataValue dataValue : valuesOf(dataValuesByEvent, event.uid())) {
+                    writer.writeDataValue(dataValue);
+                }
+            }
+        }
+        return writer.finish();
+    }
+
+    private String getText(TeiPayload payload) {
+        StringBuilder dataBuilder = new StringBuilder();
+        dataBuilder.append(TEI_FLAG);
+        dataBuilder.append(setTeiData(payload.tei));
+        for (Enrollment enrollment : payload.enrollments) {
             dataBuilder.append(ENROLLMENT_FLAG);
             dataBuilder.append(setEnrollmentData(enrollment));
-            List<TrackedEntityAttributeValue> teAttrValues = d2.trackedEntityModule().trackedEntityAttributeValues().byTrackedEntityInstance().eq(teiUid).blockingGet();
-            for (TrackedEntityAttributeValue attrValue : teAttrValues) {
+            for (TrackedEntityAttributeValue attrValue : payload.attributeValues) {
                 dataBuilder.append(ATTR_FLAG);
                 dataBuilder.append(setAttrData(attrValue));
             }
-            List<Event> events = d2.eventModule().events().byEnrollmentUid().eq(enrollment.uid()).blockingGet();
-            for (Event event : events) {
+            for (Event event : payload.eventsOf(enrollment.uid())) {
                 dataBuilder.append(EVENT_FLAG);
                 dataBuilder.append(setEventData(event));
-                List<TrackedEntityDataValue> teDataValue = d2.trackedEntityModule().trackedEntityDataValues().byEvent().eq(event.uid()).blockingGet();
-                for (TrackedEntityDataValue dataValue : teDataValue) {
+                for (TrackedEntityDataValue dataValue : payload.dataValuesOf(event.uid())) {
                     dataBuilder.append(DE_FLAG);
                     dataBuilder.append(setTEDataValue(dataValue));
                 }
             }
         }
-
         return dataBuilder.toString();
     }
 
+    private static List<List<String>> batches(List<String> uids) {
+        List<List<String>> batches = new ArrayList<>();
+        for (int from = 0; from < uids.size(); from += UID_QUERY_BATCH_SIZE) {
+            batches.add(uids.subList(from, Math.min(from + UID_QUERY_BATCH_SIZE, uids.size())));
+        }
+        return batches;
+    }
+
+    private static <T> void addTo(Map<String, List<T>> map, String key, T value) {
+        List<T> values = map.get(key);
+        if (values == null) {
+            values = new ArrayList<>();
+            map.put(key, values);
+        }
+        values.add(value);
+    }
+
+    private static <T> List<T> valuesOf(Map<String, List<T>> map, String key) {
+        List<T> values = map.get(key);
+        return values != null ? values : new ArrayList<>();
+    }
+
     private String setAttrData(TrackedEntityAttributeValue attrValue) {
         List<String> data = new ArrayList<>();
         data.add(attrValue.trackedEntityAttribute());
@@ -4,6 +4,7 @@ import android.graphics.Bitmap;
 
 import org.dhis2.usescases.qrCodes.QrViewModel;
 
+import java.util.Collection;
 import java.util.List;
 
 import io.reactivex.Observable;
@@ -22,9 +23,11 @@ public interface QRInterface {
 
     Observable<byte[]> getNFCData(String teiUid);
 
-    Observable<Boolean> setData(String inputData);
+    Observable<Boolean> setData(List<String> scannedCodes);
 
     String decompress(byte[] dataToDecompress);
 
+    String decompressChunks(Collection<byte[]> chunks);
+
     String saveData(String data);
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package org.dhis2.data.qr;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Splits payloads too large for one QR code into several codes and joins them back.
+ * Every chunk starts with a marker byte, the CRC32 of the whole payload, and the chunk index
+ * and count. Payloads that fit in one code are not split, so single codes keep the plain
+ * deflate format. The marker never starts a deflate (zlib) stream.
+ */
+public final class QrChunks {
+
+    /**
+     * Keeps each code below the binary capacity of a QR code once the chunk is base64 encoded.
+     */
+    public static final int MAX_CHUNK_SIZE = 1500;
+
+    private static final byte CHUNK_MARKER = (byte) 0xC7;
+    private static final int HEADER_SIZE = 1 + 4 + 2 + 2;
+
+    private QrChunks() {
+    }
+
+    public static List<byte[]> split(byte[] payload) {
+        return split(payload, MAX_CHUNK_SIZE);
+    }
+
+    public static List<byte[]> split(byte[] payload, int maxChunkSize) {
+        if (payload.length <= maxChunkSize) {
+            return Collections.singletonList(payload);
+        }
+        int dataSize = maxChunkSize - HEADER_SIZE;
+        int chunkCount = (payload.length + dataSize - 1) / dataSize;
+        int payloadId = checksum(payload);
+
+        List<byte[]> chunks = new ArrayList<>(chunkCount);
+        for (int index = 0; index < chunkCount; index++) {
+            int offset = index * dataSize;
+            int length = Math.min(dataSize, payload.length - offset);
+            chunks.add(ByteBuffer.allocate(HEADER_SIZE + length)
+                    .put(CHUNK_MARKER)
+                    .putInt(payloadId)
+                    .putShort((short) index)
+                    .putShort((short) chunkCount)
+                    .put(payload, offset, length)
+                    .array());
+        }
+        return chunks;
+    }
+
+    public static boolean isChunk(byte[] data) {
+        return data.length > HEADER_SIZE && data[0] == CHUNK_MARKER;
+    }
+
+    public static int chunkCount(byte[] chunk) {
+        return ByteBuffer.wrap(chunk).getShort(7);
+    }
+
+    /**
+     * Joins the chunks of a payload, in any order.
+     *
+     * @throws IllegalArgumentException when chunks are missing, repeated or belong to
+     *                                  different payloads
+     */
+    public static byte[] join(Collection<byte[]> chunks) {
+        if (chunks.size() == 1 && !isChunk(chunks.iterator().next())) {
+            return chunks.iterator().next();
+        }
+        byte[][] orderedChunks = null;
+        int payloadId = 0;
+        int payloadSize = 0;
+        for (byte[] chunk : chunks) {
+            if (!isChunk(chunk)) {
+                throw new IllegalArgumentException("Not a QR payload chunk");
+            }
+            ByteBuffer header = ByteBuffer.wrap(chunk);
+            header.get();
+            int chunkPayloadId = header.getInt();
+            int index = header.getShort();
+            int count = header.getShort();
+            if (orderedChunks == null) {
+                orderedChunks = new byte[count][];
+                payloadId = chunkPayloadId;
+            } else if (chunkPayloadId != payloadId || count != orderedChunks.length) {
+                throw new IllegalArgumentException("QR chunks belong to different payloads");
+            }
+            if (index < 0 || index >= count || orderedChunks[index] != null) {
+                throw new IllegalArgumentException("Invalid QR chunk index " + index);
+            }
+            orderedChunks[index] = chunk;
+            payloadSize += chunk.length - HEADER_SIZE;
+        }
+        if (orderedChunks == null || chunks.size() != orderedChunks.length) {
+            throw new IllegalArgumentException("Missing QR chunks");
+        }
+
+        byte[] payload = new byte[payloadSize];
+        int offset = 0;
+        for (byte[] chunk : orderedChunks) {
+            int length = chunk.length - HEADER_SIZE;
+            System.arraycopy(chunk, HEADER_SIZE, payload, offset, length);
+            offset += length;
+        }
+        if (checksum(payload) != payloadId) {
+            throw new IllegalArgumentException("QR chunks do not match their checksum");
+        }
+        return payload;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
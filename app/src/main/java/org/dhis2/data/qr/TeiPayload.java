@@ -0,0 +1,66 @@
+package org.dhis2.data.qr;
+
+import org.hisp.dhis.android.core.enrollment.Enrollment;
+import org.hisp.dhis.android.core.event.Event;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttributeValue;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TEI graph read from a binary payload. Enrollments, events and data values keep the order
+ * they were written in and reference their parent by uid.
+ */
+public class TeiPayload {
+
+    public final TrackedEntityInstance tei;
+    public final List<TrackedEntityAttributeValue> attributeValues;
+    public final List<Enrollment> enrollments;
+    public final List<Event> events;
+    public final List<TrackedEntityDataValue> dataValues;
+
+    private final Map<String, List<Event>> eventsByEnrollment = new HashMap<>();
+    private final Map<String, List<TrackedEntityDataValue>> dataValuesByEvent = new HashMap<>();
+
+    TeiPayload(TrackedEntityInstance tei,
+               List<TrackedEntityAttributeValue> attributeValues,
+               List<Enrollment> enrollments,
+               List<Event> events,
+               List<TrackedEntityDataValue> dataValues) {
+        this.tei = tei;
+        this.attributeValues = attributeValues;
+        this.enrollments = enrollments;
+        this.events = events;
+        this.dataValues = dataValues;
+        for (Event event : events) {
+            addTo(eventsByEnrollment, event.enrollment(), event);
+        }
+        for (TrackedEntityDataValue dataValue : dataValues) {
+            addTo(dataValuesByEvent, dataValue.event(), dataValue);
+        }
+    }
+
+    public List<Event> eventsOf(String enrollmentUid) {
+        List<Event> enrollmentEvents = eventsByEnrollment.get(enrollmentUid);
+        return enrollmentEvents != null ? enrollmentEvents : Collections.emptyList();
+    }
+
+    public List<TrackedEntityDataValue> dataValuesOf(String eventUid) {
+        List<TrackedEntityDataValue> eventDataValues = dataValuesByEvent.get(eventUid);
+        return eventDataValues != null ? eventDataValues : Collections.emptyList();
+    }
+
+    private static <T> void addTo(Map<String, List<T>> map, String key, T value) {
+        List<T> values = map.get(key);
+        if (values == null) {
+            values = new ArrayList<>();
+            map.put(key, values);
+        }
+        values.add(value);
+    }
+}
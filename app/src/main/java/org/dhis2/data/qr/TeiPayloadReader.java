@@ -0,0 +1,203 @@
+package org.dhis2.data.qr;
+
+import org.hisp.dhis.android.core.common.State;
+import org.hisp.dhis.android.core.enrollment.Enrollment;
+import org.hisp.dhis.android.core.enrollment.EnrollmentStatus;
+import org.hisp.dhis.android.core.event.Event;
+import org.hisp.dhis.android.core.event.EventStatus;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttributeValue;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityInstance;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+
+import static org.dhis2.data.qr.TeiPayloadWriter.ATTRIBUTE;
+import static org.dhis2.data.qr.TeiPayloadWriter.DATA_VALUE;
+import static org.dhis2.data.qr.TeiPayloadWriter.END;
+import static org.dhis2.data.qr.TeiPayloadWriter.ENROLLMENT;
+import static org.dhis2.data.qr.TeiPayloadWriter.EVENT;
+import static org.dhis2.data.qr.TeiPayloadWriter.FORMAT_VERSION;
+import static org.dhis2.data.qr.TeiPayloadWriter.NO_DATE;
+import static org.dhis2.data.qr.TeiPayloadWriter.TEI;
+
+/**
+ * Reads the records written by {@link TeiPayloadWriter} back into a {@link TeiPayload}.
+ */
+public class TeiPayloadReader {
+
+    private final DataInputStream stream;
+
+    private TeiPayloadReader(InputStream records) {
+        this.stream = new DataInputStream(records);
+    }
+
+    /**
+     * @param payload compressed payload as returned by {@link TeiPayloadWriter#finish()}
+     */
+    public static TeiPayload read(byte[] payload) throws IOException {
+        try (InputStream records = new InflaterInputStream(new ByteArrayInputStream(payload))) {
+            return new TeiPayloadReader(records).read();
+        }
+    }
+
+    /**
+     * @param records records already inflated, starting with the format version
+     */
+    public static TeiPayload readInflated(byte[] records) throws IOException {
+        return new TeiPayloadReader(new ByteArrayInputStream(records)).read();
+    }
+
+    public static boolean isTeiPayload(byte[] inflatedData) {
+        return inflatedData.length > 0 && inflatedData[0] == FORMAT_VERSION;
+    }
+
+    private TeiPayload read() throws IOException {
+        byte version = stream.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported TEI payload version " + version);
+        }
+
+        TrackedEntityInstance tei = null;
+        List<TrackedEntityAttributeValue> attributeValues = new ArrayList<>();
+        List<Enrollment> enrollments = new ArrayList<>();
+        List<Event> events = new ArrayList<>();
+        List<TrackedEntityDataValue> dataValues = new ArrayList<>();
+        String teiUid = null;
+        String enrollmentUid = null;
+        String eventUid = null;
+
+        byte tag;
+        while ((tag = stream.readByte()) != END) {
+            switch (tag) {
+                case TEI:
+                    tei = readTei();
+                    teiUid = tei.uid();
+                    break;
+                case ATTRIBUTE:
+                    attributeValues.add(readAttribute(teiUid));
+                    break;
+                case ENROLLMENT:
+                    Enrollment enrollment = readEnrollment(teiUid);
+                    enrollmentUid = enrollment.uid();
+                    enrollments.add(enrollment);
+                    break;
+                case EVENT:
+                    Event event = readEvent(enrollmentUid);
+                    eventUid = event.uid();
+                    events.add(event);
+                    break;
+                case DATA_VALUE:
+                    dataValues.add(readDataValue(eventUid));
+                    break;
+                default:
+                    throw new IOException("Unknown TEI payload record " + tag);
+            }
+        }
+
+        if (tei == null) {
+            throw new IOException("TEI payload without TEI record");
+        }
+        return new TeiPayload(tei, attributeValues, enrollments, events, dataValues);
+    }
+
+    private TrackedEntityInstance readTei() throws IOException {
+        return TrackedEntityInstance.builder()
+                .uid(readString())
+                .created(readDate())
+                .organisationUnit(readString())
+                .trackedEntityType(readString())
+                .state(readState())
+                .build();
+    }
+
+    private TrackedEntityAttributeValue readAttribute(String teiUid) throws IOException {
+        return TrackedEntityAttributeValue.builder()
+                .trackedEntityAttribute(readString())
+                .value(readString())
+                .trackedEntityInstance(teiUid)
+                .build();
+    }
+
+    private Enrollment readEnrollment(String teiUid) throws IOException {
+        Enrollment.Builder builder = Enrollment.builder()
+                .uid(readString())
+                .created(readDate())
+                .organisationUnit(readString())
+                .program(readString())
+                .enrollmentDate(readDate())
+                .incidentDate(readDate())
+                .followUp(stream.readBoolean());
+        String status = readString();
+        return builder
+                .status(status != null ? EnrollmentStatus.valueOf(status) : null)
+                .state(readState())
+                .trackedEntityInstance(teiUid)
+                .build();
+    }
+
+    private Event readEvent(String enrollmentUid) throws IOException {
+        Event.Builder builder = Event.builder()
+                .uid(readString())
+                .created(readDate());
+        String status = readString();
+        return builder
+                .status(status != null ? EventStatus.valueOf(status) : null)
+                .program(readString())
+                .programStage(readString())
+                .eventDate(readDate())
+                .completedDate(readDate())
+                .dueDate(readDate())
+                .state(readState())
+                .organisationUnit(readString())
+                .enrollment(enrollmentUid)
+                .build();
+    }
+
+    private TrackedEntityDataValue readDataValue(String eventUid) throws IOException {
+        return TrackedEntityDataValue.builder()
+                .dataElement(readString())
+                .value(readString())
+                .event(eventUid)
+                .build();
+    }
+
+    private State readState() throws IOException {
+        String state = readString();
+        return state != null ? State.valueOf(state) : null;
+    }
+
+    private Date readDate() throws IOException {
+        long time = stream.readLong();
+        return time != NO_DATE ? new Date(time) : null;
+    }
+
+    private String readString() throws IOException {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        stream.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = stream.readByte();
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,140 @@
+package org.dhis2.data.qr;
+
+import org.hisp.dhis.android.core.common.State;
+import org.hisp.dhis.android.core.enrollment.Enrollment;
+import org.hisp.dhis.android.core.event.Event;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttributeValue;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityInstance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static java.util.zip.Deflater.BEST_COMPRESSION;
+
+/**
+ * Writes a TEI and its attributes, enrollments, events and data values as binary records
+ * straight into a deflate stream. Each record is a one byte tag followed by its fields:
+ * strings as a var-int length plus UTF-8 bytes (0 for null), dates as epoch millis.
+ * Records are read back by {@link TeiPayloadReader}.
+ */
+public class TeiPayloadWriter {
+
+    static final byte FORMAT_VERSION = 1;
+
+    static final byte TEI = 'T';
+    static final byte ATTRIBUTE = 'A';
+    static final byte ENROLLMENT = 'R';
+    static final byte EVENT = 'E';
+    static final byte DATA_VALUE = 'D';
+    static final byte END = 0;
+
+    static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final Deflater deflater = new Deflater(BEST_COMPRESSION);
+    private final DataOutputStream stream =
+            new DataOutputStream(new DeflaterOutputStream(output, deflater, BUFFER_SIZE));
+
+    public TeiPayloadWriter() throws IOException {
+        stream.writeByte(FORMAT_VERSION);
+    }
+
+    public TeiPayloadWriter writeTei(TrackedEntityInstance tei) throws IOException {
+        stream.writeByte(TEI);
+        writeString(tei.uid());
+        writeDate(tei.created());
+        writeString(tei.organisationUnit());
+        writeString(tei.trackedEntityType());
+        writeState(tei.state());
+        return this;
+    }
+
+    public TeiPayloadWriter writeAttribute(TrackedEntityAttributeValue attributeValue)
+            throws IOException {
+        stream.writeByte(ATTRIBUTE);
+        writeString(attributeValue.trackedEntityAttribute());
+        writeString(attributeValue.value());
+        return this;
+    }
+
+    public TeiPayloadWriter writeEnrollment(Enrollment enrollment) throws IOException {
+        stream.writeByte(ENROLLMENT);
+        writeString(enrollment.uid());
+        writeDate(enrollment.created());
+        writeString(enrollment.organisationUnit());
+        writeString(enrollment.program());
+        writeDate(enrollment.enrollmentDate());
+        writeDate(enrollment.incidentDate());
+        stream.writeBoolean(Boolean.TRUE.equals(enrollment.followUp()));
+        writeString(enrollment.status() != null ? enrollment.status().name() : null);
+        writeState(enrollment.state());
+        return this;
+    }
+
+    public TeiPayloadWriter writeEvent(Event event) throws IOException {
+        stream.writeByte(EVENT);
+        writeString(event.uid());
+        writeDate(event.created());
+        writeString(event.status() != null ? event.status().name() : null);
+        writeString(event.program());
+        writeString(event.programStage());
+        writeDate(event.eventDate());
+        writeDate(event.completedDate());
+        writeDate(event.dueDate());
+        writeState(event.state());
+        writeString(event.organisationUnit());
+        return this;
+    }
+
+    public TeiPayloadWriter writeDataValue(TrackedEntityDataValue dataValue) throws IOException {
+        stream.writeByte(DATA_VALUE);
+        writeString(dataValue.dataElement());
+        writeString(dataValue.value());
+        return this;
+    }
+
+    /**
+     * Closes the record stream and returns the compressed payload.
+     */
+    public byte[] finish() throws IOException {
+        stream.writeByte(END);
+        stream.close();
+        deflater.end();
+        return output.toByteArray();
+    }
+
+    private void writeState(State state) throws IOException {
+        writeString(state != null ? state.name() : null);
+    }
+
+    private void writeDate(Date date) throws IOException {
+        stream.writeLong(date != null ? date.getTime() : NO_DATE);
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(0);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            stream.write(bytes);
+        }
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            stream.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        stream.writeByte(remaining);
+    }
+}
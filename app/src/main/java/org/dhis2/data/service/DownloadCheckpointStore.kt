@@ -0,0 +1,65 @@
+package org.dhis2.data.service
+
+import org.dhis2.commons.prefs.PreferenceProvider
+
+const val CHECKPOINT_EVENTS = "EVENTS"
+const val CHECKPOINT_TRACKER = "TRACKER"
+
+private const val CHECKPOINT_KEY = "DOWNLOAD_CHECKPOINT_"
+private const val CHECKPOINT_TIME_KEY = "DOWNLOAD_CHECKPOINT_TIME_"
+private const val CHECKPOINT_MAX_AGE_MILLIS = 12 * 60 * 60 * 1000L
+private const val CHECKPOINT_SEPARATOR = "/"
+
+/**
+ * Program and org unit pairs already downloaded by an unfinished resumable download, grouped by
+ * scope (events or tracker). Checkpoints older than [maxAgeMillis] are ignored, so data changed
+ * on the server since then is downloaded again.
+ */
+class DownloadCheckpointStore(
+    private val preferences: PreferenceProvider,
+    private val maxAgeMillis: Long = CHECKPOINT_MAX_AGE_MILLIS,
+    private val currentTime: () -> Long = { System.currentTimeMillis() },
+) {
+
+    fun checkpoints(scope: String): Set<String> {
+        val checkpointTime = preferences.getLong(CHECKPOINT_TIME_KEY + scope, 0L) ?: 0L
+        if (currentTime() - checkpointTime > maxAgeMillis) {
+            clear(scope)
+            return emptySet()
+        }
+        return preferences.getSet(CHECKPOINT_KEY + scope, emptySet()) ?: emptySet()
+    }
+
+    /**
+     * @return true if every org unit of the program is checkpointed, or the program itself when
+     * it has no org units
+     */
+    fun isCompleted(
+        checkpoints: Set<String>,
+        programUid: String,
+        orgUnitUids: Collection<String>,
+    ): Boolean = checkpointKeys(programUid, orgUnitUids).all { checkpoints.contains(it) }
+
+    fun markCompleted(scope: String, programUid: String, orgUnitUids: Collection<String>) {
+        val completed = preferences.getSet(CHECKPOINT_KEY + scope, emptySet()) ?: emptySet()
+        if (completed.isEmpty()) {
+            preferences.setValue(CHECKPOINT_TIME_KEY + scope, currentTime())
+        }
+        preferences.setValue(
+            CHECKPOINT_KEY + scope,
+            completed + checkpointKeys(programUid, orgUnitUids),
+        )
+    }
+
+    fun clear(scope: String) {
+        preferences.removeValue(CHECKPOINT_KEY + scope)
+        preferences.removeValue(CHECKPOINT_TIME_KEY + scope)
+    }
+
+    private fun checkpointKeys(programUid: String, orgUnitUids: Collection<String>) =
+        if (orgUnitUids.isEmpty()) {
+            listOf(programUid)
+        } else {
+            orgUnitUids.map { programUid + CHECKPOINT_SEPARATOR + it }
+        }
+}
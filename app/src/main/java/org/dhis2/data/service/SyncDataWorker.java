@@ -23,7 +23,12 @@ import org.dhis2.commons.date.DateUtils;
 import org.dhis2.commons.network.NetworkUtils;
 import org.dhis2.commons.prefs.PreferenceProvider;
 
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import javax.inject.Inject;
@@ -34,6 +39,11 @@ public class SyncDataWorker extends Worker {
 
     private static final String DATA_CHANNEL = "sync_data_notification";
     private static final int SYNC_DATA_ID = 8071986;
+    private static final String STEP_EVENTS = "events";
+    private static final String STEP_TEIS = "teis";
+    private static final String STEP_DATA_VALUES = "dataValues";
+    private static final String STEP_RESOURCES = "resources";
+    private static final String STEP_RESERVED_VALUES = "reservedValues";
 
     @Inject
     SyncPresenter presenter;
@@ -61,80 +71,46 @@ public class SyncDataWorker extends Worker {
                 getApplicationContext().getString(R.string.syncing_data),
                 0);
 
-        boolean isEventOk = true;
-        boolean isTeiOk = true;
-        boolean isDataValue = true;
-
         long init = System.currentTimeMillis();
 
-        triggerNotification(
-                getApplicationContext().getString(R.string.app_name),
-                getApplicationContext().getString(R.string.syncing_events),
-                20);
-
-        try {
-            presenter.syncAndDownloadEvents();
-        } catch (Exception e) {
-            if (!new NetworkUtils(getApplicationContext()).isOnline()) {
-                presenter.setNetworkUnavailable();
-            }
-            Timber.e(e);
-            isEventOk = false;
-        }
-
-        triggerNotification(
-                getApplicationContext().getString(R.string.app_name),
-                getApplicationContext().getString(R.string.syncing_teis),
-                40);
-
-        try {
-            presenter.syncAndDownloadTeis();
-        } catch (Exception e) {
-            if (!new NetworkUtils(getApplicationContext()).isOnline()) {
-                presenter.setNetworkUnavailable();
-            }
-            Timber.e(e);
-            isTeiOk = false;
-        }
-
-        triggerNotification(
-                getApplicationContext().getString(R.string.app_name),
-                getApplicationContext().getString(R.string.syncing_data_sets),
-                60);
-
-        try {
-            presenter.syncAndDownloadDataValues();
-        } catch (Exception e) {
-            if (!new NetworkUtils(getApplicationContext()).isOnline()) {
-                presenter.setNetworkUnavailable();
-            }
-            Timber.e(e);
-            isDataValue = false;
-        }
-
-        triggerNotification(
-                getApplicationContext().getString(R.string.app_name),
-                getApplicationContext().getString(R.string.syncing_resources),
-                80);
-
-        try {
-            presenter.downloadResources();
-        } catch (Exception e) {
-            Timber.e(e);
-        }
-
-        triggerNotification(
-                getApplicationContext().getString(R.string.app_name),
-                "syncing reserved values",
-                95
+        List<SyncStep> steps = Arrays.asList(
+                new SyncStep(STEP_EVENTS, Collections.emptySet(),
+                        () -> runDataSyncStep(presenter::syncAndDownloadEvents)),
+                new SyncStep(STEP_TEIS, Collections.singleton(STEP_EVENTS),
+                        () -> runDataSyncStep(presenter::syncAndDownloadTeis)),
+                new SyncStep(STEP_DATA_VALUES, Collections.emptySet(),
+                        () -> runDataSyncStep(presenter::syncAndDownloadDataValues)),
+                new SyncStep(STEP_RESERVED_VALUES, Collections.emptySet(),
+                        presenter::syncReservedValues),
+                new SyncStep(STEP_RESOURCES,
+                        new HashSet<>(Arrays.asList(STEP_EVENTS, STEP_TEIS, STEP_DATA_VALUES)),
+                        presenter::downloadResources)
+        );
 
+        Map<String, SyncStepResult> results = new SyncStepScheduler().run(
+                steps,
+                new SyncStepListener() {
+                    @Override
+                    public void onStepStarted(@NonNull SyncStep step, int finishedSteps, int totalSteps) {
+                        triggerNotification(
+                                getApplicationContext().getString(R.string.app_name),
+                                getStepLabel(step.getName()),
+                                finishedSteps * 100 / totalSteps);
+                    }
+
+                    @Override
+                    public void onStepFinished(@NonNull SyncStepResult result, int finishedSteps, int totalSteps) {
+                        if (!result.isSuccess()) {
+                            Timber.e(result.getError());
+                        }
+                        presenter.logSyncStepTime(result.getName(), result.getDurationMillis(), result.isSuccess());
+                    }
+                }
         );
 
-        try {
-            presenter.syncReservedValues();
-        } catch (Exception e) {
-            Timber.e(e);
-        }
+        boolean isEventOk = isStepOk(results, STEP_EVENTS);
+        boolean isTeiOk = isStepOk(results, STEP_TEIS);
+        boolean isDataValue = isStepOk(results, STEP_DATA_VALUES);
 
         triggerNotification(
                 getApplicationContext().getString(R.string.app_name),
@@ -159,6 +135,37 @@ public class SyncDataWorker extends Worker {
         return Result.success(createOutputData(true));
     }
 
+    private void runDataSyncStep(SyncStepAction step) throws Exception {
+        try {
+            step.run();
+        } catch (Exception e) {
+            if (!new NetworkUtils(getApplicationContext()).isOnline()) {
+                presenter.setNetworkUnavailable();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isStepOk(Map<String, SyncStepResult> results, String stepName) {
+        SyncStepResult result = results.get(stepName);
+        return result != null && result.isSuccess();
+    }
+
+    private String getStepLabel(String stepName) {
+        switch (stepName) {
+            case STEP_EVENTS:
+                return getApplicationContext().getString(R.string.syncing_events);
+            case STEP_TEIS:
+                return getApplicationContext().getString(R.string.syncing_teis);
+            case STEP_DATA_VALUES:
+                return getApplicationContext().getString(R.string.syncing_data_sets);
+            case STEP_RESOURCES:
+                return getApplicationContext().getString(R.string.syncing_resources);
+            default:
+                return "syncing reserved values";
+        }
+    }
+
     @Override
     public void onStopped() {
         cancelNotification();
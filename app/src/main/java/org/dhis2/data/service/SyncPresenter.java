@@ -67,6 +67,8 @@ interface SyncPresenter {
 
     void logTimeToFinish(long millisToFinish, String eventName);
 
+    void logSyncStepTime(String stepName, long millisToFinish, boolean success);
+
     void updateProyectAnalytics();
 
     void initSyncControllerMap();
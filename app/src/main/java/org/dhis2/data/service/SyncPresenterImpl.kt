@@ -6,6 +6,7 @@ import androidx.work.ExistingWorkPolicy
 import androidx.work.ListenableWorker
 import io.reactivex.Completable
 import io.reactivex.Observable
+import org.dhis2.bindings.ValueMetadataCache
 import org.dhis2.bindings.toSeconds
 import org.dhis2.commons.prefs.Preference.Companion.DATA
 import org.dhis2.commons.prefs.Preference.Companion.EVENT_MAX
@@ -13,6 +14,7 @@ import org.dhis2.commons.prefs.Preference.Companion.EVENT_MAX_DEFAULT
 import org.dhis2.commons.prefs.Preference.Companion.LIMIT_BY_ORG_UNIT
 import org.dhis2.commons.prefs.Preference.Companion.LIMIT_BY_PROGRAM
 import org.dhis2.commons.prefs.Preference.Companion.META
+import org.dhis2.commons.prefs.Preference.Companion.RESUMABLE_DATA_DOWNLOAD
 import org.dhis2.commons.prefs.Preference.Companion.TEI_MAX
 import org.dhis2.commons.prefs.Preference.Companion.TEI_MAX_DEFAULT
 import org.dhis2.commons.prefs.Preference.Companion.TIME_DAILY
@@ -22,15 +24,18 @@ import org.dhis2.commons.prefs.PreferenceProvider
 import org.dhis2.data.service.workManager.WorkManagerController
 import org.dhis2.data.service.workManager.WorkerItem
 import org.dhis2.data.service.workManager.WorkerType
+import org.dhis2.mobileProgramRules.RuleEngineContextCache
 import org.dhis2.utils.DateUtils
 import org.dhis2.utils.analytics.AnalyticsHelper
 import org.dhis2.utils.analytics.matomo.DEFAULT_EXTERNAL_TRACKER_NAME
 import org.hisp.dhis.android.core.D2
 import org.hisp.dhis.android.core.arch.call.D2Progress
 import org.hisp.dhis.android.core.arch.call.D2ProgressStatus
+import org.hisp.dhis.android.core.arch.call.D2ProgressSyncStatus
 import org.hisp.dhis.android.core.common.State
 import org.hisp.dhis.android.core.fileresource.FileResourceDomainType
 import org.hisp.dhis.android.core.imports.TrackerImportConflict
+import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
 import org.hisp.dhis.android.core.program.ProgramType
 import org.hisp.dhis.android.core.settings.GeneralSettings
 import org.hisp.dhis.android.core.settings.LimitScope
@@ -50,6 +55,8 @@ class SyncPresenterImpl(
     private val syncRepository: SyncRepository,
 ) : SyncPresenter {
 
+    private val checkpointStore = DownloadCheckpointStore(preferences)
+
     override fun initSyncControllerMap() {
         Completable.fromCallable {
             val programMap: Map<String, D2ProgressStatus> =
@@ -80,23 +87,40 @@ class SyncPresenterImpl(
         val programEventUids = d2.programModule().programs()
             .byProgramType().eq(ProgramType.WITHOUT_REGISTRATION)
             .blockingGetUids()
+        val eventDownload = if (isResumableDownload(limitByProgram)) {
+            resumableDownload(
+                CHECKPOINT_EVENTS,
+                programEventUids,
+                captureOrgUnitsByProgram(programEventUids),
+            ) { programUid ->
+                d2.eventModule()
+                    .eventDownloader()
+                    .byProgramUid(programUid)
+                    .limit(eventLimit)
+                    .limitByOrgunit(limitByOU)
+                    .limitByProgram(limitByProgram)
+                    .download()
+            }
+        } else {
+            Completable.fromObservable(
+                d2.eventModule()
+                    .eventDownloader()
+                    .limit(eventLimit)
+                    .limitByOrgunit(limitByOU)
+                    .limitByProgram(limitByProgram)
+                    .download()
+                    .doOnNext { d2Progress ->
+                        syncStatusController.updateDownloadProcess(
+                            d2Progress.programs().filter { entry ->
+                                programEventUids.contains(entry.key)
+                            },
+                        )
+                    },
+            )
+        }
         Completable.fromObservable(d2.eventModule().events().upload())
             .andThen(
-                Completable.fromObservable(
-                    d2.eventModule()
-                        .eventDownloader()
-                        .limit(eventLimit)
-                        .limitByOrgunit(limitByOU)
-                        .limitByProgram(limitByProgram)
-                        .download()
-                        .doOnNext { d2Progress ->
-                            syncStatusController.updateDownloadProcess(
-                                d2Progress.programs().filter { entry ->
-                                    programEventUids.contains(entry.key)
-                                },
-                            )
-                        },
-                )
+                eventDownload
                     .doOnError {
                         Timber.d("error while downloading Events")
                     }
@@ -148,27 +172,45 @@ class SyncPresenterImpl(
             .byProgramType().eq(ProgramType.WITH_REGISTRATION)
             .blockingGetUids()
 
+        val teiDownload = if (isResumableDownload(limitByProgram)) {
+            resumableDownload(
+                CHECKPOINT_TRACKER,
+                trackerProgramUids,
+                captureOrgUnitsByProgram(trackerProgramUids),
+            ) { programUid ->
+                d2.trackedEntityModule()
+                    .trackedEntityInstanceDownloader()
+                    .byProgramUid(programUid)
+                    .limit(teiLimit)
+                    .limitByOrgunit(limitByOU)
+                    .limitByProgram(limitByProgram)
+                    .download()
+            }
+        } else {
+            Completable.fromObservable(
+                d2.trackedEntityModule()
+                    .trackedEntityInstanceDownloader()
+                    .limit(teiLimit)
+                    .limitByOrgunit(limitByOU)
+                    .limitByProgram(limitByProgram)
+                    .download()
+                    .doOnNext { data ->
+                        val percentage = data.percentage()
+                        val callsDone = data.doneCalls().size
+                        val totalCalls = data.totalCalls()
+                        Timber.d("$percentage% $callsDone/$totalCalls")
+                        syncStatusController.updateDownloadProcess(
+                            data.programs().filter { entry ->
+                                trackerProgramUids.contains(entry.key)
+                            },
+                        )
+                    },
+            )
+        }
+
         Completable.fromObservable(d2.trackedEntityModule().trackedEntityInstances().upload())
             .andThen(
-                Completable.fromObservable(
-                    d2.trackedEntityModule()
-                        .trackedEntityInstanceDownloader()
-                        .limit(teiLimit)
-                        .limitByOrgunit(limitByOU)
-                        .limitByProgram(limitByProgram)
-                        .download()
-                        .doOnNext { data ->
-                            val percentage = data.percentage()
-                            val callsDone = data.doneCalls().size
-                            val totalCalls = data.totalCalls()
-                            Timber.d("$percentage% $callsDone/$totalCalls")
-                            syncStatusController.updateDownloadProcess(
-                                data.programs().filter { entry ->
-                                    trackerProgramUids.contains(entry.key)
-                                },
-                            )
-                        },
-                )
+                teiDownload
                     .doOnError { Timber.d("error while downloading TEIs") }
                     .onErrorComplete()
                     .doOnComplete {
@@ -180,6 +222,85 @@ class SyncPresenterImpl(
             .blockingAwait()
     }
 
+    /**
+     * Downloading program by program applies the limit to each program, so downloads with a
+     * global limit always use a single download.
+     */
+    private fun isResumableDownload(limitByProgram: Boolean) =
+        limitByProgram && preferences.getBoolean(RESUMABLE_DATA_DOWNLOAD, false)
+
+    /**
+     * Downloads each program on its own, saving a checkpoint for each of its capture org units
+     * when the program finishes, so an interrupted sync only downloads the programs left.
+     * Programs failing, or whose last progress reports an error, are left unfinished for the
+     * next sync while the rest keep downloading.
+     * A program is downloaded again if any of its org units is not checkpointed, like an org unit
+     * assigned to it after the checkpoint was saved.
+     */
+    @VisibleForTesting
+    fun resumableDownload(
+        scope: String,
+        programUids: List<String>,
+        programOrgUnits: Map<String, List<String>>,
+        programDownload: (programUid: String) -> Observable<TrackerD2Progress>,
+    ): Completable = Completable.fromCallable {
+        val checkpoints = checkpointStore.checkpoints(scope)
+        val (completedPrograms, pendingPrograms) = programUids.partition { programUid ->
+            checkpointStore.isCompleted(
+                checkpoints,
+                programUid,
+                programOrgUnits[programUid].orEmpty(),
+            )
+        }
+        syncStatusController.updateDownloadProcess(
+            completedPrograms.associateWith {
+                D2ProgressStatus(true, D2ProgressSyncStatus.SUCCESS)
+            },
+        )
+
+        var allProgramsCompleted = true
+        pendingPrograms.forEach { programUid ->
+            try {
+                var lastSyncStatus: D2ProgressSyncStatus? = null
+                Completable.fromObservable(
+                    programDownload(programUid).doOnNext { d2Progress ->
+                        val programProgress = d2Progress.programs().filterKeys { it == programUid }
+                        programProgress[programUid]?.let { lastSyncStatus = it.syncStatus }
+                        syncStatusController.updateDownloadProcess(programProgress)
+                    },
+                ).blockingAwait()
+                if (lastSyncStatus == D2ProgressSyncStatus.ERROR) {
+                    Timber.d("program $programUid finished downloading with errors")
+                    allProgramsCompleted = false
+                    return@forEach
+                }
+                checkpointStore.markCompleted(
+                    scope,
+                    programUid,
+                    programOrgUnits[programUid].orEmpty(),
+                )
+                syncStatusController.updateDownloadProcess(
+                    mapOf(programUid to D2ProgressStatus(true, D2ProgressSyncStatus.SUCCESS)),
+                )
+            } catch (e: Exception) {
+                Timber.d(e, "error while downloading program $programUid")
+                allProgramsCompleted = false
+            }
+        }
+
+        if (allProgramsCompleted) {
+            checkpointStore.clear(scope)
+        }
+    }
+
+    private fun captureOrgUnitsByProgram(programUids: List<String>): Map<String, List<String>> =
+        programUids.associateWith { programUid ->
+            d2.organisationUnitModule().organisationUnits()
+                .byOrganisationUnitScope(OrganisationUnit.Scope.SCOPE_DATA_CAPTURE)
+                .byProgramUids(listOf(programUid))
+                .blockingGetUids()
+        }
+
     override fun syncAndDownloadDataValues() {
         if (!d2.dataSetModule().dataSets().blockingIsEmpty()) {
             Completable.fromObservable(d2.dataValueModule().dataValues().upload())
@@ -206,6 +327,8 @@ class SyncPresenterImpl(
                     progressUpdate.onProgressUpdate(ceil(data.percentage() ?: 0.0).toInt())
                 }
                 .doOnComplete {
+                    RuleEngineContextCache.invalidate()
+                    ValueMetadataCache.invalidate()
                     updateProyectAnalytics()
                     setUpSMS()
                 },
@@ -623,6 +746,10 @@ class SyncPresenterImpl(
         )
     }
 
+    override fun logSyncStepTime(stepName: String, millisToFinish: Long, success: Boolean) {
+        syncStatusController.onSyncStepFinished(stepName, millisToFinish, success)
+    }
+
     override fun updateProyectAnalytics() {
         getSettings()?.let {
             if (it.matomoID() != null && it.matomoURL() != null) {
@@ -9,15 +9,19 @@ import timber.log.Timber
 class SyncStatusController {
     private var progressStatusMap: Map<String, D2ProgressStatus> = emptyMap()
     private val downloadStatus = MutableLiveData(SyncStatusData(isInitialSync = true))
+    private var syncStepTimes: Map<String, Long> = emptyMap()
 
     fun observeDownloadProcess(): LiveData<SyncStatusData> = downloadStatus
 
+    @Synchronized
     fun initDownloadProcess(programDownload: Map<String, D2ProgressStatus>) {
         Timber.tag("SYNC").d("INIT DATA SYNC")
         progressStatusMap = programDownload
+        syncStepTimes = emptyMap()
         downloadStatus.postValue(SyncStatusData(true, false, progressStatusMap))
     }
 
+    @Synchronized
     fun updateDownloadProcess(programDownload: Map<String, D2ProgressStatus>) {
         Timber.tag("SYNC").d("Updating PROGRAM")
         progressStatusMap = progressStatusMap.toMutableMap().also {
@@ -28,14 +32,23 @@ class SyncStatusController {
         )
     }
 
+    @Synchronized
     fun finishSync() {
         Timber.tag("SYNC").d("FINISH DATA SYNC")
+        if (syncStepTimes.isNotEmpty()) {
+            Timber.tag("SYNC").d(
+                "DATA SYNC STEPS: %s",
+                syncStepTimes.entries.joinToString { "${it.key} ${it.value} ms" },
+            )
+            syncStepTimes = emptyMap()
+        }
         progressStatusMap = progressStatusMap.toMutableMap()
         downloadStatus.postValue(
             SyncStatusData(false, false, progressStatusMap),
         )
     }
 
+    @Synchronized
     fun onNetworkUnavailable() {
         progressStatusMap = progressStatusMap.toMutableMap().mapValues { entry ->
             if (entry.value.isComplete) {
@@ -49,6 +62,7 @@ class SyncStatusController {
         )
     }
 
+    @Synchronized
     fun finishDownloadingEvents(eventProgramUids: List<String>) {
         Timber.tag("SYNC").d("FINISHED EVENTS")
         progressStatusMap = progressStatusMap.toMutableMap().mapValues { entry ->
@@ -63,6 +77,7 @@ class SyncStatusController {
         )
     }
 
+    @Synchronized
     fun finishDownloadingTracker(trackerProgramUids: List<String>) {
         Timber.tag("SYNC").d("FINISHED TRACKER")
 
@@ -78,6 +93,7 @@ class SyncStatusController {
         )
     }
 
+    @Synchronized
     fun updateSingleProgramToSuccess(programUid: String) {
         progressStatusMap = progressStatusMap.toMutableMap().mapValues { entry ->
             if (programUid != entry.key) {
@@ -91,6 +107,7 @@ class SyncStatusController {
         )
     }
 
+    @Synchronized
     fun initDownloadMedia() {
         Timber.tag("SYNC").d("INIT FILES")
 
@@ -99,6 +116,12 @@ class SyncStatusController {
         )
     }
 
+    @Synchronized
+    fun onSyncStepFinished(stepName: String, durationMillis: Long, success: Boolean) {
+        Timber.tag("SYNC").d("STEP $stepName FINISHED IN $durationMillis ms (success: $success)")
+        syncStepTimes = syncStepTimes.toMutableMap().also { it[stepName] = durationMillis }
+    }
+
     fun restore() {
         downloadStatus.postValue(SyncStatusData())
     }
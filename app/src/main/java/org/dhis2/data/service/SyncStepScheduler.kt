@@ -0,0 +1,108 @@
+package org.dhis2.data.service
+
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Executors
+
+private const val DEFAULT_MAX_PARALLELISM = 2
+
+fun interface SyncStepAction {
+    @Throws(Exception::class)
+    fun run()
+}
+
+data class SyncStep(
+    val name: String,
+    val dependsOn: Set<String> = emptySet(),
+    val action: SyncStepAction,
+)
+
+data class SyncStepResult(
+    val name: String,
+    val durationMillis: Long,
+    val error: Throwable? = null,
+) {
+    val isSuccess: Boolean
+        get() = error == null
+}
+
+interface SyncStepListener {
+    fun onStepStarted(step: SyncStep, finishedSteps: Int, totalSteps: Int)
+    fun onStepFinished(result: SyncStepResult, finishedSteps: Int, totalSteps: Int)
+}
+
+/**
+ * Runs sync steps as a dependency graph: a step starts once every step it depends on has
+ * finished, and independent steps run at the same time up to [maxParallelism].
+ *
+ * A failing step does not stop its dependants, as every step syncs whatever it can on its
+ * own. Listener callbacks are invoked on the thread calling [run].
+ */
+class SyncStepScheduler(
+    private val maxParallelism: Int = DEFAULT_MAX_PARALLELISM,
+) {
+
+    fun run(
+        steps: List<SyncStep>,
+        listener: SyncStepListener? = null,
+    ): Map<String, SyncStepResult> {
+        validate(steps)
+        val results = LinkedHashMap<String, SyncStepResult>()
+        if (steps.isEmpty()) return results
+
+        val executor = Executors.newFixedThreadPool(maxParallelism.coerceIn(1, steps.size))
+        val completionService = ExecutorCompletionService<SyncStepResult>(executor)
+        val pending = steps.toMutableList()
+        var running = 0
+
+        try {
+            while (results.size < steps.size) {
+                val readySteps = pending.filter { results.keys.containsAll(it.dependsOn) }
+                readySteps.take(maxParallelism.coerceAtLeast(1) - running).forEach { step ->
+                    pending.remove(step)
+                    running++
+                    listener?.onStepStarted(step, results.size, steps.size)
+                    completionService.submit { execute(step) }
+                }
+
+                val result = completionService.take().get()
+                running--
+                results[result.name] = result
+                listener?.onStepFinished(result, results.size, steps.size)
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+        return results
+    }
+
+    private fun execute(step: SyncStep): SyncStepResult {
+        val init = System.currentTimeMillis()
+        val error = try {
+            step.action.run()
+            null
+        } catch (e: Exception) {
+            e
+        }
+        return SyncStepResult(step.name, System.currentTimeMillis() - init, error)
+    }
+
+    private fun validate(steps: List<SyncStep>) {
+        val names = steps.map { it.name }
+        require(names.size == names.toSet().size) { "Duplicated sync step names: $names" }
+        steps.forEach { step ->
+            val unknown = step.dependsOn - names.toSet()
+            require(unknown.isEmpty()) { "Sync step ${step.name} depends on unknown $unknown" }
+        }
+
+        val resolved = mutableSetOf<String>()
+        var remaining = steps
+        while (remaining.isNotEmpty()) {
+            val (ready, blocked) = remaining.partition { resolved.containsAll(it.dependsOn) }
+            require(ready.isNotEmpty()) {
+                "Sync steps have circular dependencies: ${blocked.map { it.name }}"
+            }
+            ready.forEach { resolved.add(it.name) }
+            remaining = blocked
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.hisp.dhis.android.core.arch.helpers.Result
 import org.hisp.dhis.android.core.common.ValueType
 import org.hisp.dhis.android.core.dataelement.DataElement
 import timber.log.Timber
+import java.util.concurrent.ConcurrentHashMap
 import kotlin.coroutines.CoroutineContext
 
 class DataValuePresenter(
@@ -56,6 +57,8 @@ class DataValuePresenter(
 
     private val errors: MutableMap<String, String> = mutableMapOf()
 
+    private val numericGrids: MutableMap<String, NumericCellGrid> = ConcurrentHashMap()
+
     private val dataSetInfo = repository.getDataSetInfo()
 
     private var job = Job()
@@ -91,7 +94,7 @@ class DataValuePresenter(
     private fun tables() = repository.getCatCombo().map {
         it.map { categoryCombo ->
             val dataTable = repository.getDataTableModel(categoryCombo).blockingFirst()
-            mapper(repository.setTableData(dataTable, errors))
+            mapper(repository.setTableData(dataTable, errors).also { storeNumericGrid(it) })
         }
     }
 
@@ -108,6 +111,7 @@ class DataValuePresenter(
             repository.getDataTableModel(catComboUid)
                 .blockingFirst()
         val tableData = repository.setTableData(dataTableModel, errors)
+        storeNumericGrid(tableData)
         val updatedTableModel = mapper(tableData)
 
         val updatedTables = screenState.value.tables.map { tableModel ->
@@ -125,6 +129,86 @@ class DataValuePresenter(
         }
     }
 
+    private fun storeNumericGrid(tableData: TableData) {
+        val catComboUid = tableData.catCombo()?.uid() ?: return
+        val numericGrid = tableData.numericGrid
+        if (numericGrid != null) {
+            numericGrids[catComboUid] = numericGrid
+        } else {
+            numericGrids.remove(catComboUid)
+        }
+    }
+
+    /**
+     * Updates the saved cell and the totals depending on it without building the table again.
+     * Returns false when the cell is not a numeric cell of a known table, in which case the
+     * table has to be reloaded.
+     * */
+    private fun updateTotals(catComboUid: String, cell: TableCell): Boolean {
+        val numericGrid = numericGrids[catComboUid] ?: return false
+        val tableModel = screenState.value.tables.find { it.id == catComboUid } ?: return false
+        val row = cell.row ?: return false
+        val column = cell.column
+        if (
+            row !in 0 until numericGrid.rowCount ||
+            column !in 0 until numericGrid.columnCount ||
+            !numericGrid.isNumericRow(row) ||
+            tableModel.tableRows.getOrNull(row)?.values?.get(column)?.id != cell.id
+        ) {
+            return false
+        }
+
+        val (rowTotal, totalRow) = synchronized(numericGrid) {
+            numericGrid.set(row, column, cell.value)
+            Pair(numericGrid.rowTotal(row), numericGrid.totalRow())
+        }
+        val totalsColumn = numericGrid.columnCount
+
+        val updatedTableModel = tableModel.copy(
+            tableRows = tableModel.tableRows.mapIndexed { rowIndex, tableRow ->
+                when (rowIndex) {
+                    row -> tableRow.copy(
+                        values = tableRow.values.mapValues { (columnIndex, tableCell) ->
+                            when (columnIndex) {
+                                column -> tableCell.copy(
+                                    value = cell.value,
+                                    error = null,
+                                    warning = null,
+                                )
+                                totalsColumn -> tableCell.copy(value = rowTotal.toString())
+                                else -> tableCell
+                            }
+                        },
+                    )
+                    numericGrid.rowCount -> tableRow.copy(
+                        values = tableRow.values.mapValues { (columnIndex, tableCell) ->
+                            when (columnIndex) {
+                                column, totalsColumn -> tableCell.copy(
+                                    value = totalRow[columnIndex].toString(),
+                                )
+                                else -> tableCell
+                            }
+                        },
+                    )
+                    else -> tableRow
+                }
+            },
+        )
+
+        val updatedTables = screenState.value.tables.map { table ->
+            when (table.id) {
+                catComboUid -> updatedTableModel
+                INDICATORS_TABLE_ID -> indicatorTables() ?: table
+                else -> table
+            }
+        }
+
+        screenState.update { currentScreenState ->
+            currentScreenState.copy(tables = updatedTables)
+        }
+        return true
+    }
+
     fun onDettach() {
         disposable.clear()
     }
@@ -253,10 +337,13 @@ class DataValuePresenter(
             if (saveResult == ERROR_UPDATING_VALUE) {
                 errors[cell.id!!] =
                     storeResult.valueStoreResultMessage ?: "-"
+                updateData(catComboUid!!)
             } else {
                 errors.remove(cell.id!!)
+                if (!updateTotals(catComboUid!!, cell)) {
+                    updateData(catComboUid)
+                }
             }
-            updateData(catComboUid!!)
         }
     }
 
@@ -34,6 +34,7 @@ import org.hisp.dhis.android.core.dataset.DataSetElement
 import org.hisp.dhis.android.core.datavalue.DataValue
 import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
 import org.hisp.dhis.android.core.period.Period
+import java.util.BitSet
 import java.util.SortedMap
 
 class DataValueRepository(
@@ -344,13 +345,6 @@ class DataValueRepository(
         }
     }
 
-    private fun getCatOptionFromCatOptionCombo(
-        categoryOptionCombo: CategoryOptionCombo,
-    ): List<CategoryOption> {
-        return d2.categoryModule().categoryOptionCombos().withCategoryOptions()
-            .uid(categoryOptionCombo.uid()).blockingGet()?.categoryOptions() ?: emptyList()
-    }
-
     private fun getCatOptionFromUid(catOption: String): CategoryOption? {
         return d2.categoryModule().categoryOptions().uid(catOption).blockingGet()
     }
@@ -558,43 +552,34 @@ class DataValueRepository(
             dataTableModel.catOptionOrder,
         )
 
-        val conflicts = d2.dataValueConflicts(
-            dataSetUid,
-            periodId,
-            orgUnitUid,
-            attributeOptionComboUid,
-        )
+        val showRowTotals = showRowTotals()
+        val showColumnTotals = showColumnTotals()
+        val tableIndex = getSectionTableIndex(dataTableModel)
+        val readOnlyCategoryOptionCombos = getReadOnlyCategoryOptionCombos(categorOptionCombos)
+        val numericGrid = createNumericGrid(dataTableModel.rows, categorOptionCombos.size)
 
         for (dataElement in dataTableModel.rows ?: emptyList()) {
             val values = ArrayList<String>()
             val fields = ArrayList<FieldViewModel>()
-            var totalRow = 0.0
             val fieldIsNumber = dataElement.valueType()!!.isNumeric
             if (!isNumber) {
                 isNumber = dataElement.valueType()!!.isNumeric
             }
+            val isTotalRow = dataElement.isTotalRow()
 
             val options = getOptionsForOptionSet(dataElement.optionSetUid())
 
             for (
             categoryOptionCombo in categorOptionCombos
             ) {
-                val isEditable = validateIfIsEditable(
-                    dataTableModel.dataElementDisabled!!,
-                    dataElement,
-                    categoryOptionCombo,
-                )
+                val isEditable =
+                    !tableIndex.isDisabled(dataElement.uid(), categoryOptionCombo.uid()) &&
+                        !readOnlyCategoryOptionCombos.contains(categoryOptionCombo.uid())
 
-                val mandatory = dataTableModel.compulsoryCells?.find { compulsoryDataElement ->
-                    compulsoryDataElement.categoryOptionCombo()
-                        ?.uid() == categoryOptionCombo.uid() &&
-                        compulsoryDataElement.dataElement()?.uid() == dataElement.uid()
-                }?.let { true } ?: false
+                val mandatory =
+                    tableIndex.isCompulsory(dataElement.uid(), categoryOptionCombo.uid())
 
-                val fieldValue = dataTableModel.dataValues?.find { dataSetTableModel ->
-                    dataSetTableModel.dataElement == dataElement.uid() &&
-                        dataSetTableModel.categoryOptionCombo == categoryOptionCombo.uid()
-                }?.value
+                val fieldValue = tableIndex.value(dataElement.uid(), categoryOptionCombo.uid())
 
                 var fieldViewModel = fieldFactory.create(
                     dataElement.uid() + "_" + categoryOptionCombo.uid(),
@@ -618,29 +603,18 @@ class DataValueRepository(
                     options,
                 )
 
-                val valueStateSyncState = d2.dataValueModule().dataValues()
-                    .byDataSetUid(dataSetUid)
-                    .byPeriod().eq(periodId)
-                    .byOrganisationUnitUid().eq(orgUnitUid)
-                    .byAttributeOptionComboUid().eq(attributeOptionComboUid)
-                    .byDataElementUid().eq(dataElement.uid())
-                    .byCategoryOptionComboUid().eq(categoryOptionCombo.uid())
-                    .blockingGet()
-                    .find { it.dataElement() == dataElement.uid() }
-                    ?.syncState()
-
-                val conflictInField =
-                    conflicts.takeIf {
-                        when (valueStateSyncState) {
-                            State.ERROR,
-                            State.WARNING,
-                            -> true
-
-                            else -> false
-                        }
-                    }?.filter {
-                        "${it.dataElement()}_${it.categoryOptionCombo()}" == fieldViewModel.uid()
-                    }?.takeIf { it.isNotEmpty() }?.map { it.displayDescription() ?: "" }
+                val valueStateSyncState =
+                    tableIndex.syncState(dataElement.uid(), categoryOptionCombo.uid())
+
+                val conflictInField = tableIndex.takeIf {
+                    when (valueStateSyncState) {
+                        State.ERROR,
+                        State.WARNING,
+                        -> true
+
+                        else -> false
+                    }
+                }?.conflicts(dataElement.uid(), categoryOptionCombo.uid())
 
                 val error = errors[fieldViewModel.uid()]
 
@@ -680,16 +654,15 @@ class DataValueRepository(
 
                 values.add(fieldViewModel.value().toString())
 
-                if (showRowTotals() && fieldIsNumber &&
-                    fieldViewModel.value()?.isNotEmpty() == true
-                ) {
-                    totalRow += fieldViewModel.value()!!.toDouble()
+                if (!isTotalRow) {
+                    numericGrid.set(row, column, fieldViewModel.value())
                 }
 
                 column++
             }
 
-            if (showRowTotals() && fieldIsNumber) {
+            if (showRowTotals && fieldIsNumber) {
+                val totalRow = if (isTotalRow) 0.0 else numericGrid.rowTotal(row)
                 setTotalRow(totalRow, fields, values, row, column)
             }
 
@@ -700,16 +673,17 @@ class DataValueRepository(
         }
 
         if (isNumber) {
-            if (showColumnTotals()) {
+            if (showColumnTotals) {
                 setTotalColumn(
                     listFields,
                     cells,
                     dataTableModel.rows ?: mutableListOf(),
                     row,
                     column,
+                    numericGrid.totalRow(),
                 )
             }
-            if (showRowTotals()) {
+            if (showRowTotals) {
                 for (i in dataTableModel.header!!.indices) {
                     if (i == dataTableModel.header.size - 1) {
                         dataTableModel.header[i].add(
@@ -728,31 +702,87 @@ class DataValueRepository(
             }
         }
 
+        val dataSet = getDataSet().blockingFirst()
+        val dataInputPeriod = getDataInputPeriod()
         val isEditable = canWriteAny().blockingFirst() &&
-            !isExpired(getDataSet().blockingFirst()) &&
+            !isExpired(dataSet) &&
             (
-                getDataInputPeriod() == null || (
-                    getDataInputPeriod() != null && DateUtils.getInstance()
-                        .isInsideInputPeriod(
-                            getDataInputPeriod(),
-                        )
+                dataInputPeriod == null || DateUtils.getInstance()
+                    .isInsideInputPeriod(
+                        dataInputPeriod,
                     )
                 ) &&
             !isApproval().blockingFirst()
 
-        val hasDataElementDecoration = getDataSet().blockingFirst()?.dataElementDecoration() == true
+        val hasDataElementDecoration = dataSet?.dataElementDecoration() == true
 
         return TableData(
             dataTableModel,
             listFields,
             cells,
             isEditable,
-            showRowTotals(),
-            showColumnTotals(),
+            showRowTotals,
+            showColumnTotals,
             hasDataElementDecoration,
+            numericGrid,
         )
     }
 
+    private fun createNumericGrid(
+        dataElements: List<DataElement>?,
+        columnCount: Int,
+    ): NumericCellGrid {
+        val rows = dataElements?.filterNot { it.isTotalRow() } ?: emptyList()
+        val numericRows = BitSet(rows.size)
+        rows.forEachIndexed { index, dataElement ->
+            if (dataElement.valueType()?.isNumeric == true) {
+                numericRows.set(index)
+            }
+        }
+        return NumericCellGrid(rows.size, columnCount, numericRows)
+    }
+
+    private fun getSectionTableIndex(dataTableModel: DataTableModel): SectionTableIndex {
+        val dataElementUids = dataTableModel.rows?.map { it.uid() } ?: emptyList()
+        val storedValues = d2.dataValueModule().dataValues()
+            .byDataSetUid(dataSetUid)
+            .byPeriod().eq(periodId)
+            .byOrganisationUnitUid().eq(orgUnitUid)
+            .byAttributeOptionComboUid().eq(attributeOptionComboUid)
+            .byDataElementUid().`in`(dataElementUids)
+            .blockingGet()
+
+        return SectionTableIndex(
+            dataValues = dataTableModel.dataValues ?: emptyList(),
+            storedValues = storedValues,
+            conflicts = d2.dataValueConflicts(
+                dataSetUid,
+                periodId,
+                orgUnitUid,
+                attributeOptionComboUid,
+            ),
+            compulsoryCells = dataTableModel.compulsoryCells ?: emptyList(),
+            disabledCells = dataTableModel.dataElementDisabled ?: emptyList(),
+        )
+    }
+
+    private fun getReadOnlyCategoryOptionCombos(
+        categoryOptionCombos: List<CategoryOptionCombo>,
+    ): Set<String> {
+        return d2.categoryModule().categoryOptionCombos().withCategoryOptions()
+            .byUid().`in`(UidsHelper.getUidsList(categoryOptionCombos))
+            .blockingGet()
+            .filter { categoryOptionCombo ->
+                categoryOptionCombo.categoryOptions()?.any {
+                    !it.access().data().write()
+                } ?: false
+            }
+            .map { it.uid() }
+            .toHashSet()
+    }
+
+    private fun DataElement.isTotalRow() = uid().isEmpty() && displayName() == "Total"
+
     private fun isExpired(dataSet: DataSet?): Boolean {
         return if (0 == dataSet?.expiryDays()) {
             false
@@ -846,6 +876,7 @@ class DataValueRepository(
         dataElements: MutableList<DataElement>,
         row: Int,
         columnPos: Int,
+        columnTotals: DoubleArray,
     ) {
         val fieldFactory = FieldViewModelFactoryImpl(
             "",
@@ -854,26 +885,14 @@ class DataValueRepository(
 
         val fields = ArrayList<FieldViewModel>()
         val values = ArrayList<String>()
-        var existTotal = false
-        for (data in dataElements)
-            if (data.displayName() == "Total") {
-                existTotal = true
-            }
+        val existTotal = dataElements.any { it.isTotalRow() }
 
         if (existTotal) {
             listFields.removeAt(listFields.size - 1)
-            cells.removeAt(listFields.size - 1)
+            cells.removeAt(cells.size - 1)
         }
 
-        val totals = DoubleArray(cells[0].size)
-        for (dataValues in cells) {
-            for (i in dataValues.indices) {
-                if (dataValues[i].isNotEmpty()) {
-                    val value = dataValues[i].toDoubleOrNull() ?: 0.0
-                    totals[i] += value
-                }
-            }
-        }
+        val totals = columnTotals.copyOf(cells[0].size)
 
         for (column in totals) {
             fields.add(
@@ -917,31 +936,6 @@ class DataValueRepository(
         }
     }
 
-    private fun validateIfIsEditable(
-        dataElementDisabled: List<DataElementOperand>,
-        dataElement: DataElement,
-        categoryOptionCombo: CategoryOptionCombo,
-    ): Boolean {
-        var editable = true
-        for (disabledDataElement in dataElementDisabled) {
-            if (disabledDataElement.categoryOptionCombo() != null &&
-                disabledDataElement.categoryOptionCombo()!!.uid() == categoryOptionCombo.uid() &&
-                disabledDataElement.dataElement()!!.uid() == dataElement.uid() &&
-                disabledDataElement.categoryOptionCombo()!!.uid() == categoryOptionCombo.uid()
-            ) {
-                editable = false
-            }
-        }
-
-        for (categoryOption in getCatOptionFromCatOptionCombo(categoryOptionCombo)) {
-            if (!categoryOption.access().data().write()) {
-                editable = false
-            }
-        }
-
-        return editable
-    }
-
     fun getDataElement(dataElementUid: String): DataElement? {
         return d2.dataElementModule()
             .dataElements()
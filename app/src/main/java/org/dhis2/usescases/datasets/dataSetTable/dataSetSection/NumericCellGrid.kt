@@ -0,0 +1,76 @@
+package org.dhis2.usescases.datasets.dataSetTable.dataSetSection
+
+import java.util.BitSet
+
+/**
+ * Numeric values of a section table stored in a flat array, with a bit set marking which
+ * cells hold a value. Row, column and grand totals are kept up to date on every change, so
+ * editing a cell does not require summing the whole table again.
+ *
+ * Only rows flagged as [numericRows] contribute to their row total and to the grand total,
+ * every row contributes to the column totals.
+ */
+class NumericCellGrid(
+    val rowCount: Int,
+    val columnCount: Int,
+    private val numericRows: BitSet,
+) {
+    private val values = DoubleArray(rowCount * columnCount)
+    private val validCells = BitSet(rowCount * columnCount)
+    private val rowTotals = DoubleArray(rowCount)
+    private val columnTotals = DoubleArray(columnCount)
+    private var grandTotal = 0.0
+
+    fun set(row: Int, column: Int, value: Double?) {
+        val index = index(row, column)
+        val isNumericRow = numericRows.get(row)
+        if (validCells.get(index)) {
+            add(row, column, isNumericRow, -values[index])
+        }
+        if (value != null) {
+            values[index] = value
+            validCells.set(index)
+            add(row, column, isNumericRow, value)
+        } else {
+            values[index] = 0.0
+            validCells.clear(index)
+        }
+    }
+
+    fun set(row: Int, column: Int, value: String?) = set(row, column, value?.toDoubleOrNull())
+
+    fun get(row: Int, column: Int): Double? {
+        val index = index(row, column)
+        return if (validCells.get(index)) values[index] else null
+    }
+
+    fun isNumericRow(row: Int) = numericRows.get(row)
+
+    fun rowTotal(row: Int) = rowTotals[row]
+
+    fun columnTotal(column: Int) = columnTotals[column]
+
+    fun grandTotal() = grandTotal
+
+    /**
+     * Column totals followed by the grand total, matching the layout of the total row.
+     */
+    fun totalRow(): DoubleArray = columnTotals.copyOf(columnCount + 1).also {
+        it[columnCount] = grandTotal
+    }
+
+    private fun add(row: Int, column: Int, isNumericRow: Boolean, amount: Double) {
+        columnTotals[column] += amount
+        if (isNumericRow) {
+            rowTotals[row] += amount
+            grandTotal += amount
+        }
+    }
+
+    private fun index(row: Int, column: Int): Int {
+        if (row !in 0 until rowCount || column !in 0 until columnCount) {
+            throw IndexOutOfBoundsException("Cell ($row, $column) is outside the grid")
+        }
+        return row * columnCount + column
+    }
+}
@@ -0,0 +1,72 @@
+package org.dhis2.usescases.datasets.dataSetTable.dataSetSection
+
+import org.dhis2.usescases.datasets.dataSetTable.DataSetTableModel
+import org.hisp.dhis.android.core.common.State
+import org.hisp.dhis.android.core.dataelement.DataElementOperand
+import org.hisp.dhis.android.core.datavalue.DataValue
+import org.hisp.dhis.android.core.datavalue.DataValueConflict
+
+/**
+ * Per cell data of a section table, keyed by data element and category option combo so
+ * building the table does not query or scan a list for every cell.
+ */
+class SectionTableIndex(
+    dataValues: List<DataSetTableModel>,
+    storedValues: List<DataValue>,
+    conflicts: List<DataValueConflict>,
+    compulsoryCells: List<DataElementOperand>,
+    disabledCells: List<DataElementOperand>,
+) {
+    private val values = HashMap<String, String?>(dataValues.size).apply {
+        dataValues.forEach { dataValue ->
+            val key = cellKey(dataValue.dataElement, dataValue.categoryOptionCombo)
+            if (!containsKey(key)) put(key, dataValue.value)
+        }
+    }
+
+    private val syncStates = HashMap<String, State?>(storedValues.size).apply {
+        storedValues.forEach { dataValue ->
+            val key = cellKey(dataValue.dataElement(), dataValue.categoryOptionCombo())
+            if (!containsKey(key)) put(key, dataValue.syncState())
+        }
+    }
+
+    private val conflictDescriptions = conflicts.groupBy(
+        keySelector = { cellKey(it.dataElement(), it.categoryOptionCombo()) },
+        valueTransform = { it.displayDescription() ?: "" },
+    )
+
+    private val compulsory = compulsoryCells.operandKeys()
+
+    private val disabled = disabledCells.operandKeys()
+
+    fun value(dataElementUid: String, catOptionComboUid: String): String? =
+        values[cellKey(dataElementUid, catOptionComboUid)]
+
+    fun syncState(dataElementUid: String, catOptionComboUid: String): State? =
+        syncStates[cellKey(dataElementUid, catOptionComboUid)]
+
+    fun conflicts(dataElementUid: String, catOptionComboUid: String): List<String>? =
+        conflictDescriptions[cellKey(dataElementUid, catOptionComboUid)]
+
+    fun isCompulsory(dataElementUid: String, catOptionComboUid: String) =
+        compulsory.contains(cellKey(dataElementUid, catOptionComboUid))
+
+    fun isDisabled(dataElementUid: String, catOptionComboUid: String) =
+        disabled.contains(cellKey(dataElementUid, catOptionComboUid))
+
+    private fun List<DataElementOperand>.operandKeys() = mapNotNull { operand ->
+        val dataElementUid = operand.dataElement()?.uid()
+        val catOptionComboUid = operand.categoryOptionCombo()?.uid()
+        if (dataElementUid != null && catOptionComboUid != null) {
+            cellKey(dataElementUid, catOptionComboUid)
+        } else {
+            null
+        }
+    }.toHashSet()
+
+    companion object {
+        fun cellKey(dataElementUid: String?, catOptionComboUid: String?) =
+            "${dataElementUid}_$catOptionComboUid"
+    }
+}
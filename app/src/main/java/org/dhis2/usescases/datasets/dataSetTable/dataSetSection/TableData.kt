@@ -11,6 +11,7 @@ data class TableData(
     val showRowTotals: Boolean = false,
     val showColumnTotals: Boolean = false,
     val hasDataElementDecoration: Boolean,
+    val numericGrid: NumericCellGrid? = null,
 ) {
     fun columnHeaders() = dataTableModel.header
     fun catCombo() = dataTableModel.catCombo
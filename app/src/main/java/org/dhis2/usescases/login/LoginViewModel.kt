@@ -12,6 +12,7 @@ import io.reactivex.disposables.CompositeDisposable
 import kotlinx.coroutines.async
 import kotlinx.coroutines.launch
 import org.dhis2.R
+import org.dhis2.bindings.ValueMetadataCache
 import org.dhis2.commons.Constants.PREFS_URLS
 import org.dhis2.commons.Constants.PREFS_USERS
 import org.dhis2.commons.Constants.USER_TEST_ANDROID
@@ -32,6 +33,7 @@ import org.dhis2.commons.viewmodel.DispatcherProvider
 import org.dhis2.data.fingerprint.FingerPrintController
 import org.dhis2.data.fingerprint.Type
 import org.dhis2.data.server.UserManager
+import org.dhis2.form.data.AutoCompleteStore
 import org.dhis2.usescases.main.MainActivity
 import org.dhis2.utils.TestingCredential
 import org.dhis2.utils.analytics.ACCOUNT_RECOVERY
@@ -309,6 +311,8 @@ class LoginViewModel(
                     .subscribe(
                         {
                             preferenceProvider.setValue(SESSION_LOCKED, false)
+                            AutoCompleteStore.clearAll()
+                            ValueMetadataCache.invalidate()
                             view.handleLogout()
                         },
                         { view.handleLogout() },
@@ -320,6 +324,7 @@ class LoginViewModel(
     @VisibleForTesting
     fun handleResponse(userResponse: Response<*>) {
         if (userResponse.isSuccessful) {
+            ValueMetadataCache.invalidate()
             updateServerUrls()
             updateLoginUsers()
             val displayTrackingMessage = hasToDisplayTrackingMessage()
@@ -14,6 +14,7 @@ import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.launch
 import org.dhis2.BuildConfig
+import org.dhis2.bindings.ValueMetadataCache
 import org.dhis2.commons.Constants
 import org.dhis2.commons.filters.FilterManager
 import org.dhis2.commons.filters.data.FilterRepository
@@ -39,6 +40,7 @@ import org.dhis2.data.service.VersionRepository
 import org.dhis2.data.service.workManager.WorkManagerController
 import org.dhis2.data.service.workManager.WorkerItem
 import org.dhis2.data.service.workManager.WorkerType
+import org.dhis2.form.data.AutoCompleteStore
 import org.dhis2.usescases.login.SyncIsPerformedInteractor
 import org.dhis2.usescases.settings.DeleteUserData
 import org.dhis2.usescases.sync.WAS_INITIAL_SYNC_DONE
@@ -199,6 +201,8 @@ class MainPresenter(
                 workManagerController.cancelAllWork()
                 syncStatusController.restore()
                 FilterManager.getInstance().clearAllFilters()
+                AutoCompleteStore.clearAll()
+                ValueMetadataCache.invalidate()
                 preferences.setValue(Preference.SESSION_LOCKED, false)
                 userManager.d2.dataStoreModule().localDataStore().value(PIN).blockingDeleteIfExist()
             }.andThen(
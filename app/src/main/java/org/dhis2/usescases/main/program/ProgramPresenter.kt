@@ -65,6 +65,7 @@ class ProgramPresenter internal constructor(
                 .subscribe(
                     {
                         view.showFilterProgress()
+                        programRepository.clearCountCache()
                         applyFiler.onNext(filterManager)
                     },
                     { Timber.e(it) },
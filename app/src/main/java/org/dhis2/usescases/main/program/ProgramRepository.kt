@@ -8,4 +8,5 @@ internal interface ProgramRepository {
     fun programModels(syncStatusData: SyncStatusData): Flowable<List<ProgramViewModel>>
     fun aggregatesModels(syncStatusData: SyncStatusData): Flowable<List<ProgramViewModel>>
     fun clearCache()
+    fun clearCountCache()
 }
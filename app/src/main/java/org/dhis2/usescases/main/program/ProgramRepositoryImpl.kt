@@ -13,11 +13,11 @@ import org.dhis2.data.dhislogic.DhisTrackedEntityInstanceUtils
 import org.dhis2.data.service.SyncStatusData
 import org.hisp.dhis.android.core.D2
 import org.hisp.dhis.android.core.arch.call.D2ProgressSyncStatus
-import org.hisp.dhis.android.core.common.State
 import org.hisp.dhis.android.core.program.Program
 import org.hisp.dhis.android.core.program.ProgramType.WITHOUT_REGISTRATION
 import org.hisp.dhis.android.core.program.ProgramType.WITH_REGISTRATION
 import org.hisp.dhis.mobile.ui.designsystem.theme.SurfaceColor
+import java.util.concurrent.ConcurrentHashMap
 
 internal class ProgramRepositoryImpl(
     private val d2: D2,
@@ -32,6 +32,8 @@ internal class ProgramRepositoryImpl(
     private val programViewModelMapper = ProgramViewModelMapper()
     private var lastSyncStatus: SyncStatusData? = null
     private var baseProgramCache: List<ProgramViewModel> = emptyList()
+    private var programCache: Map<String, Program> = emptyMap()
+    private val programCountCache = ConcurrentHashMap<String, Pair<Int, Boolean>>()
 
     override fun homeItems(syncStatusData: SyncStatusData): Flowable<List<ProgramViewModel>> {
         return programModels(syncStatusData).onErrorReturn { arrayListOf() }
@@ -57,6 +59,11 @@ internal class ProgramRepositoryImpl(
 
     override fun clearCache() {
         baseProgramCache = emptyList()
+        programCountCache.clear()
+    }
+
+    override fun clearCountCache() {
+        programCountCache.clear()
     }
 
     private fun aggregatesModels(): Flowable<List<ProgramViewModel>> {
@@ -89,13 +96,16 @@ internal class ProgramRepositoryImpl(
             baseProgramCache.ifEmpty {
                 baseProgramCache = basePrograms()
                 baseProgramCache
-            }.applyFilters()
+            }.applyFilters(syncStatusData)
                 .applySync(syncStatusData)
         }
     }
 
     private fun basePrograms(): List<ProgramViewModel> {
         return dhisProgramUtils.getProgramsInCaptureOrgUnits()
+            .doOnNext { programs ->
+                programCache = programs.associateBy { it.uid() }
+            }
             .flatMap { programs ->
                 ParallelFlowable.from(Flowable.fromIterable(programs))
                     .runOn(schedulerProvider.io())
@@ -128,21 +138,28 @@ internal class ProgramRepositoryImpl(
             }.toList().toFlowable().blockingFirst()
     }
 
-    private fun List<ProgramViewModel>.applyFilters(): List<ProgramViewModel> {
+    private fun List<ProgramViewModel>.applyFilters(
+        syncStatusData: SyncStatusData,
+    ): List<ProgramViewModel> {
+        filter { syncStatusData.wasProgramDownloading(lastSyncStatus, it.uid) }
+            .forEach { programCountCache.remove(it.uid) }
+
+        Flowable.fromIterable(filterNot { programCountCache.containsKey(it.uid) })
+            .parallel()
+            .runOn(schedulerProvider.io())
+            .map { programModel -> programModel.uid to getCountAndOverdue(programModel.uid) }
+            .sequential()
+            .blockingForEach { (programUid, countAndOverdue) ->
+                programCountCache[programUid] = countAndOverdue
+            }
+
+        val filtersAreActive = filterPresenter.areFiltersActive()
         return map { programModel ->
-            val program = d2.programModule().programs().uid(programModel.uid).blockingGet()
-            val (count, hasOverdue) =
-                if (program?.programType() == WITHOUT_REGISTRATION) {
-                    getSingleEventCount(program)
-                } else if (program?.programType() == WITH_REGISTRATION) {
-                    getTrackerTeiCountAndOverdue(program)
-                } else {
-                    Pair(0, false)
-                }
+            val (count, hasOverdue) = programCountCache[programModel.uid] ?: Pair(0, false)
             programModel.copy(
                 count = count,
                 hasOverdueEvent = hasOverdue,
-                filtersAreActive = filterPresenter.areFiltersActive(),
+                filtersAreActive = filtersAreActive,
             )
         }
     }
@@ -177,19 +194,29 @@ internal class ProgramRepositoryImpl(
         }
     }
 
+    private fun getCountAndOverdue(programUid: String): Pair<Int, Boolean> {
+        val program = programCache[programUid]
+            ?: d2.programModule().programs().uid(programUid).blockingGet()
+        return when (program?.programType()) {
+            WITHOUT_REGISTRATION -> getSingleEventCount(program)
+            WITH_REGISTRATION -> getTrackerTeiCountAndOverdue(program)
+            else -> Pair(0, false)
+        }
+    }
+
     private fun getSingleEventCount(program: Program): Pair<Int, Boolean> {
         return Pair(
-            filterPresenter.filteredEventProgram(program)
-                .blockingGet().filter { event -> event.syncState() != State.RELATIONSHIP }.size,
+            filterPresenter.filteredEventProgram(program).blockingCount(),
             false,
         )
     }
 
     private fun getTrackerTeiCountAndOverdue(program: Program): Pair<Int, Boolean> {
-        val teiIds = filterPresenter.filteredTrackerProgram(program)
-            .offlineFirst().blockingGetUids()
-        val mCount = teiIds.size
-        val mOverdue = dhisTeiUtils.hasOverdueInProgram(teiIds, program)
+        val teiRepository = filterPresenter.filteredTrackerProgram(program).offlineFirst()
+        val mCount = teiRepository.blockingCount()
+        val mOverdue = mCount > 0 &&
+            dhisTeiUtils.hasOverdueInProgram(program) &&
+            dhisTeiUtils.hasOverdueInProgram(teiRepository.blockingGetUids(), program)
 
         return Pair(mCount, mOverdue)
     }
@@ -0,0 +1,87 @@
+package org.dhis2.usescases.qrReader;
+
+import androidx.annotation.NonNull;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Number of records saved and rejected per entity type when importing a TEI read from QR codes,
+ * and how long the import took.
+ */
+class QrImportReport {
+
+    enum EntityType {
+        TRACKED_ENTITY_INSTANCE,
+        ATTRIBUTE_VALUE,
+        ENROLLMENT,
+        EVENT,
+        DATA_VALUE
+    }
+
+    private final Map<EntityType, Integer> saved = new EnumMap<>(EntityType.class);
+    private final Map<EntityType, Integer> failed = new EnumMap<>(EntityType.class);
+    private final long startTime = System.currentTimeMillis();
+    private long elapsedMillis;
+    private boolean committed;
+
+    void saved(EntityType type) {
+        saved.put(type, saved(type) + 1);
+    }
+
+    void failed(EntityType type) {
+        failed.put(type, failed(type) + 1);
+    }
+
+    int saved(EntityType type) {
+        Integer count = saved.get(type);
+        return count != null ? count : 0;
+    }
+
+    int failed(EntityType type) {
+        Integer count = failed.get(type);
+        return count != null ? count : 0;
+    }
+
+    int savedRecords() {
+        int total = 0;
+        for (EntityType type : EntityType.values()) {
+            total += saved(type);
+        }
+        return total;
+    }
+
+    int failedRecords() {
+        int total = 0;
+        for (EntityType type : EntityType.values()) {
+            total += failed(type);
+        }
+        return total;
+    }
+
+    void finish(boolean committed) {
+        this.committed = committed;
+        this.elapsedMillis = System.currentTimeMillis() - startTime;
+    }
+
+    boolean isCommitted() {
+        return committed;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        int total = 0;
+        report.append(committed ? "QR import committed" : "QR import rolled back");
+        for (EntityType type : EntityType.values()) {
+            total += saved(type);
+            report.append(String.format(Locale.US, "%n%s: %d saved, %d failed",
+                    type.name(), saved(type), failed(type)));
+        }
+        report.append(String.format(Locale.US, "%n%d records in %d ms (%.1f records/s)",
+                total, elapsedMillis, elapsedMillis > 0 ? total * 1000.0 / elapsedMillis : total));
+        return report.toString();
+    }
+}
@@ -51,6 +51,8 @@ public class QrReaderContracts {
         void goToEvent(String eventUid, String programId, String orgUnit);
 
         void showIdError();
+
+        void showImportResult(boolean committed, int savedRecords, int failedRecords);
     }
 
     public interface Presenter {
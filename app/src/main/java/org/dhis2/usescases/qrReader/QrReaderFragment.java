@@ -200,6 +200,15 @@ public class QrReaderFragment extends FragmentGlobalAbstract implements ZXingSca
         showError(getString(R.string.qr_no_id_error));
     }
 
+    @Override
+    public void showImportResult(boolean committed, int savedRecords, int failedRecords) {
+        if (committed) {
+            showToast(getString(R.string.qr_import_saved, savedRecords, failedRecords));
+        } else {
+            showError(getString(R.string.qr_import_rolled_back));
+        }
+    }
+
     @Override
     public void downloadEventWORegistration(@NonNull String eventUid) {
         this.eventUid = eventUid;
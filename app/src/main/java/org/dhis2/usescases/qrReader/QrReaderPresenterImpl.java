@@ -11,20 +11,13 @@ import org.hisp.dhis.android.core.common.FeatureType;
 import org.hisp.dhis.android.core.common.Geometry;
 import org.hisp.dhis.android.core.common.State;
 import org.hisp.dhis.android.core.dataelement.DataElement;
-import org.hisp.dhis.android.core.enrollment.Enrollment;
-import org.hisp.dhis.android.core.enrollment.EnrollmentStatus;
-import org.hisp.dhis.android.core.enrollment.EnrollmentTableInfo;
 import org.hisp.dhis.android.core.event.Event;
 import org.hisp.dhis.android.core.event.EventStatus;
 import org.hisp.dhis.android.core.event.EventTableInfo;
 import org.hisp.dhis.android.core.program.Program;
 import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttribute;
-import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttributeValue;
-import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttributeValueTableInfo;
 import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue;
 import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValueTableInfo;
-import org.hisp.dhis.android.core.trackedentity.TrackedEntityInstance;
-import org.hisp.dhis.android.core.trackedentity.TrackedEntityInstanceTableInfo;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -32,8 +25,12 @@ import org.json.JSONObject;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import io.reactivex.disposables.CompositeDisposable;
 import timber.log.Timber;
@@ -88,11 +85,12 @@ class QrReaderPresenterImpl implements QrReaderContracts.Presenter {
         if (eventUid != null) {
             try {
                 // LOOK FOR TRACKED ENTITY ATTRIBUTES ON LOCAL DATABASE
+                Map<String, DataElement> dataElements = dataElementsByUid(jsonArray);
+                SimpleDateFormat simpleDateFormat = new SimpleDateFormat(DATABASE_FORMAT_EXPRESSION, Locale.getDefault());
                 for (int i = 0; i < jsonArray.length(); i++) {
                     JSONObject attrValue = jsonArray.getJSONObject(i);
                     TrackedEntityDataValue.Builder trackedEntityDataValueModelBuilder = TrackedEntityDataValue.builder();
 
-                    SimpleDateFormat simpleDateFormat = new SimpleDateFormat(DATABASE_FORMAT_EXPRESSION, Locale.getDefault());
                     trackedEntityDataValueModelBuilder.event(eventUid);
                     if (attrValue.has("dataElement")) {
                         trackedEntityDataValueModelBuilder.dataElement(attrValue.getString("dataElement"));
@@ -117,9 +115,9 @@ class QrReaderPresenterImpl implements QrReaderContracts.Presenter {
                         // LOOK FOR dataElement ON LOCAL DATABASE.
                         // IF FOUND, OPEN DASHBOARD
 
-                        if (d2.dataElementModule().dataElements().uid(attrValue.getString("dataElement")).blockingExists()) {
+                        DataElement de = dataElements.get(attrValue.getString("dataElement"));
+                        if (de != null) {
                             this.dataJson.add(attrValue);
-                            DataElement de = d2.dataElementModule().dataElements().uid(attrValue.getString("dataElement")).blockingGet();
                             attributes.add(Trio.create(trackedEntityDataValueModelBuilder.build(), de.displayFormName(), true));
                         } else {
                             attributes.add(Trio.create(trackedEntityDataValueModelBuilder.build(), null, false));
@@ -142,11 +140,12 @@ class QrReaderPresenterImpl implements QrReaderContracts.Presenter {
         ArrayList<Trio<TrackedEntityDataValue, String, Boolean>> attributes = new ArrayList<>();
         try {
             // LOOK FOR TRACKED ENTITY ATTRIBUTES ON LOCAL DATABASE
+            Map<String, DataElement> dataElements = dataElementsByUid(jsonArray);
+            SimpleDateFormat simpleDateFormat = new SimpleDateFormat(DATABASE_FORMAT_EXPRESSION, Locale.getDefault());
             for (int i = 0; i < jsonArray.length(); i++) {
                 JSONObject attrValue = jsonArray.getJSONObject(i);
                 TrackedEntityDataValue.Builder trackedEntityDataValueModelBuilder = TrackedEntityDataValue.builder();
 
-                SimpleDateFormat simpleDateFormat = new SimpleDateFormat(DATABASE_FORMAT_EXPRESSION, Locale.getDefault());
 
                 if (attrValue.has("event")) {
                     trackedEntityDataValueModelBuilder.event(attrValue.getString("event"));
@@ -173,9 +172,9 @@ class QrReaderPresenterImpl implements QrReaderContracts.Presenter {
                 if (attrValue.has("dataElement") && attrValue.getString("dataElement") != null) {
                     // LOOK FOR dataElement ON LOCAL DATABASE.
                     // IF FOUND, OPEN DASHBOARD
-                    if (d2.dataElementModule().dataElements().uid(attrValue.getString("dataElement")).blockingExists()) {
+                    DataElement de = dataElements.get(attrValue.getString("dataElement"));
+                    if (de != null) {
                         this.teiDataJson.add(attrValue);
-                        DataElement de = d2.dataElementModule().dataElements().uid(attrValue.getString("dataElement")).blockingGet();
                         attributes.add(Trio.create(trackedEntityDataValueModelBuilder.build(), de.displayFormName(), true));
                     } else {
                         attributes.add(Trio.create(trackedEntityDataValueModelBuilder.build(), null, false));
@@ -223,12 +222,17 @@ class QrReaderPresenterImpl implements QrReaderContracts.Presenter {
         ArrayList<Trio<String, String, Boolean>> attributes = new ArrayList<>();
         try {
             // LOOK FOR TRACKED ENTITY ATTRIBUTES ON LOCAL DATABASE
+            Map<String, TrackedEntityAttribute> trackedEntityAttributes = new HashMap<>();
+            for (TrackedEntityAttribute attribute : d2.trackedEntityModule().trackedEntityAttributes()
+                    .byUid().in(uidsOf(jsonArray, "trackedEntityAttribute")).blockingGet()) {
+                trackedEntityAttributes.put(attribute.uid(), attribute);
+            }
             for (int i = 0; i < jsonArray.length(); i++) {
                 JSONObject attrValue = jsonArray.getJSONObject(i);
                 if (attrValue.has("trackedEntityAttribute") && attrValue.getString("trackedEntityAttribute") != null) {
+                    TrackedEntityAttribute attribute = trackedEntityAttributes.get(attrValue.getString("trackedEntityAttribute"));
                     // TRACKED ENTITY ATTRIBUTE FOUND, TRACKED ENTITY ATTRIBUTE VALUE CAN BE SAVED.
-                    if (d2.trackedEntityModule().trackedEntityAttributes().uid(attrValue.getString("trackedEntityAttribute")).blockingExists()) {
-                        TrackedEntityAttribute attribute = d2.trackedEntityModule().trackedEntityAttributes().uid(attrValue.getString("trackedEntityAttribute")).blockingGet();
+                    if (attribute != null) {
                         attributes.add(Trio.create(attribute.displayName(), attrValue.getString("value"), true));
                     }
                     // TRACKED ENTITY ATTRIBUTE NOT FOUND, TRACKED ENTITY ATTRIBUTE VALUE CANNOT BE SAVED.
@@ -250,12 +254,17 @@ class QrReaderPresenterImpl implements QrReaderContracts.Presenter {
         ArrayList<Pair<String, Boolean>> enrollments = new ArrayList<>();
         try {
             // LOOK FOR PROGRAM ON LOCAL DATABASE
+            Map<String, Program> programs = new HashMap<>();
+            for (Program program : d2.programModule().programs()
+                    .byUid().in(uidsOf(jsonArray, "program")).blockingGet()) {
+                programs.put(program.uid(), program);
+            }
             for (int i = 0; i < jsonArray.length(); i++) {
                 JSONObject attrValue = jsonArray.getJSONObject(i);
                 if (attrValue.has("program") && attrValue.getString("program") != null) {
+                    Program program = programs.get(attrValue.getString("program"));
                     // PROGRAM FOUND, ENROLLMENT CAN BE SAVED
-                    if (d2.programModule().programs().uid(attrValue.getString("program")).blockingExists()) {
-                        Program program = d2.programModule().programs().uid(attrValue.getString("program")).blockingGet();
+                    if (program != null) {
                         enrollments.add(Pair.create(program.displayName(), true));
                     }
                     // PROGRAM NOT FOUND, ENROLLMENT CANNOT BE SAVED
@@ -331,253 +340,54 @@ class QrReaderPresenterImpl implements QrReaderContracts.Presenter {
         view.renderRelationship(relationships);
     }
 
+    private Map<String, DataElement> dataElementsByUid(JSONArray jsonArray) {
+        Map<String, DataElement> dataElements = new HashMap<>();
+        for (DataElement dataElement : d2.dataElementModule().dataElements()
+                .byUid().in(uidsOf(jsonArray, "dataElement")).blockingGet()) {
+            dataElements.put(dataElement.uid(), dataElement);
+        }
+        return dataElements;
+    }
+
+    /**
+     * Uids referenced by the entries of a QR array, so their metadata is loaded in one query.
+     */
+    private static Set<String> uidsOf(JSONArray jsonArray, String property) {
+        Set<String> uids = new HashSet<>();
+        for (int i = 0; i < jsonArray.length(); i++) {
+            JSONObject entry = jsonArray.optJSONObject(i);
+            if (entry != null && entry.has(property)) {
+                String uid = entry.optString(property, null);
+                if (uid != null) {
+                    uids.add(uid);
+                }
+            }
+        }
+        return uids;
+    }
+
     @Override
     public void init(QrReaderContracts.View view) {
         this.view = view;
     }
 
     // SAVES READ TRACKED ENTITY INSTANCE, TRACKED ENTITY ATTRIBUTE VALUES, ENROLLMENTS, EVENTS AND RELATIONSHIPS INTO LOCAL DATABASE
+    //TODO: CHANGE RELATIONSHIPS
     @Override
     public void download() {
-        try {
-            if (teiJson != null) {
-                TrackedEntityInstance.Builder teiModelBuilder = TrackedEntityInstance.builder();
-                if (teiJson.has("uid"))
-                    teiModelBuilder.uid(teiJson.getString("uid"));
-                if (teiJson.has("created"))
-                    teiModelBuilder.created(DateUtils.databaseDateFormat().parse(teiJson.getString("created")));
-                if (teiJson.has("lastUpdated"))
-                    teiModelBuilder.lastUpdated(DateUtils.databaseDateFormat().parse(teiJson.getString("lastUpdated")));
-                if (teiJson.has("aggregatedSyncState"))
-                    teiModelBuilder.aggregatedSyncState(State.valueOf(teiJson.getString("aggregatedSyncState")));
-                if (teiJson.has("organisationUnit"))
-                    teiModelBuilder.organisationUnit(teiJson.getString("organisationUnit"));
-                if (teiJson.has("trackedEntityType"))
-                    teiModelBuilder.trackedEntityType(teiJson.getString("trackedEntityType"));
-                if (teiJson.has("geometry"))
-                    teiModelBuilder.geometry(
-                            Geometry.builder()
-                                    .type(FeatureType.valueOf(teiJson.getJSONObject("geometry").getString("type")))
-                                    .coordinates(teiJson.getJSONObject("geometry").getString("coordinates"))
-                                    .build()
-                    );
-
-                TrackedEntityInstance teiModel = teiModelBuilder
-                        .deleted(false)
-                        .build();
-
-                if (teiModel != null) {
-                    d2.databaseAdapter().insert(TrackedEntityInstanceTableInfo.TABLE_INFO.name(), null, teiModel.toContentValues());
-                }
-            } else {
-                view.showIdError();
-                return;
-            }
-        } catch (JSONException | ParseException e) {
-            Timber.e(e);
-        }
-
-        if (attrJson != null) {
-            for (int i = 0; i < attrJson.size(); i++) {
-                JSONArray attrArray = attrJson.get(i);
-                for (int j = 0; j < attrArray.length(); j++) {
-                    try {
-                        JSONObject attrV = attrArray.getJSONObject(j);
-
-                        TrackedEntityAttributeValue.Builder attrValueModelBuilder;
-                        attrValueModelBuilder = TrackedEntityAttributeValue.builder();
-                        if (attrV.has("created"))
-                            attrValueModelBuilder.created(DateUtils.databaseDateFormat().parse(attrV.getString("created")));
-                        if (attrV.has("lastUpdated"))
-                            attrValueModelBuilder.lastUpdated(DateUtils.databaseDateFormat().parse(attrV.getString("lastUpdated")));
-                        if (attrV.has("value"))
-                            attrValueModelBuilder.value(attrV.getString("value"));
-                        if (attrV.has("trackedEntityInstance"))
-                            attrValueModelBuilder.trackedEntityInstance(attrV.getString("trackedEntityInstance"));
-                        if (attrV.has("trackedEntityAttribute"))
-                            attrValueModelBuilder.trackedEntityAttribute(attrV.getString("trackedEntityAttribute"));
-
-                        TrackedEntityAttributeValue attrValueModel = attrValueModelBuilder.build();
-
-                        if (attrValueModel != null)
-                            d2.databaseAdapter().insert(TrackedEntityAttributeValueTableInfo.TABLE_INFO.name(), null, attrValueModel.toContentValues());
-
-                    } catch (JSONException | ParseException e) {
-                        Timber.e(e);
-                    }
-                }
-            }
+        if (teiJson == null) {
+            view.showIdError();
+            return;
         }
 
-        if (relationshipsJson != null) {
-            for (int i = 0; i < relationshipsJson.size(); i++) {
-                //TODO: CHANGE RELATIONSHIPS
-            /*try {
-                JSONObject relationship = relationshipsJson.getJSONObject(i);
-
-
-                RelationshipModel.Builder relationshipModelBuilder;
-                relationshipModelBuilder = RelationshipModel.builder();
-
-                if (relationship.has("trackedEntityInstanceA"))
-                    relationshipModelBuilder.trackedEntityInstanceA(relationship.getString("trackedEntityInstanceA"));
-                if (relationship.has("trackedEntityInstanceB"))
-                    relationshipModelBuilder.trackedEntityInstanceB(relationship.getString("trackedEntityInstanceB"));
-                if (relationship.has("relationshipType"))
-                    relationshipModelBuilder.relationshipType(relationship.getString("relationshipType"));
-
-                RelationshipModel relationshipModel = relationshipModelBuilder.build();
-
-                if (relationshipModel != null)
-                    briteDatabase.insert(RelationshipModel.TABLE, relationshipModel.toContentValues());
-
-            } catch (Exception e) {
-                Timber.e(e);
-            }*/
-            }
-        }
+        QrImportReport report = new QrTeiImporter(d2)
+                .importTei(teiJson, attrJson, enrollmentJson, eventsJson, teiDataJson);
+        Timber.d(report.toString());
 
-        if (enrollmentJson != null) {
-            for (int i = 0; i < enrollmentJson.size(); i++) {
-                JSONArray enrollmentArray = enrollmentJson.get(i);
-                for (int j = 0; j < enrollmentArray.length(); j++) {
-                    try {
-                        JSONObject enrollmentJson = enrollmentArray.getJSONObject(j);
-
-                        Enrollment.Builder enrollmentBuilder;
-                        enrollmentBuilder = Enrollment.builder();
-                        if (enrollmentJson.has("uid"))
-                            enrollmentBuilder.uid(enrollmentJson.getString("uid"));
-                        if (enrollmentJson.has("created"))
-                            enrollmentBuilder.created(DateUtils.databaseDateFormat().parse(enrollmentJson.getString("created")));
-                        if (enrollmentJson.has("lastUpdated"))
-                            enrollmentBuilder.lastUpdated(DateUtils.databaseDateFormat().parse(enrollmentJson.getString("lastUpdated")));
-                        if (enrollmentJson.has("aggregatedSyncState"))
-                            enrollmentBuilder.aggregatedSyncState(State.valueOf(enrollmentJson.getString("aggregatedSyncState")));
-                        if (enrollmentJson.has("program"))
-                            enrollmentBuilder.program(enrollmentJson.getString("program"));
-                        if (enrollmentJson.has("followUp"))
-                            enrollmentBuilder.followUp(enrollmentJson.getBoolean("followUp"));
-                        if (enrollmentJson.has("status"))
-                            enrollmentBuilder.status(EnrollmentStatus.valueOf(enrollmentJson.getString("status")));
-                        if (enrollmentJson.has("enrollmentDate"))
-                            enrollmentBuilder.enrollmentDate(DateUtils.databaseDateFormat().parse(enrollmentJson.getString("enrollmentDate")));
-                        if (enrollmentJson.has("incidentDate"))
-                            enrollmentBuilder.incidentDate(DateUtils.databaseDateFormat().parse(enrollmentJson.getString("incidentDate")));
-                        if (enrollmentJson.has("organisationUnit"))
-                            enrollmentBuilder.organisationUnit(enrollmentJson.getString("organisationUnit"));
-                        if (enrollmentJson.has("trackedEntityInstance"))
-                            enrollmentBuilder.trackedEntityInstance(enrollmentJson.getString("trackedEntityInstance"));
-                        if (enrollmentJson.has("geometry"))
-                            enrollmentBuilder.geometry(
-                                    Geometry.builder()
-                                            .type(FeatureType.valueOf(enrollmentJson.getJSONObject("geometry").getString("type")))
-                                            .coordinates(enrollmentJson.getJSONObject("geometry").getString("coordinates"))
-                                            .build()
-                            );
-
-                        Enrollment enrollment = enrollmentBuilder
-                                .deleted(false)
-                                .build();
-
-                        if (enrollment != null)
-                            d2.databaseAdapter().insert(EnrollmentTableInfo.TABLE_INFO.name(), null, enrollment.toContentValues());
-
-                    } catch (JSONException | ParseException e) {
-                        Timber.e(e);
-                    }
-                }
-            }
-        }
-
-
-        if (eventsJson != null) {
-            for (int i = 0; i < eventsJson.size(); i++) {
-                try {
-                    JSONObject eventJson = eventsJson.get(i);
-
-                    Event.Builder eventBuilder;
-                    eventBuilder = Event.builder();
-                    if (eventJson.has("uid"))
-                        eventBuilder.uid(eventJson.getString("uid"));
-                    if (eventJson.has("created"))
-                        eventBuilder.created(DateUtils.databaseDateFormat().parse(eventJson.getString("created")));
-                    if (eventJson.has("lastUpdated"))
-                        eventBuilder.lastUpdated(DateUtils.databaseDateFormat().parse(eventJson.getString("lastUpdated")));
-                    if (eventJson.has("aggregatedSyncState"))
-                        eventBuilder.aggregatedSyncState(State.valueOf(eventJson.getString("aggregatedSyncState")));
-                    if (eventJson.has("enrollment"))
-                        eventBuilder.enrollment(eventJson.getString("enrollment"));
-                    if (eventJson.has("program"))
-                        eventBuilder.program(eventJson.getString("program"));
-                    if (eventJson.has("programStage"))
-                        eventBuilder.programStage(eventJson.getString("programStage"));
-                    if (eventJson.has("organisationUnit"))
-                        eventBuilder.organisationUnit(eventJson.getString("organisationUnit"));
-                    if (eventJson.has("eventDate"))
-                        eventBuilder.eventDate(DateUtils.databaseDateFormat().parse(eventJson.getString("eventDate")));
-                    if (eventJson.has("status"))
-                        eventBuilder.status(EventStatus.valueOf(eventJson.getString("status")));
-                    if (eventJson.has("attributeOptionCombo"))
-                        eventBuilder.attributeOptionCombo(eventJson.getString("attributeOptionCombo"));
-                    if (eventJson.has("geometry")) {
-                        eventBuilder.geometry(
-                                Geometry.builder()
-                                        .type(FeatureType.valueOf(eventJson.getJSONObject("geometry").getString("type")))
-                                        .coordinates(eventJson.getJSONObject("geometry").getString("coordinates"))
-                                        .build()
-                        );
-                    }
-                    if (eventJson.has("completedDate"))
-                        eventBuilder.completedDate(DateUtils.databaseDateFormat().parse(eventJson.getString("completedDate")));
-                    if (eventJson.has("dueDate"))
-                        eventBuilder.dueDate(DateUtils.databaseDateFormat().parse(eventJson.getString("dueDate")));
-
-                    Event eventModel = eventBuilder
-                            .deleted(false)
-                            .build();
-
-                    if (eventModel != null)
-                        d2.databaseAdapter().insert(EventTableInfo.TABLE_INFO.name(), null, eventModel.toContentValues());
-
-                } catch (JSONException | ParseException e) {
-                    Timber.e(e);
-                }
-            }
-        }
-
-        for (int i = 0; i < teiDataJson.size(); i++) {
-            try {
-                JSONObject attrV = teiDataJson.get(i);
-
-                TrackedEntityDataValue.Builder attrValueModelBuilder;
-                attrValueModelBuilder = TrackedEntityDataValue.builder();
-
-                if (attrV.has("event"))
-                    attrValueModelBuilder.event(attrV.getString("event"));
-                if (attrV.has("lastUpdated"))
-                    attrValueModelBuilder.lastUpdated(DateUtils.databaseDateFormat().parse(attrV.getString("lastUpdated")));
-                if (attrV.has("dataElement"))
-                    attrValueModelBuilder.dataElement(attrV.getString("dataElement"));
-                if (attrV.has("storedBy"))
-                    attrValueModelBuilder.storedBy(attrV.getString("storedBy"));
-                if (attrV.has("value"))
-                    attrValueModelBuilder.value(attrV.getString("value"));
-                if (attrV.has("providedElsewhere"))
-                    attrValueModelBuilder.providedElsewhere(Boolean.parseBoolean(attrV.getString("providedElsewhere")));
-
-                TrackedEntityDataValue attrValueModel = attrValueModelBuilder.build();
-
-                if (attrValueModel != null) {
-                    long result = d2.databaseAdapter().insert(TrackedEntityDataValueTableInfo.TABLE_INFO.name(), null, attrValueModel.toContentValues());
-                    Log.d("RESULT", "insert event " + result);
-                }
-
-            } catch (JSONException | ParseException e) {
-                Timber.e(e);
-            }
+        view.showImportResult(report.isCommitted(), report.savedRecords(), report.failedRecords());
+        if (report.isCommitted()) {
+            view.goToDashBoard(teiUid);
         }
-        view.goToDashBoard(teiUid);
     }
 
 
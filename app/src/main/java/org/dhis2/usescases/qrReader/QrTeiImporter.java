@@ -0,0 +1,445 @@
+package org.dhis2.usescases.qrReader;
+
+import org.dhis2.utils.DateUtils;
+import org.hisp.dhis.android.core.D2;
+import org.hisp.dhis.android.core.arch.db.access.DatabaseAdapter;
+import org.hisp.dhis.android.core.arch.db.access.Transaction;
+import org.hisp.dhis.android.core.common.FeatureType;
+import org.hisp.dhis.android.core.common.Geometry;
+import org.hisp.dhis.android.core.common.State;
+import org.hisp.dhis.android.core.enrollment.Enrollment;
+import org.hisp.dhis.android.core.enrollment.EnrollmentStatus;
+import org.hisp.dhis.android.core.enrollment.EnrollmentTableInfo;
+import org.hisp.dhis.android.core.event.Event;
+import org.hisp.dhis.android.core.event.EventStatus;
+import org.hisp.dhis.android.core.event.EventTableInfo;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttributeValue;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttributeValueTableInfo;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValueTableInfo;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityInstance;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityInstanceTableInfo;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import timber.log.Timber;
+
+import static org.dhis2.usescases.qrReader.QrImportReport.EntityType.ATTRIBUTE_VALUE;
+import static org.dhis2.usescases.qrReader.QrImportReport.EntityType.DATA_VALUE;
+import static org.dhis2.usescases.qrReader.QrImportReport.EntityType.ENROLLMENT;
+import static org.dhis2.usescases.qrReader.QrImportReport.EntityType.EVENT;
+import static org.dhis2.usescases.qrReader.QrImportReport.EntityType.TRACKED_ENTITY_INSTANCE;
+
+/**
+ * Saves a TEI read from several QR codes. Every code is parsed first, the metadata and
+ * parent records they reference are checked with one query per type, and the whole graph
+ * is written in a single transaction. Records that fail to parse or reference missing
+ * metadata are skipped, but if any row fails to insert nothing is saved.
+ */
+class QrTeiImporter {
+
+    private final D2 d2;
+    private final SimpleDateFormat dateFormat = DateUtils.databaseDateFormat();
+
+    QrTeiImporter(D2 d2) {
+        this.d2 = d2;
+    }
+
+    QrImportReport importTei(JSONObject teiJson,
+                             List<JSONArray> attrJson,
+                             List<JSONArray> enrollmentJson,
+                             List<JSONObject> eventsJson,
+                             List<JSONObject> teiDataJson) {
+        QrImportReport report = new QrImportReport();
+
+        // PARSE EVERY QR BEFORE WRITING ANYTHING
+        TrackedEntityInstance tei = parseTei(teiJson);
+        if (tei == null) {
+            report.failed(TRACKED_ENTITY_INSTANCE);
+            report.finish(false);
+            return report;
+        }
+        List<TrackedEntityAttributeValue> attributeValues = new ArrayList<>();
+        for (JSONArray attrArray : attrJson) {
+            for (int i = 0; i < attrArray.length(); i++) {
+                addParsed(report, ATTRIBUTE_VALUE, attributeValues, parseAttributeValue(attrArray.optJSONObject(i)));
+            }
+        }
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (JSONArray enrollmentArray : enrollmentJson) {
+            for (int i = 0; i < enrollmentArray.length(); i++) {
+                addParsed(report, ENROLLMENT, enrollments, parseEnrollment(enrollmentArray.optJSONObject(i)));
+            }
+        }
+        List<Event> events = new ArrayList<>();
+        for (JSONObject eventJson : eventsJson) {
+            addParsed(report, EVENT, events, parseEvent(eventJson));
+        }
+        List<TrackedEntityDataValue> dataValues = new ArrayList<>();
+        for (JSONObject dataValueJson : teiDataJson) {
+            addParsed(report, DATA_VALUE, dataValues, parseDataValue(dataValueJson));
+        }
+
+        // CHECK REFERENCED METADATA AND PARENTS IN BULK
+        attributeValues = withExistingUids(report, ATTRIBUTE_VALUE, attributeValues,
+                existingAttributes(attributeValues), null);
+        enrollments = withExistingUids(report, ENROLLMENT, enrollments,
+                existingPrograms(enrollments), null);
+        events = withExistingUids(report, EVENT, events,
+                existingProgramStages(events), availableEnrollments(enrollments, events));
+        dataValues = withExistingUids(report, DATA_VALUE, dataValues,
+                existingDataElements(dataValues), availableEvents(events, dataValues));
+
+        // WRITE THE TEI GRAPH IN ONE TRANSACTION
+        DatabaseAdapter databaseAdapter = d2.databaseAdapter();
+        Transaction transaction = databaseAdapter.beginNewTransaction();
+        boolean committed = false;
+        try {
+            boolean inserted = insert(report, TRACKED_ENTITY_INSTANCE,
+                    databaseAdapter.insert(TrackedEntityInstanceTableInfo.TABLE_INFO.name(), null, tei.toContentValues()));
+            for (int i = 0; inserted && i < attributeValues.size(); i++) {
+                inserted = insert(report, ATTRIBUTE_VALUE,
+                        databaseAdapter.insert(TrackedEntityAttributeValueTableInfo.TABLE_INFO.name(), null, attributeValues.get(i).toContentValues()));
+            }
+            for (int i = 0; inserted && i < enrollments.size(); i++) {
+                inserted = insert(report, ENROLLMENT,
+                        databaseAdapter.insert(EnrollmentTableInfo.TABLE_INFO.name(), null, enrollments.get(i).toContentValues()));
+            }
+            for (int i = 0; inserted && i < events.size(); i++) {
+                inserted = insert(report, EVENT,
+                        databaseAdapter.insert(EventTableInfo.TABLE_INFO.name(), null, events.get(i).toContentValues()));
+            }
+            for (int i = 0; inserted && i < dataValues.size(); i++) {
+                inserted = insert(report, DATA_VALUE,
+                        databaseAdapter.insert(TrackedEntityDataValueTableInfo.TABLE_INFO.name(), null, dataValues.get(i).toContentValues()));
+            }
+            if (inserted) {
+                transaction.setSuccessful();
+                committed = true;
+            }
+        } catch (Exception e) {
+            Timber.e(e);
+        } finally {
+            transaction.end();
+        }
+
+        report.finish(committed);
+        return report;
+    }
+
+    private static <T> void addParsed(QrImportReport report, QrImportReport.EntityType type, List<T> parsed, T item) {
+        if (item != null) {
+            parsed.add(item);
+        } else {
+            report.failed(type);
+        }
+    }
+
+    /**
+     * @return false when the row could not be inserted, which rolls back the whole import
+     */
+    private static boolean insert(QrImportReport report, QrImportReport.EntityType type, long row) {
+        if (row < 0) {
+            report.failed(type);
+            return false;
+        }
+        report.saved(type);
+        return true;
+    }
+
+    /**
+     * Keeps the items whose metadata uid is in {@code metadataUids} and, when given, whose
+     * parent uid is in {@code parentUids}. The rest are counted as failed.
+     */
+    private static <T> List<T> withExistingUids(QrImportReport report,
+                                                QrImportReport.EntityType type,
+                                                List<T> items,
+                                                Set<String> metadataUids,
+                                                Set<String> parentUids) {
+        List<T> valid = new ArrayList<>(items.size());
+        for (T item : items) {
+            if (metadataUids.contains(metadataUid(item)) &&
+                    (parentUids == null || parentUids.contains(parentUid(item)))) {
+                valid.add(item);
+            } else {
+                report.failed(type);
+            }
+        }
+        return valid;
+    }
+
+    private static String metadataUid(Object item) {
+        if (item instanceof TrackedEntityAttributeValue) {
+            return ((TrackedEntityAttributeValue) item).trackedEntityAttribute();
+        } else if (item instanceof Enrollment) {
+            return ((Enrollment) item).program();
+        } else if (item instanceof Event) {
+            return ((Event) item).programStage();
+        } else if (item instanceof TrackedEntityDataValue) {
+            return ((TrackedEntityDataValue) item).dataElement();
+        }
+        return null;
+    }
+
+    private static String parentUid(Object item) {
+        if (item instanceof Event) {
+            return ((Event) item).enrollment();
+        } else if (item instanceof TrackedEntityDataValue) {
+            return ((TrackedEntityDataValue) item).event();
+        }
+        return null;
+    }
+
+    private Set<String> existingAttributes(List<TrackedEntityAttributeValue> attributeValues) {
+        Set<String> uids = new HashSet<>();
+        for (TrackedEntityAttributeValue attributeValue : attributeValues) {
+            addUid(uids, attributeValue.trackedEntityAttribute());
+        }
+        return uids.isEmpty() ? uids : new HashSet<>(
+                d2.trackedEntityModule().trackedEntityAttributes().byUid().in(uids).blockingGetUids());
+    }
+
+    private Set<String> existingPrograms(List<Enrollment> enrollments) {
+        Set<String> uids = new HashSet<>();
+        for (Enrollment enrollment : enrollments) {
+            addUid(uids, enrollment.program());
+        }
+        return uids.isEmpty() ? uids : new HashSet<>(
+                d2.programModule().programs().byUid().in(uids).blockingGetUids());
+    }
+
+    private Set<String> existingProgramStages(List<Event> events) {
+        Set<String> uids = new HashSet<>();
+        for (Event event : events) {
+            addUid(uids, event.programStage());
+        }
+        return uids.isEmpty() ? uids : new HashSet<>(
+                d2.programModule().programStages().byUid().in(uids).blockingGetUids());
+    }
+
+    private Set<String> existingDataElements(List<TrackedEntityDataValue> dataValues) {
+        Set<String> uids = new HashSet<>();
+        for (TrackedEntityDataValue dataValue : dataValues) {
+            addUid(uids, dataValue.dataElement());
+        }
+        return uids.isEmpty() ? uids : new HashSet<>(
+                d2.dataElementModule().dataElements().byUid().in(uids).blockingGetUids());
+    }
+
+    /**
+     * Enrollments read from the QR codes or already stored locally.
+     */
+    private Set<String> availableEnrollments(List<Enrollment> enrollments, List<Event> events) {
+        Set<String> available = new HashSet<>();
+        for (Enrollment enrollment : enrollments) {
+            available.add(enrollment.uid());
+        }
+        Set<String> missing = new HashSet<>();
+        for (Event event : events) {
+            if (event.enrollment() != null && !available.contains(event.enrollment())) {
+                missing.add(event.enrollment());
+            }
+        }
+        if (!missing.isEmpty()) {
+            available.addAll(d2.enrollmentModule().enrollments().byUid().in(missing).blockingGetUids());
+        }
+        return available;
+    }
+
+    /**
+     * Events read from the QR codes or already stored locally.
+     */
+    private Set<String> availableEvents(List<Event> events, List<TrackedEntityDataValue> dataValues) {
+        Set<String> available = new HashSet<>();
+        for (Event event : events) {
+            available.add(event.uid());
+        }
+        Set<String> missing = new HashSet<>();
+        for (TrackedEntityDataValue dataValue : dataValues) {
+            if (dataValue.event() != null && !available.contains(dataValue.event())) {
+                missing.add(dataValue.event());
+            }
+        }
+        if (!missing.isEmpty()) {
+            available.addAll(d2.eventModule().events().byUid().in(missing).blockingGetUids());
+        }
+        return available;
+    }
+
+    private static void addUid(Collection<String> uids, String uid) {
+        if (uid != null) {
+            uids.add(uid);
+        }
+    }
+
+    private TrackedEntityInstance parseTei(JSONObject teiJson) {
+        try {
+            TrackedEntityInstance.Builder teiModelBuilder = TrackedEntityInstance.builder();
+            if (teiJson.has("uid"))
+                teiModelBuilder.uid(teiJson.getString("uid"));
+            if (teiJson.has("created"))
+                teiModelBuilder.created(dateFormat.parse(teiJson.getString("created")));
+            if (teiJson.has("lastUpdated"))
+                teiModelBuilder.lastUpdated(dateFormat.parse(teiJson.getString("lastUpdated")));
+            if (teiJson.has("aggregatedSyncState"))
+                teiModelBuilder.aggregatedSyncState(State.valueOf(teiJson.getString("aggregatedSyncState")));
+            if (teiJson.has("organisationUnit"))
+                teiModelBuilder.organisationUnit(teiJson.getString("organisationUnit"));
+            if (teiJson.has("trackedEntityType"))
+                teiModelBuilder.trackedEntityType(teiJson.getString("trackedEntityType"));
+            if (teiJson.has("geometry"))
+                teiModelBuilder.geometry(parseGeometry(teiJson.getJSONObject("geometry")));
+
+            return teiModelBuilder
+                    .deleted(false)
+                    .build();
+        } catch (JSONException | ParseException | RuntimeException e) {
+            Timber.e(e);
+            return null;
+        }
+    }
+
+    private TrackedEntityAttributeValue parseAttributeValue(JSONObject attrV) {
+        if (attrV == null) {
+            return null;
+        }
+        try {
+            TrackedEntityAttributeValue.Builder attrValueModelBuilder = TrackedEntityAttributeValue.builder();
+            if (attrV.has("created"))
+                attrValueModelBuilder.created(dateFormat.parse(attrV.getString("created")));
+            if (attrV.has("lastUpdated"))
+                attrValueModelBuilder.lastUpdated(dateFormat.parse(attrV.getString("lastUpdated")));
+            if (attrV.has("value"))
+                attrValueModelBuilder.value(attrV.getString("value"));
+            if (attrV.has("trackedEntityInstance"))
+                attrValueModelBuilder.trackedEntityInstance(attrV.getString("trackedEntityInstance"));
+            if (attrV.has("trackedEntityAttribute"))
+                attrValueModelBuilder.trackedEntityAttribute(attrV.getString("trackedEntityAttribute"));
+
+            return attrValueModelBuilder.build();
+        } catch (JSONException | ParseException | RuntimeException e) {
+            Timber.e(e);
+            return null;
+        }
+    }
+
+    private Enrollment parseEnrollment(JSONObject enrollmentJson) {
+        if (enrollmentJson == null) {
+            return null;
+        }
+        try {
+            Enrollment.Builder enrollmentBuilder = Enrollment.builder();
+            if (enrollmentJson.has("uid"))
+                enrollmentBuilder.uid(enrollmentJson.getString("uid"));
+            if (enrollmentJson.has("created"))
+                enrollmentBuilder.created(dateFormat.parse(enrollmentJson.getString("created")));
+            if (enrollmentJson.has("lastUpdated"))
+                enrollmentBuilder.lastUpdated(dateFormat.parse(enrollmentJson.getString("lastUpdated")));
+            if (enrollmentJson.has("aggregatedSyncState"))
+                enrollmentBuilder.aggregatedSyncState(State.valueOf(enrollmentJson.getString("aggregatedSyncState")));
+            if (enrollmentJson.has("program"))
+                enrollmentBuilder.program(enrollmentJson.getString("program"));
+            if (enrollmentJson.has("followUp"))
+                enrollmentBuilder.followUp(enrollmentJson.getBoolean("followUp"));
+            if (enrollmentJson.has("status"))
+                enrollmentBuilder.status(EnrollmentStatus.valueOf(enrollmentJson.getString("status")));
+            if (enrollmentJson.has("enrollmentDate"))
+                enrollmentBuilder.enrollmentDate(dateFormat.parse(enrollmentJson.getString("enrollmentDate")));
+            if (enrollmentJson.has("incidentDate"))
+                enrollmentBuilder.incidentDate(dateFormat.parse(enrollmentJson.getString("incidentDate")));
+            if (enrollmentJson.has("organisationUnit"))
+                enrollmentBuilder.organisationUnit(enrollmentJson.getString("organisationUnit"));
+            if (enrollmentJson.has("trackedEntityInstance"))
+                enrollmentBuilder.trackedEntityInstance(enrollmentJson.getString("trackedEntityInstance"));
+            if (enrollmentJson.has("geometry"))
+                enrollmentBuilder.geometry(parseGeometry(enrollmentJson.getJSONObject("geometry")));
+
+            return enrollmentBuilder
+                    .deleted(false)
+                    .build();
+        } catch (JSONException | ParseException | RuntimeException e) {
+            Timber.e(e);
+            return null;
+        }
+    }
+
+    private Event parseEvent(JSONObject eventJson) {
+        try {
+            Event.Builder eventBuilder = Event.builder();
+            if (eventJson.has("uid"))
+                eventBuilder.uid(eventJson.getString("uid"));
+            if (eventJson.has("created"))
+                eventBuilder.created(dateFormat.parse(eventJson.getString("created")));
+            if (eventJson.has("lastUpdated"))
+                eventBuilder.lastUpdated(dateFormat.parse(eventJson.getString("lastUpdated")));
+            if (eventJson.has("aggregatedSyncState"))
+                eventBuilder.aggregatedSyncState(State.valueOf(eventJson.getString("aggregatedSyncState")));
+            if (eventJson.has("enrollment"))
+                eventBuilder.enrollment(eventJson.getString("enrollment"));
+            if (eventJson.has("program"))
+                eventBuilder.program(eventJson.getString("program"));
+            if (eventJson.has("programStage"))
+                eventBuilder.programStage(eventJson.getString("programStage"));
+            if (eventJson.has("organisationUnit"))
+                eventBuilder.organisationUnit(eventJson.getString("organisationUnit"));
+            if (eventJson.has("eventDate"))
+                eventBuilder.eventDate(dateFormat.parse(eventJson.getString("eventDate")));
+            if (eventJson.has("status"))
+                eventBuilder.status(EventStatus.valueOf(eventJson.getString("status")));
+            if (eventJson.has("attributeOptionCombo"))
+                eventBuilder.attributeOptionCombo(eventJson.getString("attributeOptionCombo"));
+            if (eventJson.has("geometry"))
+                eventBuilder.geometry(parseGeometry(eventJson.getJSONObject("geometry")));
+            if (eventJson.has("completedDate"))
+                eventBuilder.completedDate(dateFormat.parse(eventJson.getString("completedDate")));
+            if (eventJson.has("dueDate"))
+                eventBuilder.dueDate(dateFormat.parse(eventJson.getString("dueDate")));
+
+            return eventBuilder
+                    .deleted(false)
+                    .build();
+        } catch (JSONException | ParseException | RuntimeException e) {
+            Timber.e(e);
+            return null;
+        }
+    }
+
+    private TrackedEntityDataValue parseDataValue(JSONObject attrV) {
+        try {
+            TrackedEntityDataValue.Builder attrValueModelBuilder = TrackedEntityDataValue.builder();
+            if (attrV.has("event"))
+                attrValueModelBuilder.event(attrV.getString("event"));
+            if (attrV.has("lastUpdated"))
+                attrValueModelBuilder.lastUpdated(dateFormat.parse(attrV.getString("lastUpdated")));
+            if (attrV.has("dataElement"))
+                attrValueModelBuilder.dataElement(attrV.getString("dataElement"));
+            if (attrV.has("storedBy"))
+                attrValueModelBuilder.storedBy(attrV.getString("storedBy"));
+            if (attrV.has("value"))
+                attrValueModelBuilder.value(attrV.getString("value"));
+            if (attrV.has("providedElsewhere"))
+                attrValueModelBuilder.providedElsewhere(Boolean.parseBoolean(attrV.getString("providedElsewhere")));
+
+            return attrValueModelBuilder.build();
+        } catch (JSONException | ParseException | RuntimeException e) {
+            Timber.e(e);
+            return null;
+        }
+    }
+
+    private static Geometry parseGeometry(JSONObject geometryJson) throws JSONException {
+        return Geometry.builder()
+                .type(FeatureType.valueOf(geometryJson.getString("type")))
+                .coordinates(geometryJson.getString("coordinates"))
+                .build();
+    }
+}
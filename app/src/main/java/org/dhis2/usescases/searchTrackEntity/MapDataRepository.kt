@@ -1,18 +1,24 @@
 package org.dhis2.usescases.searchTrackEntity
 
+import com.mapbox.geojson.BoundingBox
 import com.mapbox.geojson.FeatureCollection
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.reactive.asFlow
 import org.dhis2.commons.data.SearchTeiModel
 import org.dhis2.commons.data.uids
 import org.dhis2.data.search.SearchParametersModel
+import org.dhis2.maps.geometry.bound.boundingBox
+import org.dhis2.maps.geometry.bound.intersects
 import org.dhis2.maps.geometry.mapper.featurecollection.MapCoordinateFieldToFeatureCollection
 import org.dhis2.maps.geometry.mapper.featurecollection.MapTeiEventsToFeatureCollection
 import org.dhis2.maps.geometry.mapper.featurecollection.MapTeisToFeatureCollection
 import org.dhis2.maps.mapper.EventToEventUiComponent
-import org.dhis2.maps.utils.CoordinateAttributeInfo
-import org.dhis2.maps.utils.CoordinateDataElementInfo
 import org.dhis2.maps.utils.DhisMapUtils
 import org.dhis2.usescases.searchTrackEntity.adapters.uids
 import org.hisp.dhis.android.core.program.Program
+import org.hisp.dhis.android.core.trackedentity.search.TrackedEntitySearchItem
+import org.hisp.dhis.android.core.trackedentity.search.TrackedEntitySearchItemHelper
 
 class MapDataRepository(
     private val searchRepository: SearchRepository,
@@ -22,17 +28,35 @@ class MapDataRepository(
     private val eventToEventUiComponent: EventToEventUiComponent,
     private val mapUtils: DhisMapUtils,
 ) {
+    /**
+     * Streams the map data in chunks of [MAP_CHUNK_SIZE] tracked entities, up to [MAX_MAP_TEIS].
+     * Partial emissions contain everything loaded so far, so sources can be refreshed while the
+     * rest is still loading. The last emission is flagged as truncated when the limit was reached.
+     * When a [viewport] is given, tracked entities whose own coordinates are outside of it are
+     * skipped before being transformed.
+     */
     fun getTrackerMapData(
         selectedProgram: Program?,
         queryData: MutableMap<String, String>,
-    ): TrackerMapData {
-        val teis = searchRepository.searchTeiForMap(
+        viewport: BoundingBox? = null,
+    ): Flow<TrackerMapData> = flow {
+        val accumulator = TrackerMapDataAccumulator(viewport, MAX_MAP_TEIS)
+        searchRepository.searchTeiForMap(
             SearchParametersModel(
                 selectedProgram,
                 queryData,
             ),
             true,
-        ).blockingFirst()
+            { item -> viewport == null || isInViewport(item, viewport) },
+            MAP_CHUNK_SIZE,
+            MAX_MAP_TEIS,
+        ).asFlow().collect { teis ->
+            accumulator.add(mapChunk(teis, selectedProgram), teis.size)?.let { emit(it) }
+        }
+        emit(accumulator.complete())
+    }
+
+    private fun mapChunk(teis: List<SearchTeiModel>, selectedProgram: Program?): TrackerMapData {
         val events = searchRepository.getEventsForMap(teis)
 
         val coordinateDataElements = mapUtils.getCoordinateDataElementInfo(events.uids())
@@ -48,12 +72,15 @@ class MapDataRepository(
             mapTeisToFeatureCollection.map(teis, selectedProgram != null)
         val eventsByProgramStage =
             mapTeiEventsToFeatureCollection.map(eventsUi).component1()
+        val attributeTeiUids = coordinateAttributes.map { it.tei.uid() }.toHashSet()
+        val dataElementEnrollmentUids =
+            coordinateDataElements.mapNotNull { it.enrollment?.uid() }.toHashSet()
         return TrackerMapData(
             teiModels = teis.filter {
                 hasCoordinates(it) or
                     hasEnrollmentCoordinates(it) or
-                    hasAttributeCoordinates(it, coordinateAttributes) or
-                    hasDataElementCoordinates(it, coordinateDataElements)
+                    attributeTeiUids.contains(it.uid()) or
+                    dataElementEnrollmentUids.contains(it.selectedEnrollment?.uid())
             }.toMutableList(),
             eventFeatures = eventsByProgramStage,
             teiFeatures = teiFeatureCollection.first,
@@ -63,6 +90,11 @@ class MapDataRepository(
         )
     }
 
+    private fun isInViewport(item: TrackedEntitySearchItem, viewport: BoundingBox): Boolean {
+        val geometry = TrackedEntitySearchItemHelper.toTrackedEntityInstance(item).geometry()
+        return geometry?.boundingBox()?.intersects(viewport) ?: true
+    }
+
     private fun hasCoordinates(searchTeiModel: SearchTeiModel): Boolean {
         return searchTeiModel.tei.geometry() != null
     }
@@ -71,19 +103,8 @@ class MapDataRepository(
         return searchTeiModel.selectedEnrollment?.geometry() != null
     }
 
-    private fun hasAttributeCoordinates(
-        searchTeiModel: SearchTeiModel,
-        coordinateAttributes: List<CoordinateAttributeInfo>,
-    ): Boolean {
-        return coordinateAttributes.find { it.tei.uid() == searchTeiModel.uid() } != null
-    }
-
-    private fun hasDataElementCoordinates(
-        searchTeiModel: SearchTeiModel,
-        coordinateDataElements: List<CoordinateDataElementInfo>,
-    ): Boolean {
-        return coordinateDataElements.find {
-            it.enrollment?.uid() == searchTeiModel.selectedEnrollment.uid()
-        } != null
+    companion object {
+        const val MAP_CHUNK_SIZE = 250
+        const val MAX_MAP_TEIS = 5000
     }
 }
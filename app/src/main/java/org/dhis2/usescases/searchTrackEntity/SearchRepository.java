@@ -25,6 +25,7 @@ import java.util.Map;
 
 import io.reactivex.Flowable;
 import io.reactivex.Observable;
+import io.reactivex.functions.Predicate;
 import kotlin.Deprecated;
 
 @Deprecated(message = "Use SearchRepositoryKt instead")
@@ -35,7 +36,7 @@ public interface SearchRepository {
     void clearFetchedList();
 
     @NonNull
-    Flowable<List<SearchTeiModel>> searchTeiForMap(SearchParametersModel searchParametersModel, boolean isOnline);
+    Flowable<List<SearchTeiModel>> searchTeiForMap(SearchParametersModel searchParametersModel, boolean isOnline, Predicate<TrackedEntitySearchItem> itemFilter, int chunkSize, int maxItems);
 
     @NonNull
     Observable<Pair<String, String>> saveToEnroll(@NonNull String teiType, @NonNull String orgUnitUID, @NonNull String programUid, @Nullable String teiUid, HashMap<String, String> queryDatam, @Nullable String fromRelationshipUid);
@@ -56,6 +57,8 @@ public interface SearchRepository {
 
     SearchTeiModel transform(TrackedEntitySearchItem searchItem, @Nullable Program selectedProgram, boolean offlineOnly, SortingItem sortingItem);
 
+    List<SearchTeiModel> transformPage(List<TrackedEntitySearchItem> searchItems, @Nullable Program selectedProgram, boolean offlineOnly, SortingItem sortingItem);
+
     TrackedEntitySearchCollectionRepository getFilteredRepository(SearchParametersModel searchParametersModel);
 
     void setCurrentProgram(@Nullable String currentProgram);
@@ -1,6 +1,8 @@
 package org.dhis2.usescases.searchTrackEntity;
 
+import android.database.Cursor;
 import android.database.sqlite.SQLiteConstraintException;
+import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -50,7 +52,6 @@ import org.hisp.dhis.android.core.common.ObjectStyle;
 import org.hisp.dhis.android.core.common.State;
 import org.hisp.dhis.android.core.common.ValueType;
 import org.hisp.dhis.android.core.enrollment.Enrollment;
-import org.hisp.dhis.android.core.enrollment.EnrollmentCollectionRepository;
 import org.hisp.dhis.android.core.enrollment.EnrollmentCreateProjection;
 import org.hisp.dhis.android.core.enrollment.EnrollmentStatus;
 import org.hisp.dhis.android.core.event.Event;
@@ -61,8 +62,7 @@ import org.hisp.dhis.android.core.program.Program;
 import org.hisp.dhis.android.core.program.ProgramStage;
 import org.hisp.dhis.android.core.program.ProgramTrackedEntityAttribute;
 import org.hisp.dhis.android.core.relationship.Relationship;
-import org.hisp.dhis.android.core.relationship.RelationshipItem;
-import org.hisp.dhis.android.core.relationship.RelationshipItemTrackedEntityInstance;
+import org.hisp.dhis.android.core.relationship.RelationshipItemTableInfo;
 import org.hisp.dhis.android.core.relationship.RelationshipType;
 import org.hisp.dhis.android.core.settings.AnalyticsDhisVisualizationsGroup;
 import org.hisp.dhis.android.core.settings.ProgramConfigurationSetting;
@@ -84,17 +84,22 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import dhis2.org.analytics.charts.Charts;
 import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.Single;
+import io.reactivex.functions.Predicate;
 
 public class SearchRepositoryImpl implements SearchRepository {
 
+    private static final int PREFETCH_PAGE_SIZE = 200;
+
     private final String teiType;
     private final ResourceManager resources;
     private final D2 d2;
@@ -122,6 +127,12 @@ public class SearchRepositoryImpl implements SearchRepository {
 
     private HashMap<String, List<String>> trackedEntityTypeAttributesUidsCache = new HashMap();
 
+    private HashMap<String, TrackedEntityType> trackedEntityTypeCache = new HashMap<>();
+
+    private HashMap<Boolean, List<String>> imageAttributeUidsCache = new HashMap<>();
+
+    private HashMap<String, Boolean> displayOrgUnitCache = new HashMap<>();
+
     private final MetadataIconProvider metadataIconProvider;
 
     SearchRepositoryImpl(String teiType,
@@ -178,7 +189,11 @@ public class SearchRepositoryImpl implements SearchRepository {
 
     @NonNull
     @Override
-    public Flowable<List<SearchTeiModel>> searchTeiForMap(SearchParametersModel searchParametersModel, boolean isOnline) {
+    public Flowable<List<SearchTeiModel>> searchTeiForMap(SearchParametersModel searchParametersModel,
+                                                          boolean isOnline,
+                                                          Predicate<TrackedEntitySearchItem> itemFilter,
+                                                          int chunkSize,
+                                                          int maxItems) {
 
         boolean allowCache = false;
         if (!searchParametersModel.equals(savedSearchParameters) || !FilterManager.getInstance().equals(savedFilters)) {
@@ -187,16 +202,17 @@ public class SearchRepositoryImpl implements SearchRepository {
             allowCache = true;
         }
 
-        if (isOnline && FilterManager.getInstance().getStateFilters().isEmpty())
-            return trackedEntityInstanceQuery.allowOnlineCache().eq(allowCache).offlineFirst().get().toFlowable()
-                    .flatMapIterable(list -> list)
-                    .map(tei -> transform(tei, searchParametersModel.getSelectedProgram(), false, FilterManager.getInstance().getSortingItem()))
-                    .toList().toFlowable();
-        else
-            return trackedEntityInstanceQuery.allowOnlineCache().eq(allowCache).offlineOnly().get().toFlowable()
-                    .flatMapIterable(list -> list)
-                    .map(tei -> transform(tei, searchParametersModel.getSelectedProgram(), true, FilterManager.getInstance().getSortingItem()))
-                    .toList().toFlowable();
+        boolean offlineOnly = !isOnline || !FilterManager.getInstance().getStateFilters().isEmpty();
+        TrackedEntitySearchCollectionRepository repository = offlineOnly ?
+                trackedEntityInstanceQuery.allowOnlineCache().eq(allowCache).offlineOnly() :
+                trackedEntityInstanceQuery.allowOnlineCache().eq(allowCache).offlineFirst();
+
+        return repository.get().toFlowable()
+                .flatMapIterable(list -> list)
+                .filter(itemFilter)
+                .take(maxItems)
+                .buffer(chunkSize)
+                .map(items -> transformPage(items, searchParametersModel.getSelectedProgram(), offlineOnly, FilterManager.getInstance().getSortingItem()));
     }
 
     @Override
@@ -321,16 +337,15 @@ public class SearchRepositoryImpl implements SearchRepository {
     }
 
 
-    private void setEnrollmentInfo(SearchTeiModel searchTei) {
-        List<Enrollment> enrollments =
-                d2.enrollmentModule().enrollments()
-                        .byTrackedEntityInstance().eq(searchTei.getTei().uid())
-                        .byDeleted().eq(false)
-                        .orderByCreated(RepositoryScope.OrderByDirection.DESC)
-                        .blockingGet();
+    private void setEnrollmentInfo(SearchTeiModel searchTei, List<Enrollment> enrollments) {
+        boolean firstEnrollment = true;
         for (Enrollment enrollment : enrollments) {
-            if (enrollments.indexOf(enrollment) == 0)
+            if (Boolean.TRUE.equals(enrollment.deleted()))
+                continue;
+            if (firstEnrollment) {
                 searchTei.resetEnrollments();
+                firstEnrollment = false;
+            }
             searchTei.addEnrollment(enrollment);
             Program program = getProgram(enrollment.program());
             if (program.displayFrontPageList()) {
@@ -387,30 +402,15 @@ public class SearchRepositoryImpl implements SearchRepository {
         }
     }
 
-    private void setOverdueEvents(@NonNull SearchTeiModel tei, Program selectedProgram) {
+    private void setOverdueEvents(@NonNull SearchTeiModel tei, SearchTeiPrefetch prefetch) {
         String teiId = tei.getTei() != null && tei.getTei().uid() != null ? tei.getTei().uid() : "";
-        List<Enrollment> enrollments = d2.enrollmentModule().enrollments().byTrackedEntityInstance().eq(teiId).blockingGet();
-
-        EventCollectionRepository scheduledEvents = d2.eventModule().events().byEnrollmentUid().in(UidsHelper.getUidsList(enrollments))
-                .byStatus().eq(EventStatus.SCHEDULE)
-                .byDueDate().beforeOrEqual(new Date());
-
-        EventCollectionRepository overdueEvents = d2.eventModule().events().byEnrollmentUid().in(UidsHelper.getUidsList(enrollments)).byStatus().eq(EventStatus.OVERDUE);
-
-        if (selectedProgram != null) {
-            scheduledEvents = scheduledEvents.byProgramUid().eq(selectedProgram.uid()).orderByDueDate(RepositoryScope.OrderByDirection.DESC);
-            overdueEvents = overdueEvents.byProgramUid().eq(selectedProgram.uid()).orderByDueDate(RepositoryScope.OrderByDirection.DESC);
-        }
+        Event scheduledEvent = prefetch.scheduledEvents.get(teiId);
+        Event overdueEvent = prefetch.overdueEvents.get(teiId);
 
-        int count;
-        List<Event> scheduleList = scheduledEvents.blockingGet();
-        List<Event> overdueList = overdueEvents.blockingGet();
-        count = overdueList.size() + scheduleList.size();
-
-        if (count > 0) {
+        if (scheduledEvent != null || overdueEvent != null) {
             tei.setHasOverdue(true);
-            Date scheduleDate = !scheduleList.isEmpty() ? scheduleList.get(0).dueDate() : null;
-            Date overdueDate = !overdueList.isEmpty()  ? overdueList.get(0).dueDate() : null;
+            Date scheduleDate = scheduledEvent != null ? scheduledEvent.dueDate() : null;
+            Date overdueDate = overdueEvent != null ? overdueEvent.dueDate() : null;
             Date dateToShow = null;
             if (scheduleDate != null && overdueDate != null) {
                 if (scheduleDate.before(overdueDate)) {
@@ -427,19 +427,12 @@ public class SearchRepositoryImpl implements SearchRepository {
         }
     }
 
-    private void setRelationshipsInfo(@NonNull SearchTeiModel searchTeiModel, Program selectedProgram) {
+    private void setRelationshipsInfo(@NonNull SearchTeiModel searchTeiModel, Program selectedProgram, SearchTeiPrefetch prefetch) {
         List<RelationshipViewModel> relationshipViewModels = new ArrayList<>();
-        List<Relationship> relationships = d2.relationshipModule().relationships().getByItem(
-                RelationshipItem.builder().trackedEntityInstance(
-                        RelationshipItemTrackedEntityInstance.builder()
-                                .trackedEntityInstance(searchTeiModel.getTei().uid())
-                                .build()
-                ).build()
-        );
+        List<Relationship> relationships = prefetch.relationships(searchTeiModel.getTei().uid());
         for (Relationship relationship : relationships) {
             if (relationship.from().trackedEntityInstance() != null) {
-                RelationshipType relationshipType =
-                        d2.relationshipModule().relationshipTypes().uid(relationship.relationshipType()).blockingGet();
+                RelationshipType relationshipType = prefetch.relationshipTypes.get(relationship.relationshipType());
 
                 String relationshipTEIUid;
                 RelationshipDirection direction;
@@ -454,13 +447,13 @@ public class SearchRepositoryImpl implements SearchRepository {
                 String fromTeiUid = relationship.from().trackedEntityInstance().trackedEntityInstance();
                 String toTeiUid = relationship.to().trackedEntityInstance().trackedEntityInstance();
 
-                TrackedEntityInstance fromTei = d2.trackedEntityModule().trackedEntityInstances().uid(fromTeiUid).blockingGet();
-                TrackedEntityInstance toTei = d2.trackedEntityModule().trackedEntityInstances().uid(toTeiUid).blockingGet();
+                TrackedEntityInstance fromTei = prefetch.relationshipTeis.get(fromTeiUid);
+                TrackedEntityInstance toTei = prefetch.relationshipTeis.get(toTeiUid);
 
                 List<kotlin.Pair<String, String>> fromValues = new ArrayList<>();
-                List<TrackedEntityAttributeValue> fromAttr = getTrackedEntityAttributesForRelationship(fromTei, selectedProgram);
+                List<TrackedEntityAttributeValue> fromAttr = getTrackedEntityAttributesForRelationship(fromTei, selectedProgram, prefetch);
                 List<kotlin.Pair<String, String>> toValues = new ArrayList<>();
-                List<TrackedEntityAttributeValue> toAttr = getTrackedEntityAttributesForRelationship(toTei, selectedProgram);
+                List<TrackedEntityAttributeValue> toAttr = getTrackedEntityAttributesForRelationship(toTei, selectedProgram, prefetch);
                 for (TrackedEntityAttributeValue attributeValue : fromAttr) {
                     fromValues.add(new kotlin.Pair<>(attributeValue.trackedEntityAttribute(), attributeValue.value()));
                 }
@@ -477,8 +470,8 @@ public class SearchRepositoryImpl implements SearchRepository {
                         RelationshipOwnerType.TEI,
                         fromValues,
                         toValues,
-                        profilePicturePath(fromTei, selectedProgram.uid()),
-                        profilePicturePath(toTei, selectedProgram.uid()),
+                        profilePicturePath(fromTei, selectedProgram.uid(), prefetch),
+                        profilePicturePath(toTei, selectedProgram.uid(), prefetch),
                         getTeiDefaultRes(fromTei),
                         getTeiDefaultRes(toTei),
                         MetadataIconData.Companion.defaultIcon(),
@@ -490,9 +483,12 @@ public class SearchRepositoryImpl implements SearchRepository {
         searchTeiModel.setRelationships(relationshipViewModels);
     }
 
-    private String profilePicturePath(TrackedEntityInstance tei, String programUid) {
+    private String profilePicturePath(TrackedEntityInstance tei, String programUid, SearchTeiPrefetch prefetch) {
         if (!profilePictureCache.containsKey(tei.uid())) {
-            profilePictureCache.put(tei.uid(), ExtensionsKt.profilePicturePath(tei, d2, programUid));
+            String path = prefetch.teisWithImage.contains(tei.uid()) ?
+                    ExtensionsKt.profilePicturePath(tei, d2, programUid) :
+                    "";
+            profilePictureCache.put(tei.uid(), path);
         }
         return profilePictureCache.get(tei.uid());
     }
@@ -525,31 +521,63 @@ public class SearchRepositoryImpl implements SearchRepository {
             for (TrackedEntityTypeAttribute typeAttribute : typeAttributes) {
                 attributeUids.add(typeAttribute.trackedEntityAttribute().uid());
             }
+            trackedEntityTypeAttributesUidsCache.put(teTypeUid, attributeUids);
         }
         return trackedEntityTypeAttributesUidsCache.get(teTypeUid);
     }
 
+    private List<String> getImageAttributeUids(@Nullable Program selectedProgram) {
+        boolean hasProgram = selectedProgram != null;
+        if (!imageAttributeUidsCache.containsKey(hasProgram)) {
+            List<String> imageAttributeUids;
+            if (hasProgram) {
+                imageAttributeUids = d2.trackedEntityModule().trackedEntityAttributes()
+                        .byValueType().eq(ValueType.IMAGE)
+                        .blockingGetUids();
+            } else {
+                imageAttributeUids = d2.trackedEntityModule().trackedEntityAttributes()
+                        .byDisplayInListNoProgram().isTrue()
+                        .byValueType().eq(ValueType.IMAGE)
+                        .blockingGetUids();
+            }
+            imageAttributeUidsCache.put(hasProgram, imageAttributeUids);
+        }
+        return imageAttributeUidsCache.get(hasProgram);
+    }
+
     private int getTeiDefaultRes(TrackedEntityInstance tei) {
-        TrackedEntityType teiTypeValues = d2.trackedEntityModule().trackedEntityTypes().uid(tei.trackedEntityType()).blockingGet();
+        if (!trackedEntityTypeCache.containsKey(tei.trackedEntityType())) {
+            trackedEntityTypeCache.put(
+                    tei.trackedEntityType(),
+                    d2.trackedEntityModule().trackedEntityTypes().uid(tei.trackedEntityType()).blockingGet()
+            );
+        }
+        TrackedEntityType teiTypeValues = trackedEntityTypeCache.get(tei.trackedEntityType());
         return resources.getObjectStyleDrawableResource(teiTypeValues.style().icon(), R.drawable.photo_temp_gray);
     }
 
-    private List<TrackedEntityAttributeValue> getTrackedEntityAttributesForRelationship(TrackedEntityInstance tei, Program selectedProgram) {
+    private List<TrackedEntityAttributeValue> getTrackedEntityAttributesForRelationship(TrackedEntityInstance tei, Program selectedProgram, SearchTeiPrefetch prefetch) {
+        List<TrackedEntityAttributeValue> teiValues = prefetch.relationshipAttributeValues(tei.uid());
 
-        List<TrackedEntityAttributeValue> values;
-        values = d2.trackedEntityModule().trackedEntityAttributeValues()
-                .byTrackedEntityInstance().eq(tei.uid())
-                .byTrackedEntityAttribute().in(getProgramAttributeUids(selectedProgram.uid())).blockingGet();
+        List<TrackedEntityAttributeValue> values = filterAttributeValues(teiValues, getProgramAttributeUids(selectedProgram.uid()));
 
         if (values.isEmpty()) {
-            values = d2.trackedEntityModule().trackedEntityAttributeValues()
-                    .byTrackedEntityInstance().eq(tei.uid())
-                    .byTrackedEntityAttribute().in(getTETypeAttributeUids(tei.trackedEntityType())).blockingGet();
+            values = filterAttributeValues(teiValues, getTETypeAttributeUids(tei.trackedEntityType()));
         }
 
         return values;
     }
 
+    private List<TrackedEntityAttributeValue> filterAttributeValues(List<TrackedEntityAttributeValue> values, List<String> attributeUids) {
+        List<TrackedEntityAttributeValue> filteredValues = new ArrayList<>();
+        for (TrackedEntityAttributeValue value : values) {
+            if (attributeUids.contains(value.trackedEntityAttribute())) {
+                filteredValues.add(value);
+            }
+        }
+        return filteredValues;
+    }
+
     @Override
     public String getProgramColor(@NonNull String programUid) {
         Program program = getProgram(programUid);
@@ -711,28 +739,39 @@ public class SearchRepositoryImpl implements SearchRepository {
 
     @Override
     public SearchTeiModel transform(TrackedEntitySearchItem searchItem, @Nullable Program selectedProgram, boolean offlineOnly, SortingItem sortingItem) {
+        return transformPage(Collections.singletonList(searchItem), selectedProgram, offlineOnly, sortingItem).get(0);
+    }
+
+    @Override
+    public List<SearchTeiModel> transformPage(List<TrackedEntitySearchItem> searchItems, @Nullable Program selectedProgram, boolean offlineOnly, SortingItem sortingItem) {
+        List<SearchTeiModel> searchTeiModels = new ArrayList<>(searchItems.size());
+        if (searchItems.isEmpty()) {
+            return searchTeiModels;
+        }
+        boolean displayOrgUnit = displayOrgUnit();
+        for (int start = 0; start < searchItems.size(); start += PREFETCH_PAGE_SIZE) {
+            List<TrackedEntitySearchItem> page = searchItems.subList(start, Math.min(start + PREFETCH_PAGE_SIZE, searchItems.size()));
+            SearchTeiPrefetch prefetch = prefetch(page, selectedProgram);
+            for (TrackedEntitySearchItem searchItem : page) {
+                searchTeiModels.add(transform(searchItem, prefetch, selectedProgram, offlineOnly, sortingItem, displayOrgUnit));
+            }
+        }
+        return searchTeiModels;
+    }
+
+    private SearchTeiModel transform(TrackedEntitySearchItem searchItem, SearchTeiPrefetch prefetch, @Nullable Program selectedProgram, boolean offlineOnly, SortingItem sortingItem, boolean displayOrgUnit) {
         if (!fetchedTeiUids.contains(searchItem.uid())) {
             fetchedTeiUids.add(searchItem.uid());
         }
-        TrackedEntityInstance teiFromItem = TrackedEntitySearchItemHelper.INSTANCE.toTrackedEntityInstance(searchItem);
+        TrackedEntityInstance teiFromItem = prefetch.itemTeis.get(searchItem.uid());
 
-        TrackedEntityInstance dbTei = searchItem.isOnline() ?
-                d2.trackedEntityModule().trackedEntityInstances().uid(searchItem.uid()).blockingGet() :
-                teiFromItem;
+        TrackedEntityInstance dbTei = prefetch.dbTei(searchItem);
 
         SearchTeiModel searchTei = new SearchTeiModel();
-        if (dbTei != null && dbTei.aggregatedSyncState() != State.RELATIONSHIP) {
+        if (SearchTeiPrefetch.isLocalTei(dbTei)) {
             searchTei.setTei(dbTei);
-            EnrollmentCollectionRepository enrollmentRepository = d2.enrollmentModule().enrollments()
-                    .byTrackedEntityInstance().eq(dbTei.uid());
-
-            if (selectedProgram != null) {
-                enrollmentRepository = enrollmentRepository.byProgram().eq(selectedProgram.uid());
-            }
-
-            List<Enrollment> enrollmentsInProgram = enrollmentRepository
-                    .orderByEnrollmentDate(RepositoryScope.OrderByDirection.DESC)
-                    .blockingGet();
+            List<Enrollment> enrollments = prefetch.enrollments(dbTei.uid());
+            List<Enrollment> enrollmentsInProgram = enrollmentsInProgram(enrollments, selectedProgram);
 
             if (!enrollmentsInProgram.isEmpty()) {
                 for (Enrollment enrollment : enrollmentsInProgram) {
@@ -755,18 +794,20 @@ public class SearchRepositoryImpl implements SearchRepository {
                 searchTei.setOnline(true);
             }
 
-            setEnrollmentInfo(searchTei);
+            setEnrollmentInfo(searchTei, enrollments);
             setAttributesInfo(searchTei, searchItem);
-            setOverdueEvents(searchTei, selectedProgram);
+            setOverdueEvents(searchTei, prefetch);
             if (selectedProgram != null) {
-                setRelationshipsInfo(searchTei, selectedProgram);
+                setRelationshipsInfo(searchTei, selectedProgram, prefetch);
             }
             if (searchTei.getSelectedEnrollment() != null) {
                 searchTei.setEnrolledOrgUnit(orgUnitName(searchTei.getSelectedEnrollment().organisationUnit()));
             } else {
                 searchTei.setEnrolledOrgUnit(orgUnitName(searchTei.getTei().organisationUnit()));
             }
-            searchTei.setProfilePicture(profilePicturePath(dbTei, selectedProgram));
+            searchTei.setProfilePicture(
+                    prefetch.teisWithImage.contains(dbTei.uid()) ? profilePicturePath(dbTei, selectedProgram) : ""
+            );
         } else {
             searchTei.setTei(teiFromItem);
             searchTei.setEnrolledOrgUnit(orgUnitName(searchTei.getTei().organisationUnit()));
@@ -784,10 +825,259 @@ public class SearchRepositoryImpl implements SearchRepository {
         searchTei.setHeader(searchItem.getHeader());
         searchTei.setSortingValue(sortingValueSetter.setSortingItem(searchTei, sortingItem));
         searchTei.setTEType(searchItem.getType().displayName());
-        searchTei.setDisplayOrgUnit(displayOrgUnit());
+        searchTei.setDisplayOrgUnit(displayOrgUnit);
         return searchTei;
     }
 
+    private List<Enrollment> enrollmentsInProgram(List<Enrollment> enrollments, @Nullable Program selectedProgram) {
+        List<Enrollment> enrollmentsInProgram = new ArrayList<>();
+        for (Enrollment enrollment : enrollments) {
+            if (selectedProgram == null || selectedProgram.uid().equals(enrollment.program())) {
+                enrollmentsInProgram.add(enrollment);
+            }
+        }
+        Collections.sort(enrollmentsInProgram, (enrollmentA, enrollmentB) -> {
+            Date dateA = enrollmentA.enrollmentDate();
+            Date dateB = enrollmentB.enrollmentDate();
+            if (dateA == null || dateB == null) {
+                return dateA == dateB ? 0 : dateA == null ? 1 : -1;
+            }
+            return dateB.compareTo(dateA);
+        });
+        return enrollmentsInProgram;
+    }
+
+    private SearchTeiPrefetch prefetch(List<TrackedEntitySearchItem> searchItems, @Nullable Program selectedProgram) {
+        SearchTeiPrefetch prefetch = new SearchTeiPrefetch();
+        List<String> onlineTeiUids = new ArrayList<>();
+        for (TrackedEntitySearchItem searchItem : searchItems) {
+            prefetch.itemTeis.put(searchItem.uid(), TrackedEntitySearchItemHelper.INSTANCE.toTrackedEntityInstance(searchItem));
+            if (searchItem.isOnline()) {
+                onlineTeiUids.add(searchItem.uid());
+            }
+        }
+        if (!onlineTeiUids.isEmpty()) {
+            for (TrackedEntityInstance tei : d2.trackedEntityModule().trackedEntityInstances()
+                    .byUid().in(onlineTeiUids)
+                    .blockingGet()) {
+                prefetch.dbTeis.put(tei.uid(), tei);
+            }
+        }
+
+        List<String> localTeiUids = new ArrayList<>();
+        Set<String> orgUnitUids = new HashSet<>();
+        for (TrackedEntitySearchItem searchItem : searchItems) {
+            TrackedEntityInstance dbTei = prefetch.dbTei(searchItem);
+            if (SearchTeiPrefetch.isLocalTei(dbTei)) {
+                localTeiUids.add(dbTei.uid());
+                orgUnitUids.add(dbTei.organisationUnit());
+            } else {
+                orgUnitUids.add(prefetch.itemTeis.get(searchItem.uid()).organisationUnit());
+            }
+        }
+
+        if (!localTeiUids.isEmpty()) {
+            prefetchEnrollments(prefetch, localTeiUids, selectedProgram);
+            for (List<Enrollment> enrollments : prefetch.enrollments.values()) {
+                for (Enrollment enrollment : enrollments) {
+                    orgUnitUids.add(enrollment.organisationUnit());
+                }
+            }
+            Set<String> profilePictureTeiUids = new HashSet<>(localTeiUids);
+            if (selectedProgram != null) {
+                prefetchRelationships(prefetch, localTeiUids, selectedProgram);
+                profilePictureTeiUids.addAll(prefetch.relationshipTeis.keySet());
+            }
+            prefetchProfilePictures(prefetch, profilePictureTeiUids, selectedProgram);
+        }
+        prefetchOrgUnitNames(orgUnitUids);
+
+        return prefetch;
+    }
+
+    private void prefetchEnrollments(SearchTeiPrefetch prefetch, List<String> teiUids, @Nullable Program selectedProgram) {
+        List<Enrollment> enrollments = d2.enrollmentModule().enrollments()
+                .byTrackedEntityInstance().in(teiUids)
+                .orderByCreated(RepositoryScope.OrderByDirection.DESC)
+                .blockingGet();
+        if (enrollments.isEmpty()) {
+            return;
+        }
+
+        HashMap<String, String> teiByEnrollment = new HashMap<>();
+        Set<String> missingProgramUids = new HashSet<>();
+        for (Enrollment enrollment : enrollments) {
+            List<Enrollment> teiEnrollments = prefetch.enrollments.get(enrollment.trackedEntityInstance());
+            if (teiEnrollments == null) {
+                teiEnrollments = new ArrayList<>();
+                prefetch.enrollments.put(enrollment.trackedEntityInstance(), teiEnrollments);
+            }
+            teiEnrollments.add(enrollment);
+            teiByEnrollment.put(enrollment.uid(), enrollment.trackedEntityInstance());
+            if (!programCache.containsKey(enrollment.program())) {
+                missingProgramUids.add(enrollment.program());
+            }
+        }
+
+        if (!missingProgramUids.isEmpty()) {
+            for (Program program : d2.programModule().programs()
+                    .byUid().in(new ArrayList<>(missingProgramUids))
+                    .blockingGet()) {
+                programCache.put(program.uid(), program);
+            }
+        }
+
+        List<String> enrollmentUids = new ArrayList<>(teiByEnrollment.keySet());
+        EventCollectionRepository scheduledEvents = d2.eventModule().events().byEnrollmentUid().in(enrollmentUids)
+                .byStatus().eq(EventStatus.SCHEDULE)
+                .byDueDate().beforeOrEqual(new Date());
+
+        EventCollectionRepository overdueEvents = d2.eventModule().events().byEnrollmentUid().in(enrollmentUids).byStatus().eq(EventStatus.OVERDUE);
+
+        if (selectedProgram != null) {
+            scheduledEvents = scheduledEvents.byProgramUid().eq(selectedProgram.uid());
+            overdueEvents = overdueEvents.byProgramUid().eq(selectedProgram.uid());
+        }
+
+        putLatestEventByTei(prefetch.scheduledEvents, scheduledEvents, teiByEnrollment);
+        putLatestEventByTei(prefetch.overdueEvents, overdueEvents, teiByEnrollment);
+    }
+
+    private void putLatestEventByTei(HashMap<String, Event> eventsByTei, EventCollectionRepository eventRepository, HashMap<String, String> teiByEnrollment) {
+        for (Event event : eventRepository.orderByDueDate(RepositoryScope.OrderByDirection.DESC).blockingGet()) {
+            String teiUid = teiByEnrollment.get(event.enrollment());
+            if (teiUid != null && !eventsByTei.containsKey(teiUid)) {
+                eventsByTei.put(teiUid, event);
+            }
+        }
+    }
+
+    private List<String> getRelationshipUids(List<String> teiUids) {
+        Set<String> relationshipUids = new LinkedHashSet<>();
+        for (int start = 0; start < teiUids.size(); start += PREFETCH_PAGE_SIZE) {
+            List<String> page = teiUids.subList(start, Math.min(start + PREFETCH_PAGE_SIZE, teiUids.size()));
+            String query = "SELECT DISTINCT " + RelationshipItemTableInfo.Columns.RELATIONSHIP +
+                    " FROM " + RelationshipItemTableInfo.TABLE_INFO.name() +
+                    " WHERE " + RelationshipItemTableInfo.Columns.TRACKED_ENTITY_INSTANCE +
+                    " IN (" + TextUtils.join(",", Collections.nCopies(page.size(), "?")) + ")";
+            try (Cursor cursor = d2.databaseAdapter().rawQuery(query, page.toArray(new String[0]))) {
+                while (cursor.moveToNext()) {
+                    relationshipUids.add(cursor.getString(0));
+                }
+            }
+        }
+        return new ArrayList<>(relationshipUids);
+    }
+
+    private void prefetchRelationships(SearchTeiPrefetch prefetch, List<String> teiUids, Program selectedProgram) {
+        Set<String> relationshipTypeUids = new HashSet<>();
+        Set<String> relationshipTeiUids = new HashSet<>();
+        for (String teiUid : teiUids) {
+            prefetch.relationships.put(teiUid, new ArrayList<>());
+        }
+        List<String> relationshipUids = getRelationshipUids(teiUids);
+        if (relationshipUids.isEmpty()) {
+            return;
+        }
+        for (Relationship relationship : d2.relationshipModule().relationships().withItems()
+                .byUid().in(relationshipUids)
+                .blockingGet()) {
+            if (Boolean.TRUE.equals(relationship.deleted()) ||
+                    relationship.from() == null || relationship.to() == null ||
+                    relationship.from().trackedEntityInstance() == null) {
+                continue;
+            }
+            String fromTeiUid = relationship.from().trackedEntityInstance().trackedEntityInstance();
+            List<Relationship> fromRelationships = prefetch.relationships.get(fromTeiUid);
+            if (fromRelationships != null) {
+                fromRelationships.add(relationship);
+            }
+            if (relationship.to().trackedEntityInstance() != null) {
+                String toTeiUid = relationship.to().trackedEntityInstance().trackedEntityInstance();
+                List<Relationship> toRelationships = prefetch.relationships.get(toTeiUid);
+                if (toRelationships != null && !toTeiUid.equals(fromTeiUid)) {
+                    toRelationships.add(relationship);
+                }
+                relationshipTeiUids.add(toTeiUid);
+            }
+            relationshipTypeUids.add(relationship.relationshipType());
+            relationshipTeiUids.add(fromTeiUid);
+        }
+        if (relationshipTeiUids.isEmpty()) {
+            return;
+        }
+
+        for (RelationshipType relationshipType : d2.relationshipModule().relationshipTypes()
+                .byUid().in(new ArrayList<>(relationshipTypeUids))
+                .blockingGet()) {
+            prefetch.relationshipTypes.put(relationshipType.uid(), relationshipType);
+        }
+
+        Set<String> attributeUids = new HashSet<>(getProgramAttributeUids(selectedProgram.uid()));
+        Set<String> missingTypeUids = new HashSet<>();
+        for (TrackedEntityInstance tei : d2.trackedEntityModule().trackedEntityInstances()
+                .byUid().in(new ArrayList<>(relationshipTeiUids))
+                .blockingGet()) {
+            prefetch.relationshipTeis.put(tei.uid(), tei);
+            attributeUids.addAll(getTETypeAttributeUids(tei.trackedEntityType()));
+            if (!trackedEntityTypeCache.containsKey(tei.trackedEntityType())) {
+                missingTypeUids.add(tei.trackedEntityType());
+            }
+        }
+
+        if (!missingTypeUids.isEmpty()) {
+            for (TrackedEntityType trackedEntityType : d2.trackedEntityModule().trackedEntityTypes()
+                    .byUid().in(new ArrayList<>(missingTypeUids))
+                    .blockingGet()) {
+                trackedEntityTypeCache.put(trackedEntityType.uid(), trackedEntityType);
+            }
+        }
+
+        if (!attributeUids.isEmpty()) {
+            for (TrackedEntityAttributeValue attributeValue : d2.trackedEntityModule().trackedEntityAttributeValues()
+                    .byTrackedEntityInstance().in(new ArrayList<>(relationshipTeiUids))
+                    .byTrackedEntityAttribute().in(new ArrayList<>(attributeUids))
+                    .blockingGet()) {
+                List<TrackedEntityAttributeValue> teiValues = prefetch.relationshipAttributeValues.get(attributeValue.trackedEntityInstance());
+                if (teiValues == null) {
+                    teiValues = new ArrayList<>();
+                    prefetch.relationshipAttributeValues.put(attributeValue.trackedEntityInstance(), teiValues);
+                }
+                teiValues.add(attributeValue);
+            }
+        }
+    }
+
+    private void prefetchProfilePictures(SearchTeiPrefetch prefetch, Set<String> teiUids, @Nullable Program selectedProgram) {
+        List<String> imageAttributeUids = getImageAttributeUids(selectedProgram);
+        if (imageAttributeUids.isEmpty()) {
+            return;
+        }
+        for (TrackedEntityAttributeValue attributeValue : d2.trackedEntityModule().trackedEntityAttributeValues()
+                .byTrackedEntityInstance().in(new ArrayList<>(teiUids))
+                .byTrackedEntityAttribute().in(imageAttributeUids)
+                .blockingGet()) {
+            prefetch.teisWithImage.add(attributeValue.trackedEntityInstance());
+        }
+    }
+
+    private void prefetchOrgUnitNames(Set<String> orgUnitUids) {
+        List<String> missingOrgUnitUids = new ArrayList<>();
+        for (String orgUnitUid : orgUnitUids) {
+            if (orgUnitUid != null && !orgUnitNameCache.containsKey(orgUnitUid)) {
+                missingOrgUnitUids.add(orgUnitUid);
+            }
+        }
+        if (missingOrgUnitUids.isEmpty()) {
+            return;
+        }
+        for (OrganisationUnit organisationUnit : d2.organisationUnitModule().organisationUnits()
+                .byUid().in(missingOrgUnitUids)
+                .blockingGet()) {
+            orgUnitNameCache.put(organisationUnit.uid(), organisationUnit.displayName());
+        }
+    }
+
     private void addAttribute(SearchTeiModel searchTei, TrackedEntitySearchItemAttribute att) {
         TrackedEntityAttributeValue attributeValue = TrackedEntityAttributeValue.builder()
                 .value(att.getValue())
@@ -935,8 +1225,55 @@ public class SearchRepositoryImpl implements SearchRepository {
     }
 
     private boolean displayOrgUnit() {
-        return d2.organisationUnitModule().organisationUnits()
-                .byProgramUids(Collections.singletonList(currentProgram))
-                .blockingGet().size() > 1;
+        if (!displayOrgUnitCache.containsKey(currentProgram)) {
+            displayOrgUnitCache.put(
+                    currentProgram,
+                    d2.organisationUnitModule().organisationUnits()
+                            .byProgramUids(Collections.singletonList(currentProgram))
+                            .blockingCount() > 1
+            );
+        }
+        return displayOrgUnitCache.get(currentProgram);
+    }
+
+    /**
+     * Data needed to build the search results of a page, loaded with a handful of queries for the
+     * whole page instead of several queries per tracked entity instance.
+     */
+    private static class SearchTeiPrefetch {
+        private final HashMap<String, TrackedEntityInstance> itemTeis = new HashMap<>();
+        private final HashMap<String, TrackedEntityInstance> dbTeis = new HashMap<>();
+        private final HashMap<String, List<Enrollment>> enrollments = new HashMap<>();
+        private final HashMap<String, Event> scheduledEvents = new HashMap<>();
+        private final HashMap<String, Event> overdueEvents = new HashMap<>();
+        private final HashMap<String, List<Relationship>> relationships = new HashMap<>();
+        private final HashMap<String, RelationshipType> relationshipTypes = new HashMap<>();
+        private final HashMap<String, TrackedEntityInstance> relationshipTeis = new HashMap<>();
+        private final HashMap<String, List<TrackedEntityAttributeValue>> relationshipAttributeValues = new HashMap<>();
+        private final HashSet<String> teisWithImage = new HashSet<>();
+
+        @Nullable
+        private TrackedEntityInstance dbTei(TrackedEntitySearchItem searchItem) {
+            return searchItem.isOnline() ? dbTeis.get(searchItem.uid()) : itemTeis.get(searchItem.uid());
+        }
+
+        private List<Enrollment> enrollments(String teiUid) {
+            List<Enrollment> teiEnrollments = enrollments.get(teiUid);
+            return teiEnrollments != null ? teiEnrollments : Collections.emptyList();
+        }
+
+        private List<Relationship> relationships(String teiUid) {
+            List<Relationship> teiRelationships = relationships.get(teiUid);
+            return teiRelationships != null ? teiRelationships : Collections.emptyList();
+        }
+
+        private List<TrackedEntityAttributeValue> relationshipAttributeValues(String teiUid) {
+            List<TrackedEntityAttributeValue> values = relationshipAttributeValues.get(teiUid);
+            return values != null ? values : Collections.emptyList();
+        }
+
+        private static boolean isLocalTei(@Nullable TrackedEntityInstance dbTei) {
+            return dbTei != null && dbTei.aggregatedSyncState() != State.RELATIONSHIP;
+        }
     }
 }
@@ -1,8 +1,12 @@
 package org.dhis2.usescases.searchTrackEntity
 
+import androidx.paging.DataSource
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
 import androidx.paging.PagingData
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.withContext
+import org.dhis2.commons.data.SearchTeiModel
 import org.dhis2.commons.filters.FilterManager
 import org.dhis2.commons.resources.MetadataIconProvider
 import org.dhis2.commons.viewmodel.DispatcherProvider
@@ -35,9 +39,19 @@ class SearchRepositoryImplKt(
     override fun searchTrackedEntities(
         searchParametersModel: SearchParametersModel,
         isOnline: Boolean,
-    ): Flow<PagingData<TrackedEntitySearchItem>> {
-        return trackedEntitySearchQuery(searchParametersModel, isOnline)
-            .getPagingData(10)
+        transformPage: suspend (List<TrackedEntitySearchItem>) -> List<SearchTeiModel>,
+    ): Flow<PagingData<SearchTeiModel>> {
+        val searchQuery = trackedEntitySearchQuery(searchParametersModel, isOnline)
+        val searchDataSourceFactory =
+            object : DataSource.Factory<TrackedEntitySearchItem, TrackedEntitySearchItem>() {
+                override fun create() = searchQuery.getDataSource()
+            }
+        return Pager(PagingConfig(pageSize = SEARCH_PAGE_SIZE)) {
+            SearchTeiPagingSource(
+                searchDataSourceFactory.asPagingSourceFactory(dispatcher.io())(),
+                transformPage,
+            )
+        }.flow
     }
 
     private fun trackedEntitySearchQuery(
@@ -217,4 +231,8 @@ class SearchRepositoryImplKt(
             featureType = null,
         )
     }
+
+    companion object {
+        private const val SEARCH_PAGE_SIZE = 10
+    }
 }
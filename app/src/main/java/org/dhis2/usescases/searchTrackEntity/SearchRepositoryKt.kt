@@ -2,6 +2,7 @@ package org.dhis2.usescases.searchTrackEntity
 
 import androidx.paging.PagingData
 import kotlinx.coroutines.flow.Flow
+import org.dhis2.commons.data.SearchTeiModel
 import org.dhis2.data.search.SearchParametersModel
 import org.dhis2.form.model.FieldUiModel
 import org.hisp.dhis.android.core.trackedentity.search.TrackedEntitySearchItem
@@ -11,7 +12,8 @@ interface SearchRepositoryKt {
     fun searchTrackedEntities(
         searchParametersModel: SearchParametersModel,
         isOnline: Boolean,
-    ): Flow<PagingData<TrackedEntitySearchItem>>
+        transformPage: suspend (List<TrackedEntitySearchItem>) -> List<SearchTeiModel>,
+    ): Flow<PagingData<SearchTeiModel>>
 
     suspend fun searchParameters(programUid: String?, teiTypeUid: String): List<FieldUiModel>
 
@@ -9,11 +9,12 @@ import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import androidx.paging.PagingData
 import androidx.paging.cachedIn
-import androidx.paging.map
+import com.mapbox.geojson.BoundingBox
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.async
 import kotlinx.coroutines.flow.Flow
-import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import org.dhis2.R
@@ -30,6 +31,8 @@ import org.dhis2.data.search.SearchParametersModel
 import org.dhis2.form.model.FieldUiModelImpl
 import org.dhis2.form.ui.intent.FormIntent
 import org.dhis2.form.ui.provider.DisplayNameProvider
+import org.dhis2.maps.geometry.bound.contains
+import org.dhis2.maps.geometry.bound.expand
 import org.dhis2.maps.layer.basemaps.BaseMapStyle
 import org.dhis2.maps.usecases.MapStyleConfiguration
 import org.dhis2.usescases.searchTrackEntity.listView.SearchResult
@@ -39,9 +42,11 @@ import org.dhis2.utils.customviews.navigationbar.NavigationPageConfigurator
 import org.hisp.dhis.android.core.arch.helpers.Result
 import org.hisp.dhis.android.core.common.ValueType
 import org.hisp.dhis.android.core.maintenance.D2ErrorCode
+import org.hisp.dhis.android.core.trackedentity.search.TrackedEntitySearchItem
 import timber.log.Timber
 
 const val TEI_TYPE_SEARCH_MAX_RESULTS = 5
+private const val MAP_VIEWPORT_PADDING = 0.5
 
 class SearchTEIViewModel(
     private val initialProgramUid: String?,
@@ -73,6 +78,9 @@ class SearchTEIViewModel(
 
     private val _mapResults = MutableLiveData<TrackerMapData>()
     val mapResults: LiveData<TrackerMapData> = _mapResults
+    private var mapResultsJob: Job? = null
+    private var requestedMapArea: BoundingBox? = null
+    private var loadedMapArea: BoundingBox? = null
 
     private val _screenState = MutableLiveData<SearchTEScreenState>()
     val screenState: LiveData<SearchTEScreenState> = _screenState
@@ -320,34 +328,11 @@ class SearchTEIViewModel(
             selectedProgram = searchRepository.getProgram(initialProgramUid),
             queryData = queryData,
         )
-        val getPagingData = searchRepositoryKt.searchTrackedEntities(
+        return@withContext searchRepositoryKt.searchTrackedEntities(
             searchParametersModel,
             searching && networkUtils.isOnline(),
-        )
-
-        return@withContext getPagingData.map { pagingData ->
-            pagingData.map { item ->
-                withContext(dispatchers.io()) {
-                    if (
-                        searching && networkUtils.isOnline() &&
-                        filterManager.stateFilters.isEmpty()
-                    ) {
-                        searchRepository.transform(
-                            item,
-                            searchParametersModel.selectedProgram,
-                            false,
-                            filterManager.sortingItem,
-                        )
-                    } else {
-                        searchRepository.transform(
-                            item,
-                            searchParametersModel.selectedProgram,
-                            true,
-                            filterManager.sortingItem,
-                        )
-                    }
-                }
-            }
+        ) { searchItems ->
+            transformSearchPage(searchItems, searchParametersModel)
         }
     }
 
@@ -356,21 +341,17 @@ class SearchTEIViewModel(
             selectedProgram = searchRepository.getProgram(initialProgramUid),
             queryData = queryData,
         )
-        val getPagingData = searchRepositoryKt.searchTrackedEntities(
+        return@withContext searchRepositoryKt.searchTrackedEntities(
             searchParametersModel,
             false,
-        )
-
-        return@withContext getPagingData.map { pagingData ->
-            pagingData.map { item ->
-                withContext(dispatchers.io()) {
-                    searchRepository.transform(
-                        item,
-                        searchParametersModel.selectedProgram,
-                        true,
-                        filterManager.sortingItem,
-                    )
-                }
+        ) { searchItems ->
+            withContext(dispatchers.io()) {
+                searchRepository.transformPage(
+                    searchItems,
+                    searchParametersModel.selectedProgram,
+                    true,
+                    filterManager.sortingItem,
+                )
             }
         }
     }
@@ -380,51 +361,60 @@ class SearchTEIViewModel(
             selectedProgram = null,
             queryData = queryData,
         )
-        val getPagingData = searchRepositoryKt.searchTrackedEntities(
-            searchParametersModel,
-            searching && networkUtils.isOnline(),
-        )
-
         return@withContext if (searching) {
-            getPagingData.map { pagingData ->
-                pagingData.map { item ->
-                    withContext(dispatchers.io()) {
-                        if (
-                            searching && networkUtils.isOnline() &&
-                            filterManager.stateFilters.isEmpty()
-                        ) {
-                            searchRepository.transform(
-                                item,
-                                searchParametersModel.selectedProgram,
-                                false,
-                                filterManager.sortingItem,
-                            )
-                        } else {
-                            searchRepository.transform(
-                                item,
-                                searchParametersModel.selectedProgram,
-                                true,
-                                filterManager.sortingItem,
-                            )
-                        }
-                    }
-                }
+            searchRepositoryKt.searchTrackedEntities(
+                searchParametersModel,
+                searching && networkUtils.isOnline(),
+            ) { searchItems ->
+                transformSearchPage(searchItems, searchParametersModel)
             }
         } else {
             null
         }
     }
 
+    private suspend fun transformSearchPage(
+        searchItems: List<TrackedEntitySearchItem>,
+        searchParametersModel: SearchParametersModel,
+    ) = withContext(dispatchers.io()) {
+        searchRepository.transformPage(
+            searchItems,
+            searchParametersModel.selectedProgram,
+            !(searching && networkUtils.isOnline() && filterManager.stateFilters.isEmpty()),
+            filterManager.sortingItem,
+        )
+    }
+
     fun fetchMapResults() {
-        viewModelScope.launch {
-            val result = async(context = dispatchers.io()) {
+        loadedMapArea = null
+        loadMapResults(viewport = null)
+    }
+
+    fun onMapViewportChanged(viewport: BoundingBox) {
+        val loading = mapResultsJob?.isActive == true
+        if (loading && requestedMapArea?.contains(viewport) != false) return
+        if (!loading && loadedMapArea?.contains(viewport) == true) return
+        loadMapResults(viewport.expand(MAP_VIEWPORT_PADDING))
+    }
+
+    private fun loadMapResults(viewport: BoundingBox?) {
+        mapResultsJob?.cancel()
+        requestedMapArea = viewport
+        mapResultsJob = viewModelScope.launch {
+            try {
                 mapDataRepository.getTrackerMapData(
                     searchRepository.getProgram(initialProgramUid),
                     queryData,
-                )
-            }
-            try {
-                _mapResults.postValue(result.await())
+                    viewport,
+                ).flowOn(dispatchers.io())
+                    .collect { trackerMapData ->
+                        if (trackerMapData.loadComplete) {
+                            loadedMapArea = trackerMapData.loadedArea
+                        }
+                        _mapResults.postValue(trackerMapData)
+                    }
+            } catch (e: CancellationException) {
+                throw e
             } catch (e: Exception) {
                 Timber.e(e)
             }
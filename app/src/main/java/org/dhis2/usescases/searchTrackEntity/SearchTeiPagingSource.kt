@@ -0,0 +1,43 @@
+package org.dhis2.usescases.searchTrackEntity
+
+import androidx.paging.PagingSource
+import androidx.paging.PagingState
+import org.dhis2.commons.data.SearchTeiModel
+import org.hisp.dhis.android.core.trackedentity.search.TrackedEntitySearchItem
+
+/**
+ * Loads the pages of the search query and transforms each page into [SearchTeiModel]s in a single
+ * call, so the data shown for the TEIs of a page is prefetched together instead of per TEI.
+ */
+class SearchTeiPagingSource<Key : Any>(
+    private val searchPagingSource: PagingSource<Key, TrackedEntitySearchItem>,
+    private val transformPage: suspend (List<TrackedEntitySearchItem>) -> List<SearchTeiModel>,
+) : PagingSource<Key, SearchTeiModel>() {
+
+    init {
+        searchPagingSource.registerInvalidatedCallback { invalidate() }
+        registerInvalidatedCallback { searchPagingSource.invalidate() }
+    }
+
+    override val jumpingSupported: Boolean
+        get() = searchPagingSource.jumpingSupported
+
+    override val keyReuseSupported: Boolean
+        get() = searchPagingSource.keyReuseSupported
+
+    override suspend fun load(params: LoadParams<Key>): LoadResult<Key, SearchTeiModel> {
+        return when (val result = searchPagingSource.load(params)) {
+            is LoadResult.Page -> LoadResult.Page(
+                data = transformPage(result.data),
+                prevKey = result.prevKey,
+                nextKey = result.nextKey,
+                itemsBefore = result.itemsBefore,
+                itemsAfter = result.itemsAfter,
+            )
+            is LoadResult.Error -> LoadResult.Error(result.throwable)
+            is LoadResult.Invalid -> LoadResult.Invalid()
+        }
+    }
+
+    override fun getRefreshKey(state: PagingState<Key, SearchTeiModel>): Key? = null
+}
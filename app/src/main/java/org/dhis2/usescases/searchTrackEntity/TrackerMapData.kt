@@ -14,6 +14,10 @@ data class TrackerMapData(
     val teiBoundingBox: BoundingBox,
     val eventModels: MutableList<org.dhis2.maps.model.EventUiComponentModel>,
     val dataElementFeaturess: MutableMap<String, FeatureCollection>,
+    val loadComplete: Boolean = true,
+    val fitBounds: Boolean = true,
+    val loadedArea: BoundingBox? = null,
+    val truncated: Boolean = false,
 ) {
     fun allItems() = mutableListOf<CarouselItemModel>().apply {
         addAll(teiModels)
@@ -0,0 +1,81 @@
+package org.dhis2.usescases.searchTrackEntity
+
+import com.mapbox.geojson.BoundingBox
+import com.mapbox.geojson.Feature
+import com.mapbox.geojson.FeatureCollection
+import org.dhis2.commons.data.SearchTeiModel
+import org.dhis2.maps.geometry.bound.union
+import org.dhis2.maps.geometry.mapper.EventsByProgramStage
+import org.dhis2.maps.geometry.mapper.featurecollection.MapTeiEventsToFeatureCollection
+import org.dhis2.maps.model.EventUiComponentModel
+
+private val WORLD_AREA = BoundingBox.fromLngLats(-180.0, -90.0, 180.0, 90.0)
+
+/**
+ * Merges the map data of consecutive chunks without mapping previous chunks again. Partial
+ * results are only built each time the number of loaded chunks doubles, so copying the merged
+ * features stays linear over the whole load; the final result is built once in [complete].
+ */
+internal class TrackerMapDataAccumulator(
+    private val viewport: BoundingBox?,
+    private val maxTeis: Int,
+) {
+    private val teiModels = mutableListOf<SearchTeiModel>()
+    private val eventModels = mutableListOf<EventUiComponentModel>()
+    private val teiFeatures = linkedMapOf<String, MutableList<Feature>>()
+    private val eventFeatures = linkedMapOf<String, MutableList<Feature>>()
+    private val dataElementFeatures = linkedMapOf<String, MutableList<Feature>>()
+    private var eventsTag = MapTeiEventsToFeatureCollection.EVENT
+    private var teiBoundingBox = BoundingBox.fromLngLats(0.0, 0.0, 0.0, 0.0)
+    private var loadedTeis = 0
+    private var loadedChunks = 0
+    private var nextPartialChunk = 1
+
+    /**
+     * Returns the merged data loaded so far, or null when this chunk does not reach the next
+     * partial result.
+     */
+    fun add(chunk: TrackerMapData, chunkSize: Int): TrackerMapData? {
+        loadedTeis += chunkSize
+        loadedChunks++
+        teiModels.addAll(chunk.teiModels)
+        eventModels.addAll(chunk.eventModels)
+        teiFeatures.addFeatures(chunk.teiFeatures)
+        eventFeatures.addFeatures(chunk.eventFeatures.featureCollectionMap)
+        eventsTag = chunk.eventFeatures.tag
+        dataElementFeatures.addFeatures(chunk.dataElementFeaturess)
+        teiBoundingBox = teiBoundingBox.union(chunk.teiBoundingBox)
+        if (loadedChunks < nextPartialChunk) return null
+        nextPartialChunk *= 2
+        return snapshot(loadComplete = false)
+    }
+
+    fun complete() = snapshot(loadComplete = true)
+
+    private fun snapshot(loadComplete: Boolean): TrackerMapData {
+        val truncated = loadedTeis >= maxTeis
+        return TrackerMapData(
+            teiModels = teiModels.toMutableList(),
+            eventFeatures = EventsByProgramStage(eventsTag, eventFeatures.toFeatureCollections()),
+            teiFeatures = HashMap(teiFeatures.toFeatureCollections()),
+            teiBoundingBox = teiBoundingBox,
+            eventModels = eventModels.toMutableList(),
+            dataElementFeaturess = dataElementFeatures.toFeatureCollections().toMutableMap(),
+            loadComplete = loadComplete,
+            fitBounds = loadComplete && viewport == null,
+            loadedArea = if (loadComplete && !truncated) viewport ?: WORLD_AREA else null,
+            truncated = loadComplete && truncated,
+        )
+    }
+
+    private fun MutableMap<String, MutableList<Feature>>.addFeatures(
+        featureCollections: Map<String, FeatureCollection>,
+    ) {
+        featureCollections.forEach { (key, featureCollection) ->
+            getOrPut(key) { mutableListOf() }.addAll(featureCollection.features().orEmpty())
+        }
+    }
+
+    private fun Map<String, MutableList<Feature>>.toFeatureCollections() =
+        mapValues { (_, features) -> FeatureCollection.fromFeatures(features.toList()) }
+}
@@ -8,8 +8,10 @@ import android.view.ViewGroup
 import androidx.constraintlayout.widget.ConstraintLayout
 import androidx.core.view.updateLayoutParams
 import androidx.fragment.app.activityViewModels
+import com.mapbox.geojson.BoundingBox
 import com.mapbox.mapboxsdk.geometry.LatLng
 import com.mapbox.mapboxsdk.maps.MapboxMap
+import org.dhis2.R
 import org.dhis2.animations.CarouselViewAnimations
 import org.dhis2.bindings.dp
 import org.dhis2.commons.bindings.clipWithRoundedCorners
@@ -144,6 +146,7 @@ class SearchTEMap : FragmentGlobalAbstract(), MapboxMap.OnMapClickListener {
                 presenter.getMapData()
 
                 observeMapResults()
+                observeMapViewport()
 
                 viewModel.fetchMapResults()
             },
@@ -208,12 +211,32 @@ class SearchTEMap : FragmentGlobalAbstract(), MapboxMap.OnMapClickListener {
                 trackerMapData.teiFeatures,
                 trackerMapData.eventFeatures,
                 trackerMapData.dataElementFeaturess,
-                trackerMapData.teiBoundingBox,
+                trackerMapData.teiBoundingBox.takeIf { trackerMapData.fitBounds },
             )
             carouselAdapter?.setAllItems(trackerMapData.allItems())
             carouselAdapter?.updateLayers(teiMapManager?.mapLayerManager?.mapLayers)
-            animations.endMapLoading(binding.mapCarousel)
-            viewModel.mapDataFetched()
+            if (trackerMapData.loadComplete) {
+                animations.endMapLoading(binding.mapCarousel)
+                viewModel.mapDataFetched()
+                if (trackerMapData.truncated) {
+                    displayMessage(getString(R.string.map_results_truncated))
+                }
+            }
+        }
+    }
+
+    private fun observeMapViewport() {
+        teiMapManager?.map?.addOnCameraIdleListener {
+            teiMapManager?.map?.projection?.visibleRegion?.latLngBounds?.let { bounds ->
+                viewModel.onMapViewportChanged(
+                    BoundingBox.fromLngLats(
+                        bounds.lonWest,
+                        bounds.latSouth,
+                        bounds.lonEast,
+                        bounds.latNorth,
+                    ),
+                )
+            }
         }
     }
 
@@ -1,8 +1,10 @@
 package org.dhis2.usescases.settings
 
+import org.dhis2.bindings.ValueMetadataCache
 import org.dhis2.commons.filters.FilterManager
 import org.dhis2.commons.prefs.PreferenceProvider
 import org.dhis2.data.service.workManager.WorkManagerController
+import org.dhis2.form.data.AutoCompleteStore
 import java.io.File
 
 class DeleteUserData(
@@ -19,5 +21,7 @@ class DeleteUserData(
             deleteCache(file)
         }
         preferencesProvider.clear()
+        AutoCompleteStore.clearAll()
+        ValueMetadataCache.invalidate()
     }
 }
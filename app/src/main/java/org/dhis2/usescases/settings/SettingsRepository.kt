@@ -9,6 +9,7 @@ import org.dhis2.commons.prefs.Preference.Companion.DEFAULT_NUMBER_RV
 import org.dhis2.commons.prefs.Preference.Companion.LIMIT_BY_ORG_UNIT
 import org.dhis2.commons.prefs.Preference.Companion.LIMIT_BY_PROGRAM
 import org.dhis2.commons.prefs.Preference.Companion.NUMBER_RV
+import org.dhis2.commons.prefs.Preference.Companion.RESUMABLE_DATA_DOWNLOAD
 import org.dhis2.commons.prefs.Preference.Companion.TIME_DAILY
 import org.dhis2.commons.prefs.Preference.Companion.TIME_WEEKLY
 import org.dhis2.commons.prefs.PreferenceProvider
@@ -87,6 +88,7 @@ class SettingsRepository(
                 programSettings?.globalSettings()?.eventsDownload() == null,
                 programSettings?.globalSettings()?.settingDownload() == null,
                 programSettings?.specificSettings()?.size ?: 0,
+                prefs.getBoolean(RESUMABLE_DATA_DOWNLOAD, false),
             ),
         )
     }
@@ -234,6 +236,10 @@ class SettingsRepository(
         }
     }
 
+    fun saveResumableDownload(resumableDownload: Boolean) {
+        prefs.setValue(RESUMABLE_DATA_DOWNLOAD, resumableDownload)
+    }
+
     fun saveReservedValuesToDownload(reservedValuesCount: Int) {
         prefs.setValue(NUMBER_RV, reservedValuesCount)
     }
@@ -800,6 +800,11 @@ public class SyncManagerFragment extends FragmentGlobalAbstract implements SyncM
         binding.teiEditText.setEnabled(parameterSettings.getTeiNumberIsEditable());
         binding.downloadLimitScope.setEnabled(parameterSettings.getLimitScopeIsEditable());
 
+        binding.resumableDownloadSwitch.setOnCheckedChangeListener(null);
+        binding.resumableDownloadSwitch.setChecked(parameterSettings.getResumableDownload());
+        binding.resumableDownloadSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                presenter.saveResumableDownload(isChecked));
+
         binding.parameterLayout.message.setText(
                 String.format(context.getString(R.string.event_tei_limits_v2),
                         limitScope,
@@ -225,6 +225,13 @@ class SyncManagerPresenter internal constructor(
         checkData.onNext(true)
     }
 
+    fun saveResumableDownload(resumableDownload: Boolean) {
+        val syncParam = "sync_resumableDownload_save"
+        matomoAnalyticsController.trackEvent(Categories.SETTINGS, syncParam, CLICK)
+        settingsRepository.saveResumableDownload(resumableDownload)
+        checkData.onNext(true)
+    }
+
     fun saveEventMaxCount(eventsNumber: Int?) {
         val syncParam = "sync_eventMaxCount_save"
         matomoAnalyticsController.trackEvent(Categories.SETTINGS, syncParam, CLICK)
@@ -387,6 +394,7 @@ class SyncManagerPresenter internal constructor(
         preferenceProvider.setValue(Constants.TEI_MAX, Constants.TEI_MAX_DEFAULT)
         preferenceProvider.setValue(Constants.LIMIT_BY_ORG_UNIT, false)
         preferenceProvider.setValue(Constants.LIMIT_BY_PROGRAM, false)
+        preferenceProvider.setValue(Constants.RESUMABLE_DATA_DOWNLOAD, false)
         checkData.onNext(true)
     }
 
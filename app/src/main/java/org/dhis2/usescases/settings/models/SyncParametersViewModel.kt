@@ -12,4 +12,5 @@ data class SyncParametersViewModel(
     val eventNumberIsEditable: Boolean,
     val limitScopeIsEditable: Boolean,
     val hasSpecificProgramSettings: Int,
+    val resumableDownload: Boolean = false,
 )
@@ -10,11 +10,10 @@ import org.dhis2.commons.data.StageSection
 import org.dhis2.commons.date.DateUtils
 import org.dhis2.commons.resources.DhisPeriodUtils
 import org.dhis2.commons.resources.MetadataIconProvider
+import org.dhis2.ui.MetadataIconData
 import org.dhis2.ui.toColor
 import org.hisp.dhis.android.core.D2
 import org.hisp.dhis.android.core.arch.repositories.scope.RepositoryScope
-import org.hisp.dhis.android.core.category.CategoryCombo
-import org.hisp.dhis.android.core.common.ValueType
 import org.hisp.dhis.android.core.enrollment.Enrollment
 import org.hisp.dhis.android.core.event.Event
 import org.hisp.dhis.android.core.event.EventCollectionRepository
@@ -22,6 +21,7 @@ import org.hisp.dhis.android.core.event.EventStatus
 import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
 import org.hisp.dhis.android.core.period.PeriodType
 import org.hisp.dhis.android.core.program.Program
+import org.hisp.dhis.android.core.program.ProgramStage
 import org.hisp.dhis.android.core.trackedentity.TrackedEntityInstance
 import org.hisp.dhis.mobile.ui.designsystem.theme.SurfaceColor
 import java.util.Locale
@@ -155,22 +155,36 @@ class TeiDataRepositoryImpl(
         selectedStage: StageSection,
     ): Single<List<EventViewModel>> {
         val eventViewModels = mutableListOf<EventViewModel>()
-        var eventRepo: EventCollectionRepository
         val maxEventToShow = 3
         val program = programUid?.let { d2.program(programUid) }
+        val stageIcons = StageIcons(program)
 
         return d2.programModule().programStages()
             .byProgramUid().eq(programUid)
             .orderBySortOrder(RepositoryScope.OrderByDirection.ASC)
             .get()
             .map { programStages ->
-                programStages.forEach { programStage ->
-                    eventRepo = eventRepository.byDeleted().isFalse
-                        .byProgramStageUid().eq(programStage.uid())
+                val events = eventRepository.byDeleted().isFalse
+                    .orderByTimeline(RepositoryScope.OrderByDirection.DESC)
+                    .blockingGet()
+                val eventsByStage = events.groupBy { it.programStage() }
+                val checkedEventsByStage = checkEventStatus(events).groupBy { it.programStage() }
 
-                    val eventList = eventRepo
-                        .orderByTimeline(RepositoryScope.OrderByDirection.DESC)
-                        .blockingGet()
+                val shownEventsByStage = programStages.associate { programStage ->
+                    val showAllEvents = selectedStage.showAllEvents &&
+                        selectedStage.stageUid == programStage.uid()
+                    val stageEvents = checkedEventsByStage[programStage.uid()].orEmpty()
+                    programStage.uid() to stageEvents.take(
+                        if (showAllEvents) stageEvents.size else maxEventToShow,
+                    )
+                }
+                val timelineData = loadTimelineData(
+                    shownEventsByStage.values.flatten(),
+                    programStages.map { it.uid() },
+                )
+
+                programStages.forEach { programStage ->
+                    val eventList = eventsByStage[programStage.uid()].orEmpty()
 
                     val canAddEventToEnrollment = enrollmentUid?.let {
                         programStage.access()?.data()?.write() == true &&
@@ -198,51 +212,48 @@ class TeiDataRepositoryImpl(
                             groupedByStage = true,
                             displayDate = null,
                             nameCategoryOptionCombo = null,
-                            metadataIconData = metadataIconProvider(
-                                programStage.style(),
-                                program?.style()?.color()?.toColor() ?: SurfaceColor.Primary,
-                            ),
+                            metadataIconData = stageIcons[programStage],
                         ),
                     )
-                    checkEventStatus(eventList).take(
-                        if (showAllEvents) eventList.size else maxEventToShow,
-                    ).forEachIndexed { index, event ->
-                        val showTopShadow = index == 0
-                        val showBottomShadow = index == eventList.size - 1
-                        eventViewModels.add(
-                            EventViewModel(
-                                EventViewModelType.EVENT,
-                                programStage,
-                                event,
-                                0,
-                                null,
-                                isSelected = true,
-                                canAddNewEvent = true,
-                                orgUnitName = d2.organisationUnitModule().organisationUnits()
-                                    .uid(event.organisationUnit()).blockingGet()?.displayName()
-                                    ?: "",
-                                catComboName = getCatOptionComboName(event.attributeOptionCombo()),
-                                dataElementValues = getEventValues(
-                                    event.uid(),
-                                    programStage.uid(),
-                                ),
-                                groupedByStage = true,
-                                showTopShadow = showTopShadow,
-                                showBottomShadow = showBottomShadow,
-                                displayDate = periodUtils.getPeriodUIString(
-                                    programStage.periodType() ?: PeriodType.Daily,
-                                    event.eventDate() ?: event.dueDate()!!,
-                                    Locale.getDefault(),
+                    shownEventsByStage[programStage.uid()].orEmpty()
+                        .forEachIndexed { index, event ->
+                            val showTopShadow = index == 0
+                            val showBottomShadow = index == eventList.size - 1
+                            eventViewModels.add(
+                                EventViewModel(
+                                    EventViewModelType.EVENT,
+                                    programStage,
+                                    event,
+                                    0,
+                                    null,
+                                    isSelected = true,
+                                    canAddNewEvent = true,
+                                    orgUnitName = timelineData.orgUnitName(
+                                        event.organisationUnit(),
+                                    ),
+                                    catComboName = timelineData.categoryOptionComboName(
+                                        event.attributeOptionCombo(),
+                                    ),
+                                    dataElementValues = getEventValues(
+                                        timelineData,
+                                        event.uid(),
+                                        programStage.uid(),
+                                    ),
+                                    groupedByStage = true,
+                                    showTopShadow = showTopShadow,
+                                    showBottomShadow = showBottomShadow,
+                                    displayDate = periodUtils.getPeriodUIString(
+                                        programStage.periodType() ?: PeriodType.Daily,
+                                        event.eventDate() ?: event.dueDate()!!,
+                                        Locale.getDefault(),
+                                    ),
+                                    nameCategoryOptionCombo = timelineData.categoryCombo(
+                                        event.attributeOptionCombo(),
+                                    )?.displayName(),
+                                    metadataIconData = stageIcons[programStage],
                                 ),
-                                nameCategoryOptionCombo =
-                                getCategoryComboFromOptionCombo(event.attributeOptionCombo())?.displayName(),
-                                metadataIconData = metadataIconProvider(
-                                    programStage.style(),
-                                    program?.style()?.color()?.toColor() ?: SurfaceColor.Primary,
-                                ),
-                            ),
-                        )
-                    }
+                            )
+                        }
 
                     if (eventList.size > maxEventToShow) {
                         eventViewModels.add(
@@ -262,10 +273,7 @@ class TeiDataRepositoryImpl(
                                 nameCategoryOptionCombo = null,
                                 showAllEvents = showAllEvents,
                                 maxEventsToShow = maxEventToShow,
-                                metadataIconData = metadataIconProvider(
-                                    programStage.style(),
-                                    program?.style()?.color()?.toColor() ?: SurfaceColor.Primary,
-                                ),
+                                metadataIconData = stageIcons[programStage],
                             ),
                         )
                     }
@@ -281,18 +289,28 @@ class TeiDataRepositoryImpl(
         val eventViewModels = mutableListOf<EventViewModel>()
         val maxEventToShow = 5
         val program = programUid?.let { d2.program(it) }
+        val stageIcons = StageIcons(program)
 
         return eventRepository
             .orderByTimeline(RepositoryScope.OrderByDirection.DESC)
             .byDeleted().isFalse
             .get()
             .map { eventList ->
-                checkEventStatus(eventList).take(
+                val shownEvents = checkEventStatus(eventList).take(
                     if (showAllEvents) eventList.size else maxEventToShow,
-                ).forEachIndexed { _, event ->
-                    val programStage = d2.programModule().programStages()
-                        .uid(event.programStage())
-                        .blockingGet() ?: throw IllegalArgumentException()
+                )
+                val stageUids = eventList.take(maxEventToShow).plus(shownEvents)
+                    .mapNotNull { it.programStage() }
+                    .distinct()
+                val programStages = stageUids.chunkedQuery { uids ->
+                    d2.programModule().programStages().byUid().`in`(uids).blockingGet()
+                }.associateBy { it.uid() }
+                val timelineData = loadTimelineData(shownEvents, stageUids)
+                val displayOrgUnit = programUid?.let { displayOrganisationUnit(it) } ?: false
+
+                shownEvents.forEach { event ->
+                    val programStage = programStages[event.programStage()]
+                        ?: throw IllegalArgumentException()
                     eventViewModels.add(
                         EventViewModel(
                             EventViewModelType.EVENT,
@@ -302,35 +320,33 @@ class TeiDataRepositoryImpl(
                             null,
                             isSelected = true,
                             canAddNewEvent = true,
-                            orgUnitName = d2.organisationUnitModule().organisationUnits()
-                                .uid(event.organisationUnit()).blockingGet()?.displayName()
-                                ?: "",
-                            catComboName = getCatOptionComboName(event.attributeOptionCombo()),
-                            dataElementValues = getEventValues(event.uid(), programStage.uid()),
+                            orgUnitName = timelineData.orgUnitName(event.organisationUnit()),
+                            catComboName = timelineData.categoryOptionComboName(
+                                event.attributeOptionCombo(),
+                            ),
+                            dataElementValues = getEventValues(
+                                timelineData,
+                                event.uid(),
+                                programStage.uid(),
+                            ),
                             groupedByStage = false,
                             displayDate = periodUtils.getPeriodUIString(
                                 programStage.periodType() ?: PeriodType.Daily,
                                 event.eventDate() ?: event.dueDate()!!,
                                 Locale.getDefault(),
                             ),
-                            nameCategoryOptionCombo =
-                            getCategoryComboFromOptionCombo(event.attributeOptionCombo())?.displayName(),
-                            metadataIconData = metadataIconProvider(
-                                programStage.style(),
-                                program?.style()?.color()?.toColor() ?: SurfaceColor.Primary,
-                            ),
+                            nameCategoryOptionCombo = timelineData.categoryCombo(
+                                event.attributeOptionCombo(),
+                            )?.displayName(),
+                            metadataIconData = stageIcons[programStage],
                             editable = isEventEditable(event.uid()),
-                            displayOrgUnit = programUid?.let {
-                                displayOrganisationUnit(it)
-                            } ?: false,
+                            displayOrgUnit = displayOrgUnit,
                         ),
                     )
                 }
 
                 if (eventList.size > maxEventToShow) {
-                    val programStage = d2.programModule().programStages()
-                        .uid(eventList[maxEventToShow - 1].programStage())
-                        .blockingGet()
+                    val programStage = programStages[eventList[maxEventToShow - 1].programStage()]
                         ?: throw IllegalArgumentException()
                     eventViewModels.add(
                         EventViewModel(
@@ -349,10 +365,7 @@ class TeiDataRepositoryImpl(
                             nameCategoryOptionCombo = null,
                             showAllEvents = showAllEvents,
                             maxEventsToShow = maxEventToShow,
-                            metadataIconData = metadataIconProvider(
-                                programStage.style(),
-                                program?.style()?.color()?.toColor() ?: SurfaceColor.Primary,
-                            ),
+                            metadataIconData = stageIcons[programStage],
                         ),
                     )
                 }
@@ -360,80 +373,119 @@ class TeiDataRepositoryImpl(
             }
     }
 
-    private fun getCategoryComboFromOptionCombo(categoryOptionComboUid: String?): CategoryCombo? {
-        val catOptionComboUid = categoryOptionComboUid?.let {
-            d2.categoryModule()
-                .categoryOptionCombos()
-                .uid(it)
-                .blockingGet()?.categoryCombo()?.uid()
-        }
-
-        return catOptionComboUid?.let {
-            d2.categoryModule()
-                .categoryCombos()
-                .uid(it)
+    /**
+     * Loads what the event cards show for all the given events at once: org unit names,
+     * category option combos and their combos, report data elements and their values.
+     */
+    private fun loadTimelineData(
+        events: List<Event>,
+        stageUids: List<String>,
+    ): TimelineDataIndex {
+        val organisationUnits = events.mapNotNull { it.organisationUnit() }.distinct()
+            .chunkedQuery { uids ->
+                d2.organisationUnitModule().organisationUnits().byUid().`in`(uids).blockingGet()
+            }
+        val categoryOptionCombos = events.mapNotNull { it.attributeOptionCombo() }.distinct()
+            .chunkedQuery { uids ->
+                d2.categoryModule().categoryOptionCombos().byUid().`in`(uids).blockingGet()
+            }
+        val categoryCombos = categoryOptionCombos.mapNotNull { it.categoryCombo()?.uid() }
+            .distinct()
+            .chunkedQuery { uids ->
+                d2.categoryModule().categoryCombos().byUid().`in`(uids).blockingGet()
+            }
+        val reportDataElements = stageUids.chunkedQuery { uids ->
+            d2.programModule().programStageDataElements()
+                .byProgramStage().`in`(uids)
+                .byDisplayInReports().isTrue
                 .blockingGet()
         }
+        val dataElementUids = reportDataElements.mapNotNull { it.dataElement()?.uid() }.distinct()
+        val dataElements = dataElementUids.chunkedQuery { uids ->
+            d2.dataElementModule().dataElements().byUid().`in`(uids).blockingGet()
+        }
+        val dataValues = if (dataElementUids.isEmpty()) {
+            emptyList()
+        } else {
+            events.map { it.uid() }.chunkedQuery { uids ->
+                d2.trackedEntityModule().trackedEntityDataValues()
+                    .byEvent().`in`(uids)
+                    .byDataElement().`in`(dataElementUids)
+                    .blockingGet()
+            }
+        }
+
+        return TimelineDataIndex(
+            organisationUnits = organisationUnits,
+            categoryOptionCombos = categoryOptionCombos,
+            categoryCombos = categoryCombos,
+            reportDataElements = reportDataElements,
+            dataElements = dataElements,
+            dataValues = dataValues,
+        )
     }
 
+    /**
+     * Marks scheduled events past their due date as overdue. The updates share one transaction
+     * and the updated events are read back with a single query.
+     */
     private fun checkEventStatus(events: List<Event>): List<Event> {
-        return events.mapNotNull { event ->
-            if (event.status() == EventStatus.SCHEDULE &&
-                event.dueDate()?.before(DateUtils.getInstance().today) == true
-            ) {
-                d2.eventModule().events().uid(event.uid()).setStatus(EventStatus.OVERDUE)
-                d2.eventModule().events().uid(event.uid()).blockingGet()
-            } else {
-                event
-            }
+        val today = DateUtils.getInstance().today
+        val overdueUids = events.filter { event ->
+            event.status() == EventStatus.SCHEDULE && event.dueDate()?.before(today) == true
+        }.map { it.uid() }.toSet()
+        if (overdueUids.isEmpty()) {
+            return events
         }
-    }
 
-    private fun getEventValues(eventUid: String, stageUid: String?): List<Pair<String, String?>> {
-        val displayInListDataElements = d2.programModule().programStageDataElements()
-            .byProgramStage().eq(stageUid)
-            .byDisplayInReports().isTrue
-            .blockingGet().map {
-                it.dataElement()?.uid()!!
+        val transaction = d2.databaseAdapter().beginNewTransaction()
+        try {
+            overdueUids.forEach { eventUid ->
+                d2.eventModule().events().uid(eventUid).setStatus(EventStatus.OVERDUE)
             }
-        return if (displayInListDataElements.isNotEmpty()) {
-            displayInListDataElements.mapNotNull {
-                val valueRepo = d2.trackedEntityModule().trackedEntityDataValues()
-                    .value(eventUid, it)
-                val de = d2.dataElementModule().dataElements()
-                    .uid(it).blockingGet()
-                if (isAcceptedValueType(de?.valueType())) {
-                    Pair(
-                        de?.displayFormName() ?: de?.displayName() ?: "",
-                        if (valueRepo.blockingExists()) {
-                            valueRepo.blockingGet().userFriendlyValue(d2)
-                        } else {
-                            "-"
-                        },
-                    )
-                } else {
-                    null
-                }
-            }
-        } else {
-            emptyList()
+            transaction.setSuccessful()
+        } finally {
+            transaction.end()
         }
-    }
 
-    private fun isAcceptedValueType(valueType: ValueType?): Boolean {
-        return when (valueType) {
-            ValueType.IMAGE, ValueType.COORDINATE, ValueType.FILE_RESOURCE -> false
-            else -> true
+        val updatedEvents = overdueUids.toList().chunkedQuery { uids ->
+            d2.eventModule().events().byUid().`in`(uids).blockingGet()
+        }.associateBy { it.uid() }
+        return events.mapNotNull { event ->
+            if (overdueUids.contains(event.uid())) updatedEvents[event.uid()] else event
         }
     }
 
-    private fun getCatOptionComboName(categoryOptionComboUid: String?): String? {
-        return categoryOptionComboUid?.let {
-            d2.categoryModule().categoryOptionCombos().uid(categoryOptionComboUid).blockingGet()
-                ?.displayName()
+    private fun getEventValues(
+        timelineData: TimelineDataIndex,
+        eventUid: String,
+        stageUid: String?,
+    ): List<Pair<String, String?>> {
+        return timelineData.reportValues(eventUid, stageUid).map { reportValue ->
+            val value = reportValue.value
+            Pair(
+                reportValue.label,
+                if (value != null) value.userFriendlyValue(d2) else "-",
+            )
         }
     }
 
+    private fun <T> List<String>.chunkedQuery(query: (List<String>) -> List<T>): List<T> =
+        chunked(UID_QUERY_BATCH_SIZE).flatMap(query)
+
+    /**
+     * Icon of each stage, built once per list.
+     */
+    private inner class StageIcons(program: Program?) {
+        private val defaultColor = program?.style()?.color()?.toColor() ?: SurfaceColor.Primary
+        private val icons = HashMap<String, MetadataIconData>()
+
+        operator fun get(programStage: ProgramStage): MetadataIconData =
+            icons.getOrPut(programStage.uid()) {
+                metadataIconProvider(programStage.style(), defaultColor)
+            }
+    }
+
     override fun isEventEditable(eventUid: String): Boolean {
         return d2.eventModule().eventService().blockingIsEditable(eventUid)
     }
@@ -458,4 +510,8 @@ class TeiDataRepositoryImpl(
     private fun getOrgUnitCollectionRepositoryByCaptureScope() =
         d2.organisationUnitModule().organisationUnits()
             .byOrganisationUnitScope(OrganisationUnit.Scope.SCOPE_DATA_CAPTURE)
+
+    companion object {
+        private const val UID_QUERY_BATCH_SIZE = 500
+    }
 }
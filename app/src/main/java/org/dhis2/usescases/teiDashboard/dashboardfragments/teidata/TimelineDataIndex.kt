@@ -0,0 +1,74 @@
+package org.dhis2.usescases.teiDashboard.dashboardfragments.teidata
+
+import org.hisp.dhis.android.core.category.CategoryCombo
+import org.hisp.dhis.android.core.category.CategoryOptionCombo
+import org.hisp.dhis.android.core.common.ValueType
+import org.hisp.dhis.android.core.dataelement.DataElement
+import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
+import org.hisp.dhis.android.core.program.ProgramStageDataElement
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue
+
+/**
+ * Org units, category option combos, report data elements and values of the events shown in
+ * the TEI dashboard, loaded once for all of them and indexed by uid.
+ */
+class TimelineDataIndex(
+    organisationUnits: List<OrganisationUnit>,
+    categoryOptionCombos: List<CategoryOptionCombo>,
+    categoryCombos: List<CategoryCombo>,
+    reportDataElements: List<ProgramStageDataElement>,
+    dataElements: List<DataElement>,
+    dataValues: List<TrackedEntityDataValue>,
+) {
+
+    data class ReportValue(
+        val label: String,
+        val value: TrackedEntityDataValue?,
+    )
+
+    private val orgUnitNames = organisationUnits.associate { it.uid() to it.displayName() }
+    private val categoryOptionCombosByUid = categoryOptionCombos.associateBy { it.uid() }
+    private val categoryCombosByUid = categoryCombos.associateBy { it.uid() }
+    private val reportDataElementsByStage = reportDataElements
+        .filter { it.dataElement()?.uid() != null }
+        .groupBy({ it.programStage()?.uid() }, { it.dataElement()!!.uid() })
+    private val dataElementsByUid = dataElements.associateBy { it.uid() }
+    private val dataValuesByEvent = dataValues.groupBy { it.event() }
+        .mapValues { (_, eventValues) -> eventValues.associateBy { it.dataElement() } }
+
+    fun orgUnitName(orgUnitUid: String?): String = orgUnitNames[orgUnitUid] ?: ""
+
+    fun categoryOptionComboName(categoryOptionComboUid: String?): String? =
+        categoryOptionCombosByUid[categoryOptionComboUid]?.displayName()
+
+    fun categoryCombo(categoryOptionComboUid: String?): CategoryCombo? =
+        categoryCombosByUid[
+            categoryOptionCombosByUid[categoryOptionComboUid]?.categoryCombo()?.uid(),
+        ]
+
+    /**
+     * Values of the stage data elements displayed in reports, skipping the value types that can
+     * not be shown as text. Missing values are returned as null values.
+     */
+    fun reportValues(eventUid: String, stageUid: String?): List<ReportValue> {
+        val eventValues = dataValuesByEvent[eventUid] ?: emptyMap()
+        return reportDataElementsByStage[stageUid].orEmpty().mapNotNull { dataElementUid ->
+            val dataElement = dataElementsByUid[dataElementUid]
+            if (isAcceptedValueType(dataElement?.valueType())) {
+                ReportValue(
+                    label = dataElement?.displayFormName() ?: dataElement?.displayName() ?: "",
+                    value = eventValues[dataElementUid],
+                )
+            } else {
+                null
+            }
+        }
+    }
+
+    private fun isAcceptedValueType(valueType: ValueType?): Boolean {
+        return when (valueType) {
+            ValueType.IMAGE, ValueType.COORDINATE, ValueType.FILE_RESOURCE -> false
+            else -> true
+        }
+    }
+}
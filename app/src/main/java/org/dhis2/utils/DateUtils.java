@@ -5,6 +5,7 @@ import android.widget.DatePicker;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import org.dhis2.commons.date.DateFormats;
 import org.dhis2.commons.date.Period;
 import org.dhis2.commons.dialogs.calendarpicker.CalendarPicker;
 import org.dhis2.commons.dialogs.calendarpicker.OnDatePickerListener;
@@ -24,7 +25,6 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -191,42 +191,42 @@ public class DateUtils {
 
     @NonNull
     public static SimpleDateFormat uiDateFormat() {
-        return new SimpleDateFormat(SIMPLE_DATE_FORMAT, Locale.US);
+        return DateFormats.get(SIMPLE_DATE_FORMAT);
     }
 
     @NonNull
     public static SimpleDateFormat oldUiDateFormat() {
-        return new SimpleDateFormat(DATE_FORMAT_EXPRESSION, Locale.US);
+        return DateFormats.get(DATE_FORMAT_EXPRESSION);
     }
 
     @NonNull
     public static SimpleDateFormat timeFormat() {
-        return new SimpleDateFormat(TIME_24H_EXPRESSION, Locale.US);
+        return DateFormats.get(TIME_24H_EXPRESSION);
     }
 
     @NonNull
     public static SimpleDateFormat dateTimeFormat() {
-        return new SimpleDateFormat(DATE_TIME_FORMAT_EXPRESSION, Locale.US);
+        return DateFormats.get(DATE_TIME_FORMAT_EXPRESSION);
     }
 
     @NonNull
     public static SimpleDateFormat databaseDateFormatMillis() {
-        return new SimpleDateFormat(DATABASE_FORMAT_EXPRESSION_MILLIS, Locale.US);
+        return DateFormats.get(DATABASE_FORMAT_EXPRESSION_MILLIS);
     }
 
     @NonNull
     public static SimpleDateFormat databaseDateFormat() {
-        return new SimpleDateFormat(DATABASE_FORMAT_EXPRESSION, Locale.US);
+        return DateFormats.get(DATABASE_FORMAT_EXPRESSION);
     }
 
     @NonNull
     public static SimpleDateFormat databaseDateFormatNoMillis() {
-        return new SimpleDateFormat(DATABASE_FORMAT_EXPRESSION_NO_MILLIS, Locale.US);
+        return DateFormats.get(DATABASE_FORMAT_EXPRESSION_NO_MILLIS);
     }
 
     @NonNull
     public static SimpleDateFormat databaseDateFormatNoSeconds() {
-        return new SimpleDateFormat(DATABASE_FORMAT_EXPRESSION_NO_SECONDS, Locale.US);
+        return DateFormats.get(DATABASE_FORMAT_EXPRESSION_NO_SECONDS);
     }
 
     @NonNull
@@ -1,7 +1,9 @@
 package org.dhis2.utils.session
 
+import org.dhis2.bindings.ValueMetadataCache
 import org.dhis2.commons.prefs.Preference
 import org.dhis2.commons.prefs.PreferenceProvider
+import org.dhis2.form.data.AutoCompleteStore
 import org.hisp.dhis.android.core.D2
 import timber.log.Timber
 
@@ -42,6 +44,8 @@ class PinPresenter(
             d2.dataStoreModule().localDataStore().value(Preference.PIN).blockingDelete()
             d2.userModule().blockingLogOut()
             preferenceProvider.setValue(Preference.SESSION_LOCKED, false)
+            AutoCompleteStore.clearAll()
+            ValueMetadataCache.invalidate()
         } catch (e: Exception) {
             Timber.e(e)
         }
@@ -0,0 +1,91 @@
+package org.dhis2.bindings
+
+import org.hisp.dhis.android.core.D2
+import org.hisp.dhis.android.core.common.ObjectWithUid
+import org.hisp.dhis.android.core.common.ValueType
+import org.hisp.dhis.android.core.dataelement.DataElement
+import org.hisp.dhis.android.core.option.Option
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.mockito.Mockito
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+
+class ValueMetadataCacheTest {
+
+    private val d2: D2 = Mockito.mock(D2::class.java, Mockito.RETURNS_DEEP_STUBS)
+
+    @After
+    fun tearDown() {
+        ValueMetadataCache.invalidate()
+    }
+
+    @Test
+    fun `Should load data element metadata once until invalidated`() {
+        mockDataElement(d2)
+
+        repeat(3) { ValueMetadataCache.dataElement(d2, "deUid") }
+        verify(d2.dataElementModule().dataElements().uid("deUid"), times(1)).blockingGet()
+
+        ValueMetadataCache.invalidate()
+        ValueMetadataCache.dataElement(d2, "deUid")
+        verify(d2.dataElementModule().dataElements().uid("deUid"), times(2)).blockingGet()
+    }
+
+    @Test
+    fun `Should not keep metadata of a previous session once invalidated`() {
+        mockDataElement(d2, ValueType.TEXT)
+        assertEquals(ValueType.TEXT, ValueMetadataCache.dataElement(d2, "deUid")?.valueType)
+
+        mockDataElement(d2, ValueType.NUMBER)
+        assertEquals(ValueType.TEXT, ValueMetadataCache.dataElement(d2, "deUid")?.valueType)
+
+        ValueMetadataCache.invalidate()
+        assertEquals(ValueType.NUMBER, ValueMetadataCache.dataElement(d2, "deUid")?.valueType)
+    }
+
+    @Test
+    fun `Should display option names from the cached option set`() {
+        mockDataElement(d2, ValueType.TEXT, "optionSetUid")
+        val option: Option = mock {
+            on { code() } doReturn "code"
+            on { name() } doReturn "name"
+            on { displayName() } doReturn "Display name"
+        }
+        whenever(
+            d2.optionModule().options().byOptionSetUid().eq("optionSetUid").blockingCount(),
+        ) doReturn 1
+        whenever(
+            d2.optionModule().options().byOptionSetUid().eq("optionSetUid").blockingGet(),
+        ) doReturn listOf(option)
+        val dataValue: TrackedEntityDataValue = mock {
+            on { dataElement() } doReturn "deUid"
+            on { value() } doReturn "code"
+        }
+
+        repeat(2) { assertEquals("Display name", dataValue.userFriendlyValue(d2)) }
+        verify(
+            d2.optionModule().options().byOptionSetUid().eq("optionSetUid"),
+            times(1),
+        ).blockingGet()
+    }
+
+    private fun mockDataElement(
+        d2: D2,
+        valueType: ValueType = ValueType.TEXT,
+        optionSetUid: String? = null,
+    ) {
+        val dataElement: DataElement = mock {
+            on { valueType() } doReturn valueType
+            on { optionSet() } doReturn optionSetUid?.let { ObjectWithUid.create(it) }
+        }
+        whenever(
+            d2.dataElementModule().dataElements().uid("deUid").blockingGet(),
+        ) doReturn dataElement
+    }
+}
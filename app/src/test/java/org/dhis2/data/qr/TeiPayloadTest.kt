@@ -0,0 +1,159 @@
+package org.dhis2.data.qr
+
+import org.hisp.dhis.android.core.common.State
+import org.hisp.dhis.android.core.enrollment.Enrollment
+import org.hisp.dhis.android.core.enrollment.EnrollmentStatus
+import org.hisp.dhis.android.core.event.Event
+import org.hisp.dhis.android.core.event.EventStatus
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttributeValue
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityInstance
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.mockito.kotlin.mock
+import java.io.ByteArrayOutputStream
+import java.util.Base64
+import java.util.Date
+import java.util.zip.DeflaterOutputStream
+import kotlin.random.Random
+
+class TeiPayloadTest {
+
+    @Test
+    fun `Should read the same TEI graph that was written`() {
+        val writer = TeiPayloadWriter()
+            .writeTei(tei())
+            .writeAttribute(attributeValue("attr1", "Ana"))
+            .writeAttribute(attributeValue("attr2", null))
+        enrollments().forEach { enrollment ->
+            writer.writeEnrollment(enrollment)
+            repeat(EVENTS_PER_ENROLLMENT) { index ->
+                val eventUid = "${enrollment.uid()}_event$index"
+                writer.writeEvent(event(eventUid, enrollment.uid()))
+                writer.writeDataValue(dataValue("de1", "value ñ $index", eventUid))
+                writer.writeDataValue(dataValue("de2", "x".repeat(200), eventUid))
+            }
+        }
+
+        val payload = TeiPayloadReader.read(writer.finish())
+
+        assertEquals("teiUid", payload.tei.uid())
+        assertEquals(State.TO_POST, payload.tei.state())
+        assertEquals(listOf("Ana", null), payload.attributeValues.map { it.value() })
+        assertEquals(2, payload.enrollments.size)
+        assertEquals(true, payload.enrollments[0].followUp())
+        assertEquals(EnrollmentStatus.ACTIVE, payload.enrollments[0].status())
+        assertEquals(EVENTS_PER_ENROLLMENT, payload.eventsOf("enrollment2").size)
+        val event = payload.eventsOf("enrollment2")[3]
+        assertEquals("enrollment2_event3", event.uid())
+        assertEquals(Date(EVENT_DATE), event.eventDate())
+        assertEquals(null, event.completedDate())
+        assertEquals(EventStatus.COMPLETED, event.status())
+        assertEquals(
+            listOf("value ñ 3", "x".repeat(200)),
+            payload.dataValuesOf(event.uid()).map { it.value() },
+        )
+    }
+
+    @Test
+    fun `Should join chunks in any order`() {
+        val payload = Random(7).nextBytes(10_000)
+
+        val chunks = QrChunks.split(payload, 1000)
+
+        assertEquals(11, chunks.size)
+        assertTrue(chunks.all { it.size <= 1000 && QrChunks.isChunk(it) })
+        assertEquals(11, QrChunks.chunkCount(chunks.first()))
+        assertArrayEquals(payload, QrChunks.join(chunks.shuffled(Random(3))))
+    }
+
+    @Test
+    fun `Should keep payloads that fit in one code unchanged`() {
+        val payload = TeiPayloadWriter().writeTei(tei()).finish()
+
+        val chunks = QrChunks.split(payload)
+
+        assertEquals(1, chunks.size)
+        assertArrayEquals(payload, QrChunks.join(chunks))
+    }
+
+    @Test
+    fun `Should decompress a payload scanned as several codes`() {
+        val random = Random(11)
+        val text = (1..20_000).map { 'a' + random.nextInt(26) }.joinToString("")
+        val output = ByteArrayOutputStream()
+        DeflaterOutputStream(output).use { it.write(text.toByteArray()) }
+        val payload = output.toByteArray()
+
+        val scannedChunks = QrChunks.split(payload)
+            .map { Base64.getEncoder().encodeToString(it) }
+            .shuffled(Random(5))
+            .map { Base64.getDecoder().decode(it) }
+
+        assertTrue(scannedChunks.size > 1)
+        assertEquals(text, QRCodeGenerator(mock()).decompressChunks(scannedChunks))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun `Should fail to join incomplete chunks`() {
+        val chunks = QrChunks.split(Random(7).nextBytes(5_000), 1000)
+
+        QrChunks.join(chunks.drop(1))
+    }
+
+    private fun tei() = TrackedEntityInstance.builder()
+        .uid("teiUid")
+        .created(Date(CREATED))
+        .organisationUnit("orgUnit")
+        .trackedEntityType("teType")
+        .state(State.TO_POST)
+        .build()
+
+    private fun attributeValue(attribute: String, value: String?) =
+        TrackedEntityAttributeValue.builder()
+            .trackedEntityAttribute(attribute)
+            .value(value)
+            .trackedEntityInstance("teiUid")
+            .build()
+
+    private fun enrollments() = listOf("enrollment1", "enrollment2").map { uid ->
+        Enrollment.builder()
+            .uid(uid)
+            .created(Date(CREATED))
+            .organisationUnit("orgUnit")
+            .program("program")
+            .enrollmentDate(Date(CREATED))
+            .followUp(true)
+            .status(EnrollmentStatus.ACTIVE)
+            .state(State.TO_POST)
+            .trackedEntityInstance("teiUid")
+            .build()
+    }
+
+    private fun event(uid: String, enrollmentUid: String) = Event.builder()
+        .uid(uid)
+        .created(Date(CREATED))
+        .status(EventStatus.COMPLETED)
+        .program("program")
+        .programStage("stage")
+        .eventDate(Date(EVENT_DATE))
+        .state(State.TO_POST)
+        .organisationUnit("orgUnit")
+        .enrollment(enrollmentUid)
+        .build()
+
+    private fun dataValue(dataElement: String, value: String, eventUid: String) =
+        TrackedEntityDataValue.builder()
+            .dataElement(dataElement)
+            .value(value)
+            .event(eventUid)
+            .build()
+
+    companion object {
+        private const val EVENTS_PER_ENROLLMENT = 20
+        private const val CREATED = 1_600_000_000_000L
+        private const val EVENT_DATE = 1_650_000_000_000L
+    }
+}
@@ -3,6 +3,8 @@ package org.dhis2.data.services
 import io.reactivex.Completable
 import io.reactivex.Observable
 import org.dhis2.commons.prefs.PreferenceProvider
+import org.dhis2.data.service.CHECKPOINT_EVENTS
+import org.dhis2.data.service.CHECKPOINT_TRACKER
 import org.dhis2.data.service.SyncPresenterImpl
 import org.dhis2.data.service.SyncRepository
 import org.dhis2.data.service.SyncResult
@@ -11,6 +13,8 @@ import org.dhis2.data.service.workManager.WorkManagerController
 import org.dhis2.utils.analytics.AnalyticsHelper
 import org.hisp.dhis.android.core.D2
 import org.hisp.dhis.android.core.arch.call.BaseD2Progress
+import org.hisp.dhis.android.core.arch.call.D2ProgressStatus
+import org.hisp.dhis.android.core.arch.call.D2ProgressSyncStatus
 import org.hisp.dhis.android.core.common.State
 import org.hisp.dhis.android.core.event.Event
 import org.hisp.dhis.android.core.fileresource.FileResourceDomainType
@@ -19,6 +23,8 @@ import org.hisp.dhis.android.core.settings.LimitScope
 import org.hisp.dhis.android.core.settings.ProgramSetting
 import org.hisp.dhis.android.core.settings.ProgramSettings
 import org.hisp.dhis.android.core.trackedentity.TrackedEntityInstance
+import org.hisp.dhis.android.core.tracker.exporter.TrackerD2Progress
+import org.junit.Assert.assertEquals
 import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
@@ -26,6 +32,7 @@ import org.mockito.Mockito
 import org.mockito.kotlin.any
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
 import org.mockito.kotlin.times
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.verifyNoMoreInteractions
@@ -275,6 +282,91 @@ class SyncPresenterTest {
         assert(syncResult == SyncResult.ERROR)
     }
 
+    @Test
+    fun `Should only download programs without checkpoint and save new checkpoints`() {
+        val checkpoints = setOf("program1/ou1", "program1/ou2", "program3/ou1")
+        whenever(preferences.getLong(any(), any())) doReturn System.currentTimeMillis()
+        whenever(preferences.getSet(any(), any())) doReturn checkpoints
+        val downloadedPrograms = mutableListOf<String>()
+
+        presenter.resumableDownload(
+            CHECKPOINT_TRACKER,
+            listOf("program1", "program2", "program3"),
+            mapOf(
+                "program1" to listOf("ou1", "ou2"),
+                "program2" to listOf("ou1"),
+                "program3" to listOf("ou1", "ou3"),
+            ),
+        ) { programUid ->
+            downloadedPrograms.add(programUid)
+            Observable.empty<TrackerD2Progress>()
+        }.blockingAwait()
+
+        assertEquals(listOf("program2", "program3"), downloadedPrograms)
+        verify(preferences).setValue(
+            "DOWNLOAD_CHECKPOINT_$CHECKPOINT_TRACKER",
+            checkpoints + "program2/ou1",
+        )
+        verify(preferences).setValue(
+            "DOWNLOAD_CHECKPOINT_$CHECKPOINT_TRACKER",
+            checkpoints + setOf("program3/ou1", "program3/ou3"),
+        )
+        verify(preferences).removeValue("DOWNLOAD_CHECKPOINT_$CHECKPOINT_TRACKER")
+    }
+
+    @Test
+    fun `Should keep checkpoints if a program download fails`() {
+        whenever(preferences.getLong(any(), any())) doReturn System.currentTimeMillis()
+        whenever(preferences.getSet(any(), any())) doReturn emptySet()
+
+        presenter.resumableDownload(
+            CHECKPOINT_EVENTS,
+            listOf("program1", "program2"),
+            mapOf("program2" to listOf("ou1")),
+        ) { programUid ->
+            if (programUid == "program1") {
+                Observable.error(Exception("Connection lost"))
+            } else {
+                Observable.empty()
+            }
+        }.blockingAwait()
+
+        verify(preferences).setValue(
+            "DOWNLOAD_CHECKPOINT_$CHECKPOINT_EVENTS",
+            setOf("program2/ou1"),
+        )
+        verify(preferences, never()).removeValue("DOWNLOAD_CHECKPOINT_$CHECKPOINT_EVENTS")
+    }
+
+    @Test
+    fun `Should keep checkpoints if a program download reports an error`() {
+        whenever(preferences.getLong(any(), any())) doReturn System.currentTimeMillis()
+        whenever(preferences.getSet(any(), any())) doReturn emptySet()
+        val errorProgress: TrackerD2Progress = mock {
+            on { programs() } doReturn mapOf(
+                "program1" to D2ProgressStatus(true, D2ProgressSyncStatus.ERROR),
+            )
+        }
+
+        presenter.resumableDownload(
+            CHECKPOINT_TRACKER,
+            listOf("program1", "program2"),
+            mapOf("program1" to listOf("ou1"), "program2" to listOf("ou1")),
+        ) { programUid ->
+            if (programUid == "program1") {
+                Observable.just(errorProgress)
+            } else {
+                Observable.empty()
+            }
+        }.blockingAwait()
+
+        verify(preferences).setValue(
+            "DOWNLOAD_CHECKPOINT_$CHECKPOINT_TRACKER",
+            setOf("program2/ou1"),
+        )
+        verify(preferences, never()).removeValue("DOWNLOAD_CHECKPOINT_$CHECKPOINT_TRACKER")
+    }
+
     private fun mockedProgramSettings(
         teiToDownload: Int,
         eventToDownload: Int,
@@ -0,0 +1,87 @@
+package org.dhis2.data.services
+
+import org.dhis2.data.service.SyncStep
+import org.dhis2.data.service.SyncStepScheduler
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class SyncStepSchedulerTest {
+
+    @Test
+    fun `Should run a step after all its dependencies`() {
+        val executed = Collections.synchronizedList(mutableListOf<String>())
+        val steps = listOf(
+            SyncStep("resources", setOf("events", "teis")) { executed.add("resources") },
+            SyncStep("events") { executed.add("events") },
+            SyncStep("teis") { executed.add("teis") },
+        )
+
+        SyncStepScheduler(maxParallelism = 2).run(steps)
+
+        assertEquals(3, executed.size)
+        assertEquals("resources", executed.last())
+    }
+
+    @Test
+    fun `Should run independent steps concurrently`() {
+        val bothStarted = CountDownLatch(2)
+        val steps = listOf("events", "teis").map { name ->
+            SyncStep(name) {
+                bothStarted.countDown()
+                check(bothStarted.await(5, TimeUnit.SECONDS)) { "Steps did not overlap" }
+            }
+        }
+
+        val results = SyncStepScheduler(maxParallelism = 2).run(steps)
+
+        assertTrue(results.values.all { it.isSuccess })
+    }
+
+    @Test
+    fun `Should not exceed the parallelism cap`() {
+        val running = AtomicInteger(0)
+        val maxRunning = AtomicInteger(0)
+        val steps = (0 until 6).map { index ->
+            SyncStep("step$index") {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+                Thread.sleep(20)
+                running.decrementAndGet()
+            }
+        }
+
+        SyncStepScheduler(maxParallelism = 2).run(steps)
+
+        assertTrue(maxRunning.get() <= 2)
+    }
+
+    @Test
+    fun `Should report failures and keep running dependants`() {
+        var dependantExecuted = false
+        val steps = listOf(
+            SyncStep("events") { throw IllegalStateException("offline") },
+            SyncStep("resources", setOf("events")) { dependantExecuted = true },
+        )
+
+        val results = SyncStepScheduler().run(steps)
+
+        assertFalse(results.getValue("events").isSuccess)
+        assertTrue(results.getValue("resources").isSuccess)
+        assertTrue(dependantExecuted)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun `Should reject circular dependencies`() {
+        SyncStepScheduler().run(
+            listOf(
+                SyncStep("a", setOf("b")) {},
+                SyncStep("b", setOf("a")) {},
+            ),
+        )
+    }
+}
@@ -0,0 +1,151 @@
+package org.dhis2.mobileProgramRules
+
+import kotlinx.coroutines.test.runTest
+import org.hisp.dhis.android.core.D2
+import org.hisp.dhis.android.core.common.ObjectWithUid
+import org.hisp.dhis.android.core.common.ValueType
+import org.hisp.dhis.android.core.dataelement.DataElement
+import org.hisp.dhis.android.core.event.Event
+import org.hisp.dhis.android.core.event.EventStatus
+import org.hisp.dhis.android.core.option.Option
+import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
+import org.hisp.dhis.android.core.program.ProgramStage
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mockito
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import java.util.Date
+
+class RulesRepositoryTest {
+
+    private val d2: D2 = mock(defaultAnswer = Mockito.RETURNS_DEEP_STUBS)
+    private lateinit var repository: RulesRepository
+
+    @Before
+    fun setUp() {
+        repository = RulesRepository(d2)
+        whenever(
+            d2.eventModule().events().byEnrollmentUid().eq(ENROLLMENT_UID)
+                .byStatus().notIn(EventStatus.SCHEDULE, EventStatus.SKIPPED, EventStatus.OVERDUE)
+                .byEventDate().beforeOrEqual(any<Date>())
+                .withTrackedEntityDataValues()
+                .blockingGet(),
+        ) doReturn seededEvents()
+        whenever(
+            d2.programModule().programStages().byUid().`in`(any<Collection<String>>())
+                .blockingGet(),
+        ) doReturn List(STAGES) {
+            ProgramStage.builder().uid("stage$it").name("Stage $it").build()
+        }
+        whenever(
+            d2.organisationUnitModule().organisationUnits().byUid().`in`(any<Collection<String>>())
+                .blockingGet(),
+        ) doReturn List(ORG_UNITS) {
+            OrganisationUnit.builder().uid("orgUnit$it").code("OU$it").build()
+        }
+        whenever(
+            d2.dataElementModule().dataElements().byUid().`in`(any<Collection<String>>())
+                .blockingGet(),
+        ) doReturn List(DATA_ELEMENTS) {
+            DataElement.builder()
+                .uid("dataElement$it")
+                .valueType(ValueType.TEXT)
+                .optionSet(if (it == 0) ObjectWithUid.create(OPTION_SET_UID) else null)
+                .build()
+        }
+        whenever(
+            d2.programModule().programRuleVariables()
+                .byProgramUid().`in`(any<Collection<String>>())
+                .byUseCodeForOptionSet().isTrue
+                .blockingGet(),
+        ) doReturn emptyList()
+        whenever(
+            d2.optionModule().options().byOptionSetUid().`in`(any<Collection<String>>())
+                .blockingGet(),
+        ) doReturn listOf(
+            Option.builder()
+                .uid("option")
+                .code(OPTION_CODE)
+                .name(OPTION_NAME)
+                .optionSet(ObjectWithUid.create(OPTION_SET_UID))
+                .build(),
+        )
+        Mockito.clearInvocations(
+            d2.programModule().programStages().byUid(),
+            d2.organisationUnitModule().organisationUnits().byUid(),
+            d2.dataElementModule().dataElements().byUid(),
+            d2.programModule().programRuleVariables().byProgramUid(),
+            d2.optionModule().options().byOptionSetUid(),
+        )
+    }
+
+    /**
+     * Seeds an enrollment with [EVENTS] events of [DATA_ELEMENTS] values each. Resolving their
+     * metadata used to take one query per event and per value, it now takes one per type.
+     */
+    @Test
+    fun `Should resolve the metadata of every enrollment event with one query per type`() =
+        runTest {
+            val ruleEvents = repository.enrollmentEvents(ENROLLMENT_UID)
+
+            assertEquals(EVENTS, ruleEvents.size)
+            assertEquals(EVENTS * DATA_ELEMENTS, ruleEvents.sumOf { it.dataValues.size })
+            assertEquals("Stage 1", ruleEvents[1].programStageName)
+            assertEquals("OU1", ruleEvents[1].organisationUnitCode)
+            assertEquals(
+                OPTION_NAME,
+                ruleEvents[0].dataValues.first { it.dataElement == "dataElement0" }.value,
+            )
+
+            verify(d2.programModule().programStages().byUid(), times(1))
+                .`in`(any<Collection<String>>())
+            verify(d2.organisationUnitModule().organisationUnits().byUid(), times(1))
+                .`in`(any<Collection<String>>())
+            verify(d2.dataElementModule().dataElements().byUid(), times(1))
+                .`in`(any<Collection<String>>())
+            verify(d2.programModule().programRuleVariables().byProgramUid(), times(1))
+                .`in`(any<Collection<String>>())
+            verify(d2.optionModule().options().byOptionSetUid(), times(1))
+                .`in`(any<Collection<String>>())
+        }
+
+    private fun seededEvents() = List(EVENTS) { index ->
+        val eventUid = "event$index"
+        Event.builder()
+            .uid(eventUid)
+            .program("program")
+            .programStage("stage${index % STAGES}")
+            .organisationUnit("orgUnit${index % ORG_UNITS}")
+            .enrollment(ENROLLMENT_UID)
+            .status(EventStatus.ACTIVE)
+            .eventDate(Date())
+            .trackedEntityDataValues(
+                List(DATA_ELEMENTS) {
+                    TrackedEntityDataValue.builder()
+                        .event(eventUid)
+                        .dataElement("dataElement$it")
+                        .value(if (it == 0) OPTION_CODE else "value $index")
+                        .build()
+                },
+            )
+            .build()
+    }
+
+    companion object {
+        private const val ENROLLMENT_UID = "enrollment"
+        private const val EVENTS = 60
+        private const val STAGES = 3
+        private const val ORG_UNITS = 2
+        private const val DATA_ELEMENTS = 5
+        private const val OPTION_SET_UID = "optionSet"
+        private const val OPTION_CODE = "code"
+        private const val OPTION_NAME = "Option name"
+    }
+}
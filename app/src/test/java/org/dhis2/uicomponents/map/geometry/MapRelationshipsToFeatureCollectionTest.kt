@@ -4,6 +4,7 @@ import com.mapbox.geojson.BoundingBox
 import com.mapbox.geojson.Feature
 import com.mapbox.geojson.LineString
 import com.mapbox.geojson.Point
+import org.dhis2.maps.geometry.LngLatArray
 import org.dhis2.maps.geometry.bound.GetBoundingBox
 import org.dhis2.maps.geometry.line.MapLineRelationshipToFeature
 import org.dhis2.maps.geometry.mapper.featurecollection.MapRelationshipsToFeatureCollection
@@ -64,12 +65,9 @@ class MapRelationshipsToFeatureCollectionTest {
         whenever(
             mapPointToFeature.map(secondRelationship.to.geometry!!),
         ) doReturn getPointToFeature(secondRelationship)
-        whenever(bounds.getEnclosingBoundingBox(any())) doReturn BoundingBox.fromLngLats(
-            0.0,
-            0.0,
-            0.0,
-            0.0,
-        )
+        whenever(
+            bounds.getEnclosingBoundingBox(any<LngLatArray>()),
+        ) doReturn BoundingBox.fromLngLats(0.0, 0.0, 0.0, 0.0)
 
         val result = mapRelationshipsToFeatureCollection.map(relationshipsModel)
         assertThat(result.first.size, `is`(2))
@@ -0,0 +1,72 @@
+package org.dhis2.usescases.datasets.dataSetTable.dataSetSection
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.util.BitSet
+
+class NumericCellGridTest {
+
+    @Test
+    fun `Should update totals when a cell changes`() {
+        val grid = NumericCellGrid(2, 2, numericRows(0, 1))
+
+        grid.set(0, 0, "1")
+        grid.set(0, 1, "2")
+        grid.set(1, 0, "3")
+        grid.set(0, 0, "5")
+
+        assertEquals(7.0, grid.rowTotal(0), 0.0)
+        assertEquals(3.0, grid.rowTotal(1), 0.0)
+        assertEquals(8.0, grid.columnTotal(0), 0.0)
+        assertEquals(2.0, grid.columnTotal(1), 0.0)
+        assertEquals(10.0, grid.grandTotal(), 0.0)
+    }
+
+    @Test
+    fun `Should remove cleared and non numeric values from totals`() {
+        val grid = NumericCellGrid(1, 2, numericRows(0))
+
+        grid.set(0, 0, "4")
+        grid.set(0, 1, "6")
+        grid.set(0, 0, null as String?)
+        grid.set(0, 1, "text")
+
+        assertNull(grid.get(0, 0))
+        assertNull(grid.get(0, 1))
+        assertEquals(0.0, grid.rowTotal(0), 0.0)
+        assertEquals(0.0, grid.grandTotal(), 0.0)
+    }
+
+    @Test
+    fun `Should only add numeric rows to row and grand totals`() {
+        val grid = NumericCellGrid(2, 1, numericRows(0))
+
+        grid.set(0, 0, "2")
+        grid.set(1, 0, "3")
+
+        assertEquals(0.0, grid.rowTotal(1), 0.0)
+        assertEquals(5.0, grid.columnTotal(0), 0.0)
+        assertEquals(listOf(5.0, 2.0), grid.totalRow().toList())
+    }
+
+    @Test
+    fun `Should keep totals of a large section in sync with edits`() {
+        val rows = 200
+        val columns = 50
+        val grid = NumericCellGrid(rows, columns, numericRows(*IntArray(rows) { it }))
+        for (row in 0 until rows) {
+            for (column in 0 until columns) {
+                grid.set(row, column, 1.0)
+            }
+        }
+
+        grid.set(10, 20, 11.0)
+
+        assertEquals(columns + 10.0, grid.rowTotal(10), 0.0)
+        assertEquals(rows + 10.0, grid.columnTotal(20), 0.0)
+        assertEquals(rows * columns + 10.0, grid.grandTotal(), 0.0)
+    }
+
+    private fun numericRows(vararg rows: Int) = BitSet().apply { rows.forEach { set(it) } }
+}
@@ -0,0 +1,92 @@
+package org.dhis2.usescases.datasets.dataSetTable.dataSetSection
+
+import org.dhis2.usescases.datasets.dataSetTable.DataSetTableModel
+import org.hisp.dhis.android.core.common.ObjectWithUid
+import org.hisp.dhis.android.core.common.State
+import org.hisp.dhis.android.core.dataelement.DataElementOperand
+import org.hisp.dhis.android.core.datavalue.DataValue
+import org.hisp.dhis.android.core.datavalue.DataValueConflict
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+
+class SectionTableIndexTest {
+
+    @Test
+    fun `Should return cell data by data element and category option combo`() {
+        val index = SectionTableIndex(
+            dataValues = listOf(dataValue("de1", "coc1", "5"), dataValue("de1", "coc1", "6")),
+            storedValues = listOf(storedValue("de1", "coc1", State.ERROR)),
+            conflicts = listOf(conflict("de1", "coc1", "conflict")),
+            compulsoryCells = listOf(operand("de1", "coc2")),
+            disabledCells = listOf(operand("de2", "coc1")),
+        )
+
+        assertEquals("5", index.value("de1", "coc1"))
+        assertNull(index.value("de1", "coc2"))
+        assertEquals(State.ERROR, index.syncState("de1", "coc1"))
+        assertEquals(listOf("conflict"), index.conflicts("de1", "coc1"))
+        assertTrue(index.isCompulsory("de1", "coc2"))
+        assertFalse(index.isCompulsory("de1", "coc1"))
+        assertTrue(index.isDisabled("de2", "coc1"))
+        assertFalse(index.isDisabled("de1", "coc1"))
+    }
+
+    @Test
+    fun `Should index every cell of a large section`() {
+        val dataElements = (0 until 40).map { "de$it" }
+        val catOptionCombos = (0 until 30).map { "coc$it" }
+        val dataValues = dataElements.flatMap { dataElement ->
+            catOptionCombos.map { coc -> dataValue(dataElement, coc, "$dataElement-$coc") }
+        }
+
+        val index = SectionTableIndex(
+            dataValues = dataValues,
+            storedValues = emptyList(),
+            conflicts = emptyList(),
+            compulsoryCells = emptyList(),
+            disabledCells = emptyList(),
+        )
+
+        dataElements.forEach { dataElement ->
+            catOptionCombos.forEach { coc ->
+                assertEquals("$dataElement-$coc", index.value(dataElement, coc))
+            }
+        }
+    }
+
+    private fun dataValue(dataElement: String, coc: String, value: String) = DataSetTableModel(
+        dataElement,
+        "period",
+        "orgUnit",
+        coc,
+        "attrOptionCombo",
+        value,
+        "",
+        "",
+        emptyList(),
+        "catCombo",
+    )
+
+    private fun storedValue(dataElement: String, coc: String, state: State) = mock<DataValue> {
+        on { dataElement() } doReturn dataElement
+        on { categoryOptionCombo() } doReturn coc
+        on { syncState() } doReturn state
+    }
+
+    private fun conflict(dataElement: String, coc: String, description: String) =
+        mock<DataValueConflict> {
+            on { dataElement() } doReturn dataElement
+            on { categoryOptionCombo() } doReturn coc
+            on { displayDescription() } doReturn description
+        }
+
+    private fun operand(dataElement: String, coc: String) = mock<DataElementOperand> {
+        on { dataElement() } doReturn ObjectWithUid.create(dataElement)
+        on { categoryOptionCombo() } doReturn ObjectWithUid.create(coc)
+    }
+}
@@ -21,7 +21,6 @@ import org.hisp.dhis.android.core.common.ObjectStyle
 import org.hisp.dhis.android.core.common.State
 import org.hisp.dhis.android.core.dataset.DataSet
 import org.hisp.dhis.android.core.dataset.DataSetInstanceSummary
-import org.hisp.dhis.android.core.event.Event
 import org.hisp.dhis.android.core.program.Program
 import org.hisp.dhis.android.core.program.ProgramType
 import org.hisp.dhis.android.core.trackedentity.TrackedEntityType
@@ -190,37 +189,28 @@ class ProgramRepositoryImplTest {
         whenever(
             dhisProgramUtils.getProgramState(any<Program>()),
         ) doReturnConsecutively arrayListOf(State.SYNCED, State.TO_POST)
-        whenever(
-            d2.programModule().programs().uid(any()).blockingGet(),
-        )doReturnConsecutively mockedPrograms()
         whenever(
             filterPresenter.filteredEventProgram(any()),
         ) doReturn mock()
         whenever(
-            filterPresenter.filteredEventProgram(any()).blockingGet(),
-        ) doReturn listOf(
-            Event.builder().uid("0").syncState(State.SYNCED).build(),
-            Event.builder().uid("1").syncState(State.SYNCED).build(),
-            Event.builder().uid("2").syncState(State.SYNCED).build(),
-            Event.builder().uid("3").syncState(State.SYNCED).build(),
-            Event.builder().uid("4").syncState(State.SYNCED).build(),
-            Event.builder().uid("5").syncState(State.SYNCED).build(),
-            Event.builder().uid("6").syncState(State.SYNCED).build(),
-            Event.builder().uid("7").syncState(State.SYNCED).build(),
-            Event.builder().uid("8").syncState(State.SYNCED).build(),
-            Event.builder().uid("9").syncState(State.SYNCED).build(),
-            Event.builder().uid("10").syncState(State.RELATIONSHIP).build(),
-        )
+            filterPresenter.filteredEventProgram(any()).blockingCount(),
+        ) doReturn 10
         whenever(
             filterPresenter.filteredTrackerProgram(any()),
         ) doReturn mock()
         whenever(
             filterPresenter.filteredTrackerProgram(any()).offlineFirst(),
         ) doReturn mock()
+        whenever(
+            filterPresenter.filteredTrackerProgram(any<Program>()).offlineFirst().blockingCount(),
+        ) doReturn 2
         whenever(
             filterPresenter.filteredTrackerProgram(any<Program>()).offlineFirst().blockingGetUids(),
         ) doReturn arrayListOf("teiUid1", "teiUid2")
 
+        whenever(
+            dhisTeiUtils.hasOverdueInProgram(any<Program>()),
+        ) doReturn true
         whenever(
             dhisTeiUtils.hasOverdueInProgram(any(), any()),
         ) doReturn true
@@ -3,8 +3,10 @@ package org.dhis2.usescases.orgunitselector
 import org.dhis2.commons.orgunitselector.OURepositoryConfiguration
 import org.dhis2.commons.orgunitselector.OUTreeRepository
 import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
+import org.junit.Assert.assertEquals
 import org.junit.Assert.assertTrue
 import org.junit.Test
+import org.mockito.kotlin.any
 import org.mockito.kotlin.anyOrNull
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
@@ -145,11 +147,8 @@ class OUTreeRepositoryTest {
             ouRepositoryConfiguration.orgUnitRepository(name = anyOrNull()),
         ) doReturn orgUnits
         whenever(
-            ouRepositoryConfiguration.orgUnit("ou1"),
-        ) doReturn ou1
-        whenever(
-            ouRepositoryConfiguration.orgUnit("ou12"),
-        ) doReturn ou12
+            ouRepositoryConfiguration.orgUnits(any()),
+        ) doReturn listOf(ou1, ou12)
 
         val result = repository.orgUnits()
 
@@ -157,6 +156,42 @@ class OUTreeRepositoryTest {
         assertTrue(result == ousWithParents)
     }
 
+    @Test
+    fun `Should count selected orgUnits in each subtree`() {
+        val ou1 = dummyOrderOrgUnit(uid = "ou1", level = 1)
+        val ou12 = dummyOrderOrgUnit(parents = listOf("ou1"), uid = "ou12", level = 2)
+        val ou121 = dummyOrderOrgUnit(parents = listOf("ou1", "ou12"), uid = "ou121", level = 3)
+        val ou2 = dummyOrderOrgUnit(uid = "ou2", level = 1)
+        val repository = OUTreeRepository(ouRepositoryConfiguration)
+
+        whenever(
+            ouRepositoryConfiguration.orgUnitRepository(name = anyOrNull()),
+        ) doReturn listOf(ou1, ou12, ou121)
+        whenever(
+            ouRepositoryConfiguration.orgUnits(listOf("ou2")),
+        ) doReturn listOf(ou2)
+
+        repository.orgUnits()
+        repository.setSelectedOrgUnits(listOf("ou121", "ou2"))
+
+        assertEquals(1, repository.countSelectedChildren("ou1"))
+        assertEquals(1, repository.countSelectedChildren("ou12"))
+        assertEquals(1, repository.countSelectedChildren("ou121"))
+        assertEquals(1, repository.countSelectedChildren("ou2"))
+
+        repository.selectOrgUnit("ou12")
+        repository.unselectOrgUnit("ou121")
+
+        assertEquals(1, repository.countSelectedChildren("ou1"))
+        assertEquals(1, repository.countSelectedChildren("ou12"))
+        assertEquals(0, repository.countSelectedChildren("ou121"))
+
+        repository.clearSelection()
+
+        assertEquals(0, repository.countSelectedChildren("ou1"))
+        assertEquals(0, repository.countSelectedChildren("ou2"))
+    }
+
     private fun dummyOrgUnit(
         parents: List<String> = emptyList(),
         uid: String = UUID.randomUUID().toString(),
@@ -69,7 +69,7 @@ class OUTreeViewModelTest {
         ) doReturnConsecutively listOf(true, false)
 
         whenever(
-            repository.countSelectedChildren(any(), any()),
+            repository.countSelectedChildren(any()),
         ) doReturnConsecutively listOf(0, 0)
 
         viewModel = OUTreeViewModel(repository, mutableListOf(), false, dispatchers)
@@ -127,7 +127,7 @@ class OUTreeViewModelTest {
         ) doReturnConsecutively listOf(true, false)
 
         whenever(
-            repository.countSelectedChildren(any(), any()),
+            repository.countSelectedChildren(any()),
         ) doReturnConsecutively listOf(0, 0)
 
         viewModel.searchByName(searchInput)
@@ -233,7 +233,7 @@ class OUTreeViewModelTest {
         ) doReturnConsecutively listOf(true, false)
 
         whenever(
-            repository.countSelectedChildren(any(), any()),
+            repository.countSelectedChildren(any()),
         ) doReturnConsecutively listOf(0, 0)
 
         viewModel = OUTreeViewModel(repository, mutableListOf(), singleSelection, dispatchers)
@@ -0,0 +1,85 @@
+package org.dhis2.usescases.orgunitselector
+
+import org.dhis2.commons.orgunitselector.OrgUnitHierarchy
+import org.dhis2.commons.orgunitselector.OrgUnitSelectionCounter
+import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class OrgUnitHierarchyTest {
+
+    @Test
+    fun `Should index descendants by ancestor`() {
+        val ou12 = orgUnit(listOf("ou1"), "ou12")
+        val ou121 = orgUnit(listOf("ou1", "ou12"), "ou121")
+        val ou11 = orgUnit(listOf("ou1"), "ou11")
+        val ou2 = orgUnit(emptyList(), "ou2")
+
+        val hierarchy = OrgUnitHierarchy(listOf(ou12, ou121, ou11, ou2))
+
+        assertEquals(listOf(ou11, ou12, ou121), hierarchy.descendants("ou1"))
+        assertEquals(listOf(ou121), hierarchy.descendants("ou12"))
+        assertTrue(hierarchy.descendants("ou2").isEmpty())
+        assertTrue(hierarchy.hasDescendants("ou1"))
+        assertFalse(hierarchy.hasDescendants("ou121"))
+        assertTrue(hierarchy.contains("ou12"))
+        assertFalse(hierarchy.contains("ou1"))
+        assertEquals(setOf("ou1"), hierarchy.missingAncestors())
+        assertEquals(listOf("ou1", "ou12", "ou121"), OrgUnitHierarchy.ancestors(ou121))
+    }
+
+    @Test
+    fun `Should not match org units that only contain the uid as a substring`() {
+        val ou1 = orgUnit(emptyList(), "ou1")
+        val ou10 = orgUnit(emptyList(), "ou10")
+        val ou101 = orgUnit(listOf("ou10"), "ou101")
+
+        val hierarchy = OrgUnitHierarchy(listOf(ou1, ou10, ou101))
+
+        assertFalse(hierarchy.hasDescendants("ou1"))
+        assertEquals(listOf(ou101), hierarchy.descendants("ou10"))
+    }
+
+    @Test
+    fun `Should keep selection counts of a large tree up to date`() {
+        val orgUnits = largeTree()
+        val hierarchy = OrgUnitHierarchy(orgUnits)
+        val counter = OrgUnitSelectionCounter()
+        val selected = orgUnits.filterIndexed { index, _ -> index % 7 == 0 }.map { it.uid() }
+
+        selected.forEach { uid ->
+            counter.select(uid, OrgUnitHierarchy.ancestors(hierarchy.orgUnit(uid)!!))
+        }
+        selected.filterIndexed { index, _ -> index % 2 == 0 }.forEach { counter.unselect(it) }
+        val stillSelected = selected.filterIndexed { index, _ -> index % 2 != 0 }.toSet()
+
+        orgUnits.forEach { orgUnit ->
+            val expected = (hierarchy.descendants(orgUnit.uid()) + orgUnit)
+                .count { stillSelected.contains(it.uid()) }
+            assertEquals(expected, counter.count(orgUnit.uid()))
+        }
+        assertEquals(stillSelected.size, counter.count("country"))
+    }
+
+    private fun largeTree(): List<OrganisationUnit> {
+        val country = orgUnit(emptyList(), "country")
+        val regions = (0 until 10).map { orgUnit(listOf("country"), "region$it") }
+        val districts = regions.flatMap { region ->
+            (0 until 12).map { orgUnit(listOf("country", region.uid()), "${region.uid()}d$it") }
+        }
+        val facilities = districts.flatMap { district ->
+            val path = OrgUnitHierarchy.ancestors(district)
+            (0 until 100).map { orgUnit(path, "${district.uid()}f$it") }
+        }
+        return listOf(country) + regions + districts + facilities
+    }
+
+    private fun orgUnit(parents: List<String>, uid: String) = OrganisationUnit.builder()
+        .uid(uid)
+        .level(parents.size + 1)
+        .path("/" + (parents + uid).joinToString("/"))
+        .displayNamePath(parents + uid)
+        .build()
+}
@@ -0,0 +1,122 @@
+package org.dhis2.usescases.qrReader
+
+import org.dhis2.usescases.qrReader.QrImportReport.EntityType.ATTRIBUTE_VALUE
+import org.dhis2.usescases.qrReader.QrImportReport.EntityType.ENROLLMENT
+import org.dhis2.usescases.qrReader.QrImportReport.EntityType.TRACKED_ENTITY_INSTANCE
+import org.hisp.dhis.android.core.D2
+import org.hisp.dhis.android.core.arch.db.access.DatabaseAdapter
+import org.hisp.dhis.android.core.arch.db.access.Transaction
+import org.hisp.dhis.android.core.enrollment.EnrollmentTableInfo
+import org.json.JSONArray
+import org.json.JSONObject
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mockito
+import org.mockito.kotlin.any
+import org.mockito.kotlin.anyOrNull
+import org.mockito.kotlin.doAnswer
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+
+class QrTeiImporterTest {
+
+    private val d2: D2 = mock(defaultAnswer = Mockito.RETURNS_DEEP_STUBS)
+    private val databaseAdapter: DatabaseAdapter = mock()
+    private val transaction: Transaction = mock()
+
+    @Before
+    fun setUp() {
+        whenever(d2.databaseAdapter()) doReturn databaseAdapter
+        whenever(databaseAdapter.beginNewTransaction()) doReturn transaction
+        whenever(databaseAdapter.insert(any(), anyOrNull(), anyOrNull())) doReturn 1L
+        whenever(
+            d2.trackedEntityModule().trackedEntityAttributes()
+                .byUid().`in`(any<Collection<String>>()).blockingGetUids(),
+        ) doReturn listOf("attribute")
+        whenever(
+            d2.programModule().programs()
+                .byUid().`in`(any<Collection<String>>()).blockingGetUids(),
+        ) doReturn listOf("program")
+    }
+
+    @Test
+    fun `Should commit the TEI graph when every row is inserted`() {
+        val report = importTei()
+
+        assertTrue(report.isCommitted)
+        assertEquals(1, report.saved(TRACKED_ENTITY_INSTANCE))
+        assertEquals(1, report.saved(ATTRIBUTE_VALUE))
+        assertEquals(1, report.saved(ENROLLMENT))
+        assertEquals(0, report.failedRecords())
+        verify(transaction).setSuccessful()
+        verify(transaction).end()
+    }
+
+    @Test
+    fun `Should roll back the TEI graph when a child row fails to insert`() {
+        whenever(
+            databaseAdapter.insert(
+                eq(EnrollmentTableInfo.TABLE_INFO.name()),
+                anyOrNull(),
+                anyOrNull(),
+            ),
+        ) doReturn -1L
+
+        val report = importTei()
+
+        assertFalse(report.isCommitted)
+        assertEquals(1, report.failed(ENROLLMENT))
+        verify(transaction, never()).setSuccessful()
+        verify(transaction).end()
+    }
+
+    private fun importTei() = QrTeiImporter(d2).importTei(
+        json(
+            "uid" to "teiUid",
+            "organisationUnit" to "orgUnit",
+            "trackedEntityType" to "teType",
+        ),
+        listOf(
+            jsonArray(
+                json(
+                    "trackedEntityInstance" to "teiUid",
+                    "trackedEntityAttribute" to "attribute",
+                    "value" to "value",
+                ),
+            ),
+        ),
+        listOf(
+            jsonArray(
+                json(
+                    "uid" to "enrollmentUid",
+                    "program" to "program",
+                    "organisationUnit" to "orgUnit",
+                    "status" to "ACTIVE",
+                    "trackedEntityInstance" to "teiUid",
+                ),
+            ),
+        ),
+        emptyList(),
+        emptyList(),
+    )
+
+    private fun json(vararg fields: Pair<String, String>): JSONObject {
+        val values = fields.toMap()
+        return mock {
+            on { has(any()) } doAnswer { values.containsKey(it.getArgument(0)) }
+            on { getString(any()) } doAnswer { values[it.getArgument(0)] }
+        }
+    }
+
+    private fun jsonArray(vararg items: JSONObject): JSONArray = mock {
+        on { length() } doReturn items.size
+        on { optJSONObject(any()) } doAnswer { items[it.getArgument(0)] }
+    }
+}
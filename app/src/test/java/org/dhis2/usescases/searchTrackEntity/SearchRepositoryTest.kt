@@ -1,13 +1,16 @@
 package org.dhis2.usescases.searchTrackEntity
 
 import androidx.paging.PagingData
+import androidx.paging.PagingSource
+import androidx.paging.PagingState
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
-import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.test.UnconfinedTestDispatcher
 import kotlinx.coroutines.test.resetMain
 import kotlinx.coroutines.test.runTest
 import kotlinx.coroutines.test.setMain
+import org.dhis2.commons.data.SearchTeiModel
 import org.dhis2.commons.resources.MetadataIconProvider
 import org.dhis2.commons.viewmodel.DispatcherProvider
 import org.dhis2.data.search.SearchParametersModel
@@ -16,6 +19,7 @@ import org.hisp.dhis.android.core.D2
 import org.hisp.dhis.android.core.trackedentity.search.TrackedEntitySearchCollectionRepository
 import org.hisp.dhis.android.core.trackedentity.search.TrackedEntitySearchItem
 import org.junit.After
+import org.junit.Assert.assertEquals
 import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
@@ -66,25 +70,48 @@ class SearchRepositoryTest {
         )
         val trackedEntitySearchCollectionRepository: TrackedEntitySearchCollectionRepository =
             mock()
-        val pagingDataFlow = flowOf(PagingData.empty<TrackedEntitySearchItem>())
 
         whenever(searchRepositoryJava.getFilteredRepository(searchParametersModel)) doReturn trackedEntitySearchCollectionRepository
         whenever(trackedEntitySearchCollectionRepository.allowOnlineCache()) doReturn mock()
         whenever(trackedEntitySearchCollectionRepository.allowOnlineCache().eq(false)) doReturn mock()
         whenever(trackedEntitySearchCollectionRepository.allowOnlineCache().eq(false).offlineFirst()) doReturn mock()
         whenever(trackedEntitySearchCollectionRepository.allowOnlineCache().eq(false).offlineOnly()) doReturn mock()
-        whenever(trackedEntitySearchCollectionRepository.allowOnlineCache().eq(false).offlineOnly().getPagingData(10)) doReturn mock()
-        whenever(trackedEntitySearchCollectionRepository.allowOnlineCache().eq(false).offlineFirst().getPagingData(10)) doReturn mock()
-        whenever(trackedEntitySearchCollectionRepository.getPagingData(10)) doReturn pagingDataFlow
 
-        val result =
-            searchRepositoryImplKt.searchTrackedEntities(searchParametersModel, isOnline = true)
+        val result = searchRepositoryImplKt.searchTrackedEntities(
+            searchParametersModel,
+            isOnline = true,
+        ) { emptyList() }
 
-        result.collect { pagingData ->
-            assertTrue(pagingData is PagingData<TrackedEntitySearchItem>)
-        }
+        assertTrue(result.first() is PagingData<SearchTeiModel>)
 
         verify(searchRepositoryJava).getFilteredRepository(searchParametersModel)
-//        verify(trackedEntitySearchCollectionRepository).getPagingData(10)
+    }
+
+    @Test
+    fun `Should transform each loaded page in a single call`() = runTest {
+        val items = List(3) { mock<TrackedEntitySearchItem>() }
+        val transformedPages = mutableListOf<List<TrackedEntitySearchItem>>()
+        val searchPagingSource = object : PagingSource<Int, TrackedEntitySearchItem>() {
+            override suspend fun load(
+                params: LoadParams<Int>,
+            ): LoadResult<Int, TrackedEntitySearchItem> =
+                LoadResult.Page(data = items, prevKey = null, nextKey = 1)
+
+            override fun getRefreshKey(state: PagingState<Int, TrackedEntitySearchItem>): Int? =
+                null
+        }
+        val pagingSource = SearchTeiPagingSource(searchPagingSource) { page ->
+            transformedPages.add(page)
+            page.map { SearchTeiModel() }
+        }
+
+        val result = pagingSource.load(PagingSource.LoadParams.Refresh(null, 10, false))
+
+        assertEquals(listOf(items), transformedPages)
+        assertEquals(3, (result as PagingSource.LoadResult.Page).data.size)
+        assertEquals(1, result.nextKey)
+
+        pagingSource.invalidate()
+        assertTrue(searchPagingSource.invalid)
     }
 }
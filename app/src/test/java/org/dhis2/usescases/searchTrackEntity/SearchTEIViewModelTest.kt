@@ -6,6 +6,7 @@ import com.mapbox.geojson.BoundingBox
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.flowOf
 import kotlinx.coroutines.test.StandardTestDispatcher
 import kotlinx.coroutines.test.resetMain
 import kotlinx.coroutines.test.runTest
@@ -30,7 +31,9 @@ import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
+import org.mockito.kotlin.any
 import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.times
 import org.mockito.kotlin.verify
@@ -203,11 +206,14 @@ class SearchTEIViewModelTest {
         viewModel.fetchListResults {}
         testingDispatcher.scheduler.advanceUntilIdle()
         verify(repositoryKt).searchTrackedEntities(
-            SearchParametersModel(
-                selectedProgram = testingProgram,
-                queryData = mutableMapOf(),
+            eq(
+                SearchParametersModel(
+                    selectedProgram = testingProgram,
+                    queryData = mutableMapOf(),
+                ),
             ),
-            false,
+            eq(false),
+            any(),
         )
     }
 
@@ -218,19 +224,25 @@ class SearchTEIViewModelTest {
         viewModel.fetchListResults {}
 
         verify(repositoryKt, times(0)).searchTrackedEntities(
-            SearchParametersModel(
-                selectedProgram = testingProgram,
-                queryData = mutableMapOf(),
+            eq(
+                SearchParametersModel(
+                    selectedProgram = testingProgram,
+                    queryData = mutableMapOf(),
+                ),
             ),
-            true,
+            eq(true),
+            any(),
         )
 
         verify(repositoryKt, times(0)).searchTrackedEntities(
-            SearchParametersModel(
-                selectedProgram = testingProgram,
-                queryData = mutableMapOf(),
+            eq(
+                SearchParametersModel(
+                    selectedProgram = testingProgram,
+                    queryData = mutableMapOf(),
+                ),
             ),
-            false,
+            eq(false),
+            any(),
         )
     }
 
@@ -249,18 +261,20 @@ class SearchTEIViewModelTest {
                 testingProgram(),
                 viewModel.queryData,
             ),
-        ) doReturn TrackerMapData(
-            mutableListOf(),
-            EventsByProgramStage("tag", mapOf()),
-            hashMapOf(),
-            BoundingBox.fromLngLats(
-                0.0,
-                0.0,
-                0.0,
-                0.0,
+        ) doReturn flowOf(
+            TrackerMapData(
+                mutableListOf(),
+                EventsByProgramStage("tag", mapOf()),
+                hashMapOf(),
+                BoundingBox.fromLngLats(
+                    0.0,
+                    0.0,
+                    0.0,
+                    0.0,
+                ),
+                mutableListOf(),
+                mutableMapOf(),
             ),
-            mutableListOf(),
-            mutableMapOf(),
         )
 
         viewModel.fetchMapResults()
@@ -303,18 +317,20 @@ class SearchTEIViewModelTest {
                 testingProgram(),
                 viewModel.queryData,
             ),
-        ) doReturn TrackerMapData(
-            mutableListOf(),
-            EventsByProgramStage("tag", mapOf()),
-            hashMapOf(),
-            BoundingBox.fromLngLats(
-                0.0,
-                0.0,
-                0.0,
-                0.0,
+        ) doReturn flowOf(
+            TrackerMapData(
+                mutableListOf(),
+                EventsByProgramStage("tag", mapOf()),
+                hashMapOf(),
+                BoundingBox.fromLngLats(
+                    0.0,
+                    0.0,
+                    0.0,
+                    0.0,
+                ),
+                mutableListOf(),
+                mutableMapOf(),
             ),
-            mutableListOf(),
-            mutableMapOf(),
         )
         setCurrentProgram(testingProgram())
         viewModel.setMapScreen()
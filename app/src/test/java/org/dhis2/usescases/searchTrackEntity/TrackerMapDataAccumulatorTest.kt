@@ -0,0 +1,82 @@
+package org.dhis2.usescases.searchTrackEntity
+
+import com.mapbox.geojson.BoundingBox
+import com.mapbox.geojson.Feature
+import com.mapbox.geojson.FeatureCollection
+import com.mapbox.geojson.Point
+import org.dhis2.maps.geometry.mapper.EventsByProgramStage
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class TrackerMapDataAccumulatorTest {
+
+    private val viewport = BoundingBox.fromLngLats(0.0, 0.0, 10.0, 10.0)
+
+    @Test
+    fun `Should merge features of every chunk`() {
+        val accumulator = TrackerMapDataAccumulator(viewport, 10)
+
+        accumulator.add(chunk(point(1.0, 1.0)), 1)
+        val partial = accumulator.add(chunk(point(5.0, 5.0)), 1)!!
+
+        assertEquals(2, partial.teiFeatures[TEI_SOURCE]?.features()?.size)
+        assertEquals(1.0, partial.teiBoundingBox.west(), 0.0)
+        assertEquals(5.0, partial.teiBoundingBox.east(), 0.0)
+        assertFalse(partial.loadComplete)
+        assertNull(partial.loadedArea)
+    }
+
+    @Test
+    fun `Should report loaded area only when the limit was not reached`() {
+        val accumulator = TrackerMapDataAccumulator(viewport, 2)
+        accumulator.add(chunk(point(1.0, 1.0)), 1)
+        val complete = accumulator.complete()
+
+        assertTrue(complete.loadComplete)
+        assertFalse(complete.fitBounds)
+        assertEquals(viewport, complete.loadedArea)
+
+        val truncatedAccumulator = TrackerMapDataAccumulator(null, 2)
+        truncatedAccumulator.add(chunk(point(1.0, 1.0)), 2)
+        val truncated = truncatedAccumulator.complete()
+
+        assertTrue(truncated.fitBounds)
+        assertNull(truncated.loadedArea)
+        assertTrue(truncated.truncated)
+        assertFalse(complete.truncated)
+    }
+
+    @Test
+    fun `Should only build partial results when the loaded chunks double`() {
+        val accumulator = TrackerMapDataAccumulator(viewport, 100)
+
+        val partials = (1..8).map { accumulator.add(chunk(point(1.0, 1.0)), 1) }
+
+        assertEquals(
+            listOf(1, 2, 4, 8),
+            partials.mapIndexedNotNull { index, partial -> partial?.let { index + 1 } },
+        )
+        assertEquals(8, partials.last()?.teiFeatures?.get(TEI_SOURCE)?.features()?.size)
+        assertEquals(8, accumulator.complete().teiFeatures[TEI_SOURCE]?.features()?.size)
+    }
+
+    private fun point(lng: Double, lat: Double) = Feature.fromGeometry(Point.fromLngLat(lng, lat))
+
+    private fun chunk(feature: Feature) = TrackerMapData(
+        teiModels = mutableListOf(),
+        eventFeatures = EventsByProgramStage("tag", mapOf()),
+        teiFeatures = hashMapOf(TEI_SOURCE to FeatureCollection.fromFeatures(listOf(feature))),
+        teiBoundingBox = (feature.geometry() as Point).let {
+            BoundingBox.fromLngLats(it.longitude(), it.latitude(), it.longitude(), it.latitude())
+        },
+        eventModels = mutableListOf(),
+        dataElementFeaturess = mutableMapOf(),
+    )
+
+    companion object {
+        const val TEI_SOURCE = "TEIS_SOURCE_ID"
+    }
+}
@@ -233,6 +233,12 @@ class SyncManagerPresenterTest {
         verify(settingsRepository, times(1)).saveLimitScope(LimitScope.GLOBAL)
     }
 
+    @Test
+    fun `Should save resumable download`() {
+        presenter.saveResumableDownload(true)
+        verify(settingsRepository, times(1)).saveResumableDownload(true)
+    }
+
     @Test
     fun `Should save event max count`() {
         presenter.saveEventMaxCount(200)
@@ -337,7 +343,7 @@ class SyncManagerPresenterTest {
     @Test
     fun `Should reset parameters to default`() {
         presenter.resetSyncParameters()
-        verify(preferencesProvider, times(4)).setValue(any(), any())
+        verify(preferencesProvider, times(5)).setValue(any(), any())
     }
 
     @Test
@@ -0,0 +1,109 @@
+package org.dhis2.usescases.teiDashboard.dashboardfragments.teidata
+
+import org.hisp.dhis.android.core.category.CategoryCombo
+import org.hisp.dhis.android.core.category.CategoryOptionCombo
+import org.hisp.dhis.android.core.common.ObjectWithUid
+import org.hisp.dhis.android.core.common.ValueType
+import org.hisp.dhis.android.core.dataelement.DataElement
+import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
+import org.hisp.dhis.android.core.program.ProgramStageDataElement
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+
+class TimelineDataIndexTest {
+
+    @Test
+    fun `Should resolve org unit and category option combo names`() {
+        val orgUnit: OrganisationUnit = mock {
+            on { uid() } doReturn "orgUnitUid"
+            on { displayName() } doReturn "Org unit"
+        }
+        val categoryOptionCombo: CategoryOptionCombo = mock {
+            on { uid() } doReturn "aocUid"
+            on { displayName() } doReturn "Option combo"
+            on { categoryCombo() } doReturn ObjectWithUid.create("catComboUid")
+        }
+        val categoryCombo: CategoryCombo = mock {
+            on { uid() } doReturn "catComboUid"
+            on { displayName() } doReturn "Category combo"
+        }
+
+        val index = TimelineDataIndex(
+            organisationUnits = listOf(orgUnit),
+            categoryOptionCombos = listOf(categoryOptionCombo),
+            categoryCombos = listOf(categoryCombo),
+            reportDataElements = emptyList(),
+            dataElements = emptyList(),
+            dataValues = emptyList(),
+        )
+
+        assertEquals("Org unit", index.orgUnitName("orgUnitUid"))
+        assertEquals("", index.orgUnitName("otherOrgUnit"))
+        assertEquals("Option combo", index.categoryOptionComboName("aocUid"))
+        assertEquals("Category combo", index.categoryCombo("aocUid")?.displayName())
+        assertNull(index.categoryCombo(null))
+    }
+
+    @Test
+    fun `Should return report values of every event of a long timeline`() {
+        val events = (0 until 150).map { "event$it" }
+        val index = TimelineDataIndex(
+            organisationUnits = emptyList(),
+            categoryOptionCombos = emptyList(),
+            categoryCombos = emptyList(),
+            reportDataElements = listOf(
+                stageDataElement("stage1", "de1"),
+                stageDataElement("stage1", "de2"),
+                stageDataElement("stage1", "image"),
+                stageDataElement("stage2", "de3"),
+            ),
+            dataElements = listOf(
+                dataElement("de1", ValueType.TEXT, "Form name"),
+                dataElement("de2", ValueType.NUMBER),
+                dataElement("de3", ValueType.TEXT),
+                dataElement("image", ValueType.IMAGE),
+            ),
+            dataValues = events.map { dataValue(it, "de1", "$it-value") },
+        )
+
+        events.forEach { eventUid ->
+            val reportValues = index.reportValues(eventUid, "stage1")
+            assertEquals(listOf("Form name", "de2-name"), reportValues.map { it.label })
+            assertEquals("$eventUid-value", reportValues[0].value?.value())
+            assertNull(reportValues[1].value)
+        }
+        assertEquals(listOf("de3-name"), index.reportValues("event0", "stage2").map { it.label })
+        assertTrue(index.reportValues("event0", "stage3").isEmpty())
+    }
+
+    private fun stageDataElement(
+        stageUid: String,
+        dataElementUid: String,
+    ): ProgramStageDataElement {
+        val dataElement: DataElement = mock { on { uid() } doReturn dataElementUid }
+        return mock {
+            on { programStage() } doReturn ObjectWithUid.create(stageUid)
+            on { dataElement() } doReturn dataElement
+        }
+    }
+
+    private fun dataElement(uid: String, valueType: ValueType, formName: String? = null) =
+        mock<DataElement> {
+            on { uid() } doReturn uid
+            on { valueType() } doReturn valueType
+            on { displayFormName() } doReturn formName
+            on { displayName() } doReturn "$uid-name"
+        }
+
+    private fun dataValue(event: String, dataElement: String, value: String) =
+        mock<TrackedEntityDataValue> {
+            on { event() } doReturn event
+            on { dataElement() } doReturn dataElement
+            on { value() } doReturn value
+        }
+}
@@ -0,0 +1,103 @@
+package org.dhis2.utils
+
+import org.dhis2.commons.date.DateFormats
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Test
+import java.text.ParsePosition
+import java.text.SimpleDateFormat
+import java.util.Calendar
+import java.util.Date
+import java.util.Locale
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class DateFormatsTest {
+
+    private val patterns = listOf(
+        "yyyy-MM-dd",
+        "yyyy-MM-dd HH:mm",
+        "yyyy-MM-dd'T'HH:mm",
+        "yyyy-MM-dd'T'HH:mm:ss",
+        "yyyy-MM-dd'T'HH:mm:ss.SSS",
+        "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'",
+        "dd/MM/yyyy",
+    )
+
+    @Test
+    fun `Should format like SimpleDateFormat`() {
+        val dates = sampleDates()
+        patterns.forEach { pattern ->
+            val expected = SimpleDateFormat(pattern, Locale.US)
+            dates.forEach { date ->
+                assertEquals(expected.format(date), DateFormats.get(pattern).format(date))
+            }
+        }
+    }
+
+    @Test
+    fun `Should parse like SimpleDateFormat`() {
+        val inputs = listOf(
+            "2024-02-29T23:59:59.999Z",
+            "2024-02-30T10:05:00.000Z",
+            "2024-1-5T1:2:3.4Z",
+            "2024-01-05T10:05:00.123",
+            "2024-01-05T10:05:00",
+            "2024-01-05T10:05",
+            "2024-01-05 10:05",
+            "2024-01-05",
+            "2024-01-050",
+            "0999-12-31",
+            "12345-01-01",
+            "2024/01/05",
+            "not a date",
+        )
+        patterns.forEach { pattern ->
+            val expected = SimpleDateFormat(pattern, Locale.US)
+            inputs.forEach { input ->
+                val expectedPosition = ParsePosition(0)
+                val position = ParsePosition(0)
+                assertEquals(
+                    "$pattern: $input",
+                    expected.parse(input, expectedPosition),
+                    DateFormats.get(pattern).parse(input, position),
+                )
+                assertEquals("$pattern: $input", expectedPosition.index, position.index)
+            }
+        }
+    }
+
+    @Test
+    fun `Should reuse formatters per thread`() {
+        val pattern = "yyyy-MM-dd"
+        val formatter = DateFormats.get(pattern)
+        assertSame(formatter, DateFormats.get(pattern))
+
+        val executor = Executors.newSingleThreadExecutor()
+        val otherThreadFormatter = executor.submit<SimpleDateFormat> {
+            DateFormats.get(pattern)
+        }.get(1, TimeUnit.SECONDS)
+        executor.shutdown()
+
+        assertNotSame(formatter, otherThreadFormatter)
+    }
+
+    private fun sampleDates(): List<Date> {
+        val calendar = Calendar.getInstance()
+        val dates = mutableListOf<Date>()
+        calendar.set(1, Calendar.JANUARY, 1, 0, 0, 0)
+        dates.add(calendar.time)
+        calendar.set(999, Calendar.DECEMBER, 31, 23, 59, 59)
+        dates.add(calendar.time)
+        calendar.set(12000, Calendar.JUNE, 15, 12, 30, 0)
+        dates.add(calendar.time)
+        calendar.set(2024, Calendar.JANUARY, 1, 0, 0, 0)
+        repeat(500) { day ->
+            calendar.add(Calendar.HOUR_OF_DAY, 17)
+            calendar.set(Calendar.MILLISECOND, day % 1000)
+            dates.add(calendar.time)
+        }
+        return dates
+    }
+}
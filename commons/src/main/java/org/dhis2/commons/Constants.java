@@ -18,6 +18,7 @@ public class Constants {
     public static final String TEI_MAX = "TEI_MAX";
     public static final String LIMIT_BY_ORG_UNIT = "LIMIT_BY_ORG_UNIT";
     public static final String LIMIT_BY_PROGRAM = "LIMIT_BY_PROGRAM";
+    public static final String RESUMABLE_DATA_DOWNLOAD = "RESUMABLE_DATA_DOWNLOAD";
     public static final int EVENT_MAX_DEFAULT = 1000;
     public static final int TEI_MAX_DEFAULT = 500;
 
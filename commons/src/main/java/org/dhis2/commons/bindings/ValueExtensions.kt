@@ -17,21 +17,10 @@ fun TrackedEntityAttributeValue.userFriendlyValue(
         return value()
     }
 
-    val attribute = d2.trackedEntityModule().trackedEntityAttributes()
-        .uid(trackedEntityAttribute())
-        .blockingGet()
+    val attribute = ValueMetadataCache.attribute(d2, trackedEntityAttribute())
+        ?: return value()
 
-    if (attribute == null) {
-        return value()
-    }
-
-    if (check(d2, attribute.valueType(), attribute.optionSet()?.uid(), value()!!)) {
-        attribute.optionSet()?.takeIf { attribute.valueType() != ValueType.MULTI_TEXT }?.let {
-            return checkOptionSetValue(d2, it.uid(), value()!!)
-        } ?: return checkValueTypeValue(d2, attribute.valueType(), value()!!, addPercentageSymbol)
-    } else {
-        return null
-    }
+    return attribute.userFriendlyValue(d2, value()!!, addPercentageSymbol)
 }
 
 fun TrackedEntityDataValue?.userFriendlyValue(
@@ -44,22 +33,30 @@ fun TrackedEntityDataValue?.userFriendlyValue(
         return value()
     }
 
-    val dataElement = d2.dataElementModule().dataElements()
-        .uid(dataElement())
-        .blockingGet()
+    val dataElement = ValueMetadataCache.dataElement(d2, dataElement())
+        ?: return null
+
+    return dataElement.userFriendlyValue(d2, value()!!, addPercentageSymbol)
+}
 
-    if (dataElement == null) {
-        return null
-    } else if (check(d2, dataElement.valueType(), dataElement.optionSet()?.uid(), value()!!)) {
-        dataElement.optionSet()?.takeIf { dataElement.valueType() != ValueType.MULTI_TEXT }?.let {
-            return checkOptionSetValue(d2, it.uid(), value()!!)
-        } ?: return checkValueTypeValue(d2, dataElement.valueType(), value()!!, addPercentageSymbol)
+private fun ValueMetadataCache.ValueMetadata.userFriendlyValue(
+    d2: D2,
+    value: String,
+    addPercentageSymbol: Boolean,
+): String? {
+    return if (check(d2, valueType, optionSetUid, value)) {
+        optionSetUid?.takeIf { valueType != ValueType.MULTI_TEXT }?.let {
+            checkOptionSetValue(d2, it, value)
+        } ?: checkValueTypeValue(d2, valueType, value, addPercentageSymbol)
     } else {
-        return null
+        null
     }
 }
 
 fun checkOptionSetValue(d2: D2, optionSetUid: String, code: String): String? {
+    ValueMetadataCache.optionSet(d2, optionSetUid)?.let { optionSet ->
+        return optionSet.displayName(code)
+    }
     return d2.optionModule().options()
         .byOptionSetUid().eq(optionSetUid)
         .byCode().eq(code).one().blockingGet()?.displayName()
@@ -73,10 +70,7 @@ fun checkValueTypeValue(
 ): String {
     return when (valueType) {
         ValueType.ORGANISATION_UNIT ->
-            d2.organisationUnitModule().organisationUnits()
-                .uid(value)
-                .blockingGet()
-                ?.displayName() ?: value
+            ValueMetadataCache.orgUnitName(d2, value) ?: value
 
         ValueType.IMAGE, ValueType.FILE_RESOURCE ->
             d2.fileResourceModule().fileResources().uid(value).blockingGet()?.path() ?: ""
@@ -114,9 +108,9 @@ fun TrackedEntityAttributeValueObjectRepository.blockingSetCheck(
     value: String,
     onCrash: (attrUid: String, value: String) -> Unit = { _, _ -> },
 ): Boolean {
-    return d2.trackedEntityModule().trackedEntityAttributes().uid(attrUid).blockingGet()?.let {
-        if (check(d2, it.valueType(), it.optionSet()?.uid(), value)) {
-            val finalValue = assureCodeForOptionSet(d2, it.optionSet()?.uid(), value)
+    return ValueMetadataCache.attribute(d2, attrUid)?.let {
+        if (check(d2, it.valueType, it.optionSetUid, value)) {
+            val finalValue = assureCodeForOptionSet(d2, it.optionSetUid, value)
             try {
                 blockingSet(finalValue)
             } catch (e: Exception) {
@@ -135,11 +129,11 @@ fun TrackedEntityAttributeValueObjectRepository.blockingGetCheck(
     d2: D2,
     attrUid: String,
 ): TrackedEntityAttributeValue? {
-    return d2.trackedEntityModule().trackedEntityAttributes().uid(attrUid).blockingGet()?.let {
+    return ValueMetadataCache.attribute(d2, attrUid)?.let {
         if (blockingExists() && check(
                 d2,
-                it.valueType(),
-                it.optionSet()?.uid(),
+                it.valueType,
+                it.optionSetUid,
                 blockingGet()?.value()!!,
             )
         ) {
@@ -156,9 +150,9 @@ fun TrackedEntityDataValueObjectRepository.blockingSetCheck(
     deUid: String,
     value: String,
 ): Boolean {
-    return d2.dataElementModule().dataElements().uid(deUid).blockingGet()?.let {
-        if (check(d2, it.valueType(), it.optionSet()?.uid(), value)) {
-            val finalValue = assureCodeForOptionSet(d2, it.optionSet()?.uid(), value)
+    return ValueMetadataCache.dataElement(d2, deUid)?.let {
+        if (check(d2, it.valueType, it.optionSetUid, value)) {
+            val finalValue = assureCodeForOptionSet(d2, it.optionSetUid, value)
             blockingSet(finalValue)
             true
         } else {
@@ -191,11 +185,11 @@ fun TrackedEntityDataValueObjectRepository.blockingGetValueCheck(
     d2: D2,
     deUid: String,
 ): TrackedEntityDataValue? {
-    return d2.dataElementModule().dataElements().uid(deUid).blockingGet()?.let {
+    return ValueMetadataCache.dataElement(d2, deUid)?.let {
         if (blockingExists() && check(
                 d2,
-                it.valueType(),
-                it.optionSet()?.uid(),
+                it.valueType,
+                it.optionSetUid,
                 blockingGet()?.value()!!,
             )
         ) {
@@ -210,6 +204,9 @@ fun TrackedEntityDataValueObjectRepository.blockingGetValueCheck(
 private fun check(d2: D2, valueType: ValueType?, optionSetUid: String?, value: String): Boolean {
     return when {
         valueType != ValueType.MULTI_TEXT && optionSetUid != null -> {
+            ValueMetadataCache.optionSet(d2, optionSetUid)?.let { optionSet ->
+                return optionSet.hasCodeOrDisplayName(value)
+            }
             val optionByCodeExist = d2.optionModule().options().byOptionSetUid().eq(optionSetUid)
                 .byCode().eq(value).one().blockingExists()
             val optionByNameExist = d2.optionModule().options().byOptionSetUid().eq(optionSetUid)
@@ -231,7 +228,7 @@ private fun check(d2: D2, valueType: ValueType?, optionSetUid: String?, value: S
                             .byUid().eq(value).one().blockingExists()
 
                     ValueType.ORGANISATION_UNIT ->
-                        d2.organisationUnitModule().organisationUnits().uid(value).blockingExists()
+                        ValueMetadataCache.orgUnitName(d2, value) != null
 
                     else -> true
                 }
@@ -244,6 +241,9 @@ private fun check(d2: D2, valueType: ValueType?, optionSetUid: String?, value: S
 
 private fun assureCodeForOptionSet(d2: D2, optionSetUid: String?, value: String): String {
     return optionSetUid?.let {
+        ValueMetadataCache.optionSet(d2, it)?.let { optionSet ->
+            return if (optionSet.hasName(value)) optionSet.codeForName(value) ?: value else value
+        }
         if (d2.optionModule().options()
                 .byOptionSetUid().eq(it)
                 .byName().eq(value)
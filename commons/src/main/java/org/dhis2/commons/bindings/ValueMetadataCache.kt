@@ -0,0 +1,138 @@
+package org.dhis2.bindings
+
+import org.hisp.dhis.android.core.D2
+import org.hisp.dhis.android.core.common.ValueType
+
+/**
+ * Process-wide, size-bounded cache of the metadata the value extensions need to check and
+ * display values: value type and option set of data elements and attributes, option
+ * code/name lookups per option set and org unit names. Values themselves are never cached.
+ *
+ * The same [D2] instance is reused across sessions, so everything is dropped with [invalidate]
+ * on logout, login and user data deletion, and when a metadata sync completes.
+ */
+object ValueMetadataCache {
+
+    private const val MAX_DATA_ELEMENTS = 2000
+    private const val MAX_ATTRIBUTES = 1000
+    private const val MAX_OPTION_SETS = 100
+    private const val MAX_ORG_UNITS = 2000
+
+    /**
+     * Option sets larger than this are not held in memory and are queried per value.
+     */
+    private const val MAX_CACHED_OPTIONS = 5000
+
+    data class ValueMetadata(
+        val valueType: ValueType?,
+        val optionSetUid: String?,
+    )
+
+    class OptionSetLookup internal constructor(
+        private val displayNameByCode: Map<String, String?>,
+        private val codeByName: Map<String, String?>,
+        private val displayNames: Set<String>,
+    ) {
+        fun hasCode(code: String) = displayNameByCode.containsKey(code)
+
+        fun hasCodeOrDisplayName(value: String) = hasCode(value) || displayNames.contains(value)
+
+        fun displayName(code: String) = displayNameByCode[code]
+
+        fun hasName(name: String) = codeByName.containsKey(name)
+
+        fun codeForName(name: String) = codeByName[name]
+    }
+
+    private val dataElements = BoundedCache<String, ValueMetadata>(MAX_DATA_ELEMENTS)
+    private val attributes = BoundedCache<String, ValueMetadata>(MAX_ATTRIBUTES)
+    private val optionSets = BoundedCache<String, OptionSetLookup>(MAX_OPTION_SETS)
+    private val largeOptionSets = BoundedCache<String, Boolean>(MAX_OPTION_SETS)
+    private val orgUnitNames = BoundedCache<String, String>(MAX_ORG_UNITS)
+
+    fun dataElement(d2: D2, uid: String?): ValueMetadata? {
+        if (uid == null) return null
+        return dataElements.getOrLoad(uid) {
+            d2.dataElementModule().dataElements().uid(uid).blockingGet()?.let {
+                ValueMetadata(it.valueType(), it.optionSet()?.uid())
+            }
+        }
+    }
+
+    fun attribute(d2: D2, uid: String?): ValueMetadata? {
+        if (uid == null) return null
+        return attributes.getOrLoad(uid) {
+            d2.trackedEntityModule().trackedEntityAttributes().uid(uid).blockingGet()?.let {
+                ValueMetadata(it.valueType(), it.optionSet()?.uid())
+            }
+        }
+    }
+
+    /**
+     * Returns null for option sets too large to keep in memory.
+     */
+    fun optionSet(d2: D2, optionSetUid: String): OptionSetLookup? {
+        if (largeOptionSets[optionSetUid] == true) return null
+        return optionSets.getOrLoad(optionSetUid) {
+            val repository = d2.optionModule().options().byOptionSetUid().eq(optionSetUid)
+            if (repository.blockingCount() > MAX_CACHED_OPTIONS) {
+                largeOptionSets.put(optionSetUid, true)
+                null
+            } else {
+                val displayNameByCode = HashMap<String, String?>()
+                val codeByName = HashMap<String, String?>()
+                val displayNames = HashSet<String>()
+                repository.blockingGet().forEach { option ->
+                    option.code()?.let { displayNameByCode.putIfAbsent(it, option.displayName()) }
+                    option.name()?.let { codeByName.putIfAbsent(it, option.code()) }
+                    option.displayName()?.let { displayNames.add(it) }
+                }
+                OptionSetLookup(displayNameByCode, codeByName, displayNames)
+            }
+        }
+    }
+
+    /**
+     * Returns null when the org unit is not stored.
+     */
+    fun orgUnitName(d2: D2, orgUnitUid: String): String? {
+        return orgUnitNames.getOrLoad(orgUnitUid) {
+            d2.organisationUnitModule().organisationUnits().uid(orgUnitUid).blockingGet()
+                ?.let { it.displayName() ?: orgUnitUid }
+        }
+    }
+
+    fun invalidate() {
+        dataElements.clear()
+        attributes.clear()
+        optionSets.clear()
+        largeOptionSets.clear()
+        orgUnitNames.clear()
+    }
+
+    private class BoundedCache<K, V : Any>(private val maxSize: Int) {
+
+        private val entries = object : LinkedHashMap<K, V>(16, 0.75f, true) {
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<K, V>?): Boolean {
+                return size > maxSize
+            }
+        }
+
+        operator fun get(key: K): V? = synchronized(entries) { entries[key] }
+
+        fun put(key: K, value: V) {
+            synchronized(entries) { entries[key] = value }
+        }
+
+        /**
+         * Missing entries are not cached, so records stored later are still found.
+         */
+        fun getOrLoad(key: K, loader: () -> V?): V? {
+            return get(key) ?: loader()?.also { put(key, it) }
+        }
+
+        fun clear() {
+            synchronized(entries) { entries.clear() }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.dhis2.commons.date;
+
+import androidx.annotation.NonNull;
+
+import java.text.SimpleDateFormat;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Per-thread cache of the {@link SimpleDateFormat}s returned by the date utilities, so rendering
+ * a list or a form does not build a new formatter for every value.
+ * <p>
+ * A returned formatter belongs to the calling thread: it can be kept for the duration of a call
+ * but must not be handed to another thread or reconfigured. The fixed DHIS2 database and date
+ * patterns are formatted and parsed without going through the generic pattern engine.
+ */
+public final class DateFormats {
+
+    private static final ThreadLocal<Map<String, SimpleDateFormat>> FORMATS =
+            new ThreadLocal<Map<String, SimpleDateFormat>>() {
+                @Override
+                protected Map<String, SimpleDateFormat> initialValue() {
+                    return new HashMap<>();
+                }
+            };
+
+    private DateFormats() {
+    }
+
+    /**
+     * @return the calling thread's US locale formatter for the pattern, in the current default
+     * time zone
+     */
+    @NonNull
+    public static SimpleDateFormat get(@NonNull String pattern) {
+        Map<String, SimpleDateFormat> formats = FORMATS.get();
+        SimpleDateFormat format = formats.get(pattern);
+        TimeZone timeZone = TimeZone.getDefault();
+        if (format == null) {
+            format = FixedPatternDateFormat.create(pattern);
+            formats.put(pattern, format);
+        } else if (!timeZone.getID().equals(format.getTimeZone().getID())) {
+            format.setTimeZone(timeZone);
+        }
+        return format;
+    }
+}
@@ -21,7 +21,6 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
 public class DateUtils {
@@ -181,47 +180,47 @@ public class DateUtils {
 
     @NonNull
     public static SimpleDateFormat uiDateFormat() {
-        return new SimpleDateFormat(SIMPLE_DATE_FORMAT, Locale.US);
+        return DateFormats.get(SIMPLE_DATE_FORMAT);
     }
 
     @NonNull
     public static SimpleDateFormat oldUiDateFormat() {
-        return new SimpleDateFormat(DATE_FORMAT_EXPRESSION, Locale.US);
+        return DateFormats.get(DATE_FORMAT_EXPRESSION);
     }
 
     @NonNull
     public static SimpleDateFormat uiLibraryFormat() {
-        return new SimpleDateFormat(UI_LIBRARY_FORMAT, Locale.US);
+        return DateFormats.get(UI_LIBRARY_FORMAT);
     }
 
     @NonNull
     public static SimpleDateFormat timeFormat() {
-        return new SimpleDateFormat("HH:mm", Locale.US);
+        return DateFormats.get("HH:mm");
     }
 
     @NonNull
     public static SimpleDateFormat dateTimeFormat() {
-        return new SimpleDateFormat(DATE_TIME_FORMAT_EXPRESSION, Locale.US);
+        return DateFormats.get(DATE_TIME_FORMAT_EXPRESSION);
     }
 
     @NonNull
     public static SimpleDateFormat databaseDateFormat() {
-        return new SimpleDateFormat(DATABASE_FORMAT_EXPRESSION, Locale.US);
+        return DateFormats.get(DATABASE_FORMAT_EXPRESSION);
     }
 
     @NonNull
     public static SimpleDateFormat databaseDateFormatNoZulu() {
-        return new SimpleDateFormat(DATABASE_FORMAT_EXPRESSION_NO_ZULU, Locale.US);
+        return DateFormats.get(DATABASE_FORMAT_EXPRESSION_NO_ZULU);
     }
 
     @NonNull
     public static SimpleDateFormat databaseDateFormatNoMillis() {
-        return new SimpleDateFormat(DATABASE_FORMAT_EXPRESSION_NO_MILLIS, Locale.US);
+        return DateFormats.get(DATABASE_FORMAT_EXPRESSION_NO_MILLIS);
     }
 
     @NonNull
     public static SimpleDateFormat databaseDateFormatNoSeconds() {
-        return new SimpleDateFormat(DATABASE_FORMAT_EXPRESSION_NO_SECONDS, Locale.US);
+        return DateFormats.get(DATABASE_FORMAT_EXPRESSION_NO_SECONDS);
     }
 
     @NonNull
@@ -236,12 +235,12 @@ public class DateUtils {
 
     @NonNull
     public static SimpleDateFormat twelveHourTimeFormat() {
-        return new SimpleDateFormat(TIME_12H_EXPRESSION, Locale.US);
+        return DateFormats.get(TIME_12H_EXPRESSION);
     }
 
     @NonNull
     public static SimpleDateFormat uiDateTimeFormat() {
-        return new SimpleDateFormat(SIMPLE_DATE_TIME_FORMAT, Locale.US);
+        return DateFormats.get(SIMPLE_DATE_TIME_FORMAT);
     }
 
 
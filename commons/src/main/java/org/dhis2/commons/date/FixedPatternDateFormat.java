@@ -0,0 +1,204 @@
+package org.dhis2.commons.date;
+
+import androidx.annotation.NonNull;
+
+import java.text.FieldPosition;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * {@link SimpleDateFormat} that formats and parses the fixed numeric DHIS2 patterns
+ * (yyyy-MM-dd with optional time, seconds, millis and literal 'Z') directly from the calendar
+ * fields. Anything the fast path does not cover, like years beyond four digits, non-canonical
+ * input or a non lenient parse, goes through {@link SimpleDateFormat} so results are the same.
+ */
+class FixedPatternDateFormat extends SimpleDateFormat {
+
+    private static final int DATE_LENGTH = 10;
+
+    private static final Map<String, Layout> LAYOUTS = new HashMap<>();
+
+    static {
+        LAYOUTS.put("yyyy-MM-dd", new Layout('\0', 0, false));
+        LAYOUTS.put("yyyy-MM-dd HH:mm", new Layout(' ', 2, false));
+        LAYOUTS.put("yyyy-MM-dd'T'HH:mm", new Layout('T', 2, false));
+        LAYOUTS.put("yyyy-MM-dd'T'HH:mm:ss", new Layout('T', 3, false));
+        LAYOUTS.put("yyyy-MM-dd'T'HH:mm:ss.SSS", new Layout('T', 4, false));
+        LAYOUTS.put("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", new Layout('T', 4, true));
+    }
+
+    private Layout layout;
+
+    private FixedPatternDateFormat(String pattern, Layout layout) {
+        super(pattern, Locale.US);
+        this.layout = layout;
+    }
+
+    static SimpleDateFormat create(String pattern) {
+        Layout layout = LAYOUTS.get(pattern);
+        return layout != null
+                ? new FixedPatternDateFormat(pattern, layout)
+                : new SimpleDateFormat(pattern, Locale.US);
+    }
+
+    @Override
+    public void applyPattern(String pattern) {
+        layout = null;
+        super.applyPattern(pattern);
+    }
+
+    @Override
+    public void applyLocalizedPattern(String pattern) {
+        layout = null;
+        super.applyLocalizedPattern(pattern);
+    }
+
+    @NonNull
+    @Override
+    public StringBuffer format(@NonNull Date date, @NonNull StringBuffer toAppendTo,
+                               @NonNull FieldPosition pos) {
+        if (layout == null) {
+            return super.format(date, toAppendTo, pos);
+        }
+        calendar.setTime(date);
+        int year = calendar.get(Calendar.YEAR);
+        if (calendar.get(Calendar.ERA) != GregorianCalendar.AD || year > 9999) {
+            return super.format(date, toAppendTo, pos);
+        }
+        appendDigits(toAppendTo, year, 4);
+        toAppendTo.append('-');
+        appendDigits(toAppendTo, calendar.get(Calendar.MONTH) + 1, 2);
+        toAppendTo.append('-');
+        appendDigits(toAppendTo, calendar.get(Calendar.DAY_OF_MONTH), 2);
+        if (layout.timeFields > 0) {
+            toAppendTo.append(layout.timeSeparator);
+            appendDigits(toAppendTo, calendar.get(Calendar.HOUR_OF_DAY), 2);
+            toAppendTo.append(':');
+            appendDigits(toAppendTo, calendar.get(Calendar.MINUTE), 2);
+        }
+        if (layout.timeFields > 2) {
+            toAppendTo.append(':');
+            appendDigits(toAppendTo, calendar.get(Calendar.SECOND), 2);
+        }
+        if (layout.timeFields > 3) {
+            toAppendTo.append('.');
+            appendDigits(toAppendTo, calendar.get(Calendar.MILLISECOND), 3);
+        }
+        if (layout.zulu) {
+            toAppendTo.append('Z');
+        }
+        return toAppendTo;
+    }
+
+    @Override
+    public Date parse(@NonNull String text, @NonNull ParsePosition pos) {
+        Date date = layout != null && isLenient() ? parseCanonical(text, pos) : null;
+        return date != null ? date : super.parse(text, pos);
+    }
+
+    /**
+     * Parses text written exactly in the pattern layout, or returns null to let
+     * {@link SimpleDateFormat} handle it.
+     */
+    private Date parseCanonical(String text, ParsePosition pos) {
+        int start = pos.getIndex();
+        int end = start + layout.length;
+        if (start < 0 || end > text.length()) {
+            return null;
+        }
+        if (!layout.zulu && end < text.length() && isDigit(text.charAt(end))) {
+            return null;
+        }
+
+        int year = readDigits(text, start, 4);
+        int month = readSeparatedDigits(text, start + 4, '-', 2);
+        int day = readSeparatedDigits(text, start + 7, '-', 2);
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int millis = 0;
+        int offset = start + DATE_LENGTH;
+        if (layout.timeFields > 0) {
+            hour = readSeparatedDigits(text, offset, layout.timeSeparator, 2);
+            minute = readSeparatedDigits(text, offset + 3, ':', 2);
+            offset += 6;
+        }
+        if (layout.timeFields > 2) {
+            second = readSeparatedDigits(text, offset, ':', 2);
+            offset += 3;
+        }
+        if (layout.timeFields > 3) {
+            millis = readSeparatedDigits(text, offset, '.', 3);
+            offset += 4;
+        }
+        if (layout.zulu && text.charAt(offset) != 'Z') {
+            return null;
+        }
+        if (year < 1 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0
+                || millis < 0) {
+            return null;
+        }
+
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, minute, second);
+        calendar.set(Calendar.MILLISECOND, millis);
+        Date date = calendar.getTime();
+        pos.setIndex(end);
+        return date;
+    }
+
+    private static int readSeparatedDigits(String text, int offset, char separator, int count) {
+        return text.charAt(offset) == separator ? readDigits(text, offset + 1, count) : -1;
+    }
+
+    private static int readDigits(String text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char digit = text.charAt(i);
+            if (!isDigit(digit)) {
+                return -1;
+            }
+            value = value * 10 + (digit - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+
+    private static void appendDigits(StringBuffer buffer, int value, int count) {
+        if (count > 3) {
+            buffer.append((char) ('0' + value / 1000 % 10));
+        }
+        if (count > 2) {
+            buffer.append((char) ('0' + value / 100 % 10));
+        }
+        buffer.append((char) ('0' + value / 10 % 10));
+        buffer.append((char) ('0' + value % 10));
+    }
+
+    private static final class Layout {
+        final char timeSeparator;
+        final int timeFields;
+        final boolean zulu;
+        final int length;
+
+        Layout(char timeSeparator, int timeFields, boolean zulu) {
+            this.timeSeparator = timeSeparator;
+            this.timeFields = timeFields;
+            this.zulu = zulu;
+            this.length = DATE_LENGTH
+                    + (timeFields > 0 ? 6 : 0)
+                    + (timeFields > 2 ? 3 : 0)
+                    + (timeFields > 3 ? 4 : 0)
+                    + (zulu ? 1 : 0);
+        }
+    }
+}
@@ -48,20 +48,25 @@ class OURepositoryConfiguration(
         return orgUnitRepository.blockingGet()
     }
 
-    fun countChildren(parentOrgUnitUid: String, selectedOrgUnits: List<String>): Int {
-        return d2.organisationUnitModule().organisationUnits()
-            .byPath().like("%$parentOrgUnitUid%")
-            .byUid().`in`(selectedOrgUnits)
-            .blockingCount()
-    }
-
     fun orgUnit(uid: String): OrganisationUnit? {
         return d2.organisationUnitModule().organisationUnits().uid(uid).blockingGet()
     }
 
+    fun orgUnits(uids: List<String>): List<OrganisationUnit> {
+        return uids.chunked(UID_QUERY_BATCH_SIZE).flatMap { uidBatch ->
+            d2.organisationUnitModule().organisationUnits()
+                .byUid().`in`(uidBatch)
+                .blockingGet()
+        }
+    }
+
     private fun applyCaptureFilter(orgUnitRepository: OrganisationUnitCollectionRepository) =
         orgUnitRepository.byOrganisationUnitScope(OrganisationUnit.Scope.SCOPE_DATA_CAPTURE)
 
     private fun applySearchFilter(orgUnitRepository: OrganisationUnitCollectionRepository) =
         orgUnitRepository
+
+    companion object {
+        private const val UID_QUERY_BATCH_SIZE = 500
+    }
 }
@@ -5,40 +5,60 @@ import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
 class OUTreeRepository(
     private val orgUnitRepositoryConfiguration: OURepositoryConfiguration,
 ) {
-    private var availableOrgUnits: List<OrganisationUnit> = emptyList()
+    private var hierarchy = OrgUnitHierarchy(emptyList())
+    private val ancestorsByUid = HashMap<String, List<String>>()
+    private val selection = OrgUnitSelectionCounter()
 
     fun orgUnits(name: String? = null): List<OrganisationUnit> {
-        availableOrgUnits = orgUnitRepositoryConfiguration.orgUnitRepository(name)
-        return availableOrgUnits.withParents().sortedBy { it.displayNamePath()?.joinToString(" ") }
+        val availableOrgUnits = orgUnitRepositoryConfiguration.orgUnitRepository(name)
+        hierarchy = OrgUnitHierarchy(availableOrgUnits)
+        return availableOrgUnits.withParents()
+            .onEach { ancestorsByUid[it.uid()] = OrgUnitHierarchy.ancestors(it) }
+            .sortedBy { it.displayNamePath()?.joinToString(" ") }
     }
 
-    fun childrenOrgUnits(parentUid: String): List<OrganisationUnit> = availableOrgUnits
-        .filter { it.uid() != parentUid && it.path()?.contains(parentUid) == true }
-        .sortedBy { it.displayNamePath()?.joinToString(" ") }
-    fun orgUnit(uid: String): OrganisationUnit? = availableOrgUnits.firstOrNull { it.uid() == uid }
+    fun childrenOrgUnits(parentUid: String): List<OrganisationUnit> =
+        hierarchy.descendants(parentUid)
 
-    fun canBeSelected(orgUnitUid: String): Boolean =
-        availableOrgUnits.any { it.uid() == orgUnitUid }
+    fun orgUnit(uid: String): OrganisationUnit? = hierarchy.orgUnit(uid)
 
-    fun orgUnitHasChildren(uid: String): Boolean =
-        availableOrgUnits.filter { it.uid() != uid }.any { it.path()?.contains(uid) == true }
+    fun canBeSelected(orgUnitUid: String): Boolean = hierarchy.contains(orgUnitUid)
 
-    fun countSelectedChildren(parentOrgUnitUid: String, selectedOrgUnits: List<String>): Int {
-        return orgUnitRepositoryConfiguration.countChildren(
-            parentOrgUnitUid,
-            selectedOrgUnits,
-        )
+    fun orgUnitHasChildren(uid: String): Boolean = hierarchy.hasDescendants(uid)
+
+    fun setSelectedOrgUnits(selectedOrgUnits: List<String>) {
+        val unknownOrgUnits = selectedOrgUnits.filterNot { ancestorsByUid.containsKey(it) }
+        orgUnitRepositoryConfiguration.orgUnits(unknownOrgUnits).forEach {
+            ancestorsByUid[it.uid()] = OrgUnitHierarchy.ancestors(it)
+        }
+        selection.clear()
+        selectedOrgUnits.forEach { selectOrgUnit(it) }
     }
-    private fun List<OrganisationUnit>.withParents(): List<OrganisationUnit> {
-        val listWithParents = this.toMutableList()
-        this.forEach { organisationUnit ->
-            organisationUnit.path()?.split("/")?.filter { it.isNotEmpty() }?.forEach { parentUid ->
-                if (!listWithParents.any { it.uid() == parentUid }) {
-                    orgUnitRepositoryConfiguration.orgUnit(parentUid)
-                        ?.let { listWithParents.add(it) }
-                }
-            }
+
+    fun selectOrgUnit(orgUnitUid: String) {
+        val ancestors = ancestorsByUid.getOrPut(orgUnitUid) {
+            orgUnitRepositoryConfiguration.orgUnit(orgUnitUid)
+                ?.let { OrgUnitHierarchy.ancestors(it) }
+                .orEmpty()
         }
-        return listWithParents
+        selection.select(orgUnitUid, ancestors)
+    }
+
+    fun unselectOrgUnit(orgUnitUid: String) {
+        selection.unselect(orgUnitUid)
+    }
+
+    fun clearSelection() {
+        selection.clear()
+    }
+
+    /**
+     * @return number of selected org units in the subtree of [parentOrgUnitUid], itself included
+     */
+    fun countSelectedChildren(parentOrgUnitUid: String): Int = selection.count(parentOrgUnitUid)
+
+    private fun List<OrganisationUnit>.withParents(): List<OrganisationUnit> {
+        val missingParents = hierarchy.missingAncestors()
+        return this + orgUnitRepositoryConfiguration.orgUnits(missingParents.toList())
     }
 }
@@ -33,6 +33,7 @@ class OUTreeViewModel(
     private fun fetchInitialOrgUnits(name: String? = null) {
         viewModelScope.launch(dispatchers.io()) {
             val orgUnits = repository.orgUnits(name)
+            repository.setSelectedOrgUnits(selectedOrgUnits)
             val treeNodes = ArrayList<OrgUnitTreeItem>()
 
             orgUnits.forEach { org ->
@@ -45,10 +46,7 @@ class OUTreeViewModel(
                         hasChildren = repository.orgUnitHasChildren(org.uid()),
                         selected = selectedOrgUnits.contains(org.uid()),
                         level = org.level()!!,
-                        selectedChildrenCount = repository.countSelectedChildren(
-                            org.uid(),
-                            selectedOrgUnits,
-                        ),
+                        selectedChildrenCount = repository.countSelectedChildren(org.uid()),
                         canBeSelected = canBeSelected,
                     ),
                 )
@@ -86,10 +84,7 @@ class OUTreeViewModel(
                 hasChildren = hasChildren,
                 selected = selectedOrgUnits.contains(org.uid()),
                 level = org.level()!!,
-                selectedChildrenCount = repository.countSelectedChildren(
-                    org.uid(),
-                    selectedOrgUnits,
-                ),
+                selectedChildrenCount = repository.countSelectedChildren(org.uid()),
                 canBeSelected = repository.canBeSelected(org.uid()),
             )
         }
@@ -104,19 +99,19 @@ class OUTreeViewModel(
         viewModelScope.launch(dispatchers.io()) {
             if (singleSelection) {
                 selectedOrgUnits.clear()
+                repository.clearSelection()
             }
             if (isChecked && !selectedOrgUnits.contains(orgUnitUid)) {
                 selectedOrgUnits.add(orgUnitUid)
+                repository.selectOrgUnit(orgUnitUid)
             } else if (!isChecked && selectedOrgUnits.contains(orgUnitUid)) {
                 selectedOrgUnits.remove(orgUnitUid)
+                repository.unselectOrgUnit(orgUnitUid)
             }
             val treeNodeList = treeNodes.value.map { currentTreeNode ->
                 currentTreeNode.copy(
                     selected = selectedOrgUnits.contains(currentTreeNode.uid),
-                    selectedChildrenCount = repository.countSelectedChildren(
-                        currentTreeNode.uid,
-                        selectedOrgUnits,
-                    ),
+                    selectedChildrenCount = repository.countSelectedChildren(currentTreeNode.uid),
                 )
             }
             _treeNodes.update { treeNodeList }
@@ -126,6 +121,7 @@ class OUTreeViewModel(
     fun clearAll() {
         viewModelScope.launch(dispatchers.io()) {
             selectedOrgUnits.clear()
+            repository.clearSelection()
             val treeNodeList = treeNodes.value.map { currentTreeNode ->
                 currentTreeNode.copy(
                     selected = false,
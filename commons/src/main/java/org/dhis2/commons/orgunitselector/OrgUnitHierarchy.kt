@@ -0,0 +1,86 @@
+package org.dhis2.commons.orgunitselector
+
+import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
+
+/**
+ * Org unit tree of the selector built once from the `path` of each org unit, so children,
+ * ancestors and selection counts are map lookups instead of scans over the whole list.
+ */
+class OrgUnitHierarchy(orgUnits: List<OrganisationUnit>) {
+
+    private val orgUnitsByUid = orgUnits.associateBy { it.uid() }
+
+    private val descendantsByAncestor: Map<String, List<OrganisationUnit>> =
+        HashMap<String, MutableList<OrganisationUnit>>().apply {
+            orgUnits.sortedBy { it.displayNamePath()?.joinToString(" ") }.forEach { orgUnit ->
+                ancestors(orgUnit)
+                    .filter { it != orgUnit.uid() }
+                    .forEach { ancestorUid ->
+                        getOrPut(ancestorUid) { mutableListOf() }.add(orgUnit)
+                    }
+            }
+        }
+
+    fun orgUnit(uid: String): OrganisationUnit? = orgUnitsByUid[uid]
+
+    fun contains(uid: String): Boolean = orgUnitsByUid.containsKey(uid)
+
+    /**
+     * @return every org unit below [uid] in the hierarchy, ordered by display name path
+     */
+    fun descendants(uid: String): List<OrganisationUnit> =
+        descendantsByAncestor[uid].orEmpty()
+
+    fun hasDescendants(uid: String): Boolean = descendantsByAncestor.containsKey(uid)
+
+    /**
+     * @return uids of the ancestors referenced by the org unit paths that are not in the hierarchy
+     */
+    fun missingAncestors(): Set<String> =
+        descendantsByAncestor.keys.filterTo(LinkedHashSet()) { !orgUnitsByUid.containsKey(it) }
+
+    companion object {
+        /**
+         * @return the uids of the org unit path from the root down to the org unit itself
+         */
+        fun ancestors(orgUnit: OrganisationUnit): List<String> =
+            orgUnit.path()?.split("/")?.filter { it.isNotEmpty() }.orEmpty()
+    }
+}
+
+/**
+ * Number of selected org units at or below each org unit, kept up to date as org units are
+ * selected and unselected instead of being counted again for every node.
+ */
+class OrgUnitSelectionCounter {
+
+    private val ancestorsBySelected = HashMap<String, List<String>>()
+    private val counts = HashMap<String, Int>()
+
+    /**
+     * @param ancestors the org unit path uids, including [uid] itself
+     */
+    fun select(uid: String, ancestors: List<String>) {
+        if (ancestorsBySelected.containsKey(uid)) return
+        ancestorsBySelected[uid] = ancestors
+        ancestors.forEach { counts[it] = (counts[it] ?: 0) + 1 }
+    }
+
+    fun unselect(uid: String) {
+        ancestorsBySelected.remove(uid)?.forEach { ancestorUid ->
+            val count = (counts[ancestorUid] ?: 0) - 1
+            if (count > 0) {
+                counts[ancestorUid] = count
+            } else {
+                counts.remove(ancestorUid)
+            }
+        }
+    }
+
+    fun clear() {
+        ancestorsBySelected.clear()
+        counts.clear()
+    }
+
+    fun count(uid: String): Int = counts[uid] ?: 0
+}
@@ -15,6 +15,7 @@ class Preference {
         const val LIMIT_BY_PROGRAM = "LIMIT_BY_PROGRAM"
         const val EVENT_MAX_DEFAULT = 1000
         const val TEI_MAX_DEFAULT = 500
+        const val RESUMABLE_DATA_DOWNLOAD = "RESUMABLE_DATA_DOWNLOAD"
         const val TIME_META = "timeMeta"
         const val TIME_DATA = "timeData"
         const val INITIAL_SYNC = "INITIAL_SYNC"
@@ -0,0 +1,100 @@
+package org.dhis2.mobileProgramRules
+
+import org.hisp.dhis.android.core.program.ProgramRuleActionType
+import org.hisp.dhis.rules.models.Rule
+import org.hisp.dhis.rules.models.RuleVariable
+import org.hisp.dhis.rules.models.RuleVariableCalculatedValue
+
+private val variableRegex = Regex("[#A]\\{([^}]+)\\}")
+private val quotedRegex = Regex("'([^']+)'")
+private const val ENVIRONMENT_VARIABLE = "V{"
+private const val CALCULATED_KEY_PREFIX = "#"
+
+/**
+ * Links each rule to the fields and calculated variables it reads (condition and action data)
+ * and to the ones it assigns, so that after a value change only the rules reachable from
+ * that change need to be evaluated again.
+ */
+class RuleDependencyGraph(rules: List<Rule>, ruleVariables: List<RuleVariable>) {
+
+    private val variableKeys: Map<String, String> = ruleVariables.associate { variable ->
+        variable.name to if (variable is RuleVariableCalculatedValue || variable.field.isEmpty()) {
+            CALCULATED_KEY_PREFIX + variable.name
+        } else {
+            variable.field
+        }
+    }
+
+    private val inputsByRule = mutableMapOf<String, Set<String>>()
+    private val outputsByRule = mutableMapOf<String, Set<String>>()
+    private val rulesByInput = mutableMapOf<String, MutableSet<String>>()
+    private val writersByKey = mutableMapOf<String, MutableSet<String>>()
+    private val alwaysEvaluated = mutableSetOf<String>()
+
+    init {
+        rules.forEach { rule ->
+            val expressions = listOf(rule.condition) + rule.actions.mapNotNull { it.data }
+            val inputs = expressions.flatMap { readKeys(it) }.toSet()
+            val outputs = rule.actions
+                .filter { it.type == ProgramRuleActionType.ASSIGN.name }
+                .mapNotNull { assignedKey(it.values["field"], it.values["content"]) }
+                .toSet()
+
+            inputsByRule[rule.uid] = inputs
+            outputsByRule[rule.uid] = outputs
+            inputs.forEach { rulesByInput.getOrPut(it) { mutableSetOf() }.add(rule.uid) }
+            outputs.forEach { writersByKey.getOrPut(it) { mutableSetOf() }.add(rule.uid) }
+            if (expressions.any { it.contains(ENVIRONMENT_VARIABLE) }) {
+                alwaysEvaluated.add(rule.uid)
+            }
+        }
+    }
+
+    fun rulesAffectedBy(changedFields: Set<String>): Set<String> {
+        val affectedRules = alwaysEvaluated.toMutableSet()
+        val pendingKeys = ArrayDeque(changedFields)
+        alwaysEvaluated.forEach { pendingKeys.addAll(outputsByRule[it].orEmpty()) }
+        val visitedKeys = mutableSetOf<String>()
+
+        while (pendingKeys.isNotEmpty()) {
+            val key = pendingKeys.removeFirst()
+            if (!visitedKeys.add(key)) continue
+            rulesByInput[key].orEmpty().forEach { ruleUid ->
+                if (affectedRules.add(ruleUid)) {
+                    pendingKeys.addAll(outputsByRule[ruleUid].orEmpty())
+                }
+            }
+        }
+
+        // Calculated values only live during an evaluation, so the rules assigning the ones
+        // read by an affected rule need to run in the same pass.
+        val pendingRules = ArrayDeque(affectedRules)
+        while (pendingRules.isNotEmpty()) {
+            val ruleUid = pendingRules.removeFirst()
+            inputsByRule[ruleUid].orEmpty()
+                .filter { it.startsWith(CALCULATED_KEY_PREFIX) }
+                .flatMap { writersByKey[it].orEmpty() }
+                .forEach { writerUid ->
+                    if (affectedRules.add(writerUid)) {
+                        pendingRules.add(writerUid)
+                    }
+                }
+        }
+
+        return affectedRules
+    }
+
+    private fun readKeys(expression: String): List<String> {
+        val variableNames = variableRegex.findAll(expression).map { it.groupValues[1] } +
+            quotedRegex.findAll(expression).map { it.groupValues[1] }
+        return variableNames.mapNotNull { variableKeys[it] }.toList()
+    }
+
+    private fun assignedKey(field: String?, content: String?): String? = when {
+        !field.isNullOrEmpty() -> field
+        content != null -> variableRegex.find(content)?.groupValues?.get(1)
+            ?.let { variableKeys[it] ?: CALCULATED_KEY_PREFIX + it }
+
+        else -> null
+    }
+}
@@ -0,0 +1,50 @@
+package org.dhis2.mobileProgramRules
+
+import org.hisp.dhis.rules.models.Rule
+import org.hisp.dhis.rules.models.RuleVariable
+import java.util.concurrent.ConcurrentHashMap
+
+data class ProgramRulesMetadata(
+    val rules: List<Rule>,
+    val ruleVariables: List<RuleVariable>,
+)
+
+/**
+ * Process-wide cache of the rule engine metadata that only changes after a metadata sync:
+ * program rules and variables (keyed by program), constants and supplementary data
+ * (keyed by org unit). Enrollment and event data are never cached here.
+ */
+object RuleEngineContextCache {
+
+    private val programMetadata = ConcurrentHashMap<String, ProgramRulesMetadata>()
+    private val supplementaryData = ConcurrentHashMap<String, Map<String, List<String>>>()
+
+    @Volatile
+    private var constants: Map<String, String>? = null
+
+    suspend fun programMetadata(
+        programUid: String,
+        loader: suspend () -> ProgramRulesMetadata,
+    ): ProgramRulesMetadata {
+        return programMetadata[programUid]
+            ?: loader().also { programMetadata[programUid] = it }
+    }
+
+    suspend fun supplementaryData(
+        orgUnitUid: String,
+        loader: suspend () -> Map<String, List<String>>,
+    ): Map<String, List<String>> {
+        return supplementaryData[orgUnitUid]
+            ?: loader().also { supplementaryData[orgUnitUid] = it }
+    }
+
+    suspend fun constants(loader: suspend () -> Map<String, String>): Map<String, String> {
+        return constants ?: loader().also { constants = it }
+    }
+
+    fun invalidate() {
+        programMetadata.clear()
+        supplementaryData.clear()
+        constants = null
+    }
+}
@@ -13,7 +13,6 @@ import org.hisp.dhis.android.core.program.ProgramRule
 import org.hisp.dhis.android.core.program.ProgramRuleAction
 import org.hisp.dhis.android.core.program.ProgramRuleActionType
 import org.hisp.dhis.android.core.program.ProgramRuleVariable
-import org.hisp.dhis.android.core.program.ProgramRuleVariableCollectionRepository
 import org.hisp.dhis.android.core.program.ProgramRuleVariableSourceType
 import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttributeCollectionRepository
 import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttributeValue
@@ -445,33 +444,14 @@ fun ValueType.toRuleValueType(): RuleValueType {
 
 fun List<TrackedEntityDataValue>.toRuleDataValue(
     event: Event,
-    dataElementRepository: DataElementCollectionRepository,
-    ruleVariableRepository: ProgramRuleVariableCollectionRepository,
-    optionRepository: OptionCollectionRepository,
+    metadata: RuleEventsMetadata,
 ): List<RuleDataValue> {
     return map {
         var value = if (it.value() != null) it.value() else ""
-        val de = dataElementRepository.uid(it.dataElement()).blockingGet()
+        val de = metadata.dataElement(it.dataElement())
         if (!de?.optionSetUid().isNullOrEmpty()) {
-            if (ruleVariableRepository
-                    .byProgramUid().eq(event.program())
-                    .byDataElementUid().eq(it.dataElement())
-                    .byUseCodeForOptionSet().isTrue
-                    .blockingIsEmpty()
-            ) {
-                value =
-                    if (optionRepository
-                            .byOptionSetUid().eq(de?.optionSetUid())
-                            .byCode().eq(value)
-                            .one().blockingExists()
-                    ) {
-                        optionRepository
-                            .byOptionSetUid().eq(de?.optionSetUid())
-                            .byCode().eq(value)
-                            .one().blockingGet()?.name()
-                    } else {
-                        ""
-                    }
+            if (!metadata.usesCodeForOptionSet(event.program(), it.dataElement())) {
+                value = metadata.optionName(de?.optionSetUid(), value) ?: ""
             }
         } else if (de?.valueType()?.isNumeric == true && value.isNullOrEmpty()) {
             value = ""
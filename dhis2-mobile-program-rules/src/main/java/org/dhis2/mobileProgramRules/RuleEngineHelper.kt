@@ -19,11 +19,41 @@ class RuleEngineHelper(
     private var refreshContext: Boolean = false
     private lateinit var targetEnrollment: RuleEnrollment
     private lateinit var targetEvent: RuleEvent
+    private var lastRuleEffects: List<RuleEffect>? = null
+    private var dependencyGraph: RuleDependencyGraph? = null
+    private var ruleEvaluationOrder: Map<String, Int>? = null
 
     fun evaluate(): List<RuleEffect> {
+        return evaluateRules(ruleUids = null).also { lastRuleEffects = it }
+    }
+
+    /**
+     * Evaluates only the rules reachable from [changedFields] and merges their effects with the
+     * ones from the previous evaluation. Falls back to a full evaluation when there is nothing
+     * to merge with or the context has to be rebuilt.
+     */
+    fun evaluate(changedFields: Set<String>): List<RuleEffect> {
+        val previousRuleEffects = lastRuleEffects
+        if (previousRuleEffects == null || refreshContext || ::contextData.isInitialized.not()) {
+            return evaluate()
+        }
+
+        val ruleUids = dependencyGraph().rulesAffectedBy(changedFields)
+        if (ruleUids.isEmpty()) {
+            return previousRuleEffects
+        }
+
+        return previousRuleEffects.filterNot { ruleUids.contains(it.ruleId) }
+            .plus(evaluateRules(ruleUids))
+            .sortedBy { ruleEvaluationOrder()[it.ruleId] ?: Int.MAX_VALUE }
+            .also { lastRuleEffects = it }
+    }
+
+    private fun evaluateRules(ruleUids: Set<String>?): List<RuleEffect> {
         var ruleEffects = emptyList<RuleEffect>()
         runBlocking {
             async { buildRuleEngineContextData(evaluationType.targetUid) }.await()
+            val executionContext = executionContext(ruleUids)
             ruleEffects = async {
                 when (evaluationType) {
                     is EvaluationType.Enrollment ->
@@ -34,7 +64,7 @@ class RuleEngineHelper(
                                 ),
                             ),
                             ruleEvents = contextData.ruleEvents,
-                            executionContext = contextData.ruleEngineContext,
+                            executionContext = executionContext,
                         )
 
                     is EvaluationType.Event ->
@@ -46,7 +76,7 @@ class RuleEngineHelper(
                             ),
                             ruleEnrollment = contextData.ruleEnrollment,
                             ruleEvents = contextData.ruleEvents,
-                            executionContext = contextData.ruleEngineContext,
+                            executionContext = executionContext,
                         )
                 }
             }.await()
@@ -54,28 +84,69 @@ class RuleEngineHelper(
         return ruleEffects
     }
 
+    private fun executionContext(ruleUids: Set<String>?): RuleEngineContext {
+        val context = contextData.ruleEngineContext
+        return ruleUids?.let {
+            RuleEngineContext(
+                rules = context.rules.filter { ruleUids.contains(it.uid) },
+                ruleVariables = context.ruleVariables,
+                supplementaryData = context.supplementaryData,
+                constantsValues = context.constantsValues,
+            )
+        } ?: context
+    }
+
+    private fun dependencyGraph(): RuleDependencyGraph {
+        return dependencyGraph ?: RuleDependencyGraph(
+            contextData.ruleEngineContext.rules,
+            contextData.ruleEngineContext.ruleVariables,
+        ).also { dependencyGraph = it }
+    }
+
+    /**
+     * Position of each rule in the order the engine evaluates them, rules with a priority first
+     * and by priority, so merged effects keep the order of a full evaluation.
+     */
+    private fun ruleEvaluationOrder(): Map<String, Int> {
+        return ruleEvaluationOrder ?: contextData.ruleEngineContext.rules
+            .sortedWith(compareBy(nullsLast()) { it.priority })
+            .withIndex()
+            .associate { (index, rule) -> rule.uid to index }
+            .also { ruleEvaluationOrder = it }
+    }
+
     private suspend fun buildRuleEngineContextData(targetUid: String) {
         if (::contextData.isInitialized.not() || refreshContext) {
             val (programUid, orgUnitUid) = getProgramAndOrgUnit(targetUid)
 
             coroutineScope {
-                val rules = async {
-                    rulesRepository.rules(
-                        programUid = programUid,
-                        eventUid = targetUid.takeIf { evaluationType !is EvaluationType.Enrollment },
-                    )
+                val programMetadata = async {
+                    RuleEngineContextCache.programMetadata(programUid) {
+                        ProgramRulesMetadata(
+                            rules = rulesRepository.programRules(programUid),
+                            ruleVariables = rulesRepository.ruleVariables(programUid),
+                        )
+                    }
+                }
+                val programStage = async { getProgramStage(targetUid) }
+                val supplData = async {
+                    RuleEngineContextCache.supplementaryData(orgUnitUid) {
+                        rulesRepository.supplementaryData(orgUnitUid = orgUnitUid)
+                    }
+                }
+                val constants = async {
+                    RuleEngineContextCache.constants { rulesRepository.constants() }
                 }
-
-                val ruleVariables = async { rulesRepository.ruleVariables(programUid = programUid) }
-                val supplData = async { rulesRepository.supplementaryData(orgUnitUid = orgUnitUid) }
-                val constants = async { rulesRepository.constants() }
                 val ruleEnrollment = async { getRuleEnrollment(targetUid) }
                 val ruleEvents = async { getRuleEvents(targetUid) }
 
+                val stageUid = programStage.await()
                 contextData = RuleEngineContextData(
                     ruleEngineContext = RuleEngineContext(
-                        rules = rules.await(),
-                        ruleVariables = ruleVariables.await(),
+                        rules = programMetadata.await().rules.filter {
+                            it.programStage == null || it.programStage == stageUid
+                        },
+                        ruleVariables = programMetadata.await().ruleVariables,
                         supplementaryData = supplData.await(),
                         constantsValues = constants.await(),
                     ),
@@ -83,10 +154,19 @@ class RuleEngineHelper(
                     ruleEvents = ruleEvents.await(),
                 )
             }
+            dependencyGraph = null
+            ruleEvaluationOrder = null
             refreshContext = false
         }
     }
 
+    private fun getProgramStage(targetUid: String) =
+        if (evaluationType is EvaluationType.Event) {
+            rulesRepository.eventProgramStage(eventUid = targetUid)
+        } else {
+            null
+        }
+
     private fun getProgramAndOrgUnit(targetUid: String) =
         if (evaluationType is EvaluationType.Enrollment) {
             rulesRepository.enrollmentProgram(enrollmentUid = targetUid)
@@ -0,0 +1,26 @@
+package org.dhis2.mobileProgramRules
+
+import org.hisp.dhis.android.core.dataelement.DataElement
+
+/**
+ * Metadata referenced by a set of events and their data values, resolved in bulk so that
+ * mapping them to rule engine objects does not hit the database per event or per value.
+ */
+data class RuleEventsMetadata(
+    val programStageNames: Map<String, String>,
+    val orgUnitCodes: Map<String, String?>,
+    val dataElements: Map<String, DataElement>,
+    val useCodeDataElements: Map<String, Set<String>>,
+    val optionNames: Map<String, Map<String, String>>,
+) {
+    fun programStageName(programStageUid: String) = programStageNames[programStageUid]
+
+    fun orgUnitCode(orgUnitUid: String?) = orgUnitCodes[orgUnitUid]
+
+    fun dataElement(dataElementUid: String?) = dataElements[dataElementUid]
+
+    fun usesCodeForOptionSet(programUid: String?, dataElementUid: String?) =
+        useCodeDataElements[programUid]?.contains(dataElementUid) == true
+
+    fun optionName(optionSetUid: String?, code: String?) = optionNames[optionSetUid]?.get(code)
+}
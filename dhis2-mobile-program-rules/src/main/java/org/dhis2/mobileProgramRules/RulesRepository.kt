@@ -3,9 +3,6 @@ package org.dhis2.mobileProgramRules
 import android.os.Build
 import android.text.TextUtils.isEmpty
 import io.reactivex.Single
-import kotlinx.datetime.Instant
-import kotlinx.datetime.TimeZone
-import kotlinx.datetime.toLocalDateTime
 import org.dhis2.commons.bindings.enrollment
 import org.dhis2.commons.bindings.event
 import org.dhis2.commons.bindings.organisationUnit
@@ -20,6 +17,7 @@ import org.hisp.dhis.android.core.enrollment.Enrollment
 import org.hisp.dhis.android.core.event.Event
 import org.hisp.dhis.android.core.event.EventStatus
 import org.hisp.dhis.android.core.program.ProgramRule
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue
 import org.hisp.dhis.rules.models.Rule
 import org.hisp.dhis.rules.models.RuleAttributeValue
 import org.hisp.dhis.rules.models.RuleDataValue
@@ -56,14 +54,21 @@ class RulesRepository(private val d2: D2) {
     }
 
     suspend fun rules(programUid: String, eventUid: String? = null): List<Rule> {
-        val programStage =
-            eventUid?.let { d2.eventModule().events().uid(eventUid).blockingGet()?.programStage() }
+        val programStage = eventUid?.let { eventProgramStage(eventUid) }
 
-        return queryRules(programUid).toRuleList().filter {
+        return programRules(programUid).filter {
             it.programStage == null || it.programStage == programStage
         }
     }
 
+    suspend fun programRules(programUid: String): List<Rule> {
+        return queryRules(programUid).toRuleList()
+    }
+
+    fun eventProgramStage(eventUid: String): String? {
+        return d2.eventModule().events().uid(eventUid).blockingGet()?.programStage()
+    }
+
     suspend fun ruleVariables(programUid: String): List<RuleVariable> {
         return d2.programModule().programRuleVariables()
             .byProgramUid().eq(programUid)
@@ -105,42 +110,7 @@ class RulesRepository(private val d2: D2) {
     suspend fun otherEvents(eventUidToEvaluate: String): List<RuleEvent> {
         return d2.eventModule().events().uid(eventUidToEvaluate).blockingGet()
             ?.let { eventToEvaluate ->
-                getOtherEventList(eventToEvaluate)
-                    .map { event ->
-                        RuleEvent(
-                            event = event.uid(),
-                            programStage = event.programStage()!!,
-                            programStageName = d2.programModule().programStages()
-                                .uid(event.programStage())
-                                .blockingGet()!!.name()!!,
-                            status = if (event.status() == EventStatus.VISITED) {
-                                RuleEventStatus.ACTIVE
-                            } else {
-                                RuleEventStatus.valueOf(event.status()!!.name)
-                            },
-                            eventDate = Instant.fromEpochMilliseconds(event.eventDate()!!.time),
-                            dueDate = event.dueDate()?.let {
-                                Instant.fromEpochMilliseconds(it.time)
-                                    .toLocalDateTime(TimeZone.currentSystemDefault()).date
-                            },
-                            completedDate = event.completedDate()?.let {
-                                Instant.fromEpochMilliseconds(it.time)
-                                    .toLocalDateTime(TimeZone.currentSystemDefault()).date
-                            },
-                            organisationUnit = event.organisationUnit()!!,
-                            organisationUnitCode = d2.organisationUnitModule().organisationUnits()
-                                .uid(
-                                    event.organisationUnit(),
-                                ).blockingGet()?.code(),
-                            dataValues = event.trackedEntityDataValues()?.toRuleDataValue(
-                                event,
-                                d2.dataElementModule().dataElements(),
-                                d2.programModule().programRuleVariables(),
-                                d2.optionModule().options(),
-                            ) ?: emptyList(),
-                        )
-                    }
-                    .toList()
+                getOtherEventList(eventToEvaluate).toRuleEvents()
             } ?: emptyList()
     }
 
@@ -199,35 +169,101 @@ class RulesRepository(private val d2: D2) {
             .byEventDate().beforeOrEqual(Date())
             .withTrackedEntityDataValues()
             .blockingGet()
-            .map { event ->
-                RuleEvent(
-                    event = event.uid(),
-                    programStage = event.programStage()!!,
-                    programStageName =
-                    d2.programModule().programStages().uid(event.programStage())
-                        .blockingGet()!!.name()!!,
-                    status =
-                    if (event.status() == EventStatus.VISITED) {
-                        RuleEventStatus.ACTIVE
-                    } else {
-                        RuleEventStatus.valueOf(event.status()!!.name)
-                    },
-                    eventDate = event.eventDate()!!.toRuleEngineInstant(),
-                    dueDate = event.dueDate()?.toRuleEngineLocalDate(),
-                    completedDate = event.completedDate()?.toRuleEngineLocalDate(),
-                    organisationUnit = event.organisationUnit()!!,
-                    organisationUnitCode = d2.organisationUnitModule()
-                        .organisationUnits().uid(event.organisationUnit())
-                        .blockingGet()?.code(),
-                    dataValues =
-                    event.trackedEntityDataValues()?.toRuleDataValue(
-                        event,
-                        d2.dataElementModule().dataElements(),
-                        d2.programModule().programRuleVariables(),
-                        d2.optionModule().options(),
-                    ) ?: emptyList(),
-                )
-            }.toList()
+            .toRuleEvents()
+    }
+
+    private fun List<Event>.toRuleEvents(): List<RuleEvent> {
+        val metadata = loadRuleEventsMetadata(
+            events = this,
+            dataValues = flatMap { it.trackedEntityDataValues() ?: emptyList() },
+        )
+        return map { event ->
+            RuleEvent(
+                event = event.uid(),
+                programStage = event.programStage()!!,
+                programStageName = metadata.programStageName(event.programStage()!!)!!,
+                status = if (event.status() == EventStatus.VISITED) {
+                    RuleEventStatus.ACTIVE
+                } else {
+                    RuleEventStatus.valueOf(event.status()!!.name)
+                },
+                eventDate = event.eventDate()!!.toRuleEngineInstant(),
+                dueDate = event.dueDate()?.toRuleEngineLocalDate(),
+                completedDate = event.completedDate()?.toRuleEngineLocalDate(),
+                organisationUnit = event.organisationUnit()!!,
+                organisationUnitCode = metadata.orgUnitCode(event.organisationUnit()),
+                dataValues = event.trackedEntityDataValues()
+                    ?.toRuleDataValue(event, metadata) ?: emptyList(),
+            )
+        }
+    }
+
+    private fun loadRuleEventsMetadata(
+        events: List<Event>,
+        dataValues: List<TrackedEntityDataValue>,
+    ): RuleEventsMetadata {
+        val stageUids = events.mapNotNull { it.programStage() }.distinct()
+        val orgUnitUids = events.mapNotNull { it.organisationUnit() }.distinct()
+        val programUids = events.mapNotNull { it.program() }.distinct()
+        val dataElementUids = dataValues.mapNotNull { it.dataElement() }.distinct()
+
+        val programStageNames = stageUids.takeIf { it.isNotEmpty() }?.let { uids ->
+            d2.programModule().programStages()
+                .byUid().`in`(uids)
+                .blockingGet()
+                .associate { it.uid() to (it.name() ?: "") }
+        } ?: emptyMap()
+
+        val orgUnitCodes = orgUnitUids.takeIf { it.isNotEmpty() }?.let { uids ->
+            d2.organisationUnitModule().organisationUnits()
+                .byUid().`in`(uids)
+                .blockingGet()
+                .associate { it.uid() to it.code() }
+        } ?: emptyMap()
+
+        val dataElements = dataElementUids.takeIf { it.isNotEmpty() }?.let { uids ->
+            d2.dataElementModule().dataElements()
+                .byUid().`in`(uids)
+                .blockingGet()
+                .associateBy { it.uid() }
+        } ?: emptyMap()
+
+        val optionSetUids = dataElements.values.mapNotNull { it.optionSetUid() }.distinct()
+
+        val useCodeDataElements = if (optionSetUids.isNotEmpty() && programUids.isNotEmpty()) {
+            d2.programModule().programRuleVariables()
+                .byProgramUid().`in`(programUids)
+                .byUseCodeForOptionSet().isTrue
+                .blockingGet()
+                .filter { it.dataElement() != null }
+                .groupBy({ it.program()?.uid() }, { it.dataElement()!!.uid() })
+                .mapNotNull { (programUid, uids) -> programUid?.let { it to uids.toSet() } }
+                .toMap()
+        } else {
+            emptyMap()
+        }
+
+        val optionNames = optionSetUids.takeIf { it.isNotEmpty() }?.let { uids ->
+            d2.optionModule().options()
+                .byOptionSetUid().`in`(uids)
+                .blockingGet()
+                .filter { it.code() != null && it.name() != null }
+                .groupBy { it.optionSet()?.uid() }
+                .mapNotNull { (optionSetUid, options) ->
+                    optionSetUid?.let {
+                        it to options.associate { option -> option.code()!! to option.name()!! }
+                    }
+                }
+                .toMap()
+        } ?: emptyMap()
+
+        return RuleEventsMetadata(
+            programStageNames = programStageNames,
+            orgUnitCodes = orgUnitCodes,
+            dataElements = dataElements,
+            useCodeDataElements = useCodeDataElements,
+            optionNames = optionNames,
+        )
     }
 
     suspend fun enrollment(eventUid: String): RuleEnrollment {
@@ -286,14 +322,13 @@ class RulesRepository(private val d2: D2) {
     fun queryDataValues(eventUid: String): List<RuleDataValue> {
         return d2.eventModule().events().uid(eventUid).blockingGet()
             ?.let { event ->
-                d2.trackedEntityModule().trackedEntityDataValues().byEvent().eq(eventUid)
+                val dataValues = d2.trackedEntityModule().trackedEntityDataValues()
+                    .byEvent().eq(eventUid)
                     .byValue().isNotNull.blockingGet()
-                    .toRuleDataValue(
-                        event,
-                        d2.dataElementModule().dataElements(),
-                        d2.programModule().programRuleVariables(),
-                        d2.optionModule().options(),
-                    )
+                dataValues.toRuleDataValue(
+                    event,
+                    loadRuleEventsMetadata(listOf(event), dataValues),
+                )
             } ?: emptyList()
     }
 
@@ -4,6 +4,7 @@ import com.mapbox.geojson.BoundingBox
 import com.mapbox.geojson.Point
 import com.mapbox.mapboxsdk.geometry.LatLng
 import com.mapbox.mapboxsdk.geometry.LatLngBounds
+import org.dhis2.maps.geometry.LngLatArray
 import org.dhis2.maps.geometry.bound.GetBoundingBox
 import kotlin.math.atan2
 import kotlin.math.cos
@@ -12,7 +13,7 @@ import kotlin.math.sqrt
 
 fun List<List<List<Double>>>.polygonToLatLngBounds(getBoundingBox: GetBoundingBox): LatLngBounds? {
     return firstOrNull()?.let { polygon ->
-        getBoundingBox.getEnclosingBoundingBox(polygon.toLatLngList()).toLatLngBounds()
+        getBoundingBox.getEnclosingBoundingBox(LngLatArray.fromRing(polygon)).toLatLngBounds()
     }
 }
 
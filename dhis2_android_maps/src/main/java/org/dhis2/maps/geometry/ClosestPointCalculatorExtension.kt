@@ -1,32 +1,16 @@
 package org.dhis2.maps.geometry
 
-import com.mapbox.mapboxsdk.geometry.LatLng
-
 fun List<List<List<Double>>>.closestPointTo(point: List<Double>): List<Double> {
-    val initPoint = point.toLatLn()
-    var closestPoint: List<Double>? = null
-    var closestDistance: Double? = null
-    this[0].forEach { polygonPoint ->
-        val distance = polygonPoint.toLatLn().distanceTo(initPoint)
-        if (closestDistance == null || distance < closestDistance!!) {
-            closestPoint = polygonPoint
-            closestDistance = distance
-        }
-    }
-    return closestPoint!!
+    val vertices = LngLatArray.fromRing(this[0])
+    return vertices.lngLat(vertices.closestTo(point[0], point[1]))
 }
 
 fun List<List<List<Double>>>.closestPointTo(
     polPoints: List<List<List<Double>>>,
 ): Pair<List<Double>, List<Double>> {
-    return this[0].map { fromPoint ->
-        val toPoint = polPoints.closestPointTo(fromPoint)
-        Pair(fromPoint, toPoint)
-    }.minByOrNull { fromToPoints ->
-        fromToPoints.first.toLatLn().distanceTo(fromToPoints.second.toLatLn())
+    val fromVertices = LngLatArray.fromRing(this[0])
+    val toVertices = LngLatArray.fromRing(polPoints[0])
+    return fromVertices.closestPairTo(toVertices)?.let { (fromIndex, toIndex) ->
+        Pair(fromVertices.lngLat(fromIndex), toVertices.lngLat(toIndex))
     } ?: Pair(arrayListOf(0.0, 0.0), arrayListOf(0.0, 0.0))
 }
-
-fun List<Double>.toLatLn(): LatLng {
-    return LatLng(this[1], this[0])
-}
@@ -9,7 +9,4 @@ fun Feature?.getPointLatLng(): LatLng {
     return LatLng(point.latitude(), point.longitude())
 }
 
-fun List<Feature?>.getLatLngPointList() =
-    this.filter { it?.geometry() is Point }.map { it.getPointLatLng() }
-
 fun Feature?.isPoint() = this?.geometry() is Point
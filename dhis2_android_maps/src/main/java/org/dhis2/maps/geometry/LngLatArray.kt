@@ -0,0 +1,197 @@
+package org.dhis2.maps.geometry
+
+import com.mapbox.geojson.Feature
+import com.mapbox.geojson.Point
+import com.mapbox.mapboxsdk.geometry.LatLng
+import kotlin.math.cos
+import kotlin.math.sin
+
+/**
+ * Coordinates stored as consecutive longitude and latitude values in a single array, so
+ * distance and bounds calculations do not allocate an object per vertex.
+ *
+ * Distances are compared as chord lengths between points on the unit sphere. They grow with
+ * the great-circle distance, so the closest vertex is the same one [LatLng.distanceTo] finds.
+ */
+class LngLatArray(val values: DoubleArray) {
+
+    val size: Int
+        get() = values.size / 2
+
+    private val unitVectors: DoubleArray by lazy {
+        DoubleArray(size * 3).also { vectors ->
+            for (index in 0 until size) {
+                val lng = Math.toRadians(longitude(index))
+                val lat = Math.toRadians(latitude(index))
+                vectors[index * 3] = cos(lat) * cos(lng)
+                vectors[index * 3 + 1] = cos(lat) * sin(lng)
+                vectors[index * 3 + 2] = sin(lat)
+            }
+        }
+    }
+
+    fun isEmpty() = size == 0
+
+    fun longitude(index: Int) = values[index * 2]
+
+    fun latitude(index: Int) = values[index * 2 + 1]
+
+    fun lngLat(index: Int): List<Double> = listOf(longitude(index), latitude(index))
+
+    /**
+     * Bounds as `[west, south, east, north]`, or null when there are no coordinates.
+     */
+    fun bounds(): DoubleArray? {
+        if (isEmpty()) return null
+        var west = Double.MAX_VALUE
+        var south = Double.MAX_VALUE
+        var east = -Double.MAX_VALUE
+        var north = -Double.MAX_VALUE
+        for (index in 0 until size) {
+            val lng = longitude(index)
+            val lat = latitude(index)
+            if (lng < west) west = lng
+            if (lng > east) east = lng
+            if (lat < south) south = lat
+            if (lat > north) north = lat
+        }
+        return doubleArrayOf(west, south, east, north)
+    }
+
+    /**
+     * Index of the vertex closest to the given coordinate, or -1 when there are no coordinates.
+     */
+    fun closestTo(longitude: Double, latitude: Double): Int {
+        val lng = Math.toRadians(longitude)
+        val lat = Math.toRadians(latitude)
+        val x = cos(lat) * cos(lng)
+        val y = cos(lat) * sin(lng)
+        val z = sin(lat)
+
+        val vectors = unitVectors
+        var closestIndex = -1
+        var closestDistance = Double.MAX_VALUE
+        for (index in 0 until size) {
+            val distance = squaredDistance(vectors, index, x, y, z)
+            if (distance < closestDistance) {
+                closestIndex = index
+                closestDistance = distance
+            }
+        }
+        return closestIndex
+    }
+
+    /**
+     * Indexes of the closest pair of vertices between this array and [other], or null when any
+     * of them is empty.
+     *
+     * Vertices of [other] are sorted along one axis once and each vertex of this array only
+     * checks the ones that can still be closer than the best pair found, instead of comparing
+     * every pair.
+     */
+    fun closestPairTo(other: LngLatArray): Pair<Int, Int>? {
+        if (isEmpty() || other.isEmpty()) return null
+        val vectors = unitVectors
+        val otherVectors = other.unitVectors
+        val sortedOther = (0 until other.size)
+            .sortedBy { otherVectors[it * 3] }
+            .toIntArray()
+        val sortedX = DoubleArray(sortedOther.size) { otherVectors[sortedOther[it] * 3] }
+
+        var closestFrom = -1
+        var closestTo = -1
+        var closestDistance = Double.MAX_VALUE
+        for (index in 0 until size) {
+            val x = vectors[index * 3]
+            val y = vectors[index * 3 + 1]
+            val z = vectors[index * 3 + 2]
+            val start = lowerBound(sortedX, x)
+
+            var position = start
+            while (position < sortedX.size) {
+                val dx = sortedX[position] - x
+                if (dx * dx >= closestDistance) break
+                val otherIndex = sortedOther[position]
+                val distance = squaredDistance(otherVectors, otherIndex, x, y, z)
+                if (distance < closestDistance) {
+                    closestFrom = index
+                    closestTo = otherIndex
+                    closestDistance = distance
+                }
+                position++
+            }
+            position = start - 1
+            while (position >= 0) {
+                val dx = x - sortedX[position]
+                if (dx * dx >= closestDistance) break
+                val otherIndex = sortedOther[position]
+                val distance = squaredDistance(otherVectors, otherIndex, x, y, z)
+                if (distance < closestDistance) {
+                    closestFrom = index
+                    closestTo = otherIndex
+                    closestDistance = distance
+                }
+                position--
+            }
+        }
+        return Pair(closestFrom, closestTo)
+    }
+
+    private fun squaredDistance(
+        vectors: DoubleArray,
+        index: Int,
+        x: Double,
+        y: Double,
+        z: Double,
+    ): Double {
+        val dx = vectors[index * 3] - x
+        val dy = vectors[index * 3 + 1] - y
+        val dz = vectors[index * 3 + 2] - z
+        return dx * dx + dy * dy + dz * dz
+    }
+
+    private fun lowerBound(sorted: DoubleArray, value: Double): Int {
+        var low = 0
+        var high = sorted.size
+        while (low < high) {
+            val middle = (low + high) ushr 1
+            if (sorted[middle] < value) low = middle + 1 else high = middle
+        }
+        return low
+    }
+
+    companion object {
+        fun fromRing(ring: List<List<Double>>): LngLatArray {
+            val values = DoubleArray(ring.size * 2)
+            ring.forEachIndexed { index, coordinates ->
+                values[index * 2] = coordinates[0]
+                values[index * 2 + 1] = coordinates[1]
+            }
+            return LngLatArray(values)
+        }
+
+        fun fromLatLngs(latLngs: List<LatLng>): LngLatArray {
+            val values = DoubleArray(latLngs.size * 2)
+            latLngs.forEachIndexed { index, latLng ->
+                values[index * 2] = latLng.longitude
+                values[index * 2 + 1] = latLng.latitude
+            }
+            return LngLatArray(values)
+        }
+
+        /**
+         * Coordinates of the point features, other geometries are skipped.
+         */
+        fun fromPointFeatures(features: List<Feature?>): LngLatArray {
+            val values = DoubleArray(features.size * 2)
+            var size = 0
+            features.forEach { feature ->
+                val point = feature?.geometry() as? Point ?: return@forEach
+                values[size * 2] = point.longitude()
+                values[size * 2 + 1] = point.latitude()
+                size++
+            }
+            return LngLatArray(if (size == features.size) values else values.copyOf(size * 2))
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.dhis2.maps.geometry.bound
+
+import com.mapbox.geojson.BoundingBox
+import org.hisp.dhis.android.core.common.Geometry
+
+private val coordinateRegex = Regex("-?\\d+(\\.\\d+)?([eE][-+]?\\d+)?")
+
+fun BoundingBox.isEmpty() = west() == 0.0 && south() == 0.0 && east() == 0.0 && north() == 0.0
+
+fun BoundingBox.contains(other: BoundingBox) = west() <= other.west() &&
+    south() <= other.south() &&
+    east() >= other.east() &&
+    north() >= other.north()
+
+fun BoundingBox.intersects(other: BoundingBox) = west() <= other.east() &&
+    east() >= other.west() &&
+    south() <= other.north() &&
+    north() >= other.south()
+
+fun BoundingBox.union(other: BoundingBox): BoundingBox = when {
+    isEmpty() -> other
+    other.isEmpty() -> this
+    else -> BoundingBox.fromLngLats(
+        minOf(west(), other.west()),
+        minOf(south(), other.south()),
+        maxOf(east(), other.east()),
+        maxOf(north(), other.north()),
+    )
+}
+
+/**
+ * Grows the box by [ratio] of its size on every side, so small camera moves stay inside
+ * the area already loaded.
+ */
+fun BoundingBox.expand(ratio: Double): BoundingBox {
+    val lngPadding = (east() - west()) * ratio
+    val latPadding = (north() - south()) * ratio
+    return BoundingBox.fromLngLats(
+        west() - lngPadding,
+        (south() - latPadding).coerceAtLeast(-90.0),
+        east() + lngPadding,
+        (north() + latPadding).coerceAtMost(90.0),
+    )
+}
+
+/**
+ * Bounding box of any geometry type, read directly from its GeoJson coordinates.
+ */
+fun Geometry.boundingBox(): BoundingBox? {
+    val values = coordinateRegex.findAll(coordinates() ?: return null)
+        .mapNotNull { it.value.toDoubleOrNull() }
+        .toList()
+    if (values.size < 2) return null
+
+    var west = Double.MAX_VALUE
+    var south = Double.MAX_VALUE
+    var east = -Double.MAX_VALUE
+    var north = -Double.MAX_VALUE
+    for (index in 0 until values.size - 1 step 2) {
+        val lng = values[index]
+        val lat = values[index + 1]
+        west = minOf(west, lng)
+        east = maxOf(east, lng)
+        south = minOf(south, lat)
+        north = maxOf(north, lat)
+    }
+    return BoundingBox.fromLngLats(west, south, east, north)
+}
@@ -1,33 +1,25 @@
 package org.dhis2.maps.geometry.bound
 
 import com.mapbox.geojson.BoundingBox
-import com.mapbox.mapboxsdk.constants.GeometryConstants
 import com.mapbox.mapboxsdk.geometry.LatLng
+import org.dhis2.maps.geometry.LngLatArray
 
 class GetBoundingBox {
 
     fun getEnclosingBoundingBox(coordinates: List<LatLng>): BoundingBox {
-        if (coordinates.isEmpty()) {
-            return BoundingBox.fromLngLats(0.0, 0.0, 0.0, 0.0)
-        }
-        var west = GeometryConstants.MAX_WRAP_LONGITUDE
-        var east = GeometryConstants.MIN_WRAP_LONGITUDE
-        var north = GeometryConstants.MIN_LATITUDE
-        var south = GeometryConstants.MAX_LATITUDE
+        return getEnclosingBoundingBox(LngLatArray.fromLatLngs(coordinates))
+    }
 
-        coordinates.forEach { loc ->
-            north = loc.latitude.coerceAtLeast(north)
-            south = loc.latitude.coerceAtMost(south)
-            west = loc.longitude.coerceAtMost(west)
-            east = loc.longitude.coerceAtLeast(east)
-        }
+    fun getEnclosingBoundingBox(coordinates: LngLatArray): BoundingBox {
+        val (west, south, east, north) = coordinates.bounds()
+            ?: return BoundingBox.fromLngLats(0.0, 0.0, 0.0, 0.0)
 
         val padding = 0.01
-        north += padding
-        south -= padding
-        west -= padding
-        east += padding
-
-        return BoundingBox.fromLngLats(west, south, east, north)
+        return BoundingBox.fromLngLats(
+            west - padding,
+            south - padding,
+            east + padding,
+            north + padding,
+        )
     }
 }
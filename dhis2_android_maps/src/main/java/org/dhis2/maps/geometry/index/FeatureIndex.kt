@@ -0,0 +1,113 @@
+package org.dhis2.maps.geometry.index
+
+import com.mapbox.geojson.BoundingBox
+import com.mapbox.geojson.Feature
+import com.mapbox.geojson.FeatureCollection
+import com.mapbox.geojson.Geometry
+import com.mapbox.geojson.GeometryCollection
+import com.mapbox.geojson.LineString
+import com.mapbox.geojson.MultiLineString
+import com.mapbox.geojson.MultiPoint
+import com.mapbox.geojson.MultiPolygon
+import com.mapbox.geojson.Point
+import com.mapbox.geojson.Polygon
+
+/**
+ * Lookup structure for the feature collections shown in a map, indexed per source.
+ *
+ * Property lookups use a value to features hash map built the first time each property is
+ * requested for a source. Bounding box and point queries use an [RTree] built on first use.
+ * Sources are only indexed again when their feature collection instance changes.
+ */
+class FeatureIndex {
+
+    private var sources: Map<String, SourceIndex> = emptyMap()
+
+    fun update(featureCollections: Map<String, FeatureCollection?>) {
+        sources = featureCollections.entries.mapNotNull { (source, featureCollection) ->
+            featureCollection ?: return@mapNotNull null
+            val currentIndex = sources[source]?.takeIf { it.collection === featureCollection }
+            source to (currentIndex ?: SourceIndex(featureCollection))
+        }.toMap()
+    }
+
+    fun sources(): Set<String> = sources.keys
+
+    fun find(source: String, propertyName: String, propertyValue: String): Feature? =
+        sources[source]?.featuresWith(propertyName, propertyValue)?.firstOrNull()
+
+    fun findAll(source: String, propertyName: String, propertyValue: String): List<Feature> =
+        sources[source]?.featuresWith(propertyName, propertyValue) ?: emptyList()
+
+    fun features(source: String): List<Feature> = sources[source]?.features ?: emptyList()
+
+    fun query(source: String, boundingBox: BoundingBox): List<Feature> =
+        sources[source]?.tree?.search(
+            boundingBox.west(),
+            boundingBox.south(),
+            boundingBox.east(),
+            boundingBox.north(),
+        ) ?: emptyList()
+
+    fun query(source: String, longitude: Double, latitude: Double): List<Feature> =
+        sources[source]?.tree?.search(longitude, latitude) ?: emptyList()
+
+    private class SourceIndex(val collection: FeatureCollection) {
+        val features: List<Feature> = collection.features() ?: emptyList()
+        private val propertyIndexes = HashMap<String, Map<String, List<Feature>>>()
+        val tree: RTree<Feature> by lazy { RTree.build(features) { it.geometry()?.bounds() } }
+
+        fun featuresWith(propertyName: String, propertyValue: String): List<Feature>? =
+            propertyIndexes.getOrPut(propertyName) {
+                HashMap<String, MutableList<Feature>>().apply {
+                    features.forEach { feature ->
+                        feature.getStringPropertyOrNull(propertyName)?.let { value ->
+                            getOrPut(value) { mutableListOf() }.add(feature)
+                        }
+                    }
+                }
+            }[propertyValue]
+    }
+}
+
+private fun Feature.getStringPropertyOrNull(propertyName: String): String? {
+    val property = properties()?.get(propertyName)
+    return if (property != null && property.isJsonPrimitive) property.asString else null
+}
+
+/**
+ * Bounding box of the geometry as `[west, south, east, north]`.
+ */
+fun Geometry.bounds(): DoubleArray? {
+    val bounds = doubleArrayOf(
+        Double.MAX_VALUE,
+        Double.MAX_VALUE,
+        -Double.MAX_VALUE,
+        -Double.MAX_VALUE,
+    )
+    addToBounds(bounds)
+    return bounds.takeIf { it[0] <= it[2] }
+}
+
+private fun Geometry.addToBounds(bounds: DoubleArray) {
+    when (this) {
+        is Point -> addPoint(bounds, this)
+        is MultiPoint -> coordinates().forEach { addPoint(bounds, it) }
+        is LineString -> coordinates().forEach { addPoint(bounds, it) }
+        is MultiLineString -> coordinates().forEach { line ->
+            line.forEach { addPoint(bounds, it) }
+        }
+        is Polygon -> coordinates().forEach { ring -> ring.forEach { addPoint(bounds, it) } }
+        is MultiPolygon -> coordinates().forEach { polygon ->
+            polygon.forEach { ring -> ring.forEach { addPoint(bounds, it) } }
+        }
+        is GeometryCollection -> geometries().forEach { it.addToBounds(bounds) }
+    }
+}
+
+private fun addPoint(bounds: DoubleArray, point: Point) {
+    bounds[0] = minOf(bounds[0], point.longitude())
+    bounds[1] = minOf(bounds[1], point.latitude())
+    bounds[2] = maxOf(bounds[2], point.longitude())
+    bounds[3] = maxOf(bounds[3], point.latitude())
+}
@@ -0,0 +1,87 @@
+package org.dhis2.maps.geometry.index
+
+import kotlin.math.ceil
+import kotlin.math.sqrt
+
+private const val NODE_CAPACITY = 16
+
+/**
+ * Immutable R-tree bulk loaded with the Sort-Tile-Recursive algorithm. Items are stored with
+ * their bounding box as `[west, south, east, north]` and queried by intersection.
+ */
+class RTree<T> private constructor(private val root: Node<T>?) {
+
+    private class Node<T>(
+        val west: Double,
+        val south: Double,
+        val east: Double,
+        val north: Double,
+        val children: List<Node<T>> = emptyList(),
+        val item: T? = null,
+    ) {
+        val centerX: Double
+            get() = (west + east) / 2
+        val centerY: Double
+            get() = (south + north) / 2
+
+        fun intersects(west: Double, south: Double, east: Double, north: Double) =
+            this.west <= east && this.east >= west && this.south <= north && this.north >= south
+    }
+
+    fun isEmpty() = root == null
+
+    fun search(west: Double, south: Double, east: Double, north: Double): List<T> {
+        val result = mutableListOf<T>()
+        val root = root ?: return result
+        val pending = ArrayDeque<Node<T>>()
+        pending.add(root)
+        while (pending.isNotEmpty()) {
+            val node = pending.removeLast()
+            if (!node.intersects(west, south, east, north)) continue
+            if (node.item != null) {
+                result.add(node.item)
+            } else {
+                pending.addAll(node.children)
+            }
+        }
+        return result
+    }
+
+    fun search(longitude: Double, latitude: Double): List<T> =
+        search(longitude, latitude, longitude, latitude)
+
+    companion object {
+        fun <T> build(items: Iterable<T>, bounds: (T) -> DoubleArray?): RTree<T> {
+            var level = items.mapNotNull { item ->
+                bounds(item)?.let { box -> Node(box[0], box[1], box[2], box[3], item = item) }
+            }
+            if (level.isEmpty()) return RTree(null)
+            while (level.size > 1) {
+                level = pack(level)
+            }
+            return RTree(level.first())
+        }
+
+        private fun <T> pack(nodes: List<Node<T>>): List<Node<T>> {
+            val parentCount = ceil(nodes.size / NODE_CAPACITY.toDouble()).toInt()
+            val sliceCount = ceil(sqrt(parentCount.toDouble())).toInt()
+            val sliceSize = sliceCount * NODE_CAPACITY
+
+            val parents = ArrayList<Node<T>>(parentCount)
+            nodes.sortedBy { it.centerX }.chunked(sliceSize).forEach { slice ->
+                slice.sortedBy { it.centerY }.chunked(NODE_CAPACITY).forEach { children ->
+                    parents.add(
+                        Node(
+                            west = children.minOf { it.west },
+                            south = children.minOf { it.south },
+                            east = children.maxOf { it.east },
+                            north = children.maxOf { it.north },
+                            children = children,
+                        ),
+                    )
+                }
+            }
+            return parents
+        }
+    }
+}
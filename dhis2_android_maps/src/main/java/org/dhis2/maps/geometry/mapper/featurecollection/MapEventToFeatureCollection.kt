@@ -4,8 +4,8 @@ import com.mapbox.geojson.BoundingBox
 import com.mapbox.geojson.FeatureCollection
 import org.dhis2.maps.extensions.FeatureSource
 import org.dhis2.maps.extensions.PROPERTY_FEATURE_SOURCE
+import org.dhis2.maps.geometry.LngLatArray
 import org.dhis2.maps.geometry.bound.GetBoundingBox
-import org.dhis2.maps.geometry.getLatLngPointList
 import org.dhis2.maps.geometry.mapper.MapGeometryToFeature
 import org.hisp.dhis.android.core.event.Event
 
@@ -26,7 +26,7 @@ class MapEventToFeatureCollection(
 
         return Pair<FeatureCollection, BoundingBox>(
             FeatureCollection.fromFeatures(features),
-            bounds.getEnclosingBoundingBox(features.getLatLngPointList()),
+            bounds.getEnclosingBoundingBox(LngLatArray.fromPointFeatures(features)),
         )
     }
 
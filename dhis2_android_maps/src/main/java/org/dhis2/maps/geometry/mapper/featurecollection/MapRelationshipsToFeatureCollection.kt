@@ -2,8 +2,8 @@ package org.dhis2.maps.geometry.mapper.featurecollection
 
 import com.mapbox.geojson.BoundingBox
 import com.mapbox.geojson.FeatureCollection
+import org.dhis2.maps.geometry.LngLatArray
 import org.dhis2.maps.geometry.bound.GetBoundingBox
-import org.dhis2.maps.geometry.getLatLngPointList
 import org.dhis2.maps.geometry.line.MapLineRelationshipToFeature
 import org.dhis2.maps.geometry.mapper.addRelationFromInfo
 import org.dhis2.maps.geometry.mapper.addRelationToInfo
@@ -53,7 +53,7 @@ class MapRelationshipsToFeatureCollection(
                 listOf(lineFeatures, pointFromFeatures, pointToFeatures).flatten()
             }
 
-        val latLongList = relationshipByName.values.flatten().getLatLngPointList()
+        val coordinates = LngLatArray.fromPointFeatures(relationshipByName.values.flatten())
 
         return Pair<Map<String, FeatureCollection>, BoundingBox>(
             relationshipByName.mapValues {
@@ -61,7 +61,7 @@ class MapRelationshipsToFeatureCollection(
                     it.value,
                 )
             },
-            bounds.getEnclosingBoundingBox(latLongList),
+            bounds.getEnclosingBoundingBox(coordinates),
         )
     }
 
@@ -2,8 +2,8 @@ package org.dhis2.maps.geometry.mapper.featurecollection
 
 import com.mapbox.geojson.BoundingBox
 import com.mapbox.geojson.FeatureCollection
+import org.dhis2.maps.geometry.LngLatArray
 import org.dhis2.maps.geometry.bound.GetBoundingBox
-import org.dhis2.maps.geometry.getLatLngPointList
 import org.dhis2.maps.geometry.mapper.EventsByProgramStage
 import org.dhis2.maps.geometry.mapper.addTeiEventInfo
 import org.dhis2.maps.geometry.point.MapPointToFeature
@@ -39,11 +39,11 @@ class MapTeiEventsToFeatureCollection(
 
         val featureCollection = EventsByProgramStage(EVENT, featureCollectionMap)
 
-        val latLngList = eventsByProgramStage.values.flatten().getLatLngPointList()
+        val coordinates = LngLatArray.fromPointFeatures(eventsByProgramStage.values.flatten())
 
         return Pair(
             featureCollection,
-            bounds.getEnclosingBoundingBox(latLngList),
+            bounds.getEnclosingBoundingBox(coordinates),
         )
     }
 
@@ -11,45 +11,28 @@ import org.hisp.dhis.android.core.common.Geometry
 class MapPolygonToFeature {
 
     fun map(geometry: Geometry, bounds: BoundsGeometry): Pair<Feature, BoundsGeometry>? {
-        val sdkPolygon = GeometryHelper.getPolygon(geometry)
-        val pointList = ArrayList<Point>()
-
-        sdkPolygon.forEach {
-            it.forEach { coordinates ->
-                val lat = coordinates[1]
-                val lon = coordinates[0]
-                if (!areLngLatCorrect(lon, lat)) return@map null
-                bounds.update(lat, lon)
-                pointList.add(Point.fromLngLat(lon, lat))
-            }
-        }
-
-        val polygonArray = ArrayList<ArrayList<Point>>().apply {
-            add(pointList)
-        }
-
-        val polygon = Polygon.fromLngLats(polygonArray as List<MutableList<Point>>)
-        return Pair(Feature.fromGeometry(polygon), bounds)
+        val pointList = mapPoints(geometry) ?: return null
+        pointList.forEach { bounds.update(it.latitude(), it.longitude()) }
+        return Pair(Feature.fromGeometry(Polygon.fromLngLats(listOf(pointList))), bounds)
     }
 
     fun map(geometry: Geometry): Feature? {
+        val pointList = mapPoints(geometry) ?: return null
+        return Feature.fromGeometry(Polygon.fromLngLats(listOf(pointList)))
+    }
+
+    private fun mapPoints(geometry: Geometry): List<Point>? {
         val sdkPolygon = GeometryHelper.getPolygon(geometry)
-        val pointList = ArrayList<Point>()
+        val pointList = ArrayList<Point>(sdkPolygon.sumOf { it.size })
 
         sdkPolygon.forEach {
             it.forEach { coordinates ->
                 val lat = coordinates[1]
                 val lon = coordinates[0]
-                if (!areLngLatCorrect(lon, lat)) return@map null
+                if (!areLngLatCorrect(lon, lat)) return null
                 pointList.add(Point.fromLngLat(lon, lat))
             }
         }
-
-        val polygonArray = ArrayList<ArrayList<Point>>().apply {
-            add(pointList)
-        }
-
-        val polygon = Polygon.fromLngLats(polygonArray as List<MutableList<Point>>)
-        return Feature.fromGeometry(polygon)
+        return pointList
     }
 }
@@ -0,0 +1,102 @@
+package org.dhis2.maps.layer
+
+import android.graphics.Color
+import com.mapbox.geojson.FeatureCollection
+import com.mapbox.geojson.Point
+import com.mapbox.mapboxsdk.maps.Style
+import com.mapbox.mapboxsdk.style.expressions.Expression
+import com.mapbox.mapboxsdk.style.layers.CircleLayer
+import com.mapbox.mapboxsdk.style.layers.Layer
+import com.mapbox.mapboxsdk.style.layers.Property
+import com.mapbox.mapboxsdk.style.layers.PropertyFactory
+import com.mapbox.mapboxsdk.style.layers.SymbolLayer
+import com.mapbox.mapboxsdk.style.sources.GeoJsonOptions
+import org.dhis2.maps.layer.basemaps.DEFAULT_FONT
+import org.hisp.dhis.android.core.common.FeatureType
+
+const val CLUSTER_MAX_ZOOM = 13
+const val CLUSTER_RADIUS = 50
+const val POINT_COUNT = "point_count"
+private const val POINT_COUNT_ABBREVIATED = "point_count_abbreviated"
+
+/**
+ * Options for point sources that are aggregated per zoom level. Points closer than
+ * [CLUSTER_RADIUS] pixels are merged into a single cluster feature until [CLUSTER_MAX_ZOOM],
+ * above which every point is rendered on its own.
+ */
+fun clusteredSourceOptions(): GeoJsonOptions = GeoJsonOptions()
+    .withCluster(true)
+    .withClusterMaxZoom(CLUSTER_MAX_ZOOM)
+    .withClusterRadius(CLUSTER_RADIUS)
+
+/**
+ * Mapbox only clusters point geometries, so sources of any other feature type are added without
+ * clustering.
+ */
+fun isClusterable(featureType: FeatureType?) = featureType == FeatureType.POINT
+
+fun isClusterable(featureCollection: FeatureCollection?) =
+    featureCollection?.features().orEmpty().all { it.geometry() is Point }
+
+fun isCluster(): Expression = Expression.has(POINT_COUNT)
+
+fun isUnclusteredPoint(): Expression = Expression.all(
+    isPoint(),
+    Expression.not(isCluster()),
+)
+
+/**
+ * Circle and count layers drawn for the clusters of a clustered source.
+ */
+class ClusterLayers(
+    private val style: Style,
+    val sourceId: String,
+    private val color: Int?,
+) {
+    private val circleLayerId = "CLUSTER_CIRCLE_LAYER_$sourceId"
+    private val countLayerId = "CLUSTER_COUNT_LAYER_$sourceId"
+
+    private val circleLayer: Layer
+        get() = style.getLayer(circleLayerId)
+            ?: CircleLayer(circleLayerId, sourceId)
+                .withProperties(
+                    PropertyFactory.circleColor(color ?: Color.DKGRAY),
+                    PropertyFactory.circleRadius(
+                        Expression.step(
+                            Expression.get(POINT_COUNT),
+                            Expression.literal(14f),
+                            Expression.stop(10, 18f),
+                            Expression.stop(100, 22f),
+                            Expression.stop(1000, 28f),
+                        ),
+                    ),
+                    PropertyFactory.circleStrokeColor(Color.WHITE),
+                    PropertyFactory.circleStrokeWidth(2f),
+                    PropertyFactory.visibility(Property.NONE),
+                ).withFilter(isCluster())
+
+    private val countLayer: Layer
+        get() = style.getLayer(countLayerId)
+            ?: SymbolLayer(countLayerId, sourceId)
+                .withProperties(
+                    PropertyFactory.textField(Expression.get(POINT_COUNT_ABBREVIATED)),
+                    PropertyFactory.textFont(arrayOf(DEFAULT_FONT)),
+                    PropertyFactory.textSize(12f),
+                    PropertyFactory.textColor(Color.WHITE),
+                    PropertyFactory.textAllowOverlap(true),
+                    PropertyFactory.textIgnorePlacement(true),
+                    PropertyFactory.visibility(Property.NONE),
+                ).withFilter(isCluster())
+
+    fun addToStyle() {
+        style.addLayer(circleLayer)
+        style.addLayerAbove(countLayer, circleLayerId)
+    }
+
+    fun setVisibility(visibility: String) {
+        circleLayer.setProperties(PropertyFactory.visibility(visibility))
+        countLayer.setProperties(PropertyFactory.visibility(visibility))
+    }
+
+    fun layerIdToSearch(): String = circleLayerId
+}
@@ -24,4 +24,6 @@ interface MapLayer {
     fun getId(): String
 
     fun layerIdsToSearch(): Array<String> = emptyArray()
+
+    fun clusterLayers(): ClusterLayers? = null
 }
@@ -245,4 +245,7 @@ class MapLayerManager(
         .map { (sourceId, mapLayer) ->
             sourceId to mapLayer.layerIdsToSearch()
         }.toMap()
+
+    fun clusterLayersForSearch() = mapLayers.values.filter { it.visible }
+        .mapNotNull { it.clusterLayers() }
 }
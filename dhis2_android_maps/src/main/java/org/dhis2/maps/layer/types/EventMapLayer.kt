@@ -13,7 +13,9 @@ import com.mapbox.mapboxsdk.style.layers.SymbolLayer
 import com.mapbox.mapboxsdk.style.sources.GeoJsonSource
 import org.dhis2.commons.resources.ColorUtils
 import org.dhis2.maps.geometry.mapper.featurecollection.MapEventToFeatureCollection
+import org.dhis2.maps.layer.ClusterLayers
 import org.dhis2.maps.layer.MapLayer
+import org.dhis2.maps.layer.isCluster
 import org.dhis2.maps.managers.EventMapManager
 import org.hisp.dhis.android.core.common.FeatureType
 
@@ -31,11 +33,14 @@ class EventMapLayer(
     private var SELECTED_POLYGON_LAYER_ID: String = "SELECTED_POLYGON_LAYER_ID"
     private var SELECTED_POLYGON_SOURCE_ID = "SELECTED_POLYGON_SOURCE_ID"
 
+    private val clusterLayers = ClusterLayers(style, EventMapManager.EVENTS, eventColor)
+
     override var visible = false
 
     init {
         when (featureType) {
             FeatureType.POINT -> {
+                clusterLayers.addToStyle()
                 style.addLayer(pointLayer)
                 style.addSource(GeoJsonSource(SELECTED_POINT_SOURCE_ID))
                 style.addLayer(selectedPointLayer)
@@ -55,7 +60,8 @@ class EventMapLayer(
                 .withProperties(
                     PropertyFactory.iconImage(EventMapManager.ICON_ID),
                     PropertyFactory.iconAllowOverlap(true),
-                ).apply { minZoom = 0f }
+                ).withFilter(Expression.not(isCluster()))
+                .apply { minZoom = 0f }
 
     private val selectedPointLayer: Layer
         get() = style.getLayer(SELECTED_POINT_LAYER_ID)
@@ -82,6 +88,7 @@ class EventMapLayer(
     private fun setVisibility(visibility: String) {
         when (featureType) {
             FeatureType.POINT -> {
+                clusterLayers.setVisibility(visibility)
                 pointLayer.setProperties(PropertyFactory.visibility(visibility))
                 selectedPointLayer.setProperties(PropertyFactory.visibility(visibility))
             }
@@ -180,4 +187,7 @@ class EventMapLayer(
     }
 
     override fun layerIdsToSearch(): Array<String> = arrayOf(POINT_LAYER_ID)
+
+    override fun clusterLayers(): ClusterLayers? =
+        clusterLayers.takeIf { featureType == FeatureType.POINT }
 }
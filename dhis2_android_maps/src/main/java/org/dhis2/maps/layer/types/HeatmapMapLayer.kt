@@ -8,6 +8,7 @@ import com.mapbox.mapboxsdk.style.layers.Layer
 import com.mapbox.mapboxsdk.style.layers.Property
 import com.mapbox.mapboxsdk.style.layers.PropertyFactory
 import org.dhis2.maps.layer.MapLayer
+import org.dhis2.maps.layer.POINT_COUNT
 import org.dhis2.maps.managers.TeiMapManager
 
 const val HEATMAP_ICON = "HEATMAP_ICON"
@@ -45,6 +46,12 @@ class HeatmapMapLayer(val style: Style) :
                             Expression.stop(9, 20),
                         ),
                     ),
+                    PropertyFactory.heatmapWeight(
+                        Expression.coalesce(
+                            Expression.get(POINT_COUNT),
+                            Expression.literal(1),
+                        ),
+                    ),
                     PropertyFactory.visibility(Property.NONE),
                 )
 
@@ -11,10 +11,12 @@ import com.mapbox.mapboxsdk.style.layers.PropertyFactory
 import com.mapbox.mapboxsdk.style.layers.SymbolLayer
 import com.mapbox.mapboxsdk.style.sources.GeoJsonSource
 import org.dhis2.commons.resources.ColorUtils
+import org.dhis2.maps.layer.ClusterLayers
 import org.dhis2.maps.layer.MapLayer
 import org.dhis2.maps.layer.MapLayerManager
 import org.dhis2.maps.layer.isPoint
 import org.dhis2.maps.layer.isPolygon
+import org.dhis2.maps.layer.isUnclusteredPoint
 import org.dhis2.maps.layer.withInitialVisibility
 import org.dhis2.maps.layer.withTEIMarkerProperties
 import org.hisp.dhis.android.core.common.FeatureType
@@ -35,11 +37,14 @@ class TeiEventMapLayer(
 
     private var TEI_POINT_LAYER_ID = "EVENT_TEI_POINT_LAYER_ID_$sourceId"
 
+    private val clusterLayers = ClusterLayers(style, sourceId, eventColor)
+
     override var visible = false
 
     init {
         when (featureType) {
             FeatureType.POINT -> {
+                clusterLayers.addToStyle()
                 style.addLayer(pointLayer)
             }
             FeatureType.POLYGON -> {
@@ -60,14 +65,14 @@ class TeiEventMapLayer(
                     PropertyFactory.iconImage("${MapLayerManager.STAGE_ICON_ID}_$sourceId"),
                     PropertyFactory.iconAllowOverlap(true),
                     PropertyFactory.textAllowOverlap(true),
-                ).withFilter(isPoint())
+                ).withFilter(isUnclusteredPoint())
 
     private val teiPointLayer: Layer
         get() = style.getLayer(TEI_POINT_LAYER_ID)
             ?: SymbolLayer(TEI_POINT_LAYER_ID, sourceId)
                 .withTEIMarkerProperties()
                 .withInitialVisibility(Property.NONE)
-                .withFilter(isPoint())
+                .withFilter(isUnclusteredPoint())
 
     private val selectedPointLayer: Layer
         get() = style.getLayer(SELECTED_POINT_LAYER_ID)
@@ -95,6 +100,7 @@ class TeiEventMapLayer(
     private fun setVisibility(visibility: String) {
         when (featureType) {
             FeatureType.POINT -> {
+                clusterLayers.setVisibility(visibility)
                 pointLayer.setProperties(PropertyFactory.visibility(visibility))
             }
             FeatureType.POLYGON -> {
@@ -161,4 +167,7 @@ class TeiEventMapLayer(
             TEI_POINT_LAYER_ID,
         )
     }
+
+    override fun clusterLayers(): ClusterLayers? =
+        clusterLayers.takeIf { featureType == FeatureType.POINT }
 }
@@ -11,10 +11,12 @@ import com.mapbox.mapboxsdk.style.layers.PropertyFactory
 import com.mapbox.mapboxsdk.style.layers.SymbolLayer
 import com.mapbox.mapboxsdk.style.sources.GeoJsonSource
 import org.dhis2.commons.resources.ColorUtils
+import org.dhis2.maps.layer.ClusterLayers
 import org.dhis2.maps.layer.MapLayer
 import org.dhis2.maps.layer.MapLayerManager.Companion.TEI_ICON_ID
 import org.dhis2.maps.layer.isPoint
 import org.dhis2.maps.layer.isPolygon
+import org.dhis2.maps.layer.isUnclusteredPoint
 import org.dhis2.maps.layer.withInitialVisibility
 import org.dhis2.maps.layer.withTEIMarkerProperties
 import org.dhis2.maps.managers.TeiMapManager.Companion.TEIS_SOURCE_ID
@@ -38,11 +40,14 @@ class TeiMapLayer(
 
     private var TEI_POINT_LAYER_ID = "TEI_IMAGE_POINT_LAYER_ID"
 
+    private val clusterLayers = ClusterLayers(style, TEIS_SOURCE_ID, enrollmentColor)
+
     override var visible = false
 
     init {
         when (featureType) {
             FeatureType.POINT -> {
+                clusterLayers.addToStyle()
                 style.addLayer(pointLayer)
             }
             FeatureType.POLYGON -> {
@@ -64,14 +69,14 @@ class TeiMapLayer(
                     PropertyFactory.iconImage(TEI_ICON_ID),
                     PropertyFactory.iconAllowOverlap(true),
                     PropertyFactory.textAllowOverlap(true),
-                ).withFilter(isPoint())
+                ).withFilter(isUnclusteredPoint())
 
     private val teiPointLayer: Layer
         get() = style.getLayer(TEI_POINT_LAYER_ID)
             ?: SymbolLayer(TEI_POINT_LAYER_ID, TEIS_SOURCE_ID)
                 .withTEIMarkerProperties()
                 .withInitialVisibility(Property.NONE)
-                .withFilter(isPoint())
+                .withFilter(isUnclusteredPoint())
 
     private val selectedPointLayer: Layer
         get() = style.getLayer(SELECTED_POINT_LAYER_ID)
@@ -98,6 +103,7 @@ class TeiMapLayer(
     private fun setVisibility(visibility: String) {
         when (featureType) {
             FeatureType.POINT -> {
+                clusterLayers.setVisibility(visibility)
                 pointLayer.setProperties(PropertyFactory.visibility(visibility))
             }
             FeatureType.POLYGON -> {
@@ -163,4 +169,7 @@ class TeiMapLayer(
             TEI_POINT_LAYER_ID,
         )
     }
+
+    override fun clusterLayers(): ClusterLayers? =
+        clusterLayers.takeIf { featureType == FeatureType.POINT }
 }
@@ -16,6 +16,8 @@ import org.dhis2.maps.geometry.mapper.featurecollection.MapEventToFeatureCollect
 import org.dhis2.maps.geometry.mapper.featurecollection.MapRelationshipsToFeatureCollection
 import org.dhis2.maps.geometry.mapper.featurecollection.MapTeisToFeatureCollection
 import org.dhis2.maps.layer.LayerType
+import org.dhis2.maps.layer.clusteredSourceOptions
+import org.dhis2.maps.layer.isClusterable
 import org.hisp.dhis.android.core.common.FeatureType
 
 class EventMapManager(mapView: MapView) : MapManager(mapView) {
@@ -36,6 +38,7 @@ class EventMapManager(mapView: MapView) : MapManager(mapView) {
     ) {
         this.featureCollection = featureCollectionMap[EVENTS]
         this.deFeatureCollection = featureCollectionMap.filter { it.key != EVENTS }
+        featureIndex.update(featureCollectionMap)
         initCameraPosition(boundingBox)
         setSource()
         addDynamicIcons()
@@ -57,7 +60,13 @@ class EventMapManager(mapView: MapView) : MapManager(mapView) {
 
     override fun setSource() {
         (style?.getSource(EVENTS) as GeoJsonSource?)?.setGeoJson(featureCollection)
-            ?: style?.addSource(GeoJsonSource(EVENTS, featureCollection))
+            ?: style?.addSource(
+                if (isClusterable(featureType)) {
+                    GeoJsonSource(EVENTS, featureCollection, clusteredSourceOptions())
+                } else {
+                    GeoJsonSource(EVENTS, featureCollection)
+                },
+            )
         deFeatureCollection.forEach {
             (style?.getSource(it.key) as GeoJsonSource?)?.setGeoJson(it.value)
                 ?: style?.addSource(GeoJsonSource(it.key, it.value))
@@ -105,15 +114,7 @@ class EventMapManager(mapView: MapView) : MapManager(mapView) {
         propertyName: String,
         propertyValue: String,
     ): Feature? {
-        return if (source == EVENTS) {
-            featureCollection?.features()?.firstOrNull {
-                it.getStringProperty(propertyName) == propertyValue
-            }
-        } else {
-            deFeatureCollection[source]?.features()?.firstOrNull {
-                it.getStringProperty(propertyName) == propertyValue
-            }
-        }
+        return featureIndex.find(source, propertyName, propertyValue)
     }
 
     override fun findFeatures(
@@ -122,22 +123,23 @@ class EventMapManager(mapView: MapView) : MapManager(mapView) {
         propertyValue: String,
     ): List<Feature>? {
         return mutableListOf<Feature>().apply {
-            featureCollection?.features()?.filter {
-                mapLayerManager.getLayer(LayerType.EVENT_LAYER.name)?.visible == true &&
-                    it.getStringProperty(propertyName) == propertyValue
-            }?.map {
-                mapLayerManager.getLayer(LayerType.EVENT_LAYER.name)
-                    ?.setSelectedItem(it)
-                it
-            }?.let { addAll(it) }
-            deFeatureCollection.values.map { collection ->
-                collection.features()?.filter {
-                    mapLayerManager.getLayer(it.getStringProperty(FIELD_NAME))?.visible == true &&
-                        it.getStringProperty(propertyName) == propertyValue
-                }?.map {
-                    mapLayerManager.getLayer(it.getStringProperty(FIELD_NAME))?.setSelectedItem(it)
-                    it
-                }?.let { addAll(it) }
+            mapLayerManager.getLayer(LayerType.EVENT_LAYER.name)
+                ?.takeIf { it.visible }
+                ?.let { layer ->
+                    featureIndex.findAll(EVENTS, propertyName, propertyValue).forEach { feature ->
+                        layer.setSelectedItem(feature)
+                        add(feature)
+                    }
+                }
+            deFeatureCollection.keys.forEach { key ->
+                featureIndex.findAll(key, propertyName, propertyValue).forEach { feature ->
+                    mapLayerManager.getLayer(feature.getStringProperty(FIELD_NAME))
+                        ?.takeIf { it.visible }
+                        ?.let { layer ->
+                            layer.setSelectedItem(feature)
+                            add(feature)
+                        }
+                }
             }
         }
     }
@@ -170,6 +172,7 @@ class EventMapManager(mapView: MapView) : MapManager(mapView) {
     }
 
     override fun markFeatureAsSelected(point: LatLng, layer: String?): Feature? {
+        if (zoomIntoCluster(point)) return null
         val rectF = map?.projection?.toScreenLocation(point)?.let { pointf ->
             RectF(pointf.x - 10, pointf.y - 10, pointf.x + 10, pointf.y + 10)
         } ?: RectF()
@@ -1,6 +1,7 @@
 package org.dhis2.maps.managers
 
 import android.annotation.SuppressLint
+import android.graphics.RectF
 import android.os.Bundle
 import androidx.core.content.ContextCompat
 import androidx.lifecycle.Lifecycle
@@ -9,6 +10,7 @@ import androidx.lifecycle.OnLifecycleEvent
 import com.mapbox.geojson.BoundingBox
 import com.mapbox.geojson.Feature
 import com.mapbox.geojson.Point
+import com.mapbox.mapboxsdk.camera.CameraUpdateFactory
 import com.mapbox.mapboxsdk.geometry.LatLng
 import com.mapbox.mapboxsdk.geometry.LatLngBounds
 import com.mapbox.mapboxsdk.location.LocationComponentActivationOptions
@@ -19,6 +21,7 @@ import com.mapbox.mapboxsdk.maps.MapboxMap
 import com.mapbox.mapboxsdk.maps.Style
 import com.mapbox.mapboxsdk.plugins.annotation.SymbolManager
 import com.mapbox.mapboxsdk.plugins.markerview.MarkerViewManager
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource
 import org.dhis2.commons.bindings.dp
 import org.dhis2.commons.resources.ColorUtils
 import org.dhis2.maps.R
@@ -26,6 +29,7 @@ import org.dhis2.maps.attribution.AttributionManager
 import org.dhis2.maps.camera.initCameraToViewAllElements
 import org.dhis2.maps.camera.moveCameraToDevicePosition
 import org.dhis2.maps.carousel.CarouselAdapter
+import org.dhis2.maps.geometry.index.FeatureIndex
 import org.dhis2.maps.layer.MapLayerManager
 import org.dhis2.maps.layer.basemaps.BaseMapManager
 import org.dhis2.maps.layer.basemaps.BaseMapStyle
@@ -44,6 +48,7 @@ abstract class MapManager(val mapView: MapView) : LifecycleObserver {
     private var mapStyles: List<BaseMapStyle> = emptyList()
 
     private val colorUtils: ColorUtils = ColorUtils()
+    protected val featureIndex = FeatureIndex()
 
     var numberOfUiIcons: Int = 2
     val defaultUiIconLeftMargin = 8.dp
@@ -213,6 +218,15 @@ abstract class MapManager(val mapView: MapView) : LifecycleObserver {
         return emptyList()
     }
 
+    /**
+     * Features of every source whose geometry intersects [boundingBox].
+     */
+    fun findFeaturesInBounds(boundingBox: BoundingBox): Map<String, List<Feature>> {
+        return featureIndex.sources().associateWith { source ->
+            featureIndex.query(source, boundingBox)
+        }
+    }
+
     open fun getLayerName(source: String): String {
         return source
     }
@@ -221,6 +235,30 @@ abstract class MapManager(val mapView: MapView) : LifecycleObserver {
         return null
     }
 
+    /**
+     * Zooms in on the cluster found at [point] until its points start to split apart.
+     * Returns false when there is no visible cluster there.
+     */
+    protected fun zoomIntoCluster(point: LatLng): Boolean {
+        val pointf = map?.projection?.toScreenLocation(point) ?: return false
+        val rectF = RectF(pointf.x - 10, pointf.y - 10, pointf.x + 10, pointf.y + 10)
+        mapLayerManager.clusterLayersForSearch().forEach { clusterLayers ->
+            val cluster = map?.queryRenderedFeatures(rectF, clusterLayers.layerIdToSearch())
+                ?.firstOrNull() ?: return@forEach
+            val clusterPoint = cluster.geometry() as? Point ?: return@forEach
+            val expansionZoom = style?.getSourceAs<GeoJsonSource>(clusterLayers.sourceId)
+                ?.getClusterExpansionZoom(cluster) ?: return@forEach
+            map?.animateCamera(
+                CameraUpdateFactory.newLatLngZoom(
+                    pointToLatLn(clusterPoint),
+                    expansionZoom.toDouble(),
+                ),
+            )
+            return true
+        }
+        return false
+    }
+
     @SuppressLint("MissingPermission")
     private fun enableLocationComponent(
         style: Style,
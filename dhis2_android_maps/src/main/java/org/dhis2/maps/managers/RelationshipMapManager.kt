@@ -27,6 +27,7 @@ class RelationshipMapManager(mapView: MapView) : MapManager(mapView) {
     fun update(featureCollections: Map<String, FeatureCollection>, boundingBox: BoundingBox) {
         this.featureCollections = featureCollections
         this.boundingBox = boundingBox
+        featureIndex.update(featureCollections)
         if (isMapReady()) {
             when {
                 mapLayerManager.mapLayers.isNotEmpty() -> updateStyleSources()
@@ -93,9 +94,7 @@ class RelationshipMapManager(mapView: MapView) : MapManager(mapView) {
         propertyName: String,
         propertyValue: String,
     ): Feature? {
-        return featureCollections[source]?.features()?.firstOrNull {
-            it.getStringProperty(propertyName) == propertyValue
-        }
+        return featureIndex.find(source, propertyName, propertyValue)
     }
 
     override fun findFeature(propertyValue: String): Feature? {
@@ -5,6 +5,7 @@ import android.graphics.Color
 import android.graphics.PointF
 import android.graphics.RectF
 import android.graphics.drawable.Drawable
+import android.util.LruCache
 import androidx.appcompat.content.res.AppCompatResources
 import androidx.core.graphics.drawable.DrawableCompat
 import com.bumptech.glide.Glide
@@ -15,6 +16,7 @@ import com.mapbox.geojson.Feature
 import com.mapbox.geojson.FeatureCollection
 import com.mapbox.mapboxsdk.geometry.LatLng
 import com.mapbox.mapboxsdk.maps.MapView
+import com.mapbox.mapboxsdk.maps.MapboxMap
 import com.mapbox.mapboxsdk.style.sources.GeoJsonSource
 import com.mapbox.mapboxsdk.utils.BitmapUtils
 import org.dhis2.commons.bindings.dp
@@ -28,6 +30,8 @@ import org.dhis2.maps.geometry.mapper.featurecollection.MapTeisToFeatureCollecti
 import org.dhis2.maps.geometry.mapper.featurecollection.MapTeisToFeatureCollection.Companion.TEI_UID
 import org.dhis2.maps.layer.LayerType
 import org.dhis2.maps.layer.MapLayerManager
+import org.dhis2.maps.layer.clusteredSourceOptions
+import org.dhis2.maps.layer.isClusterable
 import org.dhis2.maps.model.MapStyle
 import org.hisp.dhis.android.core.common.FeatureType
 import java.util.HashMap
@@ -38,7 +42,18 @@ class TeiMapManager(mapView: MapView) : MapManager(mapView) {
     private var teiFeatureCollections: HashMap<String, FeatureCollection>? = null
     private var eventsFeatureCollection: Map<String, FeatureCollection>? = null
     var mapStyle: MapStyle? = null
-    private var teiImages: HashMap<String, Bitmap> = hashMapOf()
+    private val teiImages = object : LruCache<String, Bitmap>(MAX_TEI_IMAGES) {
+        override fun entryRemoved(
+            evicted: Boolean,
+            key: String,
+            oldValue: Bitmap,
+            newValue: Bitmap?,
+        ) {
+            if (evicted) style?.removeImage(key)
+        }
+    }
+    private val pendingTeiImages = mutableSetOf<String>()
+    private val onCameraIdleListener = MapboxMap.OnCameraIdleListener { loadVisibleTeiImages() }
     var teiFeatureType: FeatureType? = FeatureType.POINT
     var enrollmentFeatureType: FeatureType? = FeatureType.POINT
     private var boundingBox: BoundingBox? = null
@@ -50,28 +65,29 @@ class TeiMapManager(mapView: MapView) : MapManager(mapView) {
     companion object {
         const val TEIS_SOURCE_ID = "TEIS_SOURCE_ID"
         const val ENROLLMENT_SOURCE_ID = "ENROLLMENT_SOURCE_ID"
+        private const val MAX_TEI_IMAGES = 200
     }
 
     fun update(
         teiFeatureCollections: HashMap<String, FeatureCollection>,
         eventsFeatureCollection: EventsByProgramStage,
         fieldFeatures: MutableMap<String, FeatureCollection>,
-        boundingBox: BoundingBox,
+        boundingBox: BoundingBox?,
     ) {
         this.teiFeatureCollections = teiFeatureCollections
         this.eventsFeatureCollection = eventsFeatureCollection.featureCollectionMap
         this.teiFeatureCollections?.putAll(eventsFeatureCollection.featureCollectionMap)
         this.fieldFeatureCollections = fieldFeatures
         this.boundingBox = boundingBox
+        featureIndex.update(fieldFeatures + teiFeatureCollections)
 
-        teiImages.forEach { entry ->
-            style?.removeImage(entry.key)
+        teiImages.snapshot().keys.forEach { teiUid ->
+            style?.removeImage(teiUid)
         }
 
         addDynamicIcons()
-        teiFeatureCollections[TEIS_SOURCE_ID]?.let {
-            setTeiImages(it)
-        }
+        setSource()
+        loadVisibleTeiImages()
         addDynamicLayers()
     }
 
@@ -136,10 +152,9 @@ class TeiMapManager(mapView: MapView) : MapManager(mapView) {
         )
 
         mapView.addOnStyleImageMissingListener { id ->
-            teiFeatureCollections?.get(TEIS_SOURCE_ID)?.features()
-                ?.firstOrNull { id == it.getStringProperty(TEI_UID) }
+            featureIndex.find(TEIS_SOURCE_ID, TEI_UID, id)
                 ?.let {
-                    teiImages[id]?.let { it1 -> style?.addImage(id, it1) }
+                    teiImages.get(id)?.let { it1 -> style?.addImage(id, it1) }
                 } ?: mapStyle?.teiSymbolIcon?.let {
                 style?.addImage(
                     id,
@@ -151,6 +166,8 @@ class TeiMapManager(mapView: MapView) : MapManager(mapView) {
                 )
             }
         }
+        map?.removeOnCameraIdleListener(onCameraIdleListener)
+        map?.addOnCameraIdleListener(onCameraIdleListener)
         setLayer()
         addDynamicIcons()
         addDynamicLayers()
@@ -174,7 +191,13 @@ class TeiMapManager(mapView: MapView) : MapManager(mapView) {
     override fun setSource() {
         teiFeatureCollections?.keys?.forEach {
             style?.getSourceAs<GeoJsonSource>(it)?.setGeoJson(teiFeatureCollections!![it])
-                ?: style?.addSource(GeoJsonSource(it, teiFeatureCollections!![it]))
+                ?: style?.addSource(
+                    if (isClusteredSource(it)) {
+                        GeoJsonSource(it, teiFeatureCollections!![it], clusteredSourceOptions())
+                    } else {
+                        GeoJsonSource(it, teiFeatureCollections!![it])
+                    },
+                )
         }
         fieldFeatureCollections.forEach {
             (style?.getSource(it.key) as GeoJsonSource?)?.setGeoJson(it.value)
@@ -184,41 +207,63 @@ class TeiMapManager(mapView: MapView) : MapManager(mapView) {
         boundingBox?.let { initCameraPosition(it) }
     }
 
-    private fun setTeiImages(featureCollection: FeatureCollection) {
-        val featuresWithImages = featureCollection.features()
-            ?.filter { it.getStringProperty(TEI_IMAGE)?.isNotEmpty() ?: false }
+    private fun isClusteredSource(sourceId: String) = when {
+        sourceId == TEIS_SOURCE_ID -> isClusterable(teiFeatureType)
+        eventsFeatureCollection?.containsKey(sourceId) == true ->
+            isClusterable(eventsFeatureCollection?.get(sourceId))
+        else -> false
+    }
 
-        featuresWithImages?.run {
-            when {
-                isNotEmpty() -> getImagesAndSetSource(this)
-                else -> setSource()
+    /**
+     * Profile images are only requested for the TEIs inside the visible region, so large result
+     * sets do not start a download per TEI. Until an image is ready the TEI uses the default
+     * marker, and it is replaced in the style as soon as the image loads.
+     */
+    private fun loadVisibleTeiImages() {
+        val visibleBounds = map?.projection?.visibleRegion?.latLngBounds ?: return
+        val boundingBox = BoundingBox.fromLngLats(
+            visibleBounds.lonWest,
+            visibleBounds.latSouth,
+            visibleBounds.lonEast,
+            visibleBounds.latNorth,
+        )
+        featureIndex.query(TEIS_SOURCE_ID, boundingBox)
+            .asSequence()
+            .filter { it.getStringProperty(TEI_IMAGE)?.isNotEmpty() ?: false }
+            .filter { feature ->
+                val teiUid = feature.getStringProperty(TEI_UID)
+                teiUid != null && teiImages.get(teiUid) == null && teiUid !in pendingTeiImages
             }
-        }
+            .take((MAX_TEI_IMAGES - pendingTeiImages.size).coerceAtLeast(0))
+            .forEach { loadTeiImage(it) }
     }
 
-    private fun getImagesAndSetSource(featuresWithImages: List<Feature>) {
-        featuresWithImages.forEachIndexed { index, feature ->
-            Glide.with(mapView.context)
-                .asBitmap()
-                .load(feature.getStringProperty(TEI_IMAGE))
-                .transform(CircleCrop())
-                .into(object : CustomTarget<Bitmap>(30.dp, 30.dp) {
-                    override fun onResourceReady(
-                        resource: Bitmap,
-                        transition: com.bumptech.glide.request.transition.Transition<in Bitmap>?,
-                    ) {
-                        teiImages[feature.getStringProperty(TEI_UID)] = TeiMarkers.getMarker(
-                            mapView.context,
-                            resource,
-                        )
-                        if (index == featuresWithImages.size - 1) {
-                            setSource()
-                        }
-                    }
+    private fun loadTeiImage(feature: Feature) {
+        val teiUid = feature.getStringProperty(TEI_UID)
+        pendingTeiImages.add(teiUid)
+        Glide.with(mapView.context)
+            .asBitmap()
+            .load(feature.getStringProperty(TEI_IMAGE))
+            .transform(CircleCrop())
+            .into(object : CustomTarget<Bitmap>(30.dp, 30.dp) {
+                override fun onResourceReady(
+                    resource: Bitmap,
+                    transition: com.bumptech.glide.request.transition.Transition<in Bitmap>?,
+                ) {
+                    pendingTeiImages.remove(teiUid)
+                    val marker = TeiMarkers.getMarker(mapView.context, resource)
+                    teiImages.put(teiUid, marker)
+                    style?.addImage(teiUid, marker)
+                }
 
-                    override fun onLoadCleared(placeholder: Drawable?) {}
-                })
-        }
+                override fun onLoadFailed(errorDrawable: Drawable?) {
+                    pendingTeiImages.remove(teiUid)
+                }
+
+                override fun onLoadCleared(placeholder: Drawable?) {
+                    pendingTeiImages.remove(teiUid)
+                }
+            })
     }
 
     private fun addDynamicLayers() {
@@ -277,11 +322,7 @@ class TeiMapManager(mapView: MapView) : MapManager(mapView) {
         propertyName: String,
         propertyValue: String,
     ): Feature? {
-        return teiFeatureCollections?.get(source)?.features()?.firstOrNull {
-            it.getStringProperty(propertyName) == propertyValue
-        } ?: fieldFeatureCollections[source]?.features()?.firstOrNull {
-            it.getStringProperty(propertyName) == propertyValue
-        }
+        return featureIndex.find(source, propertyName, propertyValue)
     }
 
     override fun findFeature(propertyValue: String): Feature? {
@@ -290,38 +331,24 @@ class TeiMapManager(mapView: MapView) : MapManager(mapView) {
             RELATIONSHIP_UID,
             MapEventToFeatureCollection.EVENT,
         )
-        var featureToReturn: Feature? = null
-        mainLoop@ for (
-        source in teiFeatureCollections?.filterKeys {
-            it != ENROLLMENT_SOURCE_ID
-        }?.keys!!
-        ) {
-            sourceLoop@ for (propertyLabel in mainProperties) {
-                val feature = findFeature(source, propertyLabel, propertyValue)
-                if (feature != null) {
-                    featureToReturn = feature
-                    break@sourceLoop
-                }
-            }
-            if (featureToReturn != null) {
-                break@mainLoop
-            }
-        }
+        val teiSources = teiFeatureCollections?.keys?.filter { it != ENROLLMENT_SOURCE_ID }
+            ?: emptyList()
 
-        mainLoop@ for (source in fieldFeatureCollections.keys) {
-            sourceLoop@ for (propertyLabel in mainProperties) {
-                val feature = findFeature(source, propertyLabel, propertyValue)
-                if (feature != null) {
-                    featureToReturn = feature
-                    break@sourceLoop
-                }
-            }
-            if (featureToReturn != null) {
-                break@mainLoop
+        return findFeature(fieldFeatureCollections.keys, mainProperties, propertyValue)
+            ?: findFeature(teiSources, mainProperties, propertyValue)
+    }
+
+    private fun findFeature(
+        sources: Collection<String>,
+        properties: List<String>,
+        propertyValue: String,
+    ): Feature? {
+        sources.forEach { source ->
+            properties.forEach { propertyLabel ->
+                featureIndex.find(source, propertyLabel, propertyValue)?.let { return it }
             }
         }
-
-        return featureToReturn
+        return null
     }
 
     override fun findFeatures(
@@ -330,46 +357,37 @@ class TeiMapManager(mapView: MapView) : MapManager(mapView) {
         propertyValue: String,
     ): List<Feature> {
         return mutableListOf<Feature>().apply {
-            teiFeatureCollections?.filterKeys { it != ENROLLMENT_SOURCE_ID }
-                ?.map { (key, collection) ->
-                    collection.features()?.filter {
-                        mapLayerManager.getLayer(key)?.visible == true &&
-                            it.getStringProperty(propertyName) == propertyValue
-                    }?.map {
-                        mapLayerManager.getLayer(key)?.setSelectedItem(it)
-                        it
-                    }?.let {
-                        mapLayerManager.getLayer(key)?.setSelectedItem(it)
-                        addAll(it)
-                    }
+            teiFeatureCollections?.keys?.filter { it != ENROLLMENT_SOURCE_ID }?.forEach { key ->
+                val layer = mapLayerManager.getLayer(key)
+                if (layer?.visible == true) {
+                    val features = featureIndex.findAll(key, propertyName, propertyValue)
+                    features.forEach { layer.setSelectedItem(it) }
+                    layer.setSelectedItem(features)
+                    addAll(features)
                 }
+            }
 
-            teiFeatureCollections?.filterKeys {
-                it == ENROLLMENT_SOURCE_ID && mapLayerManager.getLayer(
-                    ENROLLMENT_SOURCE_ID,
-                )?.visible == true
+            if (teiFeatureCollections?.containsKey(ENROLLMENT_SOURCE_ID) == true) {
+                mapLayerManager.getLayer(ENROLLMENT_SOURCE_ID)
+                    ?.takeIf { it.visible }
+                    ?.let { layer ->
+                        featureIndex.findAll(ENROLLMENT_SOURCE_ID, propertyName, propertyValue)
+                            .forEach { feature ->
+                                layer.setSelectedItem(feature)
+                                add(feature)
+                            }
+                    }
             }
-                ?.map { (key, collection) ->
-                    collection.features()?.filter {
-                        it.getStringProperty(propertyName) == propertyValue
-                    }?.map {
-                        mapLayerManager.getLayer(ENROLLMENT_SOURCE_ID)?.setSelectedItem(it)
-                        it
-                    }?.let { addAll(it) }
-                }
 
-            fieldFeatureCollections.values.map { collection ->
-                collection.features()?.filter {
-                    mapLayerManager.getLayer(
-                        it.getStringProperty(MapCoordinateFieldToFeatureCollection.FIELD_NAME),
-                    )?.visible == true &&
-                        it.getStringProperty(propertyName) == propertyValue
-                }?.map {
+            fieldFeatureCollections.keys.forEach { key ->
+                featureIndex.findAll(key, propertyName, propertyValue).forEach { feature ->
                     mapLayerManager.getLayer(
-                        it.getStringProperty(MapCoordinateFieldToFeatureCollection.FIELD_NAME),
-                    )?.setSelectedItem(it)
-                    it
-                }?.let { addAll(it) }
+                        feature.getStringProperty(MapCoordinateFieldToFeatureCollection.FIELD_NAME),
+                    )?.takeIf { it.visible }?.let { layer ->
+                        layer.setSelectedItem(feature)
+                        add(feature)
+                    }
+                }
             }
         }
     }
@@ -409,6 +427,7 @@ class TeiMapManager(mapView: MapView) : MapManager(mapView) {
     }
 
     override fun markFeatureAsSelected(point: LatLng, layer: String?): Feature? {
+        if (zoomIntoCluster(point)) return null
         val pointf: PointF = map?.projection?.toScreenLocation(point)!!
         val rectF = RectF(pointf.x - 10, pointf.y - 10, pointf.x + 10, pointf.y + 10)
 
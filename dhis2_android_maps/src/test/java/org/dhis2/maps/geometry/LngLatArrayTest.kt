@@ -0,0 +1,72 @@
+package org.dhis2.maps.geometry
+
+import com.mapbox.geojson.Feature
+import com.mapbox.geojson.LineString
+import com.mapbox.geojson.Point
+import com.mapbox.mapboxsdk.geometry.LatLng
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import kotlin.random.Random
+
+class LngLatArrayTest {
+
+    @Test
+    fun `Should find the same closest pair as comparing every vertex`() {
+        val random = Random(42)
+        val polygonA = LngLatArray.fromRing(ring(random, 2000, centerLng = 10.0, centerLat = 5.0))
+        val polygonB = LngLatArray.fromRing(ring(random, 2000, centerLng = 10.5, centerLat = 5.3))
+
+        val (fromIndex, toIndex) = polygonA.closestPairTo(polygonB)!!
+
+        var expectedDistance = Double.MAX_VALUE
+        for (from in 0 until polygonA.size) {
+            for (to in 0 until polygonB.size) {
+                expectedDistance = minOf(
+                    expectedDistance,
+                    polygonA.latLng(from).distanceTo(polygonB.latLng(to)),
+                )
+            }
+        }
+        assertEquals(
+            expectedDistance,
+            polygonA.latLng(fromIndex).distanceTo(polygonB.latLng(toIndex)),
+            1e-9,
+        )
+    }
+
+    @Test
+    fun `Should return enclosing bounds of point features`() {
+        val coordinates = LngLatArray.fromPointFeatures(
+            listOf(
+                Feature.fromGeometry(Point.fromLngLat(2.0, -1.0)),
+                null,
+                Feature.fromGeometry(
+                    LineString.fromLngLats(
+                        listOf(Point.fromLngLat(50.0, 50.0), Point.fromLngLat(60.0, 60.0)),
+                    ),
+                ),
+                Feature.fromGeometry(Point.fromLngLat(-3.0, 4.0)),
+            ),
+        )
+
+        assertEquals(2, coordinates.size)
+        assertArrayEquals(doubleArrayOf(-3.0, -1.0, 2.0, 4.0), coordinates.bounds(), 0.0)
+        assertNull(LngLatArray(DoubleArray(0)).bounds())
+    }
+
+    private fun ring(
+        random: Random,
+        size: Int,
+        centerLng: Double,
+        centerLat: Double,
+    ): List<List<Double>> = List(size) {
+        listOf(
+            centerLng + random.nextDouble(-0.5, 0.5),
+            centerLat + random.nextDouble(-0.5, 0.5),
+        )
+    }
+
+    private fun LngLatArray.latLng(index: Int) = LatLng(latitude(index), longitude(index))
+}
@@ -0,0 +1,66 @@
+package org.dhis2.maps.geometry.index
+
+import com.mapbox.geojson.BoundingBox
+import com.mapbox.geojson.Feature
+import com.mapbox.geojson.FeatureCollection
+import com.mapbox.geojson.Point
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class FeatureIndexTest {
+
+    private val featureIndex = FeatureIndex()
+
+    @Test
+    fun `Should find features by property value in each source`() {
+        val teis = featureCollection(100) { "tei$it" }
+        val events = featureCollection(10) { "event$it" }
+        featureIndex.update(mapOf("TEIS" to teis, "EVENTS" to events))
+
+        assertSame(teis.features()!![42], featureIndex.find("TEIS", UID, "tei42"))
+        assertNull(featureIndex.find("EVENTS", UID, "tei42"))
+        assertEquals(1, featureIndex.findAll("EVENTS", UID, "event3").size)
+    }
+
+    @Test
+    fun `Should query features inside a bounding box`() {
+        val grid = featureCollection(10_000) { "tei$it" }
+        featureIndex.update(mapOf("TEIS" to grid))
+
+        val result = featureIndex.query("TEIS", BoundingBox.fromLngLats(1.5, 1.5, 3.5, 3.5))
+
+        assertEquals(
+            setOf("tei202", "tei203", "tei302", "tei303"),
+            result.map { it.getStringProperty(UID) }.toSet(),
+        )
+    }
+
+    @Test
+    fun `Should query features at a point`() {
+        val grid = featureCollection(1000) { "tei$it" }
+        featureIndex.update(mapOf("TEIS" to grid))
+
+        val result = featureIndex.query("TEIS", 5.0, 7.0)
+
+        assertEquals(listOf("tei705"), result.map { it.getStringProperty(UID) })
+        assertTrue(featureIndex.query("TEIS", 50.0, 70.0).isEmpty())
+    }
+
+    private fun featureCollection(size: Int, uid: (Int) -> String): FeatureCollection {
+        val columns = 100
+        return FeatureCollection.fromFeatures(
+            (0 until size).map { index ->
+                Feature.fromGeometry(
+                    Point.fromLngLat((index % columns).toDouble(), (index / columns).toDouble()),
+                ).apply { addStringProperty(UID, uid(index)) }
+            },
+        )
+    }
+
+    companion object {
+        private const val UID = "uid"
+    }
+}
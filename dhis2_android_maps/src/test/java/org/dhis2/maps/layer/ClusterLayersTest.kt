@@ -0,0 +1,44 @@
+package org.dhis2.maps.layer
+
+import com.mapbox.geojson.Feature
+import com.mapbox.geojson.FeatureCollection
+import com.mapbox.geojson.Point
+import com.mapbox.geojson.Polygon
+import org.hisp.dhis.android.core.common.FeatureType
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class ClusterLayersTest {
+
+    @Test
+    fun `Should cluster point sources`() {
+        assertTrue(isClusterable(FeatureType.POINT))
+        assertTrue(isClusterable(featureCollection(point(), point())))
+    }
+
+    @Test
+    fun `Should not cluster polygon sources`() {
+        assertFalse(isClusterable(FeatureType.POLYGON))
+        assertFalse(isClusterable(FeatureType.MULTI_POLYGON))
+        assertFalse(isClusterable(featureCollection(point(), polygon())))
+    }
+
+    private fun featureCollection(vararg features: Feature) =
+        FeatureCollection.fromFeatures(features.toList())
+
+    private fun point() = Feature.fromGeometry(Point.fromLngLat(1.0, 2.0))
+
+    private fun polygon() = Feature.fromGeometry(
+        Polygon.fromLngLats(
+            listOf(
+                listOf(
+                    Point.fromLngLat(0.0, 0.0),
+                    Point.fromLngLat(1.0, 0.0),
+                    Point.fromLngLat(1.0, 1.0),
+                    Point.fromLngLat(0.0, 0.0),
+                ),
+            ),
+        ),
+    )
+}
@@ -18,11 +18,25 @@ interface Charts {
 
     fun geEnrollmentCharts(enrollmentUid: String): List<Graph>
 
-    fun getProgramVisualizations(groupUid: String?, programUid: String): List<Graph>
+    /**
+     * [onGraphsLoaded] is called with the graphs loaded so far while the rest are evaluated.
+     */
+    fun getProgramVisualizations(
+        groupUid: String?,
+        programUid: String,
+        onGraphsLoaded: ((List<Graph>) -> Unit)? = null,
+    ): List<Graph>
 
-    fun getHomeVisualizations(groupUid: String?): List<Graph>
+    fun getHomeVisualizations(
+        groupUid: String?,
+        onGraphsLoaded: ((List<Graph>) -> Unit)? = null,
+    ): List<Graph>
 
-    fun getDataSetVisualizations(groupUid: String?, dataSetUid: String): List<Graph>
+    fun getDataSetVisualizations(
+        groupUid: String?,
+        dataSetUid: String,
+        onGraphsLoaded: ((List<Graph>) -> Unit)? = null,
+    ): List<Graph>
 
     fun setVisualizationPeriods(
         visualizationUid: String,
@@ -8,10 +8,24 @@ import org.hisp.dhis.android.core.settings.AnalyticsDhisVisualizationsGroup
 
 interface ChartsRepository {
     fun getAnalyticsForEnrollment(enrollmentUid: String): List<Graph>
-    fun getProgramVisualization(groupUid: String?, programUid: String): List<Graph>
-    fun getHomeVisualization(groupUid: String?): List<Graph>
+    fun getProgramVisualization(
+        groupUid: String?,
+        programUid: String,
+        onGraphsLoaded: ((List<Graph>) -> Unit)? = null,
+    ): List<Graph>
+
+    fun getHomeVisualization(
+        groupUid: String?,
+        onGraphsLoaded: ((List<Graph>) -> Unit)? = null,
+    ): List<Graph>
+
     fun getVisualizationGroups(uid: String?): List<AnalyticsDhisVisualizationsGroup>
-    fun getDataSetVisualization(groupUid: String?, dataSetUid: String): List<Graph>
+    fun getDataSetVisualization(
+        groupUid: String?,
+        dataSetUid: String,
+        onGraphsLoaded: ((List<Graph>) -> Unit)? = null,
+    ): List<Graph>
+
     fun setVisualizationPeriods(
         visualizationUid: String,
         lineListingColumnId: Int?,
@@ -20,14 +20,34 @@ import org.hisp.dhis.android.core.analytics.trackerlinelist.TrackerLineListRespo
 import org.hisp.dhis.android.core.arch.repositories.paging.PageConfig
 import org.hisp.dhis.android.core.common.RelativeOrganisationUnit
 import org.hisp.dhis.android.core.common.RelativePeriod
+import org.hisp.dhis.android.core.common.State
 import org.hisp.dhis.android.core.dataelement.DataElement
+import org.hisp.dhis.android.core.datavalue.DataValueTableInfo
 import org.hisp.dhis.android.core.enrollment.Enrollment
+import org.hisp.dhis.android.core.enrollment.EnrollmentTableInfo
+import org.hisp.dhis.android.core.event.EventTableInfo
 import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
 import org.hisp.dhis.android.core.period.PeriodType
 import org.hisp.dhis.android.core.program.ProgramIndicator
+import org.hisp.dhis.android.core.settings.AnalyticsDhisVisualization
 import org.hisp.dhis.android.core.settings.AnalyticsDhisVisualizationType
 import org.hisp.dhis.android.core.settings.AnalyticsDhisVisualizationsGroup
 import org.hisp.dhis.android.core.settings.AnalyticsDhisVisualizationsSetting
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityInstanceTableInfo
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Executors
+
+private const val MAX_CONCURRENT_EVALUATIONS = 4
+private const val LAST_UPDATED = "lastUpdated"
+
+private val visualizationEvaluationExecutor: Executor by lazy {
+    Executors.newFixedThreadPool(MAX_CONCURRENT_EVALUATIONS) { runnable ->
+        Thread(runnable, "VisualizationEvaluation").apply { isDaemon = true }
+    }
+}
 
 class ChartsRepositoryImpl(
     private val d2: D2,
@@ -37,9 +57,12 @@ class ChartsRepositoryImpl(
     private val programIndicatorToGraph: ProgramIndicatorToGraph,
     private val analyticsResources: AnalyticResources,
     private val analyticsFilterProvider: AnalyticsFilterProvider,
+    private val visualizationCache: VisualizationResultCache = VisualizationResultCache(),
+    private val evaluationExecutor: Executor = visualizationEvaluationExecutor,
 ) : ChartsRepository {
 
-    private val lineListHeaderCache: MutableMap<String, List<TrackerLineListItem>> = mutableMapOf()
+    private val lineListHeaderCache: MutableMap<String, List<TrackerLineListItem>> =
+        ConcurrentHashMap()
 
     override fun getAnalyticsForEnrollment(enrollmentUid: String): List<Graph> {
         val enrollment = getEnrollment(enrollmentUid)
@@ -72,103 +95,155 @@ class ChartsRepositoryImpl(
             } ?: emptyList()
     }
 
-    override fun getDataSetVisualization(groupUid: String?, dataSetUid: String): List<Graph> {
-        val graphList = mutableListOf<Graph>()
+    override fun getDataSetVisualization(
+        groupUid: String?,
+        dataSetUid: String,
+        onGraphsLoaded: ((List<Graph>) -> Unit)?,
+    ): List<Graph> {
         val visualizationSettings: AnalyticsDhisVisualizationsSetting? =
             d2.settingModule().analyticsSetting()
                 .visualizationsSettings()
                 .blockingGet()
 
-        visualizationSettings
+        val visualizationGroups = visualizationSettings
             ?.dataSet()?.get(dataSetUid)?.filter { visualizationGroup ->
                 visualizationGroup.hasGroup(groupUid)
-            }?.forEach { visualizationGroup ->
-                addVisualizationsInGroup(visualizationGroup, graphList)
-            }
+            } ?: emptyList()
 
-        return graphList
+        return loadVisualizations(visualizationGroups, onGraphsLoaded)
     }
 
-    override fun getProgramVisualization(groupUid: String?, programUid: String): List<Graph> {
-        val graphList = mutableListOf<Graph>()
+    override fun getProgramVisualization(
+        groupUid: String?,
+        programUid: String,
+        onGraphsLoaded: ((List<Graph>) -> Unit)?,
+    ): List<Graph> {
         val visualizationSettings: AnalyticsDhisVisualizationsSetting? =
             d2.settingModule().analyticsSetting()
                 .visualizationsSettings()
                 .blockingGet()
 
-        visualizationSettings
+        val visualizationGroups = visualizationSettings
             ?.program()?.get(programUid)?.filter {
                 if (groupUid != null) {
                     it.id() == groupUid
                 } else {
                     true
                 }
-            }
-            ?.forEach { visualizationGroup ->
-                addVisualizationsInGroup(
-                    visualizationGroup,
-                    graphList,
-                )
-            }
+            } ?: emptyList()
 
-        return graphList
+        return loadVisualizations(visualizationGroups, onGraphsLoaded)
     }
 
-    override fun getHomeVisualization(groupUid: String?): List<Graph> {
-        val graphList = mutableListOf<Graph>()
+    override fun getHomeVisualization(
+        groupUid: String?,
+        onGraphsLoaded: ((List<Graph>) -> Unit)?,
+    ): List<Graph> {
         val visualizationSettings = d2.settingModule().analyticsSetting()
             .visualizationsSettings()
             .blockingGet()
 
-        visualizationSettings
+        val visualizationGroups = visualizationSettings
             ?.home()?.filter {
                 if (groupUid != null) {
                     it.id() == groupUid
                 } else {
                     true
                 }
+            } ?: emptyList()
+
+        return loadVisualizations(visualizationGroups, onGraphsLoaded)
+    }
+
+    /**
+     * Evaluates the visualizations of the groups concurrently, reusing cached results while the
+     * local data does not change. [onGraphsLoaded] receives the graphs loaded so far, in display
+     * order, every time a new one can be shown.
+     */
+    private fun loadVisualizations(
+        visualizationGroups: List<AnalyticsDhisVisualizationsGroup>,
+        onGraphsLoaded: ((List<Graph>) -> Unit)?,
+    ): List<Graph> {
+        val visualizations = visualizationGroups.flatMap { it.visualizations() }
+        if (visualizations.isEmpty()) return emptyList()
+
+        visualizationCache.validate(localDataStamp())
+
+        val completionService =
+            ExecutorCompletionService<Pair<Int, List<Graph>>>(evaluationExecutor)
+        visualizations.forEachIndexed { index, analyticVisualization ->
+            completionService.submit { index to loadVisualization(analyticVisualization) }
+        }
+
+        val results = arrayOfNulls<List<Graph>>(visualizations.size)
+        var loadedInOrder = 0
+        repeat(visualizations.size) {
+            val (index, graphs) = try {
+                completionService.take().get()
+            } catch (e: ExecutionException) {
+                throw e.cause ?: e
             }
-            ?.forEach { visualizationGroup ->
-                addVisualizationsInGroup(
-                    visualizationGroup,
-                    graphList,
-                )
+            results[index] = graphs
+            if (index == loadedInOrder) {
+                while (loadedInOrder < results.size && results[loadedInOrder] != null) {
+                    loadedInOrder++
+                }
+                if (loadedInOrder < results.size) {
+                    onGraphsLoaded?.invoke(results.take(loadedInOrder).filterNotNull().flatten())
+                }
             }
+        }
 
-        return graphList
+        return results.filterNotNull().flatten()
     }
 
-    private fun addVisualizationsInGroup(
-        visualizationGroup: AnalyticsDhisVisualizationsGroup,
-        graphList: MutableList<Graph>,
-    ) {
-        visualizationGroup.visualizations().forEach { analyticVisualization ->
-            val customTitle = analyticVisualization.takeIf {
-                it.name()?.isNotEmpty() == true
-            }?.name()
-            val analyticsUid = analyticVisualization.uid()
-
-            when (analyticVisualization.type()) {
-                AnalyticsDhisVisualizationType.VISUALIZATION -> addVisualization(
-                    analyticsUid,
-                    customTitle,
-                    graphList,
-                )
+    private fun loadVisualization(analyticVisualization: AnalyticsDhisVisualization): List<Graph> {
+        val customTitle = analyticVisualization.takeIf {
+            it.name()?.isNotEmpty() == true
+        }?.name()
+        val analyticsUid = analyticVisualization.uid()
 
-                AnalyticsDhisVisualizationType.TRACKER_VISUALIZATION -> addLineListing(
-                    analyticsUid,
-                    customTitle,
-                    graphList,
-                )
-            }
+        return when (analyticVisualization.type()) {
+            AnalyticsDhisVisualizationType.VISUALIZATION -> evaluateVisualization(
+                analyticsUid,
+                customTitle,
+            )
+
+            AnalyticsDhisVisualizationType.TRACKER_VISUALIZATION -> evaluateLineListing(
+                analyticsUid,
+                customTitle,
+            )
         }
     }
 
-    private fun addVisualization(
+    private fun localDataStamp() = LocalDataStamp(
+        events = d2.eventModule().events().blockingCount(),
+        eventsToSync = d2.eventModule().events()
+            .byAggregatedSyncState().neq(State.SYNCED)
+            .blockingCount(),
+        trackedEntities = d2.trackedEntityModule().trackedEntityInstances().blockingCount(),
+        trackedEntitiesToSync = d2.trackedEntityModule().trackedEntityInstances()
+            .byAggregatedSyncState().neq(State.SYNCED)
+            .blockingCount(),
+        dataValues = d2.dataValueModule().dataValues().blockingCount(),
+        dataValuesToSync = d2.dataValueModule().dataValues()
+            .bySyncState().neq(State.SYNCED)
+            .blockingCount(),
+        eventsLastUpdated = lastUpdated(EventTableInfo.TABLE_INFO.name()),
+        trackedEntitiesLastUpdated = lastUpdated(TrackedEntityInstanceTableInfo.TABLE_INFO.name()),
+        enrollmentsLastUpdated = lastUpdated(EnrollmentTableInfo.TABLE_INFO.name()),
+        dataValuesLastUpdated = lastUpdated(DataValueTableInfo.TABLE_INFO.name()),
+    )
+
+    private fun lastUpdated(tableName: String): String? =
+        d2.databaseAdapter().rawQuery("SELECT MAX($LAST_UPDATED) FROM $tableName").use { cursor ->
+            if (cursor.moveToFirst()) cursor.getString(0) else null
+        }
+
+    private fun evaluateVisualization(
         visualizationUid: String,
         customTitle: String?,
-        graphList: MutableList<Graph>,
-    ) {
+    ): List<Graph> {
         val selectedRelativePeriod =
             analyticsFilterProvider.visualizationPeriod(visualizationUid)
         val selectedOrgUnits = analyticsFilterProvider.visualizationOrgUnits(visualizationUid)
@@ -181,12 +256,21 @@ class ChartsRepositoryImpl(
             periodToDisplaySelected = selectedRelativePeriod?.firstOrNull(),
         )
 
+        val cacheKey = VisualizationCacheKey.Visualization(
+            visualizationUid = visualizationUid,
+            customTitle = customTitle,
+            periods = selectedRelativePeriod,
+            orgUnits = selectedOrgUnits,
+            orgUnitFilterType = selectedOrgUnitType,
+        )
+        visualizationCache.get(cacheKey)?.let { return it }
+
         val visualization = d2.visualizationModule()
             .visualizations()
             .uid(visualizationUid)
             .blockingGet()
 
-        d2.analyticsModule()
+        return d2.analyticsModule()
             .visualizations()
             .withVisualization(visualizationUid)
             .run {
@@ -222,38 +306,37 @@ class ChartsRepositoryImpl(
             .blockingEvaluate()
             .fold(
                 { gridAnalyticsResponse ->
-                    visualization?.let {
-                        graphList.add(
+                    listOfNotNull(
+                        visualization?.let {
                             visualizationToGraph.mapToGraph(
                                 customTitle ?: visualization.displayFormName(),
                                 visualization,
                                 gridAnalyticsResponse,
                                 graphFilters,
-                            ),
-                        )
-                    }
+                            )
+                        },
+                    ).also { visualizationCache.put(cacheKey, it) }
                 },
                 { analyticException ->
                     analyticException.printStackTrace()
-                    visualization?.let {
-                        graphList.add(
+                    listOfNotNull(
+                        visualization?.let {
                             visualizationToGraph.addErrorGraph(
                                 customTitle ?: visualization.displayFormName(),
                                 visualization,
                                 graphFilters,
                                 analyticsResources.analyticsExceptionMessage(analyticException),
-                            ),
-                        )
-                    }
+                            )
+                        },
+                    )
                 },
             )
     }
 
-    private fun addLineListing(
+    private fun evaluateLineListing(
         trackerVisualizationUid: String,
         customTitle: String?,
-        graphList: MutableList<Graph>,
-    ) {
+    ): List<Graph> {
         val filters = analyticsFilterProvider.trackerVisualizationFilters(trackerVisualizationUid)
             ?: emptyMap()
 
@@ -274,11 +357,19 @@ class ChartsRepositoryImpl(
             periodToDisplaySelected = periodFilters,
         )
 
+        val cacheKey = VisualizationCacheKey.LineListing(
+            trackerVisualizationUid = trackerVisualizationUid,
+            customTitle = customTitle,
+            filters = graphFilters,
+            orgUnitFilterTypes = selectedOrgUnitType,
+        )
+        visualizationCache.get(cacheKey)?.let { return it }
+
         val trackerVisualization = d2.visualizationModule().trackerVisualizations()
             .uid(trackerVisualizationUid)
             .blockingGet()
 
-        d2.analyticsModule().trackerLineList()
+        return d2.analyticsModule().trackerLineList()
             .withTrackerVisualization(trackerVisualizationUid)
             .run {
                 var filteredRepository = this
@@ -326,27 +417,27 @@ class ChartsRepositoryImpl(
             .fold(
                 { trackerLineListResponse ->
                     setLineListHeaderCache(trackerVisualizationUid, trackerLineListResponse)
-                    graphList.add(
+                    listOf(
                         visualizationToGraph.mapToGraph(
                             customTitle ?: trackerVisualization?.displayName(),
                             trackerVisualization,
                             trackerLineListResponse,
                             graphFilters,
                         ),
-                    )
+                    ).also { visualizationCache.put(cacheKey, it) }
                 },
             ) { analyticException ->
                 analyticException.printStackTrace()
-                trackerVisualization?.let {
-                    graphList.add(
+                listOfNotNull(
+                    trackerVisualization?.let {
                         visualizationToGraph.addErrorGraph(
                             customTitle,
                             trackerVisualization,
                             analyticsResources.analyticsExceptionMessage(analyticException),
                             graphFilters,
-                        ),
-                    )
-                }
+                        )
+                    },
+                )
             }
     }
 
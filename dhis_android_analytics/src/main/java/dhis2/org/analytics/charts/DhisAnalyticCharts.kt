@@ -23,8 +23,12 @@ class DhisAnalyticCharts @Inject constructor(
         return chartsRepository.getAnalyticsForEnrollment(enrollmentUid)
     }
 
-    override fun getProgramVisualizations(groupUid: String?, programUid: String): List<Graph> {
-        return chartsRepository.getProgramVisualization(groupUid, programUid)
+    override fun getProgramVisualizations(
+        groupUid: String?,
+        programUid: String,
+        onGraphsLoaded: ((List<Graph>) -> Unit)?,
+    ): List<Graph> {
+        return chartsRepository.getProgramVisualization(groupUid, programUid, onGraphsLoaded)
     }
 
     override fun setLineListingFilter(
@@ -39,12 +43,19 @@ class DhisAnalyticCharts @Inject constructor(
         )
     }
 
-    override fun getHomeVisualizations(groupUid: String?): List<Graph> {
-        return chartsRepository.getHomeVisualization(groupUid)
+    override fun getHomeVisualizations(
+        groupUid: String?,
+        onGraphsLoaded: ((List<Graph>) -> Unit)?,
+    ): List<Graph> {
+        return chartsRepository.getHomeVisualization(groupUid, onGraphsLoaded)
     }
 
-    override fun getDataSetVisualizations(groupUid: String?, dataSetUid: String): List<Graph> {
-        return chartsRepository.getDataSetVisualization(groupUid, dataSetUid)
+    override fun getDataSetVisualizations(
+        groupUid: String?,
+        dataSetUid: String,
+        onGraphsLoaded: ((List<Graph>) -> Unit)?,
+    ): List<Graph> {
+        return chartsRepository.getDataSetVisualization(groupUid, dataSetUid, onGraphsLoaded)
     }
 
     override fun setVisualizationPeriods(
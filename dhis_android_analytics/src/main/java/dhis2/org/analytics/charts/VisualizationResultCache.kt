@@ -0,0 +1,93 @@
+package dhis2.org.analytics.charts
+
+import dhis2.org.analytics.charts.data.Graph
+import dhis2.org.analytics.charts.data.GraphFilters
+import dhis2.org.analytics.charts.ui.OrgUnitFilterType
+import org.hisp.dhis.android.core.common.RelativePeriod
+
+private const val MAX_CACHED_RESULTS = 50
+private const val MAX_RESULT_AGE_MILLIS = 10 * 60 * 1000L
+
+sealed class VisualizationCacheKey {
+    data class Visualization(
+        val visualizationUid: String,
+        val customTitle: String?,
+        val periods: List<RelativePeriod>?,
+        val orgUnits: List<String>?,
+        val orgUnitFilterType: OrgUnitFilterType?,
+    ) : VisualizationCacheKey()
+
+    data class LineListing(
+        val trackerVisualizationUid: String,
+        val customTitle: String?,
+        val filters: GraphFilters.LineListing,
+        val orgUnitFilterTypes: Map<Int, OrgUnitFilterType>,
+    ) : VisualizationCacheKey()
+}
+
+/**
+ * Snapshot of the local data the visualizations are evaluated on. Saving or syncing data
+ * changes the number of records, of records pending to sync or their latest update, so a
+ * different stamp means cached results may be outdated.
+ */
+data class LocalDataStamp(
+    val events: Int,
+    val eventsToSync: Int,
+    val trackedEntities: Int,
+    val trackedEntitiesToSync: Int,
+    val dataValues: Int,
+    val dataValuesToSync: Int,
+    val eventsLastUpdated: String?,
+    val trackedEntitiesLastUpdated: String?,
+    val enrollmentsLastUpdated: String?,
+    val dataValuesLastUpdated: String?,
+)
+
+/**
+ * Evaluated visualizations keyed by uid and the period and org unit filters they were
+ * evaluated with. Every result is dropped as soon as the local data stamp changes, and
+ * results older than [maxAgeMillis] are evaluated again to pick up changes the stamp misses.
+ */
+class VisualizationResultCache(
+    private val maxEntries: Int = MAX_CACHED_RESULTS,
+    private val maxAgeMillis: Long = MAX_RESULT_AGE_MILLIS,
+    private val currentTime: () -> Long = { System.currentTimeMillis() },
+) {
+    private class Entry(val graphs: List<Graph>, val time: Long)
+
+    private var dataStamp: LocalDataStamp? = null
+    private val entries = object : LinkedHashMap<VisualizationCacheKey, Entry>(16, 0.75f, true) {
+        override fun removeEldestEntry(
+            eldest: MutableMap.MutableEntry<VisualizationCacheKey, Entry>?,
+        ) = size > maxEntries
+    }
+
+    @Synchronized
+    fun validate(stamp: LocalDataStamp) {
+        if (stamp != dataStamp) {
+            entries.clear()
+            dataStamp = stamp
+        }
+    }
+
+    @Synchronized
+    fun get(key: VisualizationCacheKey): List<Graph>? {
+        val entry = entries[key] ?: return null
+        if (currentTime() - entry.time > maxAgeMillis) {
+            entries.remove(key)
+            return null
+        }
+        return entry.graphs
+    }
+
+    @Synchronized
+    fun put(key: VisualizationCacheKey, graphs: List<Graph>) {
+        entries[key] = Entry(graphs, currentTime())
+    }
+
+    @Synchronized
+    fun clear() {
+        entries.clear()
+        dataStamp = null
+    }
+}
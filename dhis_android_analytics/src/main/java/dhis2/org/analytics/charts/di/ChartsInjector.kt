@@ -8,6 +8,7 @@ import dhis2.org.analytics.charts.Charts
 import dhis2.org.analytics.charts.ChartsRepository
 import dhis2.org.analytics.charts.ChartsRepositoryImpl
 import dhis2.org.analytics.charts.DhisAnalyticCharts
+import dhis2.org.analytics.charts.VisualizationResultCache
 import dhis2.org.analytics.charts.data.AnalyticResources
 import dhis2.org.analytics.charts.mappers.AnalyticDataElementToDataElementData
 import dhis2.org.analytics.charts.mappers.AnalyticIndicatorToIndicatorData
@@ -50,6 +51,7 @@ class ChartsModule {
         indicatorToGraph: ProgramIndicatorToGraph,
         analyticsResources: AnalyticResources,
         analyticsFilterProvider: AnalyticsFilterProvider,
+        visualizationResultCache: VisualizationResultCache,
     ): ChartsRepository = ChartsRepositoryImpl(
         d2,
         visualizationToGraph,
@@ -58,8 +60,15 @@ class ChartsModule {
         indicatorToGraph,
         analyticsResources,
         analyticsFilterProvider,
+        visualizationResultCache,
     )
 
+    @Provides
+    @Singleton
+    internal fun provideVisualizationResultCache(): VisualizationResultCache {
+        return VisualizationResultCache()
+    }
+
     @Provides
     internal fun provideAnalyticFilters(d2: D2): AnalyticsFilterProvider {
         return AnalyticsFilterProvider(d2)
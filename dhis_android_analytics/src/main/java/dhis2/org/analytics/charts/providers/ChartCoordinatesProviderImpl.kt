@@ -8,10 +8,11 @@ import org.hisp.dhis.android.core.D2
 import org.hisp.dhis.android.core.analytics.AnalyticsLegendStrategy
 import org.hisp.dhis.android.core.analytics.aggregated.GridResponseValue
 import org.hisp.dhis.android.core.analytics.aggregated.MetadataItem
+import org.hisp.dhis.android.core.analytics.linelist.LineListResponse
 import org.hisp.dhis.android.core.common.RelativePeriod
 import org.hisp.dhis.android.core.legendset.Legend
 import org.hisp.dhis.android.core.period.Period
-import java.text.SimpleDateFormat
+import java.util.Calendar
 import java.util.Date
 import java.util.GregorianCalendar
 import java.util.Locale
@@ -30,8 +31,7 @@ class ChartCoordinatesProviderImpl(
         selectedOrgUnits: List<String>?,
         isDefault: Boolean,
     ): List<GraphPoint> {
-        var initialPeriod: Period? = null
-        return d2.analyticsModule().eventLineList()
+        val lineList = d2.analyticsModule().eventLineList()
             .byProgramStage().eq(stageUid)
             .byTrackedEntityInstance().eq(teiUid)
             .withDataElement(dataElementUid)
@@ -47,30 +47,32 @@ class ChartCoordinatesProviderImpl(
                 } ?: this
             }
             .blockingEvaluate()
-            .sortedBy { it.date }
-            .mapNotNull { lineListResponse ->
-                if (initialPeriod == null) initialPeriod = lineListResponse.period
-
-                val lineListResponseValue = lineListResponse.values.first()
-
-                val legend = getLegend(lineListResponseValue.legend)
+            .sortedByDate()
 
-                lineListResponseValue.value?.let { value ->
-                    GraphPoint(
-                        eventDate = formattedDate(lineListResponse.date),
-                        position = if (isDefault) {
-                            null
-                        } else {
-                            periodStepProvider.getPeriodDiff(
-                                initialPeriod!!,
-                                lineListResponse.period,
-                            ).toFloat()
-                        },
-                        fieldValue = GraphFieldValue.Numeric(value.toFloatOrNull() ?: 0f),
-                        legendValue = createLegendValue(legend),
-                    )
-                }
-            }
+        val initialPeriod = lineList.firstOrNull()?.period
+        val legendValues = legendValues(lineList)
+        val calendar = Calendar.getInstance()
+        val coordinates = ArrayList<GraphPoint>(lineList.size)
+        lineList.forEach { lineListResponse ->
+            val lineListResponseValue = lineListResponse.values.first()
+            val value = lineListResponseValue.value ?: return@forEach
+            coordinates.add(
+                GraphPoint(
+                    eventDate = formattedDate(lineListResponse.date, calendar),
+                    position = if (isDefault) {
+                        null
+                    } else {
+                        periodStepProvider.getPeriodDiff(
+                            initialPeriod!!,
+                            lineListResponse.period,
+                        ).toFloat()
+                    },
+                    fieldValue = GraphFieldValue.Numeric(value.toFloatOrNull() ?: 0f),
+                    legendValue = lineListResponseValue.legend?.let { legendValues[it] },
+                ),
+            )
+        }
+        return coordinates
     }
 
     override fun indicatorCoordinates(
@@ -81,8 +83,7 @@ class ChartCoordinatesProviderImpl(
         selectedOrgUnits: List<String>?,
         isDefault: Boolean,
     ): List<GraphPoint> {
-        var initialPeriod: Period? = null
-        return d2.analyticsModule()
+        val lineList = d2.analyticsModule()
             .eventLineList()
             .byProgramStage().eq(stageUid)
             .byTrackedEntityInstance().eq(teiUid)
@@ -99,37 +100,35 @@ class ChartCoordinatesProviderImpl(
                 } ?: this
             }
             .blockingEvaluate()
-            .sortedBy { it.date }
-            .filter {
-                try {
-                    !(it.values.first().value?.toFloat() ?: Float.NaN).isNaN()
-                } catch (e: java.lang.Exception) {
-                    false
-                }
-            }
-            .mapNotNull { lineListResponse ->
-                val lineListResponseValue = lineListResponse.values.first()
+            .sortedByDate()
 
-                lineListResponseValue.value?.let { value ->
-                    if (initialPeriod == null) initialPeriod = lineListResponse.period
-
-                    val legend = getLegend(lineListResponseValue.legend)
+        var initialPeriod: Period? = null
+        val legendValues = legendValues(lineList)
+        val calendar = Calendar.getInstance()
+        val coordinates = ArrayList<GraphPoint>(lineList.size)
+        lineList.forEach { lineListResponse ->
+            val lineListResponseValue = lineListResponse.values.first()
+            val value = lineListResponseValue.value?.toFloatOrNull()
+                ?.takeIf { !it.isNaN() } ?: return@forEach
+            if (initialPeriod == null) initialPeriod = lineListResponse.period
 
-                    GraphPoint(
-                        eventDate = formattedDate(lineListResponse.date),
-                        position = if (isDefault) {
-                            null
-                        } else {
-                            periodStepProvider.getPeriodDiff(
-                                initialPeriod!!,
-                                lineListResponse.period,
-                            ).toFloat()
-                        },
-                        fieldValue = GraphFieldValue.Numeric(value.toFloat()),
-                        legendValue = createLegendValue(legend),
-                    )
-                }
-            }
+            coordinates.add(
+                GraphPoint(
+                    eventDate = formattedDate(lineListResponse.date, calendar),
+                    position = if (isDefault) {
+                        null
+                    } else {
+                        periodStepProvider.getPeriodDiff(
+                            initialPeriod!!,
+                            lineListResponse.period,
+                        ).toFloat()
+                    },
+                    fieldValue = GraphFieldValue.Numeric(value),
+                    legendValue = lineListResponseValue.legend?.let { legendValues[it] },
+                ),
+            )
+        }
+        return coordinates
     }
 
     override fun nutritionCoordinates(
@@ -166,23 +165,26 @@ class ChartCoordinatesProviderImpl(
                     this.byOrganisationUnit().`in`(*selectedOrgUnits.toTypedArray())
                 } ?: this
             }
-            .blockingEvaluate().mapNotNull { lineListResponse ->
-                val zScoreValue =
-                    lineListResponse.values.firstOrNull {
-                        it.uid == zScoreValueContainerUid
-                    }?.value
-                val xAxisValue =
-                    lineListResponse.values.firstOrNull {
-                        it.uid == ageOrHeightCountainerUid
-                    }?.value
-                if (zScoreValue == null || xAxisValue == null) {
-                    null
-                } else {
-                    GraphPoint(
-                        eventDate = formattedDate(lineListResponse.date),
-                        position = xAxisValue.toFloat(),
-                        fieldValue = GraphFieldValue.Numeric(zScoreValue.toFloat()),
-                    )
+            .blockingEvaluate().let { lineList ->
+                val calendar = Calendar.getInstance()
+                lineList.mapNotNull { lineListResponse ->
+                    val zScoreValue =
+                        lineListResponse.values.firstOrNull {
+                            it.uid == zScoreValueContainerUid
+                        }?.value
+                    val xAxisValue =
+                        lineListResponse.values.firstOrNull {
+                            it.uid == ageOrHeightCountainerUid
+                        }?.value
+                    if (zScoreValue == null || xAxisValue == null) {
+                        null
+                    } else {
+                        GraphPoint(
+                            eventDate = formattedDate(lineListResponse.date, calendar),
+                            position = xAxisValue.toFloat(),
+                            fieldValue = GraphFieldValue.Numeric(zScoreValue.toFloat()),
+                        )
+                    }
                 }
             }
     }
@@ -265,19 +267,37 @@ class ChartCoordinatesProviderImpl(
     }
 
     private fun formattedDate(date: Date): Date {
-        return try {
-            val formattedDateString = SimpleDateFormat("yyyy-MM-dd").format(date)
-            val formattedDate = SimpleDateFormat("yyyy-MM-dd").parse(formattedDateString)
-            formattedDate ?: date
-        } catch (e: Exception) {
-            date
-        }
+        return formattedDate(date, Calendar.getInstance())
     }
 
-    private fun getLegend(legendUid: String?): Legend? {
-        return legendUid?.let {
-            d2.legendSetModule().legends().uid(legendUid).blockingGet()
-        }
+    /**
+     * Truncates [date] to the start of its day, reusing [calendar] across the points of an
+     * evaluation.
+     */
+    private fun formattedDate(date: Date, calendar: Calendar): Date {
+        calendar.time = date
+        calendar.set(Calendar.HOUR_OF_DAY, 0)
+        calendar.set(Calendar.MINUTE, 0)
+        calendar.set(Calendar.SECOND, 0)
+        calendar.set(Calendar.MILLISECOND, 0)
+        return calendar.time
+    }
+
+    private fun List<LineListResponse>.sortedByDate(): List<LineListResponse> {
+        val isSorted = (1 until size).all { this[it - 1].date <= this[it].date }
+        return if (isSorted) this else sortedBy { it.date }
+    }
+
+    /**
+     * Loads every legend referenced by [lineList] with a single query.
+     */
+    private fun legendValues(lineList: List<LineListResponse>): Map<String, LegendValue?> {
+        val legendUids = lineList.mapNotNullTo(HashSet()) { it.values.firstOrNull()?.legend }
+        if (legendUids.isEmpty()) return emptyMap()
+        return d2.legendSetModule().legends()
+            .byUid().`in`(legendUids.toList())
+            .blockingGet()
+            .associate { legend -> legend.uid() to createLegendValue(legend) }
     }
 
     private fun createLegendValue(legend: Legend?): LegendValue? {
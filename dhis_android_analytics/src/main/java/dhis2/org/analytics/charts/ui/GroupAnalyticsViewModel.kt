@@ -6,6 +6,7 @@ import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import dhis2.org.analytics.charts.Charts
 import dhis2.org.analytics.charts.data.AnalyticGroup
+import dhis2.org.analytics.charts.data.Graph
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.async
 import kotlinx.coroutines.launch
@@ -30,6 +31,7 @@ class GroupAnalyticsViewModel(
     private val _analytics = MutableLiveData<Result<List<AnalyticsModel>>>()
     val analytics: LiveData<Result<List<AnalyticsModel>>> = _analytics
     private var currentGroup: String? = null
+    private var analyticsRequest = 0
 
     init {
         fetchAnalyticsGroup {
@@ -120,6 +122,14 @@ class GroupAnalyticsViewModel(
 
     fun fetchAnalytics(groupUid: String?) {
         currentGroup = groupUid
+        val request = ++analyticsRequest
+        val onGraphsLoaded: (List<Graph>) -> Unit = { graphs ->
+            viewModelScope.launch {
+                if (request == analyticsRequest) {
+                    _analytics.value = Result.success(graphs.map { ChartModel(it) })
+                }
+            }
+        }
         viewModelScope.launch {
             val result = async(context = Dispatchers.IO) {
                 when (mode) {
@@ -129,30 +139,35 @@ class GroupAnalyticsViewModel(
                     } ?: emptyList()
 
                     AnalyticMode.TRACKER_PROGRAM -> uid?.let {
-                        charts.getProgramVisualizations(groupUid, uid)
+                        charts.getProgramVisualizations(groupUid, uid, onGraphsLoaded)
                             .map { ChartModel(it) }
                     } ?: emptyList()
 
                     AnalyticMode.EVENT_PROGRAM -> uid?.let {
-                        charts.getProgramVisualizations(groupUid, uid)
+                        charts.getProgramVisualizations(groupUid, uid, onGraphsLoaded)
                             .map { ChartModel(it) }
                     } ?: emptyList()
 
                     AnalyticMode.HOME ->
-                        charts.getHomeVisualizations(groupUid)
+                        charts.getHomeVisualizations(groupUid, onGraphsLoaded)
                             .map { ChartModel(it) }
 
                     AnalyticMode.DATASET -> uid?.let {
-                        charts.getDataSetVisualizations(groupUid, uid)
+                        charts.getDataSetVisualizations(groupUid, uid, onGraphsLoaded)
                             .map { ChartModel(it) }
                     } ?: emptyList()
                 }
             }
             try {
-                _analytics.value = Result.success(result.await())
+                val analytics = result.await()
+                if (request == analyticsRequest) {
+                    _analytics.value = Result.success(analytics)
+                }
             } catch (e: Exception) {
                 e.printStackTrace()
-                _analytics.value = Result.failure(e)
+                if (request == analyticsRequest) {
+                    _analytics.value = Result.failure(e)
+                }
             }
         }
     }
@@ -1,5 +1,6 @@
 package dhis2.org.analytics.charts
 
+import android.database.Cursor
 import dhis2.org.analytics.charts.data.AnalyticResources
 import dhis2.org.analytics.charts.data.Graph
 import dhis2.org.analytics.charts.data.GraphFieldValue
@@ -21,6 +22,7 @@ import org.hisp.dhis.android.core.common.RelativePeriod
 import org.hisp.dhis.android.core.common.ValueType
 import org.hisp.dhis.android.core.dataelement.DataElement
 import org.hisp.dhis.android.core.enrollment.Enrollment
+import org.hisp.dhis.android.core.enrollment.EnrollmentTableInfo
 import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
 import org.hisp.dhis.android.core.period.PeriodType
 import org.hisp.dhis.android.core.program.ProgramIndicator
@@ -39,8 +41,10 @@ import org.junit.Test
 import org.mockito.Mockito
 import org.mockito.kotlin.any
 import org.mockito.kotlin.anyOrNull
+import org.mockito.kotlin.argThat
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.times
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
 import java.util.Date
@@ -324,6 +328,63 @@ class ChartsRepositoryTest {
         )
     }
 
+    @Test
+    fun `Should reuse evaluated visualizations until local data changes`() {
+        mockVisualizationSettings(returnHome = true)
+        mockVisualization()
+        mockedVisualizationPeriodFilterWithValue()
+        mockedVisualizationOrgUnitFilterWithValue()
+        mockedVisualizationOrgUnitFilterType(null)
+        mockAnalyticsResponse()
+
+        repository.getHomeVisualization("groupUid")
+        repository.getHomeVisualization("groupUid")
+        verify(visualizationToGraph, times(1)).mapToGraph(
+            any(),
+            any<Visualization>(),
+            anyOrNull(),
+            anyOrNull(),
+        )
+
+        whenever(d2.eventModule().events().blockingCount()) doReturn 1
+        repository.getHomeVisualization("groupUid")
+        verify(visualizationToGraph, times(2)).mapToGraph(
+            any(),
+            any<Visualization>(),
+            anyOrNull(),
+            anyOrNull(),
+        )
+    }
+
+    @Test
+    fun `Should evaluate visualizations again when local data is updated`() {
+        mockVisualizationSettings(returnHome = true)
+        mockVisualization()
+        mockedVisualizationPeriodFilterWithValue()
+        mockedVisualizationOrgUnitFilterWithValue()
+        mockedVisualizationOrgUnitFilterType(null)
+        mockAnalyticsResponse()
+
+        repository.getHomeVisualization("groupUid")
+        val cursor: Cursor = mock {
+            on { moveToFirst() } doReturn true
+            on { getString(0) } doReturn "2024-01-02T10:00:00.000"
+        }
+        whenever(
+            d2.databaseAdapter().rawQuery(
+                argThat { endsWith(" ${EnrollmentTableInfo.TABLE_INFO.name()}") },
+            ),
+        ) doReturn cursor
+        repository.getHomeVisualization("groupUid")
+
+        verify(visualizationToGraph, times(2)).mapToGraph(
+            any(),
+            any<Visualization>(),
+            anyOrNull(),
+            anyOrNull(),
+        )
+    }
+
     @Test
     fun `Should add period filter`() {
         val periods: List<RelativePeriod> = mock {
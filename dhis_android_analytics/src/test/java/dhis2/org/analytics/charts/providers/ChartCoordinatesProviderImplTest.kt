@@ -5,12 +5,17 @@ import org.hisp.dhis.android.core.D2
 import org.hisp.dhis.android.core.analytics.AnalyticsLegendStrategy
 import org.hisp.dhis.android.core.analytics.linelist.LineListResponse
 import org.hisp.dhis.android.core.analytics.linelist.LineListResponseValue
+import org.hisp.dhis.android.core.legendset.Legend
 import org.hisp.dhis.android.core.period.Period
+import org.junit.Assert.assertEquals
 import org.junit.Assert.assertTrue
 import org.junit.Test
 import org.mockito.Mockito
+import org.mockito.kotlin.any
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
 import java.util.Date
 
@@ -81,6 +86,52 @@ class ChartCoordinatesProviderImplTest {
         )
     }
 
+    @Test
+    fun `Should map long line lists loading their legends once`() {
+        val eventCount = 1200
+        val lineList = (0 until eventCount).map { index ->
+            LineListResponse(
+                "event$index",
+                Date(FIRST_EVENT_DATE - index * DAY_MILLIS),
+                Period.builder().build(),
+                "orgUnit",
+                "orgUnitUid",
+                listOf(
+                    LineListResponseValue("uid", "field", "$index", "legend${index % 3}"),
+                ),
+            )
+        }
+        whenever(
+            d2.analyticsModule().eventLineList()
+                .byProgramStage().eq("stageUid")
+                .byTrackedEntityInstance().eq("teiUid")
+                .withDataElement("dataElementUid")
+                .withLegendStrategy(AnalyticsLegendStrategy.ByDataItem)
+                .blockingEvaluate(),
+        ) doReturn lineList
+        whenever(
+            d2.legendSetModule().legends().byUid().`in`(any<Collection<String>>()).blockingGet(),
+        ) doReturn (0 until 3).map { index ->
+            Legend.builder().uid("legend$index").displayName("Legend $index").build()
+        }
+        Mockito.clearInvocations(d2.legendSetModule(), d2.legendSetModule().legends().byUid())
+
+        val result = coordinatesProvider.dataElementCoordinates(
+            "stageUid",
+            "teiUid",
+            "dataElementUid",
+            null,
+            null,
+        )
+
+        assertEquals(eventCount, result.size)
+        assertTrue(result.zipWithNext().all { (a, b) -> a.eventDate <= b.eventDate })
+        assertEquals((eventCount - 1).toFloat(), result.first().numericValue())
+        assertEquals("Legend ${(eventCount - 1) % 3}", result.first().legendValue?.label)
+        verify(d2.legendSetModule().legends().byUid(), times(1))
+            .`in`(any<Collection<String>>())
+    }
+
     private fun mockedLineListResponse(emptyList: Boolean) {
         whenever(
             d2.analyticsModule().eventLineList()
@@ -202,4 +253,9 @@ class ChartCoordinatesProviderImplTest {
             )
         }
     }
+
+    companion object {
+        private const val DAY_MILLIS = 24 * 60 * 60 * 1000L
+        private const val FIRST_EVENT_DATE = 1_700_000_000_000L
+    }
 }
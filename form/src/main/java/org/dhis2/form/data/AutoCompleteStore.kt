@@ -0,0 +1,169 @@
+package org.dhis2.form.data
+
+import android.content.SharedPreferences
+import com.google.gson.Gson
+import com.google.gson.reflect.TypeToken
+import timber.log.Timber
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+
+private const val KEY_PREFIX = "autocomplete_"
+private const val MAX_VALUES_PER_FIELD = 50
+private const val MAX_CACHED_FIELDS = 100
+private const val FLUSH_DELAY_MILLIS = 1000L
+
+/**
+ * Values previously entered in autocomplete fields.
+ *
+ * Values are kept in memory once read, so saving a value does not parse or serialise the
+ * whole list again. Changes are written to the shared preferences in batches, each field is
+ * stored as a single length-prefixed string and keeps only its [maxValuesPerField] most
+ * recently used values.
+ *
+ * Lists saved as JSON under the field uid by previous versions are migrated on first read.
+ */
+class AutoCompleteStore(
+    private val sharedPreferences: SharedPreferences,
+    private val scheduler: ScheduledExecutorService,
+    private val maxValuesPerField: Int = MAX_VALUES_PER_FIELD,
+    private val flushDelayMillis: Long = FLUSH_DELAY_MILLIS,
+) {
+    private val pendingFields = LinkedHashSet<String>()
+    private val cache = object : LinkedHashMap<String, MutableList<String>>(16, 0.75f, true) {
+        override fun removeEldestEntry(
+            eldest: MutableMap.MutableEntry<String, MutableList<String>>?,
+        ) = size > MAX_CACHED_FIELDS && eldest?.key !in pendingFields
+    }
+    private var scheduledFlush: ScheduledFuture<*>? = null
+
+    @Synchronized
+    fun values(fieldUid: String): List<String> = fieldValues(fieldUid).toList()
+
+    /**
+     * Adds [value] as the most recently used value of the field, dropping the least recently
+     * used one if the field history is full.
+     */
+    @Synchronized
+    fun add(fieldUid: String, value: String) {
+        val values = fieldValues(fieldUid)
+        if (values.lastOrNull() == value) return
+        values.remove(value)
+        values.add(value)
+        while (values.size > maxValuesPerField) {
+            values.removeAt(0)
+        }
+        pendingFields.add(fieldUid)
+        scheduleFlush()
+    }
+
+    @Synchronized
+    fun flush() {
+        scheduledFlush?.cancel(false)
+        scheduledFlush = null
+        if (pendingFields.isEmpty()) return
+        val editor = sharedPreferences.edit()
+        pendingFields.forEach { fieldUid ->
+            cache[fieldUid]?.let { editor.putString(storeKey(fieldUid), encode(it)) }
+        }
+        editor.apply()
+        pendingFields.clear()
+    }
+
+    /**
+     * Drops the values held in memory and any pending write, so they are neither offered nor
+     * written back once the user data has been wiped or the user has logged out.
+     */
+    @Synchronized
+    fun clear() {
+        scheduledFlush?.cancel(false)
+        scheduledFlush = null
+        pendingFields.clear()
+        cache.clear()
+    }
+
+    private fun fieldValues(fieldUid: String): MutableList<String> {
+        return cache.getOrPut(fieldUid) { load(fieldUid) }
+    }
+
+    private fun load(fieldUid: String): MutableList<String> {
+        sharedPreferences.getString(storeKey(fieldUid), null)?.let { stored ->
+            return decode(stored)
+        }
+        val legacyValues = sharedPreferences.getString(fieldUid, null)?.let { json ->
+            try {
+                Gson().fromJson<List<String>>(json, object : TypeToken<List<String>>() {}.type)
+            } catch (e: Exception) {
+                Timber.d(e)
+                null
+            }
+        } ?: return mutableListOf()
+
+        val values = legacyValues.takeLast(maxValuesPerField).toMutableList()
+        sharedPreferences.edit()
+            .putString(storeKey(fieldUid), encode(values))
+            .remove(fieldUid)
+            .apply()
+        return values
+    }
+
+    private fun scheduleFlush() {
+        if (scheduledFlush != null) return
+        scheduledFlush = scheduler.schedule(
+            { flush() },
+            flushDelayMillis,
+            TimeUnit.MILLISECONDS,
+        )
+    }
+
+    companion object {
+        private val instances = HashMap<SharedPreferences, AutoCompleteStore>()
+        private val flushScheduler: ScheduledExecutorService by lazy {
+            Executors.newSingleThreadScheduledExecutor { runnable ->
+                Thread(runnable, "AutoCompleteStore").apply { isDaemon = true }
+            }
+        }
+
+        @JvmStatic
+        @Synchronized
+        fun getInstance(sharedPreferences: SharedPreferences): AutoCompleteStore {
+            return instances.getOrPut(sharedPreferences) {
+                AutoCompleteStore(sharedPreferences, flushScheduler)
+            }
+        }
+
+        @JvmStatic
+        @Synchronized
+        fun clearAll() {
+            instances.values.forEach { it.clear() }
+        }
+
+        private fun storeKey(fieldUid: String) = KEY_PREFIX + fieldUid
+
+        internal fun encode(values: List<String>): String {
+            val builder = StringBuilder()
+            values.forEach { value ->
+                builder.append(value.length).append(':').append(value)
+            }
+            return builder.toString()
+        }
+
+        internal fun decode(stored: String): MutableList<String> {
+            val values = mutableListOf<String>()
+            var position = 0
+            while (position < stored.length) {
+                val separator = stored.indexOf(':', position)
+                val length = stored.substring(position, separator.coerceAtLeast(position))
+                    .toIntOrNull()
+                if (separator == -1 || length == null || separator + 1 + length > stored.length) {
+                    Timber.d("Discarding malformed autocomplete values")
+                    break
+                }
+                values.add(stored.substring(separator + 1, separator + 1 + length))
+                position = separator + 1 + length
+            }
+            return values
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.dhis2.form.data
+
+import org.dhis2.ui.MetadataIconData
+import org.hisp.dhis.android.core.common.ValueType
+import org.hisp.dhis.android.core.dataelement.DataElement
+import org.hisp.dhis.android.core.fileresource.FileResource
+import org.hisp.dhis.android.core.imports.TrackerImportConflict
+import org.hisp.dhis.android.core.option.Option
+import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
+import org.hisp.dhis.android.core.program.ProgramStageSection
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue
+
+/**
+ * Metadata and values needed to build the data entry fields of an event, loaded in bulk and
+ * indexed by uid so each field is built without querying the database.
+ */
+class EventFormDataIndex(
+    dataElements: List<DataElement>,
+    dataValues: List<TrackedEntityDataValue>,
+    options: List<Option>,
+    conflicts: List<TrackerImportConflict>,
+    sections: Collection<ProgramStageSection>,
+    organisationUnits: List<OrganisationUnit> = emptyList(),
+    fileResources: List<FileResource> = emptyList(),
+) {
+
+    private val dataElementsByUid = dataElements.associateBy { it.uid() }
+    private val valuesByDataElement = dataValues.associateBy { it.dataElement() }
+    private val optionsBySet = options.groupBy { it.optionSet()?.uid() }
+        .mapValues { (_, setOptions) -> setOptions.sortedBy { it.sortOrder() } }
+    private val optionsByCode = options.associateBy { OptionKey(it.optionSet()?.uid(), it.code()) }
+    private val optionsByName =
+        options.associateBy { OptionKey(it.optionSet()?.uid(), it.displayName()) }
+    private val conflictsByDataElement = HashMap<String?, TrackerImportConflict>().apply {
+        conflicts.forEach { putIfAbsent(it.dataElement(), it) }
+    }
+    private val sectionsByDataElement = HashMap<String, ProgramStageSection>().apply {
+        sections.forEach { section ->
+            section.dataElements()?.forEach { putIfAbsent(it.uid(), section) }
+        }
+    }
+    private val organisationUnitsByUid = organisationUnits.associateBy { it.uid() }
+    private val fileResourcesByUid = fileResources.associateBy { it.uid() }
+    private val optionIcons = HashMap<String?, Map<String, MetadataIconData>>()
+
+    fun dataElement(uid: String?): DataElement? = dataElementsByUid[uid]
+
+    fun value(dataElementUid: String?): String? = valuesByDataElement[dataElementUid]?.value()
+
+    fun options(optionSetUid: String?): List<Option> = optionsBySet[optionSetUid] ?: emptyList()
+
+    /**
+     * Icons of the options of a set, built once for all the fields sharing it.
+     */
+    fun optionIcons(
+        optionSetUid: String?,
+        iconOf: (Option) -> MetadataIconData,
+    ): Map<String, MetadataIconData> = optionIcons.getOrPut(optionSetUid) {
+        options(optionSetUid).associate { it.uid() to iconOf(it) }
+    }
+
+    fun optionByCode(optionSetUid: String?, code: String?): Option? =
+        optionsByCode[OptionKey(optionSetUid, code)]
+
+    /**
+     * First conflict reported for the data element in the event, as the form only shows one.
+     */
+    fun conflict(dataElementUid: String?): TrackerImportConflict? =
+        conflictsByDataElement[dataElementUid]
+
+    fun section(dataElementUid: String?): ProgramStageSection? =
+        sectionsByDataElement[dataElementUid]
+
+    fun organisationUnit(uid: String?): OrganisationUnit? = organisationUnitsByUid[uid]
+
+    fun fileResource(uid: String?): FileResource? = fileResourcesByUid[uid]
+
+    /**
+     * Same checks as the value extensions use before showing a stored value: the option must
+     * exist by code or name, numbers must parse and referenced org units and files must exist.
+     */
+    fun isValidValue(dataElement: DataElement, value: String): Boolean {
+        val valueType = dataElement.valueType()
+        val optionSetUid = dataElement.optionSetUid()
+        return when {
+            valueType != ValueType.MULTI_TEXT && optionSetUid != null ->
+                optionByCode(optionSetUid, value) != null ||
+                    optionsByName[OptionKey(optionSetUid, value)] != null
+
+            valueType == null -> false
+            valueType.isNumeric -> value.toFloatOrNull() != null
+            valueType == ValueType.FILE_RESOURCE || valueType == ValueType.IMAGE ->
+                fileResource(value) != null
+
+            valueType == ValueType.ORGANISATION_UNIT -> organisationUnit(value) != null
+            else -> true
+        }
+    }
+
+    private data class OptionKey(val optionSetUid: String?, val value: String?)
+}
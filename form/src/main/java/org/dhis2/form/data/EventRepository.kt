@@ -3,8 +3,7 @@ package org.dhis2.form.data
 import android.text.TextUtils
 import io.reactivex.Flowable
 import io.reactivex.Single
-import org.dhis2.bindings.blockingGetValueCheck
-import org.dhis2.bindings.userFriendlyValue
+import org.dhis2.bindings.checkValueTypeValue
 import org.dhis2.commons.bindings.program
 import org.dhis2.commons.date.DateUtils
 import org.dhis2.commons.extensions.inDateRange
@@ -34,6 +33,7 @@ import org.hisp.dhis.android.core.dataelement.DataElement
 import org.hisp.dhis.android.core.enrollment.EnrollmentStatus
 import org.hisp.dhis.android.core.event.EventStatus
 import org.hisp.dhis.android.core.imports.ImportStatus
+import org.hisp.dhis.android.core.imports.TrackerImportConflict
 import org.hisp.dhis.android.core.period.PeriodType
 import org.hisp.dhis.android.core.program.Program
 import org.hisp.dhis.android.core.program.ProgramStageDataElement
@@ -483,20 +483,22 @@ class EventRepository(
 
     private fun getFieldsForSingleSection(): Single<List<FieldUiModel>> {
         return Single.fromCallable {
-            val stageDataElements =
-                d2.programModule().programStageDataElements().withRenderType()
-                    .byProgramStage().eq(programStage?.uid())
-                    .orderBySortOrder(RepositoryScope.OrderByDirection.ASC)
-                    .blockingGet()
+            val stageDataElements = getStageDataElements()
+            val formData = loadFormData(stageDataElements)
+            val isEditable = isEventEditable()
 
             stageDataElements.map { programStageDataElement ->
-                transform(programStageDataElement, EVENT_DATA_SECTION_UID)
+                transform(programStageDataElement, EVENT_DATA_SECTION_UID, formData, isEditable)
             }
         }
     }
 
     private fun getFieldsForMultipleSections(): Single<List<FieldUiModel>> {
         return Single.fromCallable {
+            val stageDataElements = getStageDataElements()
+            val stageDataElementMap = stageDataElements.associateBy { it.dataElement()?.uid() }
+            val formData = loadFormData(stageDataElements)
+            val isEditable = isEventEditable()
             val fields = mutableListOf<FieldUiModel>()
             sectionMap.values.forEach { programStageSection ->
                 fields.add(
@@ -507,75 +509,109 @@ class EventRepository(
                     ),
                 )
                 programStageSection.dataElements()?.forEach { dataElement ->
-                    d2.programModule().programStageDataElements().withRenderType()
-                        .byProgramStage().eq(programStage?.uid())
-                        .byDataElement().eq(dataElement.uid())
-                        .one().blockingGet()?.let {
-                            fields.add(
-                                transform(it, programStageSection.uid()),
-                            )
-                        }
+                    stageDataElementMap[dataElement.uid()]?.let {
+                        fields.add(
+                            transform(it, programStageSection.uid(), formData, isEditable),
+                        )
+                    }
                 }
             }
             return@fromCallable fields
         }
     }
 
+    private fun getStageDataElements(): List<ProgramStageDataElement> =
+        d2.programModule().programStageDataElements().withRenderType()
+            .byProgramStage().eq(programStage?.uid())
+            .orderBySortOrder(RepositoryScope.OrderByDirection.ASC)
+            .blockingGet()
+
+    /**
+     * Loads data elements, values, options, conflicts and the org units and files referenced by
+     * the values with one query per type, instead of several queries for every field.
+     */
+    private fun loadFormData(
+        stageDataElements: List<ProgramStageDataElement>,
+    ): EventFormDataIndex {
+        val dataElements = stageDataElements.mapNotNull { it.dataElement()?.uid() }
+            .chunked(UID_QUERY_BATCH_SIZE)
+            .flatMap { uids ->
+                d2.dataElementModule().dataElements().byUid().`in`(uids).blockingGet()
+            }
+        val dataValues = d2.trackedEntityModule().trackedEntityDataValues()
+            .byEvent().eq(eventUid)
+            .blockingGet()
+        val optionSetUids = dataElements.mapNotNull { it.optionSetUid() }.distinct()
+        val options = optionSetUids.chunked(UID_QUERY_BATCH_SIZE).flatMap { uids ->
+            d2.optionModule().options()
+                .byOptionSetUid().`in`(uids)
+                .orderBySortOrder(RepositoryScope.OrderByDirection.ASC)
+                .blockingGet()
+        }
+        val conflicts = d2.importModule().trackerImportConflicts()
+            .byEventUid().eq(eventUid)
+            .blockingGet()
+
+        val valueTypes = dataElements.associate { it.uid() to it.valueType() }
+        val referencedValues = { referenceTypes: Set<ValueType> ->
+            dataValues.filter { referenceTypes.contains(valueTypes[it.dataElement()]) }
+                .mapNotNull { it.value() }
+                .distinct()
+        }
+        val organisationUnits = referencedValues(setOf(ValueType.ORGANISATION_UNIT))
+            .chunked(UID_QUERY_BATCH_SIZE)
+            .flatMap { uids ->
+                d2.organisationUnitModule().organisationUnits().byUid().`in`(uids).blockingGet()
+            }
+        val fileResources = referencedValues(setOf(ValueType.FILE_RESOURCE, ValueType.IMAGE))
+            .chunked(UID_QUERY_BATCH_SIZE)
+            .flatMap { uids ->
+                d2.fileResourceModule().fileResources().byUid().`in`(uids).blockingGet()
+            }
+
+        return EventFormDataIndex(
+            dataElements = dataElements,
+            dataValues = dataValues,
+            options = options,
+            conflicts = conflicts,
+            sections = sectionMap.values,
+            organisationUnits = organisationUnits,
+            fileResources = fileResources,
+        )
+    }
+
     private fun transform(
         programStageDataElement: ProgramStageDataElement,
         sectionUid: String,
+        formData: EventFormDataIndex,
+        isEditable: Boolean,
     ): FieldUiModel {
-        val de = d2.dataElementModule().dataElements().uid(
-            programStageDataElement.dataElement()!!.uid(),
-        ).blockingGet()
+        val de = formData.dataElement(programStageDataElement.dataElement()!!.uid())
         val uid = de?.uid() ?: ""
         val displayName = de?.displayName() ?: ""
         val valueType = de?.valueType()
         val mandatory = programStageDataElement.compulsory() ?: false
         val optionSet = de?.optionSetUid()
-        val valueRepository =
-            d2.trackedEntityModule().trackedEntityDataValues().value(eventUid, uid)
-        val programStageSection: ProgramStageSection? =
-            sectionMap.values.firstOrNull { section ->
-                section.dataElements()?.map { it.uid() }?.contains(de?.uid()) ?: false
-            }
-        var dataValue = when {
-            valueRepository.blockingExists() -> valueRepository.blockingGet()?.value()
-            else -> null
-        }
-        val friendlyValue = dataValue?.let {
-            valueRepository.blockingGetValueCheck(d2, uid)
-                .userFriendlyValue(d2, addPercentageSymbol = false)
-        }
+        val programStageSection: ProgramStageSection? = formData.section(de?.uid())
+        var dataValue = formData.value(uid)
+        val friendlyValue = dataValue?.let { getFriendlyValue(de, uid, it, formData) }
         val allowFutureDates = programStageDataElement.allowFutureDate() ?: false
         val formName = de?.displayFormName()
         val description = de?.displayDescription()
         var optionSetConfig: OptionSetConfiguration? = null
         if (!TextUtils.isEmpty(optionSet)) {
-            if (!TextUtils.isEmpty(dataValue) && d2.optionModule().options()
-                    .byOptionSetUid()
-                    .eq(optionSet).byCode()
-                    .eq(dataValue)
-                    .one().blockingExists()
-            ) {
-                dataValue =
-                    d2.optionModule().options().byOptionSetUid().eq(optionSet)
-                        .byCode()
-                        .eq(dataValue).one().blockingGet()?.displayName()
+            if (!TextUtils.isEmpty(dataValue)) {
+                formData.optionByCode(optionSet, dataValue)?.let { option ->
+                    dataValue = option.displayName()
+                }
             }
-            val optionCount =
-                d2.optionModule().options().byOptionSetUid().eq(optionSet)
-                    .blockingCount()
-            optionSetConfig = OptionSetConfiguration.config(optionCount) {
-                val options = d2.optionModule().options().byOptionSetUid().eq(optionSet)
-                    .orderBySortOrder(RepositoryScope.OrderByDirection.ASC).blockingGet()
-
-                val metadataIconMap =
-                    options.associate { it.uid() to metadataIconProvider(it.style(), defaultStyleColor) }
-
+            val options = formData.options(optionSet)
+            optionSetConfig = OptionSetConfiguration.config(options.size) {
                 OptionSetConfiguration.OptionConfigData(
                     options = options,
-                    metadataIconMap = metadataIconMap,
+                    metadataIconMap = formData.optionIcons(optionSet) {
+                        metadataIconProvider(it.style(), defaultStyleColor)
+                    },
                 )
             }
         }
@@ -583,7 +619,7 @@ class EventRepository(
         val objectStyle = getObjectStyle(de)
 
         val (error, warning) = de?.uid()?.let { deUid ->
-            getConflictErrorsAndWarnings(deUid, dataValue)
+            getConflictErrorsAndWarnings(formData.conflict(deUid), dataValue)
         } ?: Pair(null, null)
 
         val isOrgUnit =
@@ -604,7 +640,7 @@ class EventRepository(
             dataValue,
             sectionUid,
             allowFutureDates,
-            isEventEditable(),
+            isEditable,
             renderingType,
             description,
             fieldRendering,
@@ -625,20 +661,48 @@ class EventRepository(
         return fieldViewModel
     }
 
-    private fun getConflictErrorsAndWarnings(
+    /**
+     * Display value of a stored value, as userFriendlyValue would return it. Invalid values are
+     * deleted, as blockingGetValueCheck does.
+     */
+    private fun getFriendlyValue(
+        de: DataElement?,
         dataElementUid: String,
+        value: String,
+        formData: EventFormDataIndex,
+    ): String? {
+        if (de == null) {
+            return null
+        }
+        if (!formData.isValidValue(de, value)) {
+            d2.trackedEntityModule().trackedEntityDataValues()
+                .value(eventUid, dataElementUid)
+                .blockingDeleteIfExist()
+            return null
+        }
+        return when {
+            value.isEmpty() -> value
+
+            de.optionSetUid() != null && de.valueType() != ValueType.MULTI_TEXT ->
+                formData.optionByCode(de.optionSetUid(), value)?.displayName()
+
+            de.valueType() == ValueType.ORGANISATION_UNIT ->
+                formData.organisationUnit(value)?.displayName() ?: value
+
+            de.valueType() == ValueType.IMAGE || de.valueType() == ValueType.FILE_RESOURCE ->
+                formData.fileResource(value)?.path() ?: ""
+
+            else -> checkValueTypeValue(d2, de.valueType(), value, addPercentageSymbol = false)
+        }
+    }
+
+    private fun getConflictErrorsAndWarnings(
+        conflict: TrackerImportConflict?,
         dataValue: String?,
     ): Pair<String?, String?> {
         var error: String? = null
         var warning: String? = null
 
-        val conflicts = d2.importModule().trackerImportConflicts()
-            .byEventUid().eq(eventUid)
-            .blockingGet()
-
-        val conflict = conflicts
-            .find { it.dataElement() == dataElementUid }
-
         when (conflict?.status()) {
             ImportStatus.WARNING -> warning = getError(conflict, dataValue)
             ImportStatus.ERROR -> error = getError(conflict, dataValue)
@@ -680,5 +744,6 @@ class EventRepository(
         const val EVENT_CATEGORY_COMBO_SECTION_UID = "EVENT_CATEGORY_COMBO_SECTION_UID"
         const val EVENT_CATEGORY_COMBO_UID = "EVENT_CATEGORY_COMBO_UID"
         const val EVENT_DATA_SECTION_UID = "EVENT_DATA_SECTION_UID"
+        private const val UID_QUERY_BATCH_SIZE = 500
     }
 }
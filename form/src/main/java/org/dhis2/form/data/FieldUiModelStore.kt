@@ -0,0 +1,133 @@
+package org.dhis2.form.data
+
+import org.dhis2.form.model.FieldUiModel
+
+private const val MAX_PARTITION_SIZE = 64
+private const val PARTITION_GROUP_SIZE = 32
+
+/**
+ * Immutable, uid-indexed store of the form fields.
+ *
+ * Fields are kept in partitions that start at every section (and are split every
+ * [MAX_PARTITION_SIZE] fields), and partitions are grouped by [PARTITION_GROUP_SIZE]. Updating
+ * a field only copies its partition, its group and the list of groups, while the rest of the
+ * store, including the uid index and the partition offsets, is shared with the previous
+ * version. [list] is a view over the partitions and is not flattened again.
+ * When several fields share a uid, lookups resolve to the first one.
+ */
+class FieldUiModelStore private constructor(
+    private val groups: List<List<List<FieldUiModel>>>,
+    private val positions: Map<String, FieldPosition>,
+    private val offsets: IntArray,
+) {
+
+    private val partitions: List<List<FieldUiModel>> = object : AbstractList<List<FieldUiModel>>() {
+        override val size: Int
+            get() = offsets.size - 1
+
+        override fun get(index: Int) =
+            groups[index / PARTITION_GROUP_SIZE][index % PARTITION_GROUP_SIZE]
+    }
+
+    private val fields: List<FieldUiModel> = PartitionedList(partitions, offsets)
+
+    val size: Int
+        get() = fields.size
+
+    fun list(): List<FieldUiModel> = fields
+
+    operator fun get(uid: String?): FieldUiModel? {
+        return positions[uid]?.let { partitions[it.partition][it.index] }
+    }
+
+    fun update(uid: String?, transform: (FieldUiModel) -> FieldUiModel): FieldUiModelStore {
+        val position = positions[uid] ?: return this
+        val partition = partitions[position.partition]
+        val updatedPartition = partition.toMutableList().apply {
+            set(position.index, transform(partition[position.index]))
+        }
+        val groupIndex = position.partition / PARTITION_GROUP_SIZE
+        val updatedGroup = groups[groupIndex].toMutableList().apply {
+            set(position.partition % PARTITION_GROUP_SIZE, updatedPartition)
+        }
+        val updatedGroups = groups.toMutableList().apply {
+            set(groupIndex, updatedGroup)
+        }
+        return FieldUiModelStore(updatedGroups, positions, offsets)
+    }
+
+    fun map(transform: (FieldUiModel) -> FieldUiModel): FieldUiModelStore {
+        return FieldUiModelStore(
+            groups.map { group -> group.map { it.map(transform) } },
+            positions,
+            offsets,
+        )
+    }
+
+    fun nextUid(uid: String): String? {
+        val position = positions[uid] ?: return null
+        val partition = partitions[position.partition]
+        return when {
+            position.index < partition.size - 1 -> partition[position.index + 1].uid
+            else -> (position.partition + 1 until partitions.size).asSequence()
+                .map { partitions[it] }
+                .firstOrNull { it.isNotEmpty() }
+                ?.first()?.uid
+        }
+    }
+
+    private data class FieldPosition(val partition: Int, val index: Int)
+
+    companion object {
+        fun from(fields: List<FieldUiModel>): FieldUiModelStore {
+            val partitions = mutableListOf<MutableList<FieldUiModel>>()
+            val positions = HashMap<String, FieldPosition>(fields.size)
+            fields.forEach { field ->
+                val current = partitions.lastOrNull()
+                val partition = if (
+                    current == null || field.isSection() || current.size >= MAX_PARTITION_SIZE
+                ) {
+                    mutableListOf<FieldUiModel>().also { partitions.add(it) }
+                } else {
+                    current
+                }
+                positions.getOrPut(field.uid) {
+                    FieldPosition(partitions.lastIndex, partition.size)
+                }
+                partition.add(field)
+            }
+            val offsets = IntArray(partitions.size + 1)
+            partitions.forEachIndexed { index, partition ->
+                offsets[index + 1] = offsets[index] + partition.size
+            }
+            return FieldUiModelStore(
+                partitions.chunked(PARTITION_GROUP_SIZE),
+                positions,
+                offsets,
+            )
+        }
+    }
+}
+
+/**
+ * Read-only list over the partitions of a [FieldUiModelStore], where [offsets] holds the index
+ * of the first field of each partition followed by the total size.
+ */
+private class PartitionedList(
+    private val partitions: List<List<FieldUiModel>>,
+    private val offsets: IntArray,
+) : AbstractList<FieldUiModel>() {
+
+    override val size: Int
+        get() = offsets.last()
+
+    override fun get(index: Int): FieldUiModel {
+        if (index < 0 || index >= size) throw IndexOutOfBoundsException("Index: $index")
+        val search = offsets.binarySearch(index, toIndex = partitions.size)
+        val partition = if (search >= 0) search else -search - 2
+        return partitions[partition][index - offsets[partition]]
+    }
+
+    override fun iterator(): Iterator<FieldUiModel> =
+        partitions.asSequence().flatten().iterator()
+}
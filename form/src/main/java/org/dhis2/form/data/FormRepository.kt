@@ -8,11 +8,15 @@ import org.hisp.dhis.android.core.common.ValueType
 interface FormRepository {
 
     fun fetchFormItems(shouldOpenErrorLocation: Boolean = false): List<FieldUiModel>
-    fun composeList(skipProgramRules: Boolean = false): List<FieldUiModel>
+    fun composeList(
+        skipProgramRules: Boolean = false,
+        isSuperseded: () -> Boolean = { false },
+    ): List<FieldUiModel>
     fun getConfigurationErrors(): List<RulesUtilsProviderConfigurationError>?
     fun runDataIntegrityCheck(allowDiscard: Boolean): DataIntegrityCheckResult
     fun completedFieldsPercentage(value: List<FieldUiModel>): Float
     fun calculationLoopOverLimit(): Boolean
+    fun ruleEvaluationTime(): Long
     fun backupOfChangedItems(): List<FieldUiModel>
     fun updateErrorList(action: RowAction)
     fun save(id: String, value: String?, extraData: String?): StoreResult?
@@ -15,6 +15,7 @@ import org.dhis2.ui.dialogs.bottomsheet.IssueType
 import org.hisp.dhis.android.core.common.ValueType
 import org.hisp.dhis.android.core.common.ValueType.LONG_TEXT
 import org.hisp.dhis.rules.models.RuleEffect
+import java.util.concurrent.CancellationException
 
 private const val loopThreshold = 5
 
@@ -30,22 +31,37 @@ class FormRepositoryImpl(
 ) : FormRepository {
 
     private var completionPercentage: Float = 0f
-    private val itemsWithError: MutableList<RowAction> = mutableListOf()
+    private val itemsWithError: MutableMap<String, RowAction> = mutableMapOf()
     private val mandatoryItemsWithoutValue: MutableMap<String, String> = mutableMapOf()
     private var openedSectionUid: String? = null
-    private var itemList: List<FieldUiModel> = emptyList()
+    private var fieldStore: FieldUiModelStore = FieldUiModelStore.from(emptyList())
+    private val itemList: List<FieldUiModel>
+        get() = fieldStore.list()
     private var focusedItemId: String? = null
     private var ruleEffects: List<RuleEffect> = emptyList()
     private var ruleEffectsResult: RuleUtilsProviderResult? = null
     private var runDataIntegrity: Boolean = false
     private var calculationLoop: Int = 0
+    private var ruleEvaluationTime: Long = 0
     private var backupList: List<FieldUiModel> = emptyList()
+    private val changedFields: MutableSet<String> = mutableSetOf()
+    private var fullRuleEvaluation: Boolean = true
+    private var composedInput: Map<String, FieldUiModel> = emptyMap()
+    private var composedRuleEffects: List<RuleEffect> = emptyList()
+    private val composedFields: MutableMap<String, FieldUiModel> = mutableMapOf()
+    private val sectionStatistics: MutableMap<String?, SectionStatistics> = mutableMapOf()
+    private val dirtySections: MutableSet<String?> = mutableSetOf()
+    private var allSectionsDirty: Boolean = true
 
     private val disableCollapsableSections: Boolean? =
         dataEntryRepository.disableCollapsableSections()
 
     override fun fetchFormItems(shouldOpenErrorLocation: Boolean): List<FieldUiModel> {
-        itemList = dataEntryRepository.list().blockingFirst() ?: emptyList()
+        fieldStore = FieldUiModelStore.from(
+            dataEntryRepository.list().blockingFirst() ?: emptyList(),
+        )
+        fullRuleEvaluation = true
+        allSectionsDirty = true
         openedSectionUid = getInitialOpenedSection(shouldOpenErrorLocation)
         backupList = itemList
         return composeList()
@@ -63,11 +79,15 @@ class FormRepositoryImpl(
             dataEntryRepository.firstSectionToOpen()
     }
 
-    override fun composeList(skipProgramRules: Boolean): List<FieldUiModel> {
+    override fun composeList(
+        skipProgramRules: Boolean,
+        isSuperseded: () -> Boolean,
+    ): List<FieldUiModel> {
         calculationLoop = 0
-        return itemList
-            .applyRuleEffects(skipProgramRules)
-            .mergeListWithErrorFields(itemsWithError)
+        ruleEvaluationTime = 0
+        val fieldMap = itemList.applyRuleEffects(skipProgramRules, isSuperseded)
+        if (isSuperseded()) throw CancellationException("Composition superseded")
+        return composeFields(fieldMap)
             .also {
                 calculateCompletionPercentage(it)
             }
@@ -107,7 +127,14 @@ class FormRepositoryImpl(
     }
 
     private fun ruleEffects() = try {
-        ruleEngineRepository?.evaluate() ?: emptyList()
+        if (fullRuleEvaluation || changedFields.isEmpty()) {
+            ruleEngineRepository?.evaluate()
+        } else {
+            ruleEngineRepository?.evaluate(changedFields.toSet())
+        }.orEmpty().also {
+            changedFields.clear()
+            fullRuleEvaluation = false
+        }
     } catch (e: Exception) {
         emptyList()
     }
@@ -135,12 +162,13 @@ class FormRepositoryImpl(
     }
 
     override fun runDataIntegrityCheck(allowDiscard: Boolean): DataIntegrityCheckResult {
+        if (!runDataIntegrity) allSectionsDirty = true
         runDataIntegrity = true
         val itemsWithErrors = getFieldsWithError()
         val itemsWithWarning = ruleEffectsResult?.fieldsWithWarnings?.map { warningField ->
             FieldWithIssue(
                 fieldUid = warningField.fieldUid,
-                fieldName = itemList.find { it.uid == warningField.fieldUid }?.label ?: "",
+                fieldName = fieldStore[warningField.fieldUid]?.label ?: "",
                 IssueType.WARNING,
                 warningField.errorMessage,
             )
@@ -191,16 +219,19 @@ class FormRepositoryImpl(
         return completionPercentage
     }
 
+    override fun ruleEvaluationTime(): Long {
+        return ruleEvaluationTime
+    }
+
     override fun calculationLoopOverLimit(): Boolean {
         return calculationLoop == loopThreshold
     }
 
-    override fun backupOfChangedItems() = backupList.minus(itemList.applyRuleEffects())
+    override fun backupOfChangedItems() =
+        backupList.minus(itemList.applyRuleEffects().values.toSet())
 
-    private fun getFieldsWithError() = itemsWithError.mapNotNull { errorItem ->
-        itemList.find { item ->
-            item.uid == errorItem.id
-        }?.let { item ->
+    private fun getFieldsWithError() = itemsWithError.values.mapNotNull { errorItem ->
+        fieldStore[errorItem.id]?.let { item ->
             FieldWithIssue(
                 fieldUid = item.uid,
                 fieldName = item.label,
@@ -214,22 +245,29 @@ class FormRepositoryImpl(
         ruleEffectsResult?.fieldsWithErrors?.map { errorField ->
             FieldWithIssue(
                 fieldUid = errorField.fieldUid,
-                fieldName = itemList.find { it.uid == errorField.fieldUid }?.label ?: "",
+                fieldName = fieldStore[errorField.fieldUid]?.label ?: "",
                 issueType = IssueType.ERROR,
                 message = errorField.errorMessage,
             )
         } ?: emptyList(),
     )
 
+    /**
+     * Returns the fields left after applying the rule effects, by uid and in list order.
+     */
     private fun List<FieldUiModel>.applyRuleEffects(
         skipProgramRules: Boolean = false,
-    ): List<FieldUiModel> {
+        isSuperseded: () -> Boolean = { false },
+    ): Map<String, FieldUiModel> {
         ruleEffects = if (skipProgramRules) {
             ruleEffects
         } else {
-            ruleEffects()
+            val startTime = System.currentTimeMillis()
+            ruleEffects().also {
+                ruleEvaluationTime += System.currentTimeMillis() - startTime
+            }
         }
-        val fieldMap = this.associateBy { it.uid }.toMutableMap()
+        val fieldMap = this.associateByTo(LinkedHashMap(size)) { it.uid }
         ruleEffectsResult = rulesUtilsProvider.applyRuleEffects(
             applyForEvent = dataEntryRepository.isEvent(),
             fieldViewModels = fieldMap,
@@ -238,36 +276,142 @@ class FormRepositoryImpl(
         )
         ruleEffectsResult?.fieldsToUpdate?.takeIf { it.isNotEmpty() }
             ?.forEach { fieldWithNewValue ->
-                itemList.find { it.uid == fieldWithNewValue.fieldUid }?.let { field ->
+                fieldStore[fieldWithNewValue.fieldUid]?.let { field ->
                     updateValueOnList(field.uid, fieldWithNewValue.newValue, field.valueType)
                 }
             }
         return if (ruleEffectsResult?.fieldsToUpdate?.isNotEmpty() == true &&
-            calculationLoop < loopThreshold
+            calculationLoop < loopThreshold &&
+            !isSuperseded()
         ) {
             calculationLoop += 1
-            ArrayList(fieldMap.values).applyRuleEffects(skipProgramRules)
+            ArrayList(fieldMap.values).applyRuleEffects(skipProgramRules, isSuperseded)
         } else {
-            ArrayList(fieldMap.values)
+            fieldMap
+        }
+    }
+
+    /**
+     * Maps the fields of the sections touched since the previous composition and reuses the
+     * fields composed then for every other section. A section is touched when one of its fields
+     * changed, was hidden or shown, got or lost an error, or is the target of a rule effect
+     * that was added or removed.
+     */
+    private fun composeFields(fieldMap: Map<String, FieldUiModel>): List<FieldUiModel> {
+        val sectionsToCompose = sectionsToCompose(fieldMap)
+        if (sectionsToCompose == null) {
+            composedFields.clear()
+            sectionStatistics.clear()
+            mandatoryItemsWithoutValue.clear()
+        } else {
+            sectionsToCompose.forEach { sectionStatistics.remove(it) }
+            val mandatorySections = sectionsToCompose.map { it ?: "" }.toSet()
+            mandatoryItemsWithoutValue.values.removeAll { mandatorySections.contains(it) }
+        }
+        val fieldsWithWarning = ruleEffectsResult?.warningMap()?.keys.orEmpty()
+        val fieldsWithRuleError = ruleEffectsResult?.errorMap()?.keys.orEmpty()
+        val composedList = ArrayList<FieldUiModel>(fieldMap.size)
+        fieldMap.values.forEach { field ->
+            composedList.add(
+                when {
+                    field.isSection() ->
+                        field
+
+                    sectionsToCompose?.contains(field.programStageSection) == false ->
+                        composedFields[field.uid]
+                            ?: composeField(field, fieldsWithWarning, fieldsWithRuleError)
+
+                    else ->
+                        composeField(field, fieldsWithWarning, fieldsWithRuleError)
+                },
+            )
+        }
+        composedInput = fieldMap
+        composedRuleEffects = ruleEffects
+        dirtySections.clear()
+        allSectionsDirty = false
+        return composedList
+    }
+
+    /**
+     * Returns null when every section has to be composed again.
+     */
+    private fun sectionsToCompose(fieldMap: Map<String, FieldUiModel>): Set<String?>? {
+        if (allSectionsDirty) return null
+        val sections = dirtySections.toMutableSet()
+        fieldMap.forEach { (uid, field) ->
+            val previous = composedInput[uid]
+            if (!field.isSection() && previous !== field && previous != field) {
+                sections.add(field.programStageSection)
+            }
+        }
+        composedInput.forEach { (uid, field) ->
+            if (!fieldMap.containsKey(uid)) sections.add(field.programStageSection)
+        }
+        if (ruleEffects != composedRuleEffects) {
+            val previousEffects = composedRuleEffects.toSet()
+            val currentEffects = ruleEffects.toSet()
+            previousEffects.minus(currentEffects).plus(currentEffects.minus(previousEffects))
+                .mapNotNull { effect -> fieldStore[effect.ruleAction.field()] }
+                .forEach { sections.add(it.programStageSection) }
         }
+        return sections
+    }
+
+    private fun composeField(
+        field: FieldUiModel,
+        fieldsWithWarning: Set<String>,
+        fieldsWithRuleError: Set<String>,
+    ): FieldUiModel {
+        if (hasMandatoryWarnings(field)) {
+            mandatoryItemsWithoutValue[field.label] = field.programStageSection ?: ""
+        }
+        val fieldWithError = itemsWithError[field.uid]?.let { action ->
+            val error = action.error?.let {
+                fieldErrorMessageProvider.getFriendlyErrorMessage(it)
+            }
+            field.setValue(action.value).setError(error)
+                .setDisplayName(
+                    displayNameProvider.provideDisplayName(
+                        action.valueType,
+                        action.value,
+                        field.optionSet,
+                        field.periodSelector?.type,
+                    ),
+                )
+        } ?: field
+        sectionStatistics.getOrPut(field.programStageSection) { SectionStatistics() }.apply {
+            if (fieldWithError.valueType != null) {
+                total++
+                if (!fieldWithError.value.isNullOrEmpty()) {
+                    values++
+                }
+            }
+            if (fieldWithError.error != null) {
+                errorFields++
+            }
+            if (fieldsWithWarning.contains(field.uid)) {
+                warnings++
+            }
+            if (fieldsWithRuleError.contains(field.uid)) {
+                errors++
+            }
+        }
+        return updateField(fieldWithError).also { composedFields[field.uid] = it }
     }
 
     private fun List<FieldUiModel>.setFocusedItem(): List<FieldUiModel> {
-        return focusedItemId?.let { uid ->
-            find { item ->
-                item.uid == uid
-            }?.let { item ->
-                updated(indexOf(item), item.setFocus())
-            } ?: this
+        return focusedItemId?.takeIf { uid -> fieldStore[uid] != null }?.let { uid ->
+            map { item -> if (item.uid == uid) item.setFocus() else item }
         } ?: this
     }
 
     private fun List<FieldUiModel>.setOpenedSection(): List<FieldUiModel> {
         return map { field ->
             if (field.isSection()) {
-                updateSection(field, this)
+                updateSection(field, sectionStatistics[field.uid] ?: SectionStatistics())
             } else {
-                updateField(field)
+                field
             }
         }
             .filter { field ->
@@ -284,26 +428,10 @@ class FormRepositoryImpl(
 
     private fun updateSection(
         sectionFieldUiModel: FieldUiModel,
-        fields: List<FieldUiModel>,
+        statistics: SectionStatistics,
     ): FieldUiModel {
-        var total = 0
-        var values = 0
         val isOpen = (sectionFieldUiModel.uid == openedSectionUid)
             .takeIf { disableCollapsableSections != true }
-        fields.filter {
-            it.programStageSection.equals(sectionFieldUiModel.uid) && it.valueType != null
-        }.forEach {
-            total++
-            if (!it.value.isNullOrEmpty()) {
-                values++
-            }
-        }
-
-        val warningCount = ruleEffectsResult?.warningMap()?.filter { warning ->
-            fields.any { field ->
-                field.uid == warning.key && field.programStageSection == sectionFieldUiModel.uid
-            }
-        }?.size ?: 0
 
         val mandatoryCount = mandatoryItemsWithoutValue.takeIf {
             runDataIntegrity
@@ -311,26 +439,24 @@ class FormRepositoryImpl(
             mandatory.value == sectionFieldUiModel.uid
         }?.size ?: 0
 
-        val errorCount = ruleEffectsResult?.errorMap()?.filter { error ->
-            fields.any { field ->
-                field.uid == error.key && field.programStageSection == sectionFieldUiModel.uid
-            }
-        }?.size ?: 0
-
-        val errorFields = fields.count {
-            it.programStageSection == sectionFieldUiModel.uid && it.error != null
-        }
-
         return dataEntryRepository.updateSection(
             sectionFieldUiModel,
             isOpen,
-            total,
-            values,
-            errorCount + mandatoryCount + errorFields,
-            warningCount,
+            statistics.total,
+            statistics.values,
+            statistics.errors + mandatoryCount + statistics.errorFields,
+            statistics.warnings,
         )
     }
 
+    private class SectionStatistics {
+        var total = 0
+        var values = 0
+        var errorFields = 0
+        var warnings = 0
+        var errors = 0
+    }
+
     private fun updateField(fieldUiModel: FieldUiModel): FieldUiModel {
         val needsMandatoryWarning = hasMandatoryWarnings(fieldUiModel)
         if (needsMandatoryWarning) {
@@ -363,129 +489,68 @@ class FormRepositoryImpl(
     }
 
     private fun getNextItem(currentItemUid: String): String? {
-        itemList.let { fields ->
-            val oldItem = fields.find { it.uid == currentItemUid }
-            val pos = fields.indexOf(oldItem)
-            if (pos < fields.size - 1) {
-                return fields[pos + 1].uid
-            }
-        }
-        return null
+        return fieldStore.nextUid(currentItemUid)
     }
 
     override fun updateValueOnList(uid: String, value: String?, valueType: ValueType?) {
         val updatedEnrollmentDataList = dataEntryRepository.getSpecificDataEntryItems(uid)
         if (updatedEnrollmentDataList.isNotEmpty()) updateEnrollmentDate(updatedEnrollmentDataList)
-        itemList.let { list ->
-
-            list.find { item ->
-                item.uid == uid
-            }?.let { item ->
-                itemList = list.updated(
-                    list.indexOf(item),
-                    item.setValue(value)
-                        .setDisplayName(
-                            displayNameProvider.provideDisplayName(
-                                valueType,
-                                value,
-                                item.optionSet,
-                                item.periodSelector?.type,
-                            ),
-                        )
-                        .setLegend(
-                            legendValueProvider.provideLegendValue(
-                                item.uid,
-                                value,
-                            ),
-                        ),
+        changedFields.add(uid)
+        fieldStore = fieldStore.update(uid) { item ->
+            item.setValue(value)
+                .setDisplayName(
+                    displayNameProvider.provideDisplayName(
+                        valueType,
+                        value,
+                        item.optionSet,
+                        item.periodSelector?.type,
+                    ),
+                )
+                .setLegend(
+                    legendValueProvider.provideLegendValue(
+                        item.uid,
+                        value,
+                    ),
                 )
-            }
         }
     }
 
     private fun updateEnrollmentDate(fieldUiModelList: List<FieldUiModel>) {
         for (element in fieldUiModelList) {
-            itemList.let { list ->
-                list.find { item ->
-                    item.uid == ENROLLMENT_DATE_UID
-                }?.let { item ->
-                    itemList = list.updated(
-                        list.indexOf(item),
-                        item.setSelectableDates(element.selectableDates),
-
-                    )
-                }
+            fieldStore = fieldStore.update(ENROLLMENT_DATE_UID) { item ->
+                item.setSelectableDates(element.selectableDates)
             }
         }
     }
 
     override fun removeAllValues() {
-        itemList = itemList.map { fieldUiModel ->
+        fieldStore = fieldStore.map { fieldUiModel ->
             fieldUiModel.setValue(null).setDisplayName(null)
         }
+        fullRuleEvaluation = true
+        allSectionsDirty = true
     }
 
     override fun setFieldRequestingCoordinates(uid: String, requestInProcess: Boolean) {
-        itemList.let { list ->
-            list.find { item ->
-                item.uid == uid
-            }?.let { item ->
-                itemList = list.updated(
-                    list.indexOf(item),
-                    item.setIsLoadingData(requestInProcess),
-                )
-            }
+        fieldStore = fieldStore.update(uid) { item ->
+            item.setIsLoadingData(requestInProcess)
         }
     }
 
     override fun setFieldAddingImage(uid: String, requestInProcess: Boolean) {
-        itemList.let { list ->
-            list.find { item ->
-                item.uid == uid
-            }?.let { item ->
-                itemList = list.updated(
-                    list.indexOf(item),
-                    item.setIsLoadingData(requestInProcess),
-                )
-            }
+        fieldStore = fieldStore.update(uid) { item ->
+            item.setIsLoadingData(requestInProcess)
         }
     }
 
-    private fun List<FieldUiModel>.mergeListWithErrorFields(
-        fieldsWithError: List<RowAction>,
-    ): List<FieldUiModel> {
-        mandatoryItemsWithoutValue.clear()
-        val mergedList = this.map { item ->
-            if (hasMandatoryWarnings(item)) {
-                mandatoryItemsWithoutValue[item.label] = item.programStageSection ?: ""
-            }
-            fieldsWithError.find { it.id == item.uid }?.let { action ->
-                val error = action.error?.let {
-                    fieldErrorMessageProvider.getFriendlyErrorMessage(it)
-                }
-                item.setValue(action.value).setError(error)
-                    .setDisplayName(
-                        displayNameProvider.provideDisplayName(
-                            action.valueType,
-                            action.value,
-                            item.optionSet,
-                            item.periodSelector?.type,
-                        ),
-                    )
-            } ?: item
-        }
-        return mergedList
-    }
-
     override fun updateErrorList(action: RowAction) {
+        fieldStore[action.id]?.let { dirtySections.add(it.programStageSection) }
         if (action.error != null) {
-            if (itemsWithError.none { it.id == action.id }) {
-                itemsWithError.add(action)
+            if (!itemsWithError.containsKey(action.id)) {
+                itemsWithError[action.id] = action
             }
         } else {
-            itemsWithError.find { it.id == action.id }?.let {
-                itemsWithError.remove(it)
-            }
+            itemsWithError.remove(action.id)
         }
     }
 
@@ -514,7 +579,7 @@ class FormRepositoryImpl(
     }
 
     override fun currentFocusedItem(): FieldUiModel? {
-        return itemList.find { focusedItemId == it.uid }
+        return fieldStore[focusedItemId]
     }
 
     override fun updateSectionOpened(action: RowAction) {
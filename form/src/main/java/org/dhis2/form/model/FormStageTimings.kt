@@ -0,0 +1,7 @@
+package org.dhis2.form.model
+
+data class FormStageTimings(
+    val storeTime: Long,
+    val rulesTime: Long,
+    val composeTime: Long,
+)
@@ -4,21 +4,27 @@ import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
-import com.google.gson.Gson
-import com.google.gson.reflect.TypeToken
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Job
 import kotlinx.coroutines.async
 import kotlinx.coroutines.channels.BufferOverflow
 import kotlinx.coroutines.channels.Channel
-import kotlinx.coroutines.channels.consumeEach
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.ensureActive
 import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.collectLatest
 import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.receiveAsFlow
+import kotlinx.coroutines.job
 import kotlinx.coroutines.launch
 import org.dhis2.commons.date.DateUtils
 import org.dhis2.commons.prefs.PreferenceProvider
 import org.dhis2.commons.viewmodel.DispatcherProvider
 import org.dhis2.form.R
+import org.dhis2.form.data.AutoCompleteStore
 import org.dhis2.form.data.DataIntegrityCheckResult
 import org.dhis2.form.data.EventRepository.Companion.EVENT_COORDINATE_UID
 import org.dhis2.form.data.EventRepository.Companion.EVENT_ORG_UNIT_UID
@@ -30,6 +36,7 @@ import org.dhis2.form.data.RulesUtilsProviderConfigurationError
 import org.dhis2.form.model.ActionType
 import org.dhis2.form.model.FieldListConfiguration
 import org.dhis2.form.model.FieldUiModel
+import org.dhis2.form.model.FormStageTimings
 import org.dhis2.form.model.InfoUiModel
 import org.dhis2.form.model.RowAction
 import org.dhis2.form.model.StoreResult
@@ -59,6 +66,7 @@ class FormViewModel(
     private val geometryController: GeometryController = GeometryController(GeometryParserImpl()),
     private val openErrorLocation: Boolean = false,
     private val preferenceProvider: PreferenceProvider,
+    private val textChangeDebounce: Long = TEXT_CHANGE_DEBOUNCE,
 ) : ViewModel() {
 
     val loading = MutableLiveData(true)
@@ -87,13 +95,32 @@ class FormViewModel(
     private val _calculationLoop = MutableLiveData(false)
     val calculationLoop = _calculationLoop
 
+    private val _stageTimings = MutableLiveData<FormStageTimings>()
+    val stageTimings: LiveData<FormStageTimings> = _stageTimings
+
     private val _pendingIntents = MutableSharedFlow<FormIntent>()
+    private var pendingTextChange: FormIntent.OnTextChange? = null
+    private var textChangeJob: Job? = null
+
+    @Volatile
+    private var lastStoreTime: Long = 0
+
+    @Volatile
+    private var rulesRequested: Boolean = false
+
+    @Volatile
+    private var finishRequested: Boolean = false
 
     private val fieldListChannel = Channel<FieldListConfiguration>(
         capacity = 1,
         onBufferOverflow = BufferOverflow.DROP_OLDEST,
     )
 
+    private val autoCompleteStoreDelegate = lazy {
+        AutoCompleteStore.getInstance(preferenceProvider.sharedPreferences())
+    }
+    private val autoCompleteStore by autoCompleteStoreDelegate
+
     init {
         viewModelScope.launch {
             _pendingIntents
@@ -110,14 +137,8 @@ class FormViewModel(
         }
 
         viewModelScope.launch(dispatcher.io()) {
-            fieldListChannel.consumeEach { fieldListConfiguration ->
-                val result = async {
-                    repository.composeList(fieldListConfiguration.skipProgramRules)
-                }
-                _items.postValue(result.await())
-                if (fieldListConfiguration.finish) {
-                    runDataIntegrityCheck()
-                }
+            fieldListChannel.receiveAsFlow().collectLatest {
+                composeFieldList()
             }
         }
 
@@ -176,13 +197,66 @@ class FormViewModel(
         }
     }
 
+    /**
+     * A new configuration cancels the composition in progress. Rule evaluation and data
+     * integrity requests are accumulated until a composition completes, so coalescing
+     * configurations never drops them.
+     */
+    private suspend fun composeFieldList() {
+        val job = currentCoroutineContext().job
+        val startTime = System.currentTimeMillis()
+        val evaluateRules = rulesRequested
+        rulesRequested = false
+        val result = try {
+            repository.composeList(skipProgramRules = !evaluateRules) {
+                !job.isActive
+            }.also { job.ensureActive() }
+        } catch (e: CancellationException) {
+            rulesRequested = rulesRequested || evaluateRules
+            throw e
+        }
+        val rulesTime = repository.ruleEvaluationTime()
+        val timings = FormStageTimings(
+            storeTime = lastStoreTime,
+            rulesTime = rulesTime,
+            composeTime = System.currentTimeMillis() - startTime - rulesTime,
+        )
+        Timber.tag(TAG).d("Form stage timings: %s", timings)
+        _stageTimings.postValue(timings)
+        _items.postValue(result)
+        if (finishRequested) {
+            finishRequested = false
+            runDataIntegrityCheck()
+        }
+    }
+
     fun submitIntent(intent: FormIntent) {
-        viewModelScope.launch {
-            _pendingIntents.emit(intent)
+        if (intent is FormIntent.OnTextChange && textChangeDebounce > 0) {
+            pendingTextChange?.takeIf { it.uid != intent.uid }?.let { previousTextChange ->
+                viewModelScope.launch { _pendingIntents.emit(previousTextChange) }
+            }
+            textChangeJob?.cancel()
+            pendingTextChange = intent
+            textChangeJob = viewModelScope.launch {
+                delay(textChangeDebounce)
+                pendingTextChange?.let { textChange ->
+                    pendingTextChange = null
+                    _pendingIntents.emit(textChange)
+                }
+            }
+        } else {
+            val textChange = pendingTextChange
+            textChangeJob?.cancel()
+            pendingTextChange = null
+            viewModelScope.launch {
+                textChange?.let { _pendingIntents.emit(it) }
+                _pendingIntents.emit(intent)
+            }
         }
     }
 
     private fun createRowActionStore(it: FormIntent): Pair<RowAction, StoreResult> {
+        val startTime = System.currentTimeMillis()
         val rowAction = rowActionFromIntent(it)
 
         if (rowAction.type == ActionType.ON_FOCUS) {
@@ -192,6 +266,7 @@ class FormViewModel(
         }
 
         val result = processUserAction(rowAction)
+        lastStoreTime = System.currentTimeMillis() - startTime
         return Pair(rowAction, result)
     }
 
@@ -360,12 +435,7 @@ class FormViewModel(
     private fun checkAutoCompleteForLastFocusedItem(fieldUidModel: FieldUiModel) =
         getLastFocusedTextItem()?.let {
             if (fieldUidModel.renderingType == UiRenderType.AUTOCOMPLETE && !fieldUidModel.value.isNullOrEmpty() && fieldUidModel.value?.trim()?.length != 0) {
-                val autoCompleteValues =
-                    getListFromPreference(fieldUidModel.uid)
-                if (!autoCompleteValues.contains(fieldUidModel.value)) {
-                    autoCompleteValues.add(fieldUidModel.value.toString())
-                    saveListToPreference(fieldUidModel.uid, autoCompleteValues)
-                }
+                autoCompleteStore.add(fieldUidModel.uid, fieldUidModel.value.toString())
             }
         }
 
@@ -722,6 +792,8 @@ class FormViewModel(
     }
 
     private fun processCalculatedItems(skipProgramRules: Boolean = false, finish: Boolean = false) {
+        rulesRequested = rulesRequested || !skipProgramRules
+        finishRequested = finishRequested || finish
         fieldListChannel.trySend(
             FieldListConfiguration(skipProgramRules, finish),
         )
@@ -828,24 +900,19 @@ class FormViewModel(
         }
     }
 
-    private fun getListFromPreference(uid: String): MutableList<String> {
-        val gson = Gson()
-        val json = preferenceProvider.sharedPreferences().getString(uid, "[]")
-        val type = object : TypeToken<List<String>>() {}.type
-        return gson.fromJson(json, type)
-    }
-
-    private fun saveListToPreference(uid: String, list: List<String>) {
-        val gson = Gson()
-        val json = gson.toJson(list)
-        preferenceProvider.sharedPreferences().edit().putString(uid, json).apply()
-    }
-
     fun areSectionCollapsable(): Boolean {
         return repository.areSectionCollapsable()
     }
 
+    override fun onCleared() {
+        if (autoCompleteStoreDelegate.isInitialized()) {
+            autoCompleteStore.flush()
+        }
+        super.onCleared()
+    }
+
     companion object {
         const val TAG = "FormViewModel"
+        const val TEXT_CHANGE_DEBOUNCE = 300L
     }
 }
@@ -29,8 +29,6 @@ import androidx.core.widget.TextViewCompat
 import androidx.databinding.BindingAdapter
 import com.google.android.material.textfield.TextInputEditText
 import com.google.android.material.textfield.TextInputLayout
-import com.google.gson.Gson
-import com.google.gson.reflect.TypeToken
 import org.dhis2.commons.customviews.TextInputAutoCompleteTextView
 import org.dhis2.commons.extensions.Preconditions.Companion.equals
 import org.dhis2.commons.extensions.closeKeyboard
@@ -38,6 +36,7 @@ import org.dhis2.commons.extensions.openKeyboard
 import org.dhis2.commons.prefs.SHARE_PREFS
 import org.dhis2.commons.resources.ColorUtils
 import org.dhis2.form.R
+import org.dhis2.form.data.AutoCompleteStore
 import org.dhis2.form.databinding.DataElementLegendBinding
 import org.dhis2.form.model.FieldUiModel
 import org.dhis2.form.model.KeyboardActionType
@@ -417,34 +416,21 @@ fun EditText.setOnTyping(item: FieldUiModel, textWatcher: TextWatcher) {
 }
 
 fun getListFromPreference(context: Context, uid: String): MutableList<String> {
-    val gson = Gson()
-    val json = context.getSharedPreferences(
-        SHARE_PREFS,
-        Context.MODE_PRIVATE,
-    ).getString(uid, "[]")
-    val type = object : TypeToken<List<String>>() {}.type
-    return gson.fromJson(json, type)
+    return autoCompleteStore(context).values(uid).toMutableList()
 }
 
 fun checkAutocompleteRendering(context: Context, item: FieldUiModel, value: String?) {
     if (item.renderingType == UiRenderType.AUTOCOMPLETE && value != null) {
-        val autoCompleteValues = getListFromPreference(context, item.uid)
-        if (!autoCompleteValues.contains(value)) {
-            autoCompleteValues.add(value)
-            saveListToPreference(context, item.uid, autoCompleteValues)
-        }
+        autoCompleteStore(context).add(item.uid, value)
     }
 }
 
-fun saveListToPreference(context: Context, uid: String, list: List<String>) {
-    val gson = Gson()
-    val json = gson.toJson(list)
+private fun autoCompleteStore(context: Context) = AutoCompleteStore.getInstance(
     context.getSharedPreferences(
         SHARE_PREFS,
         Context.MODE_PRIVATE,
-    )
-        .edit().putString(uid, json).apply()
-}
+    ),
+)
 
 @BindingAdapter("iconIsClickable")
 fun setDescriptionIconVisibility(imageView: View, item: FieldUiModel) {
@@ -0,0 +1,84 @@
+package org.dhis2.form.data
+
+import android.content.SharedPreferences
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.anyOrNull
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import java.util.concurrent.ScheduledExecutorService
+
+class AutoCompleteStoreTest {
+
+    private val editor: SharedPreferences.Editor = mock {
+        on { putString(any(), anyOrNull()) } doReturn it
+        on { remove(any()) } doReturn it
+    }
+    private val sharedPreferences: SharedPreferences = mock {
+        on { edit() } doReturn editor
+    }
+    private val scheduler: ScheduledExecutorService = mock()
+
+    @Test
+    fun `Should encode and decode values containing separators`() {
+        val values = listOf("a:b", "", "12:3", "line\nbreak")
+
+        assertEquals(values, AutoCompleteStore.decode(AutoCompleteStore.encode(values)))
+    }
+
+    @Test
+    fun `Should keep the most recently used values`() {
+        val store = AutoCompleteStore(sharedPreferences, scheduler, maxValuesPerField = 3)
+
+        store.add("field", "a")
+        store.add("field", "b")
+        store.add("field", "c")
+        store.add("field", "a")
+        store.add("field", "d")
+
+        assertEquals(listOf("c", "a", "d"), store.values("field"))
+    }
+
+    @Test
+    fun `Should write pending values in a single batch`() {
+        val store = AutoCompleteStore(sharedPreferences, scheduler)
+
+        store.add("field1", "a")
+        store.add("field1", "b")
+        store.add("field2", "c")
+        store.flush()
+
+        verify(sharedPreferences, times(1)).edit()
+        verify(editor).putString("autocomplete_field1", "1:a1:b")
+        verify(editor).putString("autocomplete_field2", "1:c")
+        verify(editor, times(1)).apply()
+    }
+
+    @Test
+    fun `Should drop cached and pending values when cleared`() {
+        val store = AutoCompleteStore(sharedPreferences, scheduler)
+
+        store.add("field", "a")
+        store.clear()
+        store.flush()
+
+        assertEquals(emptyList<String>(), store.values("field"))
+        verify(sharedPreferences, never()).edit()
+    }
+
+    @Test
+    fun `Should migrate values stored as json`() {
+        whenever(sharedPreferences.getString("field", null)) doReturn "[\"a\",\"b\"]"
+        val store = AutoCompleteStore(sharedPreferences, scheduler)
+
+        assertEquals(listOf("a", "b"), store.values("field"))
+        verify(editor).putString(eq("autocomplete_field"), eq("1:a1:b"))
+        verify(editor).remove("field")
+    }
+}
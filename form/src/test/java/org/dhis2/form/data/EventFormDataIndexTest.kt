@@ -0,0 +1,148 @@
+package org.dhis2.form.data
+
+import org.hisp.dhis.android.core.common.ObjectWithUid
+import org.hisp.dhis.android.core.common.ValueType
+import org.hisp.dhis.android.core.dataelement.DataElement
+import org.hisp.dhis.android.core.fileresource.FileResource
+import org.hisp.dhis.android.core.imports.TrackerImportConflict
+import org.hisp.dhis.android.core.option.Option
+import org.hisp.dhis.android.core.organisationunit.OrganisationUnit
+import org.hisp.dhis.android.core.program.ProgramStageSection
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+
+class EventFormDataIndexTest {
+
+    @Test
+    fun `Should index every field of a large stage`() {
+        val dataElementUids = (0 until 300).map { "de$it" }
+        val sections = dataElementUids.chunked(30).mapIndexed { index, uids ->
+            section("section$index", uids)
+        }
+
+        val index = EventFormDataIndex(
+            dataElements = dataElementUids.map { dataElement(it, ValueType.TEXT) },
+            dataValues = dataElementUids.map { dataValue(it, "$it-value") },
+            options = emptyList(),
+            conflicts = emptyList(),
+            sections = sections,
+        )
+
+        dataElementUids.forEachIndexed { position, uid ->
+            assertEquals(uid, index.dataElement(uid)?.uid())
+            assertEquals("$uid-value", index.value(uid))
+            assertSame(sections[position / 30], index.section(uid))
+        }
+        assertNull(index.value("unknown"))
+    }
+
+    @Test
+    fun `Should keep the first conflict and section of each data element`() {
+        val firstConflict = conflict("de1")
+        val firstSection = section("section1", listOf("de1"))
+
+        val index = EventFormDataIndex(
+            dataElements = emptyList(),
+            dataValues = emptyList(),
+            options = emptyList(),
+            conflicts = listOf(firstConflict, conflict("de1")),
+            sections = listOf(firstSection, section("section2", listOf("de1"))),
+        )
+
+        assertSame(firstConflict, index.conflict("de1"))
+        assertNull(index.conflict("de2"))
+        assertSame(firstSection, index.section("de1"))
+    }
+
+    @Test
+    fun `Should group options by option set in sort order`() {
+        val index = EventFormDataIndex(
+            dataElements = emptyList(),
+            dataValues = emptyList(),
+            options = listOf(
+                option("set1", "b", "B", 2),
+                option("set2", "c", "C", 1),
+                option("set1", "a", "A", 1),
+            ),
+            conflicts = emptyList(),
+            sections = emptyList(),
+        )
+
+        assertEquals(listOf("a", "b"), index.options("set1").map { it.code() })
+        assertEquals(listOf("c"), index.options("set2").map { it.code() })
+        assertEquals("B", index.optionByCode("set1", "b")?.displayName())
+        assertNull(index.optionByCode("set2", "b"))
+        assertTrue(index.options("set3").isEmpty())
+    }
+
+    @Test
+    fun `Should validate values against the loaded metadata`() {
+        val optionDataElement = dataElement("de1", ValueType.TEXT, "set1")
+        val numberDataElement = dataElement("de2", ValueType.NUMBER)
+        val orgUnitDataElement = dataElement("de3", ValueType.ORGANISATION_UNIT)
+        val imageDataElement = dataElement("de4", ValueType.IMAGE)
+        val orgUnit = mock<OrganisationUnit> { on { uid() } doReturn "orgUnit" }
+        val fileResource = mock<FileResource> { on { uid() } doReturn "file" }
+
+        val index = EventFormDataIndex(
+            dataElements = emptyList(),
+            dataValues = emptyList(),
+            options = listOf(option("set1", "code", "Name", 1)),
+            conflicts = emptyList(),
+            sections = emptyList(),
+            organisationUnits = listOf(orgUnit),
+            fileResources = listOf(fileResource),
+        )
+
+        assertTrue(index.isValidValue(optionDataElement, "code"))
+        assertTrue(index.isValidValue(optionDataElement, "Name"))
+        assertFalse(index.isValidValue(optionDataElement, "other"))
+        assertTrue(index.isValidValue(numberDataElement, "1.5"))
+        assertFalse(index.isValidValue(numberDataElement, "text"))
+        assertTrue(index.isValidValue(orgUnitDataElement, "orgUnit"))
+        assertFalse(index.isValidValue(orgUnitDataElement, "otherOrgUnit"))
+        assertTrue(index.isValidValue(imageDataElement, "file"))
+        assertFalse(index.isValidValue(imageDataElement, "otherFile"))
+    }
+
+    private fun dataElement(uid: String, valueType: ValueType, optionSetUid: String? = null) =
+        mock<DataElement> {
+            on { uid() } doReturn uid
+            on { valueType() } doReturn valueType
+            on { optionSetUid() } doReturn optionSetUid
+        }
+
+    private fun dataValue(dataElement: String, value: String) = mock<TrackedEntityDataValue> {
+        on { dataElement() } doReturn dataElement
+        on { value() } doReturn value
+    }
+
+    private fun conflict(dataElement: String) = mock<TrackerImportConflict> {
+        on { dataElement() } doReturn dataElement
+    }
+
+    private fun section(uid: String, dataElementUids: List<String>): ProgramStageSection {
+        val dataElements = dataElementUids.map { dataElementUid ->
+            mock<DataElement> { on { uid() } doReturn dataElementUid }
+        }
+        return mock {
+            on { uid() } doReturn uid
+            on { dataElements() } doReturn dataElements
+        }
+    }
+
+    private fun option(optionSet: String, code: String, displayName: String, sortOrder: Int) =
+        mock<Option> {
+            on { optionSet() } doReturn ObjectWithUid.create(optionSet)
+            on { code() } doReturn code
+            on { displayName() } doReturn displayName
+            on { sortOrder() } doReturn sortOrder
+        }
+}
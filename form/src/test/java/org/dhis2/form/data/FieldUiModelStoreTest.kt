@@ -0,0 +1,115 @@
+package org.dhis2.form.data
+
+import androidx.databinding.ObservableField
+import org.dhis2.form.model.FieldUiModelImpl
+import org.dhis2.form.model.SectionUiModelImpl
+import org.hisp.dhis.android.core.common.ValueType
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class FieldUiModelStoreTest {
+
+    private val store = FieldUiModelStore.from(provideItemList())
+
+    @Test
+    fun `Should keep fields in order`() {
+        assertEquals(
+            listOf("section1", "uid001", "uid002", "section2", "uid003"),
+            store.list().map { it.uid },
+        )
+    }
+
+    @Test
+    fun `Should find field by uid`() {
+        assertEquals("field2", store["uid002"]?.label)
+        assertNull(store["unknown"])
+    }
+
+    @Test
+    fun `Should update a single field without modifying previous version`() {
+        val updatedStore = store.update("uid002") { it.setValue("newValue") }
+
+        assertEquals("newValue", updatedStore["uid002"]?.value)
+        assertEquals("value", store["uid002"]?.value)
+        assertSame(store["uid003"], updatedStore["uid003"])
+    }
+
+    @Test
+    fun `Should ignore updates of unknown fields`() {
+        assertSame(store, store.update("unknown") { it.setValue("newValue") })
+    }
+
+    @Test
+    fun `Should return next field across sections`() {
+        assertEquals("uid002", store.nextUid("uid001"))
+        assertEquals("section2", store.nextUid("uid002"))
+        assertNull(store.nextUid("uid003"))
+    }
+
+    @Test
+    fun `Should resolve duplicated uids to the first field`() {
+        val duplicatedStore = FieldUiModelStore.from(
+            provideItemList() + field("uid001", "duplicated", "section2"),
+        )
+
+        assertEquals("field1", duplicatedStore["uid001"]?.label)
+        assertEquals(6, duplicatedStore.size)
+    }
+
+    @Test
+    fun `Should list updated fields across partitions`() {
+        val fields = listOf(section("section1")) +
+            (0 until 150).map { field("uid$it", "field$it", "section1") }
+        val updatedStore = FieldUiModelStore.from(fields)
+            .update("uid120") { it.setValue("newValue") }
+
+        assertEquals(fields.map { it.uid }, updatedStore.list().map { it.uid })
+        assertEquals("newValue", updatedStore.list()[121].value)
+        assertEquals("uid64", updatedStore.list()[65].uid)
+        assertEquals(151, updatedStore.list().size)
+    }
+
+    @Test
+    fun `Should update fields across partition groups`() {
+        val fields = (0 until 100).flatMap {
+            listOf(section("section$it"), field("uid$it", "field$it", "section$it"))
+        }
+        val store = FieldUiModelStore.from(fields)
+        val updatedStore = store.update("uid90") { it.setValue("newValue") }
+
+        assertEquals(fields.map { it.uid }, updatedStore.list().map { it.uid })
+        assertEquals("newValue", updatedStore.list()[181].value)
+        assertEquals("value", store["uid90"]?.value)
+        assertSame(store["uid10"], updatedStore["uid10"])
+        assertEquals("section91", updatedStore.nextUid("uid90"))
+    }
+
+    private fun provideItemList() = listOf(
+        section("section1"),
+        field("uid001", "field1", "section1"),
+        field("uid002", "field2", "section1"),
+        section("section2"),
+        field("uid003", "field3", "section2"),
+    )
+
+    private fun section(uid: String) = SectionUiModelImpl(
+        uid = uid,
+        layoutId = 1,
+        label = uid,
+        selectedField = ObservableField(""),
+    )
+
+    private fun field(uid: String, label: String, section: String) = FieldUiModelImpl(
+        uid = uid,
+        layoutId = 1,
+        value = "value",
+        label = label,
+        valueType = ValueType.TEXT,
+        programStageSection = section,
+        uiEventFactory = null,
+        optionSetConfiguration = null,
+        autocompleteList = null,
+    )
+}
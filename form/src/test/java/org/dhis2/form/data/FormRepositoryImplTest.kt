@@ -27,12 +27,17 @@ import org.junit.Before
 import org.junit.Test
 import org.mockito.kotlin.any
 import org.mockito.kotlin.anyOrNull
+import org.mockito.kotlin.argThat
+import org.mockito.kotlin.clearInvocations
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.doReturnConsecutively
+import org.mockito.kotlin.doThrow
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
 import org.mockito.kotlin.times
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
+import org.mockito.verification.VerificationMode
 
 class FormRepositoryImplTest {
 
@@ -223,6 +228,37 @@ class FormRepositoryImplTest {
         )
     }
 
+    @Test
+    fun `Should only evaluate rules affected by changed fields`() {
+        repository.updateValueOnList("uid001", "valueChanged", ValueType.TEXT)
+        repository.composeList()
+
+        verify(ruleEngineHelper, times(1)).evaluate()
+        verify(ruleEngineHelper, times(1)).evaluate(setOf("uid001"))
+    }
+
+    @Test
+    fun `Should keep changed fields until rules are evaluated successfully`() {
+        whenever(ruleEngineHelper.evaluate(setOf("uid001"))) doThrow RuntimeException()
+        repository.updateValueOnList("uid001", "valueChanged", ValueType.TEXT)
+        repository.composeList()
+        repository.updateValueOnList("uid002", "valueChanged", ValueType.TEXT)
+        repository.composeList()
+
+        verify(ruleEngineHelper, times(1)).evaluate(setOf("uid001"))
+        verify(ruleEngineHelper, times(1)).evaluate(setOf("uid001", "uid002"))
+    }
+
+    @Test
+    fun `Should evaluate all rules after removing all values`() {
+        repository.updateValueOnList("uid001", "valueChanged", ValueType.TEXT)
+        repository.removeAllValues()
+        repository.composeList()
+
+        verify(ruleEngineHelper, times(2)).evaluate()
+        verify(ruleEngineHelper, times(0)).evaluate(any<Set<String>>())
+    }
+
     @Test
     fun `Should remove sections with no fields`() {
         whenever(dataEntryRepository.list()) doReturn Flowable.just(provideEmptySectionItemList())
@@ -303,6 +339,52 @@ class FormRepositoryImplTest {
         assertTrue(repository.runDataIntegrityCheck(false) is SuccessfulResult)
     }
 
+    @Test
+    fun `Should only compose again the sections of changed fields`() {
+        whenever(dataEntryRepository.list()) doReturn Flowable.just(provideTwoSectionItemList())
+        repository.fetchFormItems()
+        clearInvocations(dataEntryRepository)
+
+        repository.updateValueOnList("uid001", "valueChanged", ValueType.TEXT)
+        repository.composeList()
+
+        verifyFieldUpdated("uid001", times(1))
+        verifyFieldUpdated("uid003", never())
+    }
+
+    @Test
+    fun `Should compose again the sections targeted by new rule effects`() {
+        whenever(dataEntryRepository.list()) doReturn Flowable.just(provideTwoSectionItemList())
+        repository.fetchFormItems()
+        clearInvocations(dataEntryRepository)
+        whenever(ruleEngineHelper.evaluate(any<Set<String>>())) doReturn listOf(
+            RuleEffect(
+                "rule",
+                RuleAction(
+                    "",
+                    ProgramRuleActionType.HIDEOPTION.name,
+                    mutableMapOf(Pair("field", "uid003")),
+                ),
+            ),
+        )
+
+        repository.updateValueOnList("uid001", "valueChanged", ValueType.TEXT)
+        repository.composeList()
+
+        verifyFieldUpdated("uid001", times(1))
+        verifyFieldUpdated("uid003", times(1))
+    }
+
+    private fun verifyFieldUpdated(uid: String, mode: VerificationMode) {
+        verify(dataEntryRepository, mode).updateField(
+            argThat { this.uid == uid },
+            anyOrNull(),
+            any(),
+            any(),
+            any(),
+        )
+    }
+
     private fun mockedSections() = listOf(
         "section1",
     )
@@ -357,6 +439,33 @@ class FormRepositoryImplTest {
         selectedField = ObservableField(""),
     )
 
+    private fun provideTwoSectionItemList() = listOf(
+        section1(),
+        FieldUiModelImpl(
+            uid = "uid001",
+            layoutId = 1,
+            value = "value",
+            label = "field1",
+            valueType = ValueType.TEXT,
+            programStageSection = "section1",
+            uiEventFactory = null,
+            optionSetConfiguration = null,
+            autocompleteList = null,
+        ),
+        section2(),
+        FieldUiModelImpl(
+            uid = "uid003",
+            layoutId = 3,
+            value = "value",
+            label = "field3",
+            valueType = ValueType.TEXT,
+            programStageSection = "section2",
+            uiEventFactory = null,
+            optionSetConfiguration = null,
+            autocompleteList = null,
+        ),
+    )
+
     private fun provideEmptySectionItemList() = listOf(
         section1(),
         FieldUiModelImpl(